@@ -3,11 +3,39 @@ package cn.iocoder.common.framework.util;
 import org.springframework.util.Assert;
 
 import java.text.SimpleDateFormat;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * 时间工具类
+ *
+ * 基于 java.time 实现，时区使用 {@link ZoneId#systemDefault()} ，和 {@link Calendar} 、{@link SimpleDateFormat} 的默认行为保持一致。
+ * 1. 时、分、秒、毫秒的加减，直接使用毫秒时间戳计算，不创建 {@link Calendar}
+ * 2. 格式化使用线程安全的 {@link DateTimeFormatter} ，按照格式缓存，不用每次创建 {@link SimpleDateFormat}
+ */
 public class DateUtil {
 
+    /**
+     * 缓存的 {@link DateTimeFormatter} 数量上限。格式一般是代码中的常量，超过时说明格式是动态拼接的，不再缓存
+     */
+    private static final int FORMATTER_CACHE_MAX_SIZE = 256;
+    /**
+     * 格式与 {@link DateTimeFormatter} 的映射。{@link DateTimeFormatter} 不支持的格式，映射为 {@link #UNSUPPORTED_FORMATTER}
+     */
+    private static final ConcurrentMap<String, DateTimeFormatter> FORMATTER_CACHE = new ConcurrentHashMap<>();
+    /**
+     * 和 SimpleDateFormat 结果不一致的格式的占位，这类格式回退使用 SimpleDateFormat
+     */
+    private static final DateTimeFormatter UNSUPPORTED_FORMATTER = DateTimeFormatter.ISO_INSTANT;
+
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+    private static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+
     /**
      * 计算当期时间相差的日期
      *
@@ -31,12 +59,37 @@ public class DateUtil {
         if (amount == 0) {
             return date;
         }
-        Calendar c = Calendar.getInstance();
-        if (date != null) {
-            c.setTime(date);
+        long millis = date != null ? date.getTime() : System.currentTimeMillis();
+        switch (field) {
+            // 时、分、秒、毫秒是固定时长，和 Calendar 一样，直接按照毫秒计算
+            case Calendar.MILLISECOND:
+                return new Date(millis + amount);
+            case Calendar.SECOND:
+                return new Date(millis + amount * MILLIS_PER_SECOND);
+            case Calendar.MINUTE:
+                return new Date(millis + amount * MILLIS_PER_MINUTE);
+            case Calendar.HOUR:
+            case Calendar.HOUR_OF_DAY:
+                return new Date(millis + amount * MILLIS_PER_HOUR);
+            // 天、周、月、年不是固定时长（夏令时、月末），按照本地时间计算
+            case Calendar.DAY_OF_MONTH:
+            case Calendar.DAY_OF_YEAR:
+            case Calendar.DAY_OF_WEEK:
+                return toDate(toZonedDateTime(millis).plusDays(amount));
+            case Calendar.WEEK_OF_YEAR:
+            case Calendar.WEEK_OF_MONTH:
+            case Calendar.DAY_OF_WEEK_IN_MONTH:
+                return toDate(toZonedDateTime(millis).plusWeeks(amount));
+            case Calendar.MONTH:
+                return toDate(toZonedDateTime(millis).plusMonths(amount));
+            case Calendar.YEAR:
+                return toDate(toZonedDateTime(millis).plusYears(amount));
+            default:
+                Calendar c = Calendar.getInstance();
+                c.setTimeInMillis(millis);
+                c.add(field, amount);
+                return c.getTime();
         }
-        c.add(field, amount);
-        return c.getTime();
     }
 
     /**
@@ -48,8 +101,76 @@ public class DateUtil {
         if (date == null) {
             return "";
         }
-        // TODO 芋艿，后面改成缓存
-        return new SimpleDateFormat(pattern).format(date);
+        DateTimeFormatter formatter = getFormatter(pattern);
+        if (formatter == UNSUPPORTED_FORMATTER) {
+            return new SimpleDateFormat(pattern).format(date);
+        }
+        return formatter.withZone(ZoneId.systemDefault()).format(Instant.ofEpochMilli(date.getTime()));
+    }
+
+    private static DateTimeFormatter getFormatter(String pattern) {
+        DateTimeFormatter formatter = FORMATTER_CACHE.get(pattern);
+        if (formatter != null) {
+            return formatter;
+        }
+        formatter = buildFormatter(pattern);
+        if (FORMATTER_CACHE.size() < FORMATTER_CACHE_MAX_SIZE) {
+            FORMATTER_CACHE.putIfAbsent(pattern, formatter);
+        }
+        return formatter;
+    }
+
+    private static DateTimeFormatter buildFormatter(String pattern) {
+        if (!isFormatterCompatible(pattern)) {
+            return UNSUPPORTED_FORMATTER;
+        }
+        try {
+            return DateTimeFormatter.ofPattern(pattern).withZone(ZoneId.systemDefault());
+        } catch (IllegalArgumentException e) {
+            return UNSUPPORTED_FORMATTER;
+        }
+    }
+
+    /**
+     * 判断格式在 SimpleDateFormat 和 DateTimeFormatter 中的结果是否一致
+     *
+     * 只允许常用的数字字段：y、M（最多 2 位）、d、H、h、k、K、m、s、S（必须 3 位，即毫秒）。
+     * 其它字段，例如说 Y、u、E、a 等，两者的含义或本地化文本不同，回退使用 SimpleDateFormat
+     *
+     * @param pattern 格式
+     * @return 是否一致
+     */
+    private static boolean isFormatterCompatible(String pattern) {
+        boolean inQuote = false;
+        for (int i = 0; i < pattern.length(); ) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                inQuote = !inQuote;
+                i++;
+                continue;
+            }
+            if (inQuote) {
+                i++;
+                continue;
+            }
+            // DateTimeFormatter 的保留字符
+            if (c == '[' || c == ']' || c == '{' || c == '}' || c == '#') {
+                return false;
+            }
+            int count = 1;
+            while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+                count++;
+            }
+            i += count;
+            if (!Character.isLetter(c) || "ydHhkKms".indexOf(c) >= 0) {
+                continue;
+            }
+            if ((c == 'M' && count <= 2) || (c == 'S' && count == 3)) {
+                continue;
+            }
+            return false;
+        }
+        return true;
     }
 
     /**
@@ -62,10 +183,12 @@ public class DateUtil {
         if (date == null) {
             return null;
         }
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(date);
-        setCalender(calendar, 0, 0, 0, 0);
-        return calendar.getTime();
+        return getDayBegin(date.getTime());
+    }
+
+    private static Date getDayBegin(long millis) {
+        ZoneId zone = ZoneId.systemDefault();
+        return toDate(toLocalDate(millis, zone).atStartOfDay(zone));
     }
 
     /**
@@ -74,7 +197,7 @@ public class DateUtil {
      * @return 获得该日期的开始
      */
     public static Date getDayBegin() {
-        return getDayBegin(new Date());
+        return getDayBegin(System.currentTimeMillis());
     }
 
     /**
@@ -87,10 +210,12 @@ public class DateUtil {
         if (date == null) {
             return null;
         }
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(date);
-        setCalender(calendar, 23, 59, 59, 999);
-        return calendar.getTime();
+        return getDayEnd(date.getTime());
+    }
+
+    private static Date getDayEnd(long millis) {
+        ZoneId zone = ZoneId.systemDefault();
+        return toDate(toLocalDate(millis, zone).atTime(23, 59, 59, 999_000_000).atZone(zone));
     }
 
     /**
@@ -99,7 +224,7 @@ public class DateUtil {
      * @return 获得该日期的开始
      */
     public static Date getDayEnd() {
-        return getDayEnd(new Date());
+        return getDayEnd(System.currentTimeMillis());
     }
 
     /**
@@ -128,9 +253,9 @@ public class DateUtil {
     public static boolean isBetween(Date beginTime, Date endTime) {
         Assert.notNull(beginTime, "开始时间不能为空");
         Assert.notNull(endTime, "结束时间不能为空");
-        Date now = new Date();
-        return beginTime.getTime() <= now.getTime()
-                && now.getTime() <= endTime.getTime();
+        long now = System.currentTimeMillis();
+        return beginTime.getTime() <= now
+                && now <= endTime.getTime();
     }
 
     public static Date max(Date a, Date b) {
@@ -143,4 +268,16 @@ public class DateUtil {
         return a.compareTo(b) > 0 ? a : b;
     }
 
+    private static ZonedDateTime toZonedDateTime(long millis) {
+        return Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault());
+    }
+
+    private static LocalDate toLocalDate(long millis, ZoneId zone) {
+        return Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+    }
+
+    private static Date toDate(ZonedDateTime dateTime) {
+        return new Date(dateTime.toInstant().toEpochMilli());
+    }
+
 }
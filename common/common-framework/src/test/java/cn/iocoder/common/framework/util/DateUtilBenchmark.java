@@ -0,0 +1,105 @@
+package cn.iocoder.common.framework.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DateUtil} 的 JMH 基准测试，对比基于 {@link Calendar}、{@link SimpleDateFormat} 的旧实现
+ *
+ * 直接运行 main 方法即可，结果输出到 target/jmh-date-util.json 文件。
+ * 建议增加 -prof gc 参数运行，对比每次调用分配的内存（gc.alloc.rate.norm）。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateUtilBenchmark {
+
+    private final Date date = new Date(1_515_585_600_000L);
+
+    @Benchmark
+    public String formatLegacy() {
+        return LegacyDateUtil.format(date, "yyyyMMddHHmmss");
+    }
+
+    @Benchmark
+    public String format() {
+        return DateUtil.format(date, "yyyyMMddHHmmss");
+    }
+
+    @Benchmark
+    public Date addMinuteLegacy() {
+        return LegacyDateUtil.addDate(date, Calendar.MINUTE, 30);
+    }
+
+    @Benchmark
+    public Date addMinute() {
+        return DateUtil.addDate(date, Calendar.MINUTE, 30);
+    }
+
+    @Benchmark
+    public Date addDayLegacy() {
+        return LegacyDateUtil.addDate(date, Calendar.DAY_OF_YEAR, 7);
+    }
+
+    @Benchmark
+    public Date addDay() {
+        return DateUtil.addDate(date, Calendar.DAY_OF_YEAR, 7);
+    }
+
+    @Benchmark
+    public Date getDayBeginLegacy() {
+        return LegacyDateUtil.getDayBegin(date);
+    }
+
+    @Benchmark
+    public Date getDayBegin() {
+        return DateUtil.getDayBegin(date);
+    }
+
+    /**
+     * 旧实现，仅用于对比
+     */
+    private static class LegacyDateUtil {
+
+        private static Date addDate(Date date, int field, int amount) {
+            Calendar c = Calendar.getInstance();
+            c.setTime(date);
+            c.add(field, amount);
+            return c.getTime();
+        }
+
+        private static String format(Date date, String pattern) {
+            return new SimpleDateFormat(pattern).format(date);
+        }
+
+        private static Date getDayBegin(Date date) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTime(date);
+            DateUtil.setCalender(calendar, 0, 0, 0, 0);
+            return calendar.getTime();
+        }
+
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DateUtilBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-date-util.json")
+                .build();
+        new Runner(options).run();
+    }
+
+}
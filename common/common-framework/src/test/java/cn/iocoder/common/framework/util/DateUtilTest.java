@@ -3,6 +3,9 @@ package cn.iocoder.common.framework.util;
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 
@@ -58,4 +61,41 @@ public class DateUtilTest {
         Assert.assertEquals(30, calendar.getTime().getMinutes());
         Assert.assertEquals(50, calendar.getTime().getSeconds());
     }
+
+    @Test
+    public void testAddDateSameAsCalendar() {
+        Date date = new Date(1_515_585_600_123L);
+        int[] fields = {Calendar.MILLISECOND, Calendar.SECOND, Calendar.MINUTE, Calendar.HOUR_OF_DAY,
+                Calendar.DAY_OF_YEAR, Calendar.WEEK_OF_YEAR, Calendar.MONTH, Calendar.YEAR};
+        for (int field : fields) {
+            for (int amount : new int[]{-40, -1, 1, 31, 40}) {
+                Calendar calendar = Calendar.getInstance();
+                calendar.setTime(date);
+                calendar.add(field, amount);
+                Assert.assertEquals(calendar.getTime(), DateUtil.addDate(date, field, amount));
+            }
+        }
+    }
+
+    @Test
+    public void testFormatSameAsSimpleDateFormat() {
+        Date date = new Date(1_515_585_600_123L);
+        String[] patterns = {"yyyyMMddHHmmss", "yyyy-MM-dd HH:mm:ss.SSS", "yyyy-MM-dd HH:mm", "yy/M/d h:m:s",
+                "yyyy'年'MM'月'dd'日'", "EEE, d MMM yyyy", "YYYY-ww"};
+        for (String pattern : patterns) {
+            Assert.assertEquals(new SimpleDateFormat(pattern).format(date), DateUtil.format(date, pattern));
+        }
+    }
+
+    @Test
+    public void testGetDayBeginAndEndSameAsCalendar() {
+        Date date = new Date(1_515_585_600_123L);
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        DateUtil.setCalender(calendar, 0, 0, 0, 0);
+        Assert.assertEquals(calendar.getTime(), DateUtil.getDayBegin(date));
+        DateUtil.setCalender(calendar, 23, 59, 59, 999);
+        Assert.assertEquals(calendar.getTime(), DateUtil.getDayEnd(date));
+    }
+
 }
@@ -0,0 +1,49 @@
+package cn.iocoder.mall.id.config;
+
+import cn.iocoder.mall.id.core.SnowflakeIdGenerator;
+import cn.iocoder.mall.id.core.worker.LocalWorkerIdAssigner;
+import cn.iocoder.mall.id.core.worker.RedisWorkerIdAssigner;
+import cn.iocoder.mall.id.core.worker.WorkerIdAssigner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Configuration
+@EnableConfigurationProperties(IdProperties.class)
+public class IdAutoConfiguration {
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(IdProperties idProperties, WorkerIdAssigner workerIdAssigner) {
+        long workerId = workerIdAssigner.assign(SnowflakeIdGenerator.MAX_WORKER_ID);
+        return new SnowflakeIdGenerator(workerId, idProperties.getEpoch(), workerIdAssigner);
+    }
+
+    @Bean(destroyMethod = "release")
+    @ConditionalOnMissingBean(WorkerIdAssigner.class)
+    @ConditionalOnProperty(prefix = "mall.id", name = "worker-id-assigner", havingValue = IdProperties.WORKER_ID_ASSIGNER_LOCAL,
+            matchIfMissing = true)
+    public WorkerIdAssigner localWorkerIdAssigner(IdProperties idProperties) {
+        return new LocalWorkerIdAssigner(idProperties.getWorkerId());
+    }
+
+    @Configuration
+    @ConditionalOnClass(StringRedisTemplate.class)
+    @ConditionalOnProperty(prefix = "mall.id", name = "worker-id-assigner", havingValue = IdProperties.WORKER_ID_ASSIGNER_REDIS)
+    public static class RedisWorkerIdAssignerConfiguration {
+
+        @Bean(destroyMethod = "release")
+        @ConditionalOnMissingBean(WorkerIdAssigner.class)
+        public WorkerIdAssigner redisWorkerIdAssigner(IdProperties idProperties, StringRedisTemplate stringRedisTemplate,
+                                                      @Value("${spring.application.name}") String application) {
+            return new RedisWorkerIdAssigner(stringRedisTemplate, application,
+                    idProperties.getLeaseTime(), idProperties.getCoolDownTime());
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+package cn.iocoder.mall.id.config;
+
+import cn.iocoder.mall.id.core.SnowflakeIdGenerator;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+@ConfigurationProperties("mall.id")
+@Validated
+public class IdProperties {
+
+    /**
+     * workerId 分配方式 - 本地配置
+     */
+    public static final String WORKER_ID_ASSIGNER_LOCAL = "local";
+    /**
+     * workerId 分配方式 - Redis 租约
+     */
+    public static final String WORKER_ID_ASSIGNER_REDIS = "redis";
+
+    /**
+     * workerId 分配方式，可选 local、redis
+     */
+    @NotNull(message = "workerId 分配方式不能为空")
+    private String workerIdAssigner = WORKER_ID_ASSIGNER_LOCAL;
+    /**
+     * workerId，仅在 local 分配方式下生效，且必须配置
+     */
+    private Long workerId;
+    /**
+     * 起始时间，单位：毫秒。上线后禁止修改，否则可能生成重复的 ID
+     */
+    private Long epoch = SnowflakeIdGenerator.DEFAULT_EPOCH;
+    /**
+     * workerId 的租约时长，仅在 redis 分配方式下生效
+     */
+    private Duration leaseTime = Duration.ofSeconds(30);
+    /**
+     * workerId 释放后的冷却时长，仅在 redis 分配方式下生效
+     */
+    private Duration coolDownTime = Duration.ofSeconds(10);
+
+    public String getWorkerIdAssigner() {
+        return workerIdAssigner;
+    }
+
+    public IdProperties setWorkerIdAssigner(String workerIdAssigner) {
+        this.workerIdAssigner = workerIdAssigner;
+        return this;
+    }
+
+    public Long getWorkerId() {
+        return workerId;
+    }
+
+    public IdProperties setWorkerId(Long workerId) {
+        this.workerId = workerId;
+        return this;
+    }
+
+    public Long getEpoch() {
+        return epoch;
+    }
+
+    public IdProperties setEpoch(Long epoch) {
+        this.epoch = epoch;
+        return this;
+    }
+
+    public Duration getLeaseTime() {
+        return leaseTime;
+    }
+
+    public IdProperties setLeaseTime(Duration leaseTime) {
+        this.leaseTime = leaseTime;
+        return this;
+    }
+
+    public Duration getCoolDownTime() {
+        return coolDownTime;
+    }
+
+    public IdProperties setCoolDownTime(Duration coolDownTime) {
+        this.coolDownTime = coolDownTime;
+        return this;
+    }
+
+}
@@ -0,0 +1,142 @@
+package cn.iocoder.mall.id.core;
+
+import cn.iocoder.mall.id.core.worker.WorkerIdAssigner;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于 Snowflake 算法的 ID 生成器
+ *
+ * ID 的结构为：1 位符号位（固定为 0） + 41 位时间戳（毫秒，相对 {@link #epoch}） + 10 位机器编号 + 12 位序列号。
+ * 单个节点每毫秒最多生成 4096 个 ID，生成的 ID 单调递增、按时间有序、在 workerId 不重复的前提下全局唯一。
+ *
+ * 实现上，将「时间戳 + 序列号」合并存储在一个 {@link AtomicLong} 中，通过 CAS 无锁推进：
+ * 1. 当前时间大于上次时间时，重置为当前时间的第 0 个序列号；
+ * 2. 否则，直接在上次的基础上 +1。当序列号用尽时，会自然进位到下一毫秒，即「借用」未来的时间。
+ * 因为只增不减，所以时钟回拨时，也不会生成重复或倒序的 ID，只是在回拨期间持续借用时间，直到真实时间追上。
+ *
+ * 生成前，会校验 {@link WorkerIdAssigner#isValid()}。workerId 已经不归本节点所有时，抛出 {@link IllegalStateException}。
+ */
+public class SnowflakeIdGenerator {
+
+    /**
+     * 默认起始时间，2020-01-01 00:00:00 UTC
+     */
+    public static final long DEFAULT_EPOCH = 1577836800000L;
+
+    /**
+     * 机器编号的位数
+     */
+    public static final int WORKER_ID_BITS = 10;
+    /**
+     * 序列号的位数
+     */
+    public static final int SEQUENCE_BITS = 12;
+    /**
+     * 机器编号的最大值
+     */
+    public static final long MAX_WORKER_ID = ~(-1L << WORKER_ID_BITS);
+
+    private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
+    private static final int TIMESTAMP_SHIFT = WORKER_ID_BITS + SEQUENCE_BITS;
+
+    /**
+     * 起始时间，单位：毫秒
+     */
+    private final long epoch;
+    /**
+     * 机器编号，已经左移到对应的位置
+     */
+    private final long workerIdBits;
+    /**
+     * 状态，由「相对 epoch 的毫秒时间戳 << SEQUENCE_BITS | 序列号」组成
+     */
+    private final AtomicLong state = new AtomicLong();
+    /**
+     * workerId 的分配器，用于校验 workerId 是否仍然有效。为空时，不校验
+     */
+    private final WorkerIdAssigner workerIdAssigner;
+
+    public SnowflakeIdGenerator(long workerId) {
+        this(workerId, DEFAULT_EPOCH);
+    }
+
+    public SnowflakeIdGenerator(long workerId, long epoch) {
+        this(workerId, epoch, null);
+    }
+
+    public SnowflakeIdGenerator(long workerId, long epoch, WorkerIdAssigner workerIdAssigner) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException(String.format("workerId(%d) 必须在 [0, %d] 范围内", workerId, MAX_WORKER_ID));
+        }
+        if (epoch < 0 || epoch > System.currentTimeMillis()) {
+            throw new IllegalArgumentException(String.format("epoch(%d) 不能大于当前时间", epoch));
+        }
+        this.epoch = epoch;
+        this.workerIdBits = workerId << SEQUENCE_BITS;
+        this.workerIdAssigner = workerIdAssigner;
+    }
+
+    /**
+     * 生成下一个 ID
+     *
+     * @return ID
+     */
+    public long nextId() {
+        if (workerIdAssigner != null && !workerIdAssigner.isValid()) {
+            throw new IllegalStateException(String.format("[nextId][workerId(%d) 已经失效，停止生成 ID]", getWorkerId()));
+        }
+        long next;
+        while (true) {
+            long current = state.get();
+            long now = currentTimeMillis() - epoch;
+            next = now > (current >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : current + 1;
+            if (state.compareAndSet(current, next)) {
+                break;
+            }
+        }
+        return ((next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT) | workerIdBits | (next & SEQUENCE_MASK);
+    }
+
+    /**
+     * 生成下一个 ID，并转换成字符串
+     *
+     * @return ID
+     */
+    public String nextIdStr() {
+        return Long.toString(nextId());
+    }
+
+    /**
+     * 解析 ID 的生成时间
+     *
+     * @param id ID
+     * @return 生成时间，单位：毫秒
+     */
+    public long parseTimestamp(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + epoch;
+    }
+
+    /**
+     * 解析 ID 的机器编号
+     *
+     * @param id ID
+     * @return 机器编号
+     */
+    public static long parseWorkerId(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_WORKER_ID;
+    }
+
+    public long getWorkerId() {
+        return workerIdBits >>> SEQUENCE_BITS;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+}
@@ -0,0 +1,30 @@
+package cn.iocoder.mall.id.core.worker;
+
+/**
+ * 本地的 {@link WorkerIdAssigner} 实现类
+ *
+ * 使用配置的 workerId，适用于本地开发、单节点部署、或者由部署平台为每个节点分配唯一编号等场景。
+ * 未配置时启动失败，而不是根据 IP 等推算：推算的 workerId 无法保证唯一，会静默地生成重复的 ID 。
+ * 多节点部署、又无法为每个节点配置唯一编号时，请使用 {@link RedisWorkerIdAssigner}。
+ */
+public class LocalWorkerIdAssigner implements WorkerIdAssigner {
+
+    /**
+     * 配置的 workerId，允许为空
+     */
+    private final Long workerId;
+
+    public LocalWorkerIdAssigner(Long workerId) {
+        this.workerId = workerId;
+    }
+
+    @Override
+    public long assign(long maxWorkerId) {
+        if (workerId == null) {
+            throw new IllegalStateException("[assign][未配置 workerId，请配置 mall.id.worker-id ，"
+                    + "或者配置 mall.id.worker-id-assigner 为 redis]");
+        }
+        return workerId;
+    }
+
+}
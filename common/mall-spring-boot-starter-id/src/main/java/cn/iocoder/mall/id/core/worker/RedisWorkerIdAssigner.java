@@ -0,0 +1,150 @@
+package cn.iocoder.mall.id.core.worker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Redis 租约的 {@link WorkerIdAssigner} 实现类
+ *
+ * 1. 分配：从 0 开始，依次尝试 SET NX 对应的 workerId Key，成功则获得该 workerId 的租约；
+ * 2. 续约：定时刷新 Key 的过期时间。租约丢失（Key 已过期或被其它节点占用），或者超过租约时长未能续约成功时，
+ *    {@link #isValid()} 返回 false ，停止生成 ID ；之后每次续约时，尝试重新获得同一个 workerId 的租约，成功后恢复；
+ * 3. 释放：节点关闭时，不直接删除 Key，而是将过期时间缩短为冷却时间，避免新节点立刻复用，与本节点「借用」的未来时间戳重叠。
+ */
+public class RedisWorkerIdAssigner implements WorkerIdAssigner {
+
+    /**
+     * workerId 的 Key 模板，参数为应用名、workerId
+     */
+    private static final String KEY_TEMPLATE = "id_worker:%s:%d";
+
+    /**
+     * 续约的 Lua 脚本：只有租约仍属于自己时，才刷新过期时间
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final StringRedisTemplate stringRedisTemplate;
+    /**
+     * 应用名，不同应用之间的 workerId 相互独立
+     */
+    private final String application;
+    /**
+     * 租约时长
+     */
+    private final Duration leaseTime;
+    /**
+     * 释放后的冷却时长
+     */
+    private final Duration coolDownTime;
+    /**
+     * 租约的持有者标识
+     */
+    private final String owner = UUID.randomUUID().toString();
+
+    private ScheduledExecutorService renewExecutor;
+    private volatile String leaseKey;
+    /**
+     * 租约的过期时间，即最后一次续约成功时（按发起续约的时间计算）的过期时间
+     *
+     * 租约丢失时，设置为 0
+     */
+    private volatile long leaseExpireTime;
+
+    public RedisWorkerIdAssigner(StringRedisTemplate stringRedisTemplate, String application,
+                                 Duration leaseTime, Duration coolDownTime) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.application = application;
+        this.leaseTime = leaseTime;
+        this.coolDownTime = coolDownTime;
+    }
+
+    @Override
+    public long assign(long maxWorkerId) {
+        for (long workerId = 0; workerId <= maxWorkerId; workerId++) {
+            String key = String.format(KEY_TEMPLATE, application, workerId);
+            long now = System.currentTimeMillis();
+            Boolean success = stringRedisTemplate.opsForValue().setIfAbsent(key, owner, leaseTime);
+            if (Boolean.TRUE.equals(success)) {
+                this.leaseKey = key;
+                this.leaseExpireTime = now + leaseTime.toMillis();
+                startRenew();
+                logger.info("[assign][应用({}) 获得 workerId({}) 的租约]", application, workerId);
+                return workerId;
+            }
+        }
+        throw new IllegalStateException(String.format("[assign][应用(%s) 的 workerId 已经全部被占用]", application));
+    }
+
+    private void startRenew() {
+        renewExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "id-worker-renew");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = leaseTime.toMillis() / 3;
+        renewExecutor.scheduleWithFixedDelay(this::renew, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void renew() {
+        try {
+            long now = System.currentTimeMillis();
+            Long result = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(leaseKey),
+                    owner, String.valueOf(leaseTime.toMillis()));
+            if (result != null && result > 0) {
+                leaseExpireTime = now + leaseTime.toMillis();
+                return;
+            }
+            // 租约已经丢失，停止生成 ID ，并尝试重新获得租约。如果已被其它节点占用，等待下次重试
+            leaseExpireTime = 0;
+            Boolean success = stringRedisTemplate.opsForValue().setIfAbsent(leaseKey, owner, leaseTime);
+            if (Boolean.TRUE.equals(success)) {
+                leaseExpireTime = now + leaseTime.toMillis();
+                logger.warn("[renew][租约({}) 曾经丢失，已重新获得，恢复生成 ID]", leaseKey);
+            } else {
+                logger.error("[renew][租约({}) 已经丢失，已被其它节点占用，停止生成 ID]", leaseKey);
+            }
+        } catch (Throwable e) {
+            // 续约失败时，等待下次重试即可。租约时长是续约间隔的 3 倍，短暂的 Redis 不可用不会导致租约丢失；
+            // 超过租约时长仍未成功时，isValid 返回 false ，停止生成 ID
+            logger.error("[renew][租约({}) 续约失败]", leaseKey, e);
+        }
+    }
+
+    @Override
+    public boolean isValid() {
+        return System.currentTimeMillis() < leaseExpireTime;
+    }
+
+    @Override
+    public void release() {
+        if (renewExecutor != null) {
+            renewExecutor.shutdownNow();
+        }
+        leaseExpireTime = 0;
+        if (leaseKey == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(leaseKey),
+                    owner, String.valueOf(coolDownTime.toMillis()));
+            logger.info("[release][释放租约({})]", leaseKey);
+        } catch (Throwable e) {
+            logger.error("[release][释放租约({}) 失败，等待自然过期]", leaseKey, e);
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package cn.iocoder.mall.id.core.worker;
+
+/**
+ * 机器编号（workerId）分配器
+ *
+ * 每个节点在启动时分配一个唯一的 workerId，用于保证不同节点生成的 ID 不重复。
+ */
+public interface WorkerIdAssigner {
+
+    /**
+     * 分配 workerId
+     *
+     * @param maxWorkerId 最大的 workerId
+     * @return workerId
+     */
+    long assign(long maxWorkerId);
+
+    /**
+     * 判断分配的 workerId 当前是否仍然归本节点所有
+     *
+     * 返回 false 时，其它节点可能已经使用相同的 workerId ，此时不允许生成 ID ，避免生成重复的 ID
+     *
+     * @return 是否有效
+     */
+    default boolean isValid() {
+        return true;
+    }
+
+    /**
+     * 释放 workerId，在节点关闭时调用
+     */
+    default void release() {
+    }
+
+}
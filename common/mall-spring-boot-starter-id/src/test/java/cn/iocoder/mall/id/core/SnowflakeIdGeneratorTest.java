@@ -0,0 +1,102 @@
+package cn.iocoder.mall.id.core;
+
+import cn.iocoder.mall.id.core.worker.WorkerIdAssigner;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SnowflakeIdGeneratorTest {
+
+    @Test
+    public void testNextIdMonotonic() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        long last = -1;
+        for (int i = 0; i < 100_000; i++) {
+            long id = generator.nextId();
+            Assert.assertTrue(id > last);
+            Assert.assertEquals(1, SnowflakeIdGenerator.parseWorkerId(id));
+            last = id;
+        }
+    }
+
+    @Test
+    public void testNextIdConcurrent() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID);
+        int threads = 8, count = 50_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        AtomicBoolean ordered = new AtomicBoolean(true);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                long last = -1;
+                for (int j = 0; j < count; j++) {
+                    long id = generator.nextId();
+                    if (id <= last) {
+                        ordered.set(false);
+                    }
+                    ids.add(id);
+                    last = id;
+                }
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+        Assert.assertTrue(ordered.get());
+        Assert.assertEquals(threads * count, ids.size());
+    }
+
+    @Test
+    public void testNextIdClockBackwards() {
+        long[] now = {SnowflakeIdGenerator.DEFAULT_EPOCH + 1000};
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0) {
+            @Override
+            protected long currentTimeMillis() {
+                return now[0];
+            }
+        };
+        long id1 = generator.nextId();
+        now[0] -= 500; // 时钟回拨
+        long id2 = generator.nextId();
+        Assert.assertTrue(id2 > id1);
+        // 同一毫秒内序列号用尽，借用下一毫秒
+        for (int i = 0; i < 5000; i++) {
+            id2 = generator.nextId();
+        }
+        Assert.assertTrue(generator.parseTimestamp(id2) > generator.parseTimestamp(id1));
+    }
+
+    @Test
+    public void testNextIdWorkerIdInvalid() {
+        AtomicBoolean valid = new AtomicBoolean(true);
+        WorkerIdAssigner assigner = new WorkerIdAssigner() {
+
+            @Override
+            public long assign(long maxWorkerId) {
+                return 1;
+            }
+
+            @Override
+            public boolean isValid() {
+                return valid.get();
+            }
+
+        };
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, SnowflakeIdGenerator.DEFAULT_EPOCH, assigner);
+        long id1 = generator.nextId();
+        // 租约失效时，停止生成
+        valid.set(false);
+        try {
+            generator.nextId();
+            Assert.fail("未抛出异常");
+        } catch (IllegalStateException ignored) {
+        }
+        // 重新获得租约后，恢复生成
+        valid.set(true);
+        Assert.assertTrue(generator.nextId() > id1);
+    }
+
+}
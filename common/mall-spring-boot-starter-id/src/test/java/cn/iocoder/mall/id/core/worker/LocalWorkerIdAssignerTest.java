@@ -0,0 +1,19 @@
+package cn.iocoder.mall.id.core.worker;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LocalWorkerIdAssignerTest {
+
+    @Test
+    public void testAssign() {
+        Assert.assertEquals(3, new LocalWorkerIdAssigner(3L).assign(1023));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAssignWithoutWorkerId() {
+        // 未配置时启动失败，而不是推算可能重复的 workerId
+        new LocalWorkerIdAssigner(null).assign(1023);
+    }
+
+}
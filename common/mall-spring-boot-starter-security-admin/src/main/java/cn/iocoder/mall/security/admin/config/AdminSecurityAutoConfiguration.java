@@ -2,15 +2,21 @@ package cn.iocoder.mall.security.admin.config;
 
 import cn.iocoder.mall.security.admin.core.interceptor.AdminDemoInterceptor;
 import cn.iocoder.mall.security.admin.core.interceptor.AdminSecurityInterceptor;
+import cn.iocoder.mall.security.admin.core.permission.AdminPermissionChecker;
 import cn.iocoder.mall.web.config.CommonWebAutoConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -28,6 +34,35 @@ public class AdminSecurityAutoConfiguration implements WebMvcConfigurer {
         return new AdminSecurityProperties();
     }
 
+    // ========== 权限相关 ==========
+
+    @Bean
+    public AdminPermissionChecker adminPermissionChecker() {
+        AdminSecurityProperties properties = this.adminSecurityProperties();
+        return new AdminPermissionChecker(properties.getPermissionMatrixEnabled(), properties.getPermissionMatrixMaxAge());
+    }
+
+    /**
+     * 权限矩阵变更通知的配置类。未引入 Redis 时，权限矩阵只依赖 permissionMatrixMaxAge 过期
+     */
+    @Configuration
+    @ConditionalOnClass(RedisConnectionFactory.class)
+    @ConditionalOnBean(RedisConnectionFactory.class)
+    public static class PermissionMatrixChangeConfiguration {
+
+        @Bean
+        public RedisMessageListenerContainer permissionMatrixChangeListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                                     AdminPermissionChecker adminPermissionChecker,
+                                                                                     AdminSecurityProperties properties) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(redisConnectionFactory);
+            container.addMessageListener((message, pattern) -> adminPermissionChecker.invalidate(),
+                    new ChannelTopic(properties.getPermissionMatrixChangeChannel()));
+            return container;
+        }
+
+    }
+
     // ========== 拦截器相关 ==========
 
     @Bean
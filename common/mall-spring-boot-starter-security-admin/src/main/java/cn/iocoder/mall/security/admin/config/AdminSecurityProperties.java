@@ -2,6 +2,8 @@ package cn.iocoder.mall.security.admin.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 @ConfigurationProperties("mall.security.admin")
 public class AdminSecurityProperties {
 
@@ -28,6 +30,22 @@ public class AdminSecurityProperties {
      * 是否开启演示模式
      */
     private Boolean demo = DEFAULT_DEMO;
+    /**
+     * 是否基于权限矩阵，在本地校验权限
+     *
+     * 关闭时，每次请求都调用 PermissionRpc#checkPermission(PermissionCheckDTO) 校验
+     */
+    private Boolean permissionMatrixEnabled = true;
+    /**
+     * 权限矩阵的最大有效时长，超过后重新拉取
+     *
+     * 权限矩阵变更时，会通过 Redis Pub/Sub 通知重新拉取。该时长用于兜底通知丢失的情况
+     */
+    private Duration permissionMatrixMaxAge = Duration.ofMinutes(1);
+    /**
+     * 权限矩阵变更通知的 Redis Channel，需要和 system-service 的 RedisKeyConstants.PERMISSION_MATRIX_CHANGE 保持一致
+     */
+    private String permissionMatrixChangeChannel = "permission_matrix_change";
 
     public String[] getIgnorePaths() {
         return ignorePaths;
@@ -56,4 +74,31 @@ public class AdminSecurityProperties {
         return this;
     }
 
+    public Boolean getPermissionMatrixEnabled() {
+        return permissionMatrixEnabled;
+    }
+
+    public AdminSecurityProperties setPermissionMatrixEnabled(Boolean permissionMatrixEnabled) {
+        this.permissionMatrixEnabled = permissionMatrixEnabled;
+        return this;
+    }
+
+    public Duration getPermissionMatrixMaxAge() {
+        return permissionMatrixMaxAge;
+    }
+
+    public AdminSecurityProperties setPermissionMatrixMaxAge(Duration permissionMatrixMaxAge) {
+        this.permissionMatrixMaxAge = permissionMatrixMaxAge;
+        return this;
+    }
+
+    public String getPermissionMatrixChangeChannel() {
+        return permissionMatrixChangeChannel;
+    }
+
+    public AdminSecurityProperties setPermissionMatrixChangeChannel(String permissionMatrixChangeChannel) {
+        this.permissionMatrixChangeChannel = permissionMatrixChangeChannel;
+        return this;
+    }
+
 }
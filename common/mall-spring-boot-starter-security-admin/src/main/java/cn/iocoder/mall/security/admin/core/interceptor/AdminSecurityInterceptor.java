@@ -5,17 +5,15 @@ import cn.iocoder.common.framework.exception.GlobalException;
 import cn.iocoder.common.framework.util.CollectionUtils;
 import cn.iocoder.common.framework.util.HttpUtil;
 import cn.iocoder.common.framework.exception.util.ServiceExceptionUtil;
-import cn.iocoder.common.framework.vo.CommonResult;
 import cn.iocoder.mall.security.admin.core.context.AdminSecurityContext;
 import cn.iocoder.mall.security.admin.core.context.AdminSecurityContextHolder;
-import cn.iocoder.mall.systemservice.rpc.oauth.OAuth2Rpc;
+import cn.iocoder.mall.security.admin.core.permission.AdminPermissionChecker;
+import cn.iocoder.mall.security.core.cache.OAuth2AccessTokenCache;
 import cn.iocoder.mall.systemservice.rpc.oauth.dto.OAuth2AccessTokenRespDTO;
-import cn.iocoder.mall.systemservice.rpc.permission.PermissionRpc;
-import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionCheckDTO;
 import cn.iocoder.mall.web.core.util.CommonWebUtil;
 import cn.iocoder.security.annotations.RequiresNone;
 import cn.iocoder.security.annotations.RequiresPermissions;
-import org.apache.dubbo.config.annotation.Reference;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
 
@@ -28,10 +26,10 @@ import static cn.iocoder.mall.systemservice.enums.SystemErrorCodeConstants.OAUTH
 
 public class AdminSecurityInterceptor extends HandlerInterceptorAdapter {
 
-    @Reference(version = "${dubbo.consumer.OAuth2Rpc.version}")
-    private OAuth2Rpc oauth2Rpc;
-    @Reference(version = "${dubbo.consumer.PermissionRpc.version}")
-    private PermissionRpc permissionRpc;
+    @Autowired
+    private OAuth2AccessTokenCache oauth2AccessTokenCache;
+    @Autowired
+    private AdminPermissionChecker adminPermissionChecker;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
@@ -48,14 +46,13 @@ public class AdminSecurityInterceptor extends HandlerInterceptorAdapter {
         String accessToken = HttpUtil.obtainAuthorization(request);
         Integer adminId = null;
         if (accessToken != null) {
-            CommonResult<OAuth2AccessTokenRespDTO> checkAccessTokenResult = oauth2Rpc.checkAccessToken(accessToken);
-            checkAccessTokenResult.checkError();
+            OAuth2AccessTokenRespDTO accessTokenRespDTO = oauth2AccessTokenCache.checkAccessToken(accessToken);
             // 校验用户类型正确
-            if (!UserTypeEnum.ADMIN.getValue().equals(checkAccessTokenResult.getData().getUserType())) {
+            if (!UserTypeEnum.ADMIN.getValue().equals(accessTokenRespDTO.getUserType())) {
                 throw ServiceExceptionUtil.exception(OAUTH_USER_TYPE_ERROR);
             }
             // 获得用户编号
-            adminId = checkAccessTokenResult.getData().getUserId();
+            adminId = accessTokenRespDTO.getUserId();
             // 设置到 Request 中
             CommonWebUtil.setUserId(request, adminId);
             CommonWebUtil.setUserType(request, UserTypeEnum.ADMIN.getValue());
@@ -83,8 +80,7 @@ public class AdminSecurityInterceptor extends HandlerInterceptorAdapter {
             return;
         }
         // 权限验证
-        permissionRpc.checkPermission(new PermissionCheckDTO().setAdminId(adminId).setPermissions(Arrays.asList(permissions)))
-                .checkError();
+        adminPermissionChecker.checkPermission(adminId, Arrays.asList(permissions));
     }
 
     @Override
@@ -0,0 +1,104 @@
+package cn.iocoder.mall.security.admin.core.permission;
+
+import cn.iocoder.common.framework.exception.GlobalException;
+import cn.iocoder.common.framework.vo.CommonResult;
+import cn.iocoder.mall.systemservice.rpc.permission.PermissionRpc;
+import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionCheckDTO;
+import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionMatrixRespDTO;
+import cn.iocoder.mall.systemservice.rpc.permission.matrix.PermissionMatrix;
+import org.apache.dubbo.config.annotation.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+
+import static cn.iocoder.common.framework.exception.enums.GlobalErrorCodeConstants.FORBIDDEN;
+
+/**
+ * 管理员的权限校验器
+ *
+ * 从 system-service 拉取 {@link PermissionMatrix}，在本地通过位运算校验权限。
+ * 权限矩阵变更时，通过 {@link #invalidate()} 标记过期，下次校验时重新拉取；拉取失败时，降级调用 {@link PermissionRpc#checkPermission(PermissionCheckDTO)}。
+ */
+public class AdminPermissionChecker {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Reference(version = "${dubbo.consumer.PermissionRpc.version}")
+    private PermissionRpc permissionRpc;
+
+    /**
+     * 是否基于权限矩阵，在本地校验权限
+     */
+    private final boolean permissionMatrixEnabled;
+    /**
+     * 权限矩阵的最大有效时长，单位：毫秒
+     */
+    private final long permissionMatrixMaxAge;
+
+    /**
+     * 权限矩阵
+     */
+    private volatile PermissionMatrix permissionMatrix;
+    /**
+     * 权限矩阵的拉取时间。为 0 时，表示已过期
+     */
+    private volatile long permissionMatrixLoadTime;
+
+    public AdminPermissionChecker(boolean permissionMatrixEnabled, Duration permissionMatrixMaxAge) {
+        this.permissionMatrixEnabled = permissionMatrixEnabled;
+        this.permissionMatrixMaxAge = permissionMatrixMaxAge.toMillis();
+    }
+
+    /**
+     * 校验管理员是否拥有指定权限。
+     *
+     * 如果没有，则抛出 {@link GlobalException} 异常
+     *
+     * @param adminId 管理员编号
+     * @param permissions 权限标识
+     */
+    public void checkPermission(Integer adminId, Collection<String> permissions) {
+        PermissionMatrix permissionMatrix = permissionMatrixEnabled ? getPermissionMatrix() : null;
+        if (permissionMatrix == null) {
+            permissionRpc.checkPermission(new PermissionCheckDTO().setAdminId(adminId).setPermissions(permissions))
+                    .checkError();
+            return;
+        }
+        if (!permissionMatrix.hasPermission(adminId, permissions)) {
+            throw new GlobalException(FORBIDDEN);
+        }
+    }
+
+    /**
+     * 标记权限矩阵过期，下次校验时重新拉取
+     */
+    public void invalidate() {
+        permissionMatrixLoadTime = 0;
+    }
+
+    private PermissionMatrix getPermissionMatrix() {
+        if (System.currentTimeMillis() - permissionMatrixLoadTime < permissionMatrixMaxAge) {
+            return permissionMatrix;
+        }
+        synchronized (this) {
+            if (System.currentTimeMillis() - permissionMatrixLoadTime < permissionMatrixMaxAge) {
+                return permissionMatrix;
+            }
+            try {
+                CommonResult<PermissionMatrixRespDTO> getPermissionMatrixResult = permissionRpc.getPermissionMatrix();
+                getPermissionMatrixResult.checkError();
+                permissionMatrix = PermissionMatrix.build(getPermissionMatrixResult.getData());
+                logger.info("[getPermissionMatrix][拉取权限矩阵({}) 完成]", permissionMatrix.getVersion());
+            } catch (Exception e) {
+                // 拉取失败时，清空权限矩阵，降级为远程校验。同时也更新拉取时间，避免每个请求都重试拉取
+                permissionMatrix = null;
+                logger.error("[getPermissionMatrix][拉取权限矩阵失败]", e);
+            }
+            permissionMatrixLoadTime = System.currentTimeMillis();
+            return permissionMatrix;
+        }
+    }
+
+}
@@ -0,0 +1,186 @@
+package cn.iocoder.mall.security.core.cache;
+
+import cn.iocoder.common.framework.exception.util.ServiceExceptionUtil;
+import cn.iocoder.common.framework.vo.CommonResult;
+import cn.iocoder.mall.systemservice.rpc.oauth.OAuth2Rpc;
+import cn.iocoder.mall.systemservice.rpc.oauth.dto.OAuth2AccessTokenRespDTO;
+import cn.iocoder.mall.systemservice.rpc.oauth.token.OAuth2SignedAccessTokenCodec;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.apache.dubbo.config.annotation.Reference;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static cn.iocoder.mall.systemservice.enums.SystemErrorCodeConstants.*;
+
+/**
+ * 访问令牌的本地缓存
+ *
+ * 缓存 {@link OAuth2Rpc#checkAccessToken(String)} 成功的结果，每个访问令牌的缓存时长，不超过它的剩余有效时长。
+ * 访问令牌被删除时，通过 {@link OAuth2AccessTokenInvalidateListener} 接收失效通知，移除对应的缓存。
+ *
+ * 配置签名密钥后，签名访问令牌直接在本地校验签名与过期时间，无需调用 system-service；
+ * 被删除的签名访问令牌，记录在本地的吊销名单中，直到它过期。
+ * 吊销名单由 {@link OAuth2AccessTokenRevokedLoader} 定期从 Redis 同步，同步延迟过大时，签名访问令牌也改为调用 system-service 校验。
+ * 未引入 Redis 时，吊销名单无法同步，签名访问令牌始终调用 system-service 校验，避免登出、吊销后的访问令牌在过期前仍然可用。
+ */
+public class OAuth2AccessTokenCache {
+
+    @Reference(version = "${dubbo.consumer.OAuth2Rpc.version}")
+    private OAuth2Rpc oauth2Rpc;
+
+    /**
+     * 本地缓存。为空时，表示不开启缓存
+     *
+     * key：访问令牌
+     */
+    private final Cache<String, OAuth2AccessTokenRespDTO> cache;
+
+    /**
+     * 签名访问令牌的编解码器。为空时，表示不在本地校验签名访问令牌
+     */
+    private final OAuth2SignedAccessTokenCodec signedAccessTokenCodec;
+    /**
+     * 已吊销的签名访问令牌，在访问令牌过期时移除
+     *
+     * key：访问令牌
+     * value：过期时间
+     */
+    private final Cache<String, Long> revokedAccessTokens = Caffeine.newBuilder()
+            .expireAfter(new Expiry<String, Long>() {
+
+                @Override
+                public long expireAfterCreate(String key, Long expiresTime, long currentTime) {
+                    return Math.max(0, TimeUnit.MILLISECONDS.toNanos(expiresTime - System.currentTimeMillis()));
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, Long expiresTime, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+
+                @Override
+                public long expireAfterRead(String key, Long expiresTime, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+
+            }).build();
+    /**
+     * 吊销名单的最大同步延迟，单位：毫秒。为 0 时，表示吊销名单未开启同步，例如说未引入 Redis，此时吊销名单始终视为过期
+     */
+    private volatile long revokedMaxStalenessMillis;
+    /**
+     * 吊销名单最后同步成功的时间，单位：毫秒
+     */
+    private volatile long revokedSyncTime;
+
+    public OAuth2AccessTokenCache(boolean enabled, long maximumSize, Duration maxTtl, String signSecret) {
+        this.signedAccessTokenCodec = signSecret != null ? new OAuth2SignedAccessTokenCodec(signSecret) : null;
+        if (!enabled) {
+            this.cache = null;
+            return;
+        }
+        long maxTtlNanos = maxTtl.toNanos();
+        this.cache = Caffeine.newBuilder().maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, OAuth2AccessTokenRespDTO>() {
+
+                    @Override
+                    public long expireAfterCreate(String key, OAuth2AccessTokenRespDTO value, long currentTime) {
+                        long remainNanos = TimeUnit.MILLISECONDS.toNanos(value.getExpiresTime().getTime() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(maxTtlNanos, remainNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, OAuth2AccessTokenRespDTO value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, OAuth2AccessTokenRespDTO value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                }).build();
+    }
+
+    /**
+     * 校验访问令牌，优先从本地缓存中获取
+     *
+     * 校验失败时，抛出 ServiceException 异常，且不会被缓存
+     *
+     * @param accessToken 访问令牌
+     * @return 访问令牌信息
+     */
+    public OAuth2AccessTokenRespDTO checkAccessToken(String accessToken) {
+        // 吊销名单同步延迟过大时，无法确认签名访问令牌是否被吊销，和不透明访问令牌一样调用 system-service 校验
+        if (signedAccessTokenCodec != null && OAuth2SignedAccessTokenCodec.isSigned(accessToken) && !isRevokedStale()) {
+            return checkSignedAccessToken(accessToken);
+        }
+        if (cache == null) {
+            return loadAccessToken(accessToken);
+        }
+        // 相同访问令牌的并发请求，只会发起一次 RPC 调用
+        return cache.get(accessToken, this::loadAccessToken);
+    }
+
+    /**
+     * 移除访问令牌的本地缓存
+     *
+     * @param accessToken 访问令牌
+     */
+    public void invalidate(String accessToken) {
+        if (cache != null) {
+            cache.invalidate(accessToken);
+        }
+        // 签名访问令牌，需要加入吊销名单
+        if (signedAccessTokenCodec != null && OAuth2SignedAccessTokenCodec.isSigned(accessToken)) {
+            OAuth2AccessTokenRespDTO accessTokenDTO = signedAccessTokenCodec.decode(accessToken);
+            if (accessTokenDTO != null) {
+                revokedAccessTokens.put(accessToken, accessTokenDTO.getExpiresTime().getTime());
+            }
+        }
+    }
+
+    /**
+     * 开启吊销名单的同步延迟校验。在首次同步成功之前，吊销名单视为过期
+     *
+     * @param maxStaleness 最大同步延迟
+     */
+    public void enableRevokedSyncCheck(Duration maxStaleness) {
+        this.revokedMaxStalenessMillis = maxStaleness.toMillis();
+    }
+
+    /**
+     * 标记吊销名单同步成功
+     */
+    public void markRevokedSynced() {
+        this.revokedSyncTime = System.currentTimeMillis();
+    }
+
+    private boolean isRevokedStale() {
+        return revokedMaxStalenessMillis <= 0 || System.currentTimeMillis() - revokedSyncTime > revokedMaxStalenessMillis;
+    }
+
+    private OAuth2AccessTokenRespDTO checkSignedAccessToken(String accessToken) {
+        OAuth2AccessTokenRespDTO accessTokenDTO = signedAccessTokenCodec.decode(accessToken);
+        if (accessTokenDTO == null) { // 签名不正确
+            throw ServiceExceptionUtil.exception(OAUTH2_ACCESS_TOKEN_NOT_FOUND);
+        }
+        if (accessTokenDTO.getExpiresTime().getTime() < System.currentTimeMillis()) { // 已过期
+            throw ServiceExceptionUtil.exception(OAUTH2_ACCESS_TOKEN_TOKEN_EXPIRED);
+        }
+        if (revokedAccessTokens.getIfPresent(accessToken) != null) { // 已吊销
+            throw ServiceExceptionUtil.exception(OAUTH2_ACCESS_TOKEN_INVALID);
+        }
+        return accessTokenDTO;
+    }
+
+    private OAuth2AccessTokenRespDTO loadAccessToken(String accessToken) {
+        CommonResult<OAuth2AccessTokenRespDTO> checkAccessTokenResult = oauth2Rpc.checkAccessToken(accessToken);
+        checkAccessTokenResult.checkError();
+        return checkAccessTokenResult.getData();
+    }
+
+}
@@ -0,0 +1,32 @@
+package cn.iocoder.mall.security.core.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 访问令牌失效通知的监听器
+ *
+ * system-service 删除访问令牌后，会通过 Redis Pub/Sub 发布被删除的访问令牌，这里移除对应的本地缓存
+ */
+public class OAuth2AccessTokenInvalidateListener implements MessageListener {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final OAuth2AccessTokenCache oauth2AccessTokenCache;
+
+    public OAuth2AccessTokenInvalidateListener(OAuth2AccessTokenCache oauth2AccessTokenCache) {
+        this.oauth2AccessTokenCache = oauth2AccessTokenCache;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String accessToken = new String(message.getBody(), StandardCharsets.UTF_8);
+        oauth2AccessTokenCache.invalidate(accessToken);
+        logger.debug("[onMessage][移除访问令牌({}) 的本地缓存]", accessToken);
+    }
+
+}
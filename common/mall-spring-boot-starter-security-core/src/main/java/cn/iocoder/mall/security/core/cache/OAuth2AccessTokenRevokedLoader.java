@@ -0,0 +1,75 @@
+package cn.iocoder.mall.security.core.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已吊销的签名访问令牌的加载器
+ *
+ * Redis Pub/Sub 只能收到订阅之后的失效通知，并且通知可能丢失，所以在应用启动完成时，以及之后定期，
+ * 从 Redis 全量加载尚未过期的已吊销访问令牌。
+ * 加载失败时（例如说 Redis 不可用），超过最大同步延迟后，{@link OAuth2AccessTokenCache} 改为调用 system-service 校验签名访问令牌
+ */
+public class OAuth2AccessTokenRevokedLoader implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final StringRedisTemplate redisTemplate;
+    private final OAuth2AccessTokenCache oauth2AccessTokenCache;
+    private final String revokedKey;
+    private final Duration syncPeriod;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "oauth2-access-token-revoked-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OAuth2AccessTokenRevokedLoader(StringRedisTemplate redisTemplate, OAuth2AccessTokenCache oauth2AccessTokenCache,
+                                          String revokedKey, Duration syncPeriod, Duration maxStaleness) {
+        this.redisTemplate = redisTemplate;
+        this.oauth2AccessTokenCache = oauth2AccessTokenCache;
+        this.revokedKey = revokedKey;
+        this.syncPeriod = syncPeriod;
+        // 在首次加载成功之前，吊销名单视为过期
+        oauth2AccessTokenCache.enableRevokedSyncCheck(maxStaleness);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        // 首次立即加载，之后定期加载
+        executor.scheduleWithFixedDelay(this::loadRevokedAccessTokens, 0, syncPeriod.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 从 Redis 全量加载尚未过期的已吊销访问令牌。已在吊销名单中的访问令牌，重复加入不影响
+     */
+    void loadRevokedAccessTokens() {
+        try {
+            Set<String> accessTokens = redisTemplate.opsForZSet().rangeByScore(revokedKey, System.currentTimeMillis(), Double.MAX_VALUE);
+            if (accessTokens != null) {
+                accessTokens.forEach(oauth2AccessTokenCache::invalidate);
+            }
+            oauth2AccessTokenCache.markRevokedSynced();
+            logger.debug("[loadRevokedAccessTokens][加载已吊销的访问令牌({}) 个]", accessTokens != null ? accessTokens.size() : 0);
+        } catch (Exception e) {
+            logger.error("[loadRevokedAccessTokens][加载已吊销的访问令牌失败]", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,57 @@
+package cn.iocoder.mall.security.core.config;
+
+import cn.iocoder.mall.security.core.cache.OAuth2AccessTokenCache;
+import cn.iocoder.mall.security.core.cache.OAuth2AccessTokenInvalidateListener;
+import cn.iocoder.mall.security.core.cache.OAuth2AccessTokenRevokedLoader;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+@AutoConfigureAfter(name = "org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration") // 保证 RedisConnectionFactory 已经创建
+@EnableConfigurationProperties(SecurityCoreProperties.class)
+public class SecurityCoreAutoConfiguration {
+
+    @Bean
+    public OAuth2AccessTokenCache oauth2AccessTokenCache(SecurityCoreProperties properties) {
+        return new OAuth2AccessTokenCache(properties.getEnabled(), properties.getMaximumSize(), properties.getMaxTtl(),
+                properties.getSignSecret());
+    }
+
+    /**
+     * 访问令牌失效通知的配置类。未引入 Redis 时，本地缓存只依赖 maxTtl 过期
+     */
+    @Configuration
+    @ConditionalOnClass(RedisConnectionFactory.class)
+    @ConditionalOnBean(RedisConnectionFactory.class)
+    public static class OAuth2AccessTokenInvalidateConfiguration {
+
+        @Bean
+        public RedisMessageListenerContainer oauth2AccessTokenInvalidateListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                                         OAuth2AccessTokenCache oauth2AccessTokenCache,
+                                                                                         SecurityCoreProperties properties) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(redisConnectionFactory);
+            container.addMessageListener(new OAuth2AccessTokenInvalidateListener(oauth2AccessTokenCache),
+                    new ChannelTopic(properties.getInvalidateChannel()));
+            return container;
+        }
+
+        @Bean
+        public OAuth2AccessTokenRevokedLoader oauth2AccessTokenRevokedLoader(RedisConnectionFactory redisConnectionFactory,
+                                                                             OAuth2AccessTokenCache oauth2AccessTokenCache,
+                                                                             SecurityCoreProperties properties) {
+            return new OAuth2AccessTokenRevokedLoader(new StringRedisTemplate(redisConnectionFactory), oauth2AccessTokenCache,
+                    properties.getRevokedKey(), properties.getRevokedSyncPeriod(), properties.getRevokedMaxStaleness());
+        }
+
+    }
+
+}
@@ -0,0 +1,133 @@
+package cn.iocoder.mall.security.core.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+@ConfigurationProperties("mall.security.token-cache")
+@Validated
+public class SecurityCoreProperties {
+
+    /**
+     * 是否开启访问令牌的本地缓存
+     */
+    @NotNull(message = "是否开启访问令牌的本地缓存不能为空")
+    private Boolean enabled = true;
+    /**
+     * 本地缓存的最大访问令牌数量
+     */
+    @NotNull(message = "本地缓存的最大数量不能为空")
+    private Long maximumSize = 10000L;
+    /**
+     * 本地缓存的最大有效时长
+     *
+     * 实际有效时长，取它与访问令牌剩余有效时长的较小值。
+     * 即使 Redis Pub/Sub 的失效通知丢失，被删除的访问令牌最多也只会在本地缓存中多存活该时长
+     */
+    @NotNull(message = "本地缓存的最大有效时长不能为空")
+    private Duration maxTtl = Duration.ofMinutes(5);
+    /**
+     * 访问令牌失效通知的 Redis Channel，需要和 system-service 的 RedisKeyConstants.OAUTH2_ACCESS_TOKEN_INVALIDATE 保持一致
+     */
+    @NotNull(message = "访问令牌失效通知的 Channel 不能为空")
+    private String invalidateChannel = "oauth2_access_token_invalidate";
+    /**
+     * 签名访问令牌的密钥，需要和 system-service 的 biz.access-token-sign-secret 保持一致
+     *
+     * 为空时，不在本地校验签名访问令牌，统一调用 system-service 校验。
+     * 本地校验依赖从 Redis 同步的吊销名单，所以未引入 Redis 时，即使配置了密钥，也统一调用 system-service 校验
+     */
+    private String signSecret;
+    /**
+     * 已吊销的签名访问令牌的 Redis Key，需要和 system-service 的 RedisKeyConstants.OAUTH2_ACCESS_TOKEN_REVOKED 保持一致
+     */
+    @NotNull(message = "已吊销的签名访问令牌的 Key 不能为空")
+    private String revokedKey = "oauth2_access_token_revoked";
+    /**
+     * 从 Redis 全量同步已吊销的签名访问令牌的周期，用于补偿丢失的失效通知
+     */
+    @NotNull(message = "同步已吊销的签名访问令牌的周期不能为空")
+    private Duration revokedSyncPeriod = Duration.ofSeconds(30);
+    /**
+     * 已吊销的签名访问令牌的最大同步延迟
+     *
+     * 超过该时长未同步成功时（例如说启动时 Redis 不可用），无法确认签名访问令牌是否被吊销，改为调用 system-service 校验
+     */
+    @NotNull(message = "已吊销的签名访问令牌的最大同步延迟不能为空")
+    private Duration revokedMaxStaleness = Duration.ofMinutes(2);
+
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public SecurityCoreProperties setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public Long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public SecurityCoreProperties setMaximumSize(Long maximumSize) {
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    public Duration getMaxTtl() {
+        return maxTtl;
+    }
+
+    public SecurityCoreProperties setMaxTtl(Duration maxTtl) {
+        this.maxTtl = maxTtl;
+        return this;
+    }
+
+    public String getInvalidateChannel() {
+        return invalidateChannel;
+    }
+
+    public SecurityCoreProperties setInvalidateChannel(String invalidateChannel) {
+        this.invalidateChannel = invalidateChannel;
+        return this;
+    }
+
+    public String getSignSecret() {
+        return signSecret;
+    }
+
+    public SecurityCoreProperties setSignSecret(String signSecret) {
+        this.signSecret = signSecret;
+        return this;
+    }
+
+    public String getRevokedKey() {
+        return revokedKey;
+    }
+
+    public SecurityCoreProperties setRevokedKey(String revokedKey) {
+        this.revokedKey = revokedKey;
+        return this;
+    }
+
+    public Duration getRevokedSyncPeriod() {
+        return revokedSyncPeriod;
+    }
+
+    public SecurityCoreProperties setRevokedSyncPeriod(Duration revokedSyncPeriod) {
+        this.revokedSyncPeriod = revokedSyncPeriod;
+        return this;
+    }
+
+    public Duration getRevokedMaxStaleness() {
+        return revokedMaxStaleness;
+    }
+
+    public SecurityCoreProperties setRevokedMaxStaleness(Duration revokedMaxStaleness) {
+        this.revokedMaxStaleness = revokedMaxStaleness;
+        return this;
+    }
+
+}
@@ -3,15 +3,14 @@ package cn.iocoder.mall.security.user.core.interceptor;
 import cn.iocoder.common.framework.enums.UserTypeEnum;
 import cn.iocoder.common.framework.exception.util.ServiceExceptionUtil;
 import cn.iocoder.common.framework.util.HttpUtil;
-import cn.iocoder.common.framework.vo.CommonResult;
+import cn.iocoder.mall.security.core.cache.OAuth2AccessTokenCache;
 import cn.iocoder.mall.security.user.core.context.UserSecurityContext;
 import cn.iocoder.mall.security.user.core.context.UserSecurityContextHolder;
-import cn.iocoder.mall.systemservice.rpc.oauth.OAuth2Rpc;
 import cn.iocoder.mall.systemservice.rpc.oauth.dto.OAuth2AccessTokenRespDTO;
 import cn.iocoder.mall.web.core.util.CommonWebUtil;
 import cn.iocoder.security.annotations.RequiresAuthenticate;
 import cn.iocoder.security.annotations.RequiresPermissions;
-import org.apache.dubbo.config.annotation.Reference;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
 
@@ -23,8 +22,8 @@ import static cn.iocoder.mall.systemservice.enums.SystemErrorCodeConstants.OAUTH
 
 public class UserSecurityInterceptor extends HandlerInterceptorAdapter {
 
-    @Reference(version = "${dubbo.consumer.OAuth2Rpc.version}")
-    private OAuth2Rpc oauth2Rpc;
+    @Autowired
+    private OAuth2AccessTokenCache oauth2AccessTokenCache;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
@@ -39,14 +38,13 @@ public class UserSecurityInterceptor extends HandlerInterceptorAdapter {
         String accessToken = HttpUtil.obtainAuthorization(request);
         Integer userId = null;
         if (accessToken != null) {
-            CommonResult<OAuth2AccessTokenRespDTO> checkAccessTokenResult = oauth2Rpc.checkAccessToken(accessToken);
-            checkAccessTokenResult.checkError();
+            OAuth2AccessTokenRespDTO accessTokenRespDTO = oauth2AccessTokenCache.checkAccessToken(accessToken);
             // 校验用户类型正确
-            if (!UserTypeEnum.USER.getValue().equals(checkAccessTokenResult.getData().getUserType())) {
+            if (!UserTypeEnum.USER.getValue().equals(accessTokenRespDTO.getUserType())) {
                 throw ServiceExceptionUtil.exception(OAUTH_USER_TYPE_ERROR);
             }
             // 获得用户编号
-            userId = checkAccessTokenResult.getData().getUserId();
+            userId = accessTokenRespDTO.getUserId();
             // 设置到 Request 中
             CommonWebUtil.setUserId(request, userId);
             CommonWebUtil.setUserType(request, UserTypeEnum.USER.getValue());
@@ -0,0 +1,89 @@
+package cn.iocoder.mall.web.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("mall.web.access-log")
+public class AccessLogProperties {
+
+    /**
+     * 缓冲区大小，会向上取整到 2 的幂
+     */
+    private int queueCapacity = 8192;
+    /**
+     * 每批投递的最大数量
+     */
+    private int batchSize = 200;
+    /**
+     * 未攒满一批时，最长等待多久投递
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+    /**
+     * 未攒满一批时，投递线程每轮的等待时间
+     */
+    private Duration idleWait = Duration.ofMillis(50);
+    /**
+     * 堆积达到缓冲区的该比例时，开始采样
+     */
+    private double overloadThreshold = 0.8D;
+    /**
+     * 采样时，成功的访问日志的保留比例
+     */
+    private double overloadSampleRate = 0.1D;
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public AccessLogProperties setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public AccessLogProperties setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public AccessLogProperties setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+    public Duration getIdleWait() {
+        return idleWait;
+    }
+
+    public AccessLogProperties setIdleWait(Duration idleWait) {
+        this.idleWait = idleWait;
+        return this;
+    }
+
+    public double getOverloadThreshold() {
+        return overloadThreshold;
+    }
+
+    public AccessLogProperties setOverloadThreshold(double overloadThreshold) {
+        this.overloadThreshold = overloadThreshold;
+        return this;
+    }
+
+    public double getOverloadSampleRate() {
+        return overloadSampleRate;
+    }
+
+    public AccessLogProperties setOverloadSampleRate(double overloadSampleRate) {
+        this.overloadSampleRate = overloadSampleRate;
+        return this;
+    }
+
+}
@@ -1,5 +1,6 @@
 package cn.iocoder.mall.web.config;
 
+import cn.iocoder.mall.web.core.accesslog.AccessLogCollector;
 import cn.iocoder.mall.web.core.handler.GlobalExceptionHandler;
 import cn.iocoder.mall.web.core.handler.GlobalResponseBodyHandler;
 import cn.iocoder.mall.web.core.interceptor.AccessLogInterceptor;
@@ -13,6 +14,7 @@ import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,6 +29,7 @@ import java.util.List;
 
 @Configuration
 @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@EnableConfigurationProperties(AccessLogProperties.class)
 public class CommonWebAutoConfiguration implements WebMvcConfigurer {
 
     private Logger logger = LoggerFactory.getLogger(getClass());
@@ -47,6 +50,13 @@ public class CommonWebAutoConfiguration implements WebMvcConfigurer {
 
     // ========== 拦截器相关 ==========
 
+    @Bean
+    @ConditionalOnClass(name = {"cn.iocoder.mall.systemservice.rpc.systemlog.SystemExceptionLogRpc", "org.apache.dubbo.config.annotation.Reference"})
+    @ConditionalOnMissingBean(AccessLogCollector.class)
+    public AccessLogCollector accessLogCollector(AccessLogProperties accessLogProperties) {
+        return new AccessLogCollector(accessLogProperties);
+    }
+
     @Bean
     @ConditionalOnClass(name = {"cn.iocoder.mall.systemservice.rpc.systemlog.SystemExceptionLogRpc", "org.apache.dubbo.config.annotation.Reference"})
     @ConditionalOnMissingBean(AccessLogInterceptor.class)
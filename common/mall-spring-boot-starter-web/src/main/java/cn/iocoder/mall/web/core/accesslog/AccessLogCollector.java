@@ -0,0 +1,153 @@
+package cn.iocoder.mall.web.core.accesslog;
+
+import cn.iocoder.mall.systemservice.rpc.systemlog.SystemAccessLogRpc;
+import cn.iocoder.mall.systemservice.rpc.systemlog.dto.SystemAccessLogCreateDTO;
+import cn.iocoder.mall.web.config.AccessLogProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.dubbo.config.annotation.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 访问日志收集器
+ *
+ * 请求线程只负责将访问日志放入 {@link AccessLogRingBuffer}，由后台的投递线程攒批后调用
+ * {@link SystemAccessLogRpc#createSystemAccessLogs(List)} 批量写入，避免每个请求都发起一次 RPC。
+ *
+ * 过载保护：
+ * 1. 堆积超过 {@link AccessLogProperties#getOverloadThreshold()} 时，成功的访问日志按
+ *    {@link AccessLogProperties#getOverloadSampleRate()} 采样，失败的访问日志始终保留
+ * 2. 缓冲区满时直接丢弃
+ * 丢弃数量通过 mall.web.access-log.dropped 指标记录，堆积数量通过 mall.web.access-log.queue.depth 指标记录
+ */
+public class AccessLogCollector {
+
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Reference(version = "${dubbo.consumer.SystemAccessLogRpc.version}")
+    private SystemAccessLogRpc systemAccessLogRpc;
+
+    private final AccessLogProperties properties;
+    private final AccessLogRingBuffer<SystemAccessLogCreateDTO> buffer;
+    /**
+     * 触发采样的堆积数量
+     */
+    private final int overloadSize;
+
+    private final Counter droppedFullCounter;
+    private final Counter droppedSampledCounter;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+
+    private volatile boolean running;
+    private Thread shipper;
+
+    public AccessLogCollector(AccessLogProperties properties) {
+        this.properties = properties;
+        this.buffer = new AccessLogRingBuffer<>(properties.getQueueCapacity());
+        this.overloadSize = (int) (buffer.capacity() * properties.getOverloadThreshold());
+        this.droppedFullCounter = Metrics.counter("mall.web.access-log.dropped", "reason", "full");
+        this.droppedSampledCounter = Metrics.counter("mall.web.access-log.dropped", "reason", "sampled");
+        this.sentCounter = Metrics.counter("mall.web.access-log.sent");
+        this.failedCounter = Metrics.counter("mall.web.access-log.failed");
+        Metrics.gauge("mall.web.access-log.queue.depth", buffer, AccessLogRingBuffer::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        shipper = new Thread(this::run, "access-log-shipper");
+        shipper.setDaemon(true);
+        shipper.start();
+        logger.info("[start][访问日志收集器启动，缓冲区大小({}) 批量大小({})]", buffer.capacity(), properties.getBatchSize());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (shipper != null) {
+            shipper.interrupt();
+            shipper.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * 添加访问日志，不会阻塞调用线程
+     *
+     * @param accessLog 访问日志
+     * @return 是否添加成功
+     */
+    public boolean collect(SystemAccessLogCreateDTO accessLog) {
+        if (isSampledOut(accessLog)) {
+            droppedSampledCounter.increment();
+            return false;
+        }
+        if (!buffer.offer(accessLog)) {
+            droppedFullCounter.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isSampledOut(SystemAccessLogCreateDTO accessLog) {
+        if (buffer.size() < overloadSize) {
+            return false;
+        }
+        // 失败的访问日志用于排查问题，始终保留
+        if (accessLog.getErrorCode() != null && accessLog.getErrorCode() != 0) {
+            return false;
+        }
+        return ThreadLocalRandom.current().nextDouble() >= properties.getOverloadSampleRate();
+    }
+
+    private void run() {
+        int batchSize = properties.getBatchSize();
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        List<SystemAccessLogCreateDTO> batch = new ArrayList<>(batchSize);
+        long lastFlushTime = System.nanoTime();
+        while (running) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            if (batch.size() >= batchSize
+                    || (!batch.isEmpty() && System.nanoTime() - lastFlushTime >= flushIntervalNanos)) {
+                ship(batch);
+                lastFlushTime = System.nanoTime();
+                continue;
+            }
+            // 没有攒满一批，稍后再取，避免空转
+            try {
+                TimeUnit.MILLISECONDS.sleep(properties.getIdleWait().toMillis());
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        // 关闭前，投递剩余的访问日志
+        while (buffer.drainTo(batch, batchSize - batch.size()) > 0 || !batch.isEmpty()) {
+            ship(batch);
+        }
+    }
+
+    private void ship(List<SystemAccessLogCreateDTO> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            systemAccessLogRpc.createSystemAccessLogs(batch).checkError();
+            sentCounter.increment(batch.size());
+        } catch (Throwable th) {
+            failedCounter.increment(batch.size());
+            logger.error("[ship][批量插入访问日志({} 条) 发生异常({})", batch.size(), ExceptionUtils.getRootCauseMessage(th));
+        } finally {
+            batch.clear();
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package cn.iocoder.mall.web.core.accesslog;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 访问日志的无锁环形缓冲区
+ *
+ * 多生产者（请求线程）、单消费者（投递线程）模型：
+ * 1. 生产者通过 CAS 抢占 tail 位置后写入槽位，缓冲区满时直接返回 false，不会阻塞请求线程
+ * 2. 消费者按 head 顺序读取槽位，读到 null 说明生产者已抢占但尚未写入，等待下一轮读取即可
+ *
+ * @param <E> 元素类型
+ */
+public class AccessLogRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> buffer;
+    private final int mask;
+    private final int capacity;
+
+    /**
+     * 下一个写入位置，生产者之间通过 CAS 竞争
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * 下一个读取位置，仅消费者线程修改
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    public AccessLogRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity 必须大于 0");
+        }
+        // 向上取整到 2 的幂，使用位运算计算槽位
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.capacity = size;
+    }
+
+    /**
+     * 添加元素
+     *
+     * @param element 元素
+     * @return 是否添加成功。缓冲区已满时返回 false
+     */
+    public boolean offer(E element) {
+        long t;
+        do {
+            t = tail.get();
+            if (t - head.get() >= capacity) {
+                return false;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        buffer.lazySet((int) t & mask, element);
+        return true;
+    }
+
+    /**
+     * 批量取出元素，仅允许单个消费者线程调用
+     *
+     * @param target 取出的元素添加到的数组
+     * @param maxElements 最多取出的数量
+     * @return 实际取出的数量
+     */
+    public int drainTo(List<E> target, int maxElements) {
+        long h = head.get();
+        int count = 0;
+        while (count < maxElements) {
+            int index = (int) h & mask;
+            E element = buffer.get(index);
+            if (element == null) {
+                break;
+            }
+            buffer.lazySet(index, null);
+            target.add(element);
+            h++;
+            count++;
+        }
+        if (count > 0) {
+            head.set(h);
+        }
+        return count;
+    }
+
+    /**
+     * @return 当前堆积的数量
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+}
@@ -3,16 +3,15 @@ package cn.iocoder.mall.web.core.interceptor;
 import cn.iocoder.common.framework.util.HttpUtil;
 import cn.iocoder.common.framework.util.MallUtils;
 import cn.iocoder.common.framework.vo.CommonResult;
-import cn.iocoder.mall.systemservice.rpc.systemlog.SystemAccessLogRpc;
 import cn.iocoder.mall.systemservice.rpc.systemlog.dto.SystemAccessLogCreateDTO;
+import cn.iocoder.mall.web.core.accesslog.AccessLogCollector;
 import cn.iocoder.mall.web.core.util.CommonWebUtil;
 import com.alibaba.fastjson.JSON;
 import org.apache.commons.lang3.exception.ExceptionUtils;
-import org.apache.dubbo.config.annotation.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
 
 import javax.servlet.http.HttpServletRequest;
@@ -26,8 +25,8 @@ public class AccessLogInterceptor extends HandlerInterceptorAdapter {
 
     private Logger logger = LoggerFactory.getLogger(getClass());
 
-    @Reference(version = "${dubbo.consumer.SystemAccessLogRpc.version}")
-    private SystemAccessLogRpc systemAccessLogRpc;
+    @Autowired
+    private AccessLogCollector accessLogCollector;
 
     @Value("${spring.application.name}")
     private String applicationName;
@@ -45,9 +44,9 @@ public class AccessLogInterceptor extends HandlerInterceptorAdapter {
         try {
             // 初始化 accessLog
             initAccessLog(accessLog, request);
-            // 执行插入 accessLog
-            addAccessLog(accessLog);
-            // TODO 提升：暂时不考虑 ELK 的方案。而是基于 MySQL 存储。如果访问日志比较多，需要定期归档。
+            // 放入收集器，由其异步批量插入 accessLog
+            accessLogCollector.collect(accessLog);
+            // TODO 提升：暂时不考虑 ELK 的方案。而是基于 MySQL 存储，由 system-service 按月分区并定期归档。
         } catch (Throwable th) {
             logger.error("[afterCompletion][插入访问日志({}) 发生异常({})", JSON.toJSONString(accessLog), ExceptionUtils.getRootCauseMessage(th));
         }
@@ -77,14 +76,4 @@ public class AccessLogInterceptor extends HandlerInterceptorAdapter {
                 .setResponseTime((int) (System.currentTimeMillis() - accessLog.getStartTime().getTime())); // 默认响应时间设为 0
     }
 
-    // TODO 优化点：后续可以增加事件
-    @Async // 异步入库
-    public void addAccessLog(SystemAccessLogCreateDTO accessLog) {
-        try {
-            systemAccessLogRpc.createSystemAccessLog(accessLog);
-        } catch (Throwable th) {
-            logger.error("[addAccessLog][插入访问日志({}) 发生异常({})", JSON.toJSONString(accessLog), ExceptionUtils.getRootCauseMessage(th));
-        }
-    }
-
 }
@@ -0,0 +1,197 @@
+package cn.iocoder.mall.web.core.accesslog;
+
+import cn.iocoder.common.framework.vo.CommonResult;
+import cn.iocoder.common.framework.vo.PageResult;
+import cn.iocoder.mall.systemservice.rpc.systemlog.SystemAccessLogRpc;
+import cn.iocoder.mall.systemservice.rpc.systemlog.dto.SystemAccessLogCreateDTO;
+import cn.iocoder.mall.systemservice.rpc.systemlog.vo.SystemAccessLogPageDTO;
+import cn.iocoder.mall.systemservice.rpc.systemlog.vo.SystemAccessLogVO;
+import cn.iocoder.mall.web.config.AccessLogProperties;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link AccessLogCollector} 的单元测试
+ *
+ * 使用内存实现的 {@link SystemAccessLogRpc} 记录投递的批次，通过 {@link SimpleMeterRegistry} 读取指标
+ */
+public class AccessLogCollectorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private MemorySystemAccessLogRpc systemAccessLogRpc;
+    private AccessLogCollector collector;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Metrics.globalRegistry.add(meterRegistry);
+        systemAccessLogRpc = new MemorySystemAccessLogRpc();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (collector != null) {
+            collector.stop();
+        }
+        Metrics.globalRegistry.remove(meterRegistry);
+    }
+
+    @Test
+    public void testCollectBufferFull() {
+        // 不采样，只有缓冲区满时丢弃
+        createCollector(new AccessLogProperties().setQueueCapacity(4).setOverloadThreshold(1D).setOverloadSampleRate(1D));
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(collector.collect(accessLog(0)));
+        }
+        Assert.assertFalse(collector.collect(accessLog(0)));
+        Assert.assertFalse(collector.collect(accessLog(1)));
+        Assert.assertEquals(2, droppedCount("full"), 0);
+        Assert.assertEquals(0, droppedCount("sampled"), 0);
+    }
+
+    @Test
+    public void testCollectOverloadSampled() {
+        // 堆积达到一半后，成功的访问日志全部被采样丢弃
+        createCollector(new AccessLogProperties().setQueueCapacity(4).setOverloadThreshold(0.5D).setOverloadSampleRate(0D));
+        Assert.assertTrue(collector.collect(accessLog(0)));
+        Assert.assertTrue(collector.collect(accessLog(0)));
+        Assert.assertFalse(collector.collect(accessLog(0)));
+        // 失败的访问日志始终保留，直到缓冲区满
+        Assert.assertTrue(collector.collect(accessLog(1)));
+        Assert.assertTrue(collector.collect(accessLog(1)));
+        Assert.assertFalse(collector.collect(accessLog(1)));
+        Assert.assertEquals(1, droppedCount("sampled"), 0);
+        Assert.assertEquals(1, droppedCount("full"), 0);
+    }
+
+    @Test
+    public void testShipByBatchSize() throws InterruptedException {
+        // 投递间隔很长，只能因为攒满一批而投递
+        createCollector(new AccessLogProperties().setBatchSize(3).setFlushInterval(Duration.ofHours(1))
+                .setIdleWait(Duration.ofMillis(10)));
+        collector.start();
+        for (int i = 0; i < 7; i++) {
+            collector.collect(accessLog(0));
+        }
+        Assert.assertEquals(3, systemAccessLogRpc.pollBatch().size());
+        Assert.assertEquals(3, systemAccessLogRpc.pollBatch().size());
+        // 剩余的不足一批，不投递；关闭时才投递
+        Assert.assertNull(systemAccessLogRpc.batches.poll(200, TimeUnit.MILLISECONDS));
+        collector.stop();
+        Assert.assertEquals(1, systemAccessLogRpc.pollBatch().size());
+        Assert.assertEquals(7, meterRegistry.get("mall.web.access-log.sent").counter().count(), 0);
+    }
+
+    @Test
+    public void testShipByFlushInterval() throws InterruptedException {
+        createCollector(new AccessLogProperties().setBatchSize(100).setFlushInterval(Duration.ofMillis(100))
+                .setIdleWait(Duration.ofMillis(10)));
+        collector.start();
+        collector.collect(accessLog(0));
+        collector.collect(accessLog(0));
+        Assert.assertEquals(2, systemAccessLogRpc.pollBatch().size());
+    }
+
+    @Test
+    public void testShipFailure() throws InterruptedException {
+        createCollector(new AccessLogProperties().setBatchSize(2).setIdleWait(Duration.ofMillis(10)));
+        systemAccessLogRpc.failures.set(1); // 第一次投递失败
+        collector.start();
+        collector.collect(accessLog(0));
+        collector.collect(accessLog(0));
+        Assert.assertEquals(2, systemAccessLogRpc.pollBatch().size());
+        // 投递失败不影响后续的投递
+        collector.collect(accessLog(0));
+        collector.collect(accessLog(0));
+        Assert.assertEquals(2, systemAccessLogRpc.pollBatch().size());
+        // 等待投递线程结束，保证指标已经记录
+        collector.stop();
+        Assert.assertEquals(2, meterRegistry.get("mall.web.access-log.failed").counter().count(), 0);
+        Assert.assertEquals(2, meterRegistry.get("mall.web.access-log.sent").counter().count(), 0);
+    }
+
+    @Test
+    public void testStopDrain() throws InterruptedException {
+        // 投递间隔很长，并且不足一批，只有关闭时才投递
+        createCollector(new AccessLogProperties().setQueueCapacity(16).setBatchSize(4)
+                .setFlushInterval(Duration.ofHours(1)).setIdleWait(Duration.ofMillis(10)));
+        for (int i = 0; i < 10; i++) {
+            collector.collect(accessLog(0));
+        }
+        collector.start();
+        collector.stop();
+        // 关闭时，按照批量大小投递剩余的访问日志
+        List<Integer> batchSizes = new ArrayList<>();
+        for (List<SystemAccessLogCreateDTO> batch : systemAccessLogRpc.batches) {
+            batchSizes.add(batch.size());
+        }
+        Assert.assertEquals(10, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        Assert.assertTrue(batchSizes.stream().allMatch(size -> size <= 4));
+        Assert.assertEquals(10, meterRegistry.get("mall.web.access-log.sent").counter().count(), 0);
+    }
+
+    private void createCollector(AccessLogProperties properties) {
+        collector = new AccessLogCollector(properties);
+        ReflectionTestUtils.setField(collector, "systemAccessLogRpc", systemAccessLogRpc);
+    }
+
+    private double droppedCount(String reason) {
+        return meterRegistry.get("mall.web.access-log.dropped").tag("reason", reason).counter().count();
+    }
+
+    private static SystemAccessLogCreateDTO accessLog(Integer errorCode) {
+        return new SystemAccessLogCreateDTO().setErrorCode(errorCode);
+    }
+
+    private static class MemorySystemAccessLogRpc implements SystemAccessLogRpc {
+
+        /**
+         * 投递的批次。投递线程会复用批次数组，所以记录副本
+         */
+        private final BlockingQueue<List<SystemAccessLogCreateDTO>> batches = new LinkedBlockingQueue<>();
+        /**
+         * 剩余需要失败的投递次数
+         */
+        private final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public CommonResult<Boolean> createSystemAccessLog(SystemAccessLogCreateDTO createDTO) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CommonResult<Boolean> createSystemAccessLogs(List<SystemAccessLogCreateDTO> createDTOs) {
+            batches.add(new ArrayList<>(createDTOs));
+            if (failures.getAndUpdate(count -> Math.max(count - 1, 0)) > 0) {
+                throw new IllegalStateException("RPC 失败");
+            }
+            return CommonResult.success(true);
+        }
+
+        @Override
+        public CommonResult<PageResult<SystemAccessLogVO>> pageSystemAccessLog(SystemAccessLogPageDTO pageDTO) {
+            throw new UnsupportedOperationException();
+        }
+
+        private List<SystemAccessLogCreateDTO> pollBatch() throws InterruptedException {
+            List<SystemAccessLogCreateDTO> batch = batches.poll(2, TimeUnit.SECONDS);
+            Assert.assertNotNull("等待投递超时", batch);
+            return batch;
+        }
+
+    }
+
+}
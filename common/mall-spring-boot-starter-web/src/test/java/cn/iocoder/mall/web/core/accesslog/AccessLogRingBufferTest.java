@@ -0,0 +1,121 @@
+package cn.iocoder.mall.web.core.accesslog;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link AccessLogRingBuffer} 的单元测试
+ */
+public class AccessLogRingBufferTest {
+
+    @Test
+    public void testCapacity() {
+        Assert.assertEquals(1, new AccessLogRingBuffer<Integer>(1).capacity());
+        Assert.assertEquals(8, new AccessLogRingBuffer<Integer>(5).capacity());
+        Assert.assertEquals(8, new AccessLogRingBuffer<Integer>(8).capacity());
+        Assert.assertEquals(16, new AccessLogRingBuffer<Integer>(9).capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityInvalid() {
+        new AccessLogRingBuffer<Integer>(0);
+    }
+
+    @Test
+    public void testOfferFull() {
+        AccessLogRingBuffer<Integer> buffer = new AccessLogRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(buffer.offer(i));
+        }
+        // 缓冲区满时，直接返回 false ，不覆盖未读取的元素
+        Assert.assertFalse(buffer.offer(4));
+        Assert.assertEquals(4, buffer.size());
+
+        List<Integer> target = new ArrayList<>();
+        Assert.assertEquals(4, buffer.drainTo(target, 10));
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3), target);
+        Assert.assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void testDrainToMaxElements() {
+        AccessLogRingBuffer<Integer> buffer = new AccessLogRingBuffer<>(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i);
+        }
+        List<Integer> target = new ArrayList<>();
+        Assert.assertEquals(2, buffer.drainTo(target, 2));
+        Assert.assertEquals(3, buffer.size());
+        Assert.assertEquals(3, buffer.drainTo(target, 10));
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4), target);
+        // 已经取空
+        Assert.assertEquals(0, buffer.drainTo(target, 10));
+    }
+
+    @Test
+    public void testWraparound() {
+        AccessLogRingBuffer<Integer> buffer = new AccessLogRingBuffer<>(4);
+        List<Integer> target = new ArrayList<>();
+        // 写入、读取多轮，槽位循环使用
+        int next = 0;
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 3; i++) {
+                Assert.assertTrue(buffer.offer(next++));
+            }
+            Assert.assertEquals(3, buffer.drainTo(target, 3));
+        }
+        // 跨越数组末尾时，仍然可以写满，并按顺序读取
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(buffer.offer(next++));
+        }
+        Assert.assertFalse(buffer.offer(next));
+        Assert.assertEquals(4, buffer.drainTo(target, 10));
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < next; i++) {
+            expected.add(i);
+        }
+        Assert.assertEquals(expected, target);
+    }
+
+    @Test
+    public void testConcurrentOffer() throws Exception {
+        int producerCount = 4;
+        int perProducer = 10_000;
+        AccessLogRingBuffer<Integer> buffer = new AccessLogRingBuffer<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producerCount);
+        CountDownLatch done = new CountDownLatch(producerCount);
+        AtomicInteger rejected = new AtomicInteger();
+        for (int p = 0; p < producerCount; p++) {
+            int base = p * perProducer;
+            executor.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    if (!buffer.offer(base + i)) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        // 单个消费者并发读取
+        List<Integer> target = new ArrayList<>();
+        while (done.getCount() > 0) {
+            buffer.drainTo(target, 100);
+        }
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        while (buffer.size() > 0) {
+            buffer.drainTo(target, 100);
+        }
+        // 每个元素最多读取一次，读取的数量与拒绝的数量之和等于写入的数量
+        Assert.assertEquals(target.size(), new HashSet<>(target).size());
+        Assert.assertEquals(producerCount * perProducer, target.size() + rejected.get());
+    }
+
+}
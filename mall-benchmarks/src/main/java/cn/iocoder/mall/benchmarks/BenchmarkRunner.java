@@ -0,0 +1,32 @@
+package cn.iocoder.mall.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH 基准测试的启动类
+ *
+ * 直接运行 main 方法即可，结果以 JSON 格式输出到 target/jmh-result.json 文件，可以上传到 https://jmh.morethan.net/ 查看，
+ * 也可以对比修改前后的两份结果，发现性能回退。
+ *
+ * 参数：
+ * 1. 第一个参数为需要执行的基准测试的正则，例如说 PriceManagerBenchmark ，默认执行全部
+ * 2. 第二个参数为结果文件的路径，默认 target/jmh-result.json
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName() + ".*";
+        String result = args.length > 1 ? args[1] : "target/jmh-result.json";
+        Options options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,75 @@
+package cn.iocoder.mall.benchmarks.common;
+
+import cn.iocoder.common.framework.util.CollectionUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CollectionUtils} 的 JMH 基准测试
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CollectionUtilsBenchmark {
+
+    /**
+     * 元素数量
+     */
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private List<Item> items;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(new Item(i, random.nextInt(Math.max(size / 10, 1))));
+        }
+    }
+
+    @Benchmark
+    public Map<Integer, Item> convertMap() {
+        return CollectionUtils.convertMap(items, Item::getId);
+    }
+
+    @Benchmark
+    public Map<Integer, List<Item>> convertMultiMap() {
+        return CollectionUtils.convertMultiMap(items, Item::getGroupId);
+    }
+
+    @Benchmark
+    public Map<Integer, List<Integer>> convertMultiMapWithValue() {
+        return CollectionUtils.convertMultiMap(items, Item::getGroupId, Item::getId);
+    }
+
+    public static class Item {
+
+        private final Integer id;
+        private final Integer groupId;
+
+        public Item(Integer id, Integer groupId) {
+            this.id = id;
+            this.groupId = groupId;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public Integer getGroupId() {
+            return groupId;
+        }
+
+    }
+
+}
@@ -0,0 +1,36 @@
+package cn.iocoder.mall.benchmarks.common;
+
+import cn.iocoder.common.framework.exception.ErrorCode;
+import cn.iocoder.common.framework.exception.ServiceException;
+import cn.iocoder.common.framework.exception.util.ServiceExceptionUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ServiceExceptionUtil} 的 JMH 基准测试
+ *
+ * 通过 {@link ServiceExceptionUtil#exception0(Integer, String, Object...)} 测试错误提示的格式化，和业务代码一样，包含创建异常的开销
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceExceptionUtilBenchmark {
+
+    private static final ErrorCode ERROR_CODE = new ErrorCode(1_000_000_000, "商品 SKU 不存在");
+    private static final String MESSAGE_PATTERN = "商品({}) 的库存不足，剩余({}) 件，需要({}) 件";
+
+    @Benchmark
+    public ServiceException exceptionWithoutParams() {
+        return ServiceExceptionUtil.exception(ERROR_CODE);
+    }
+
+    @Benchmark
+    public ServiceException exceptionWithParams() {
+        return ServiceExceptionUtil.exception0(ERROR_CODE.getCode(), MESSAGE_PATTERN, "iPhone 12", 3, 5);
+    }
+
+}
@@ -0,0 +1,97 @@
+package cn.iocoder.mall.benchmarks.mybatis;
+
+import cn.iocoder.mall.mybatis.core.type.JSONTypeHandler;
+import cn.iocoder.mall.promotion.api.enums.MeetTypeEnum;
+import cn.iocoder.mall.promotion.api.enums.PreferentialTypeEnum;
+import cn.iocoder.mall.promotion.api.enums.RangeTypeEnum;
+import cn.iocoder.mall.promotion.api.rpc.activity.dto.PromotionActivityRespDTO;
+import com.alibaba.fastjson.JSON;
+import org.apache.ibatis.type.JdbcType;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JSONTypeHandler} 的 JMH 基准测试，即 fastjson 的序列化与反序列化
+ *
+ * 使用满减送促销的规则作为字段值，{@link PreparedStatement}、{@link ResultSet} 使用动态代理实现，只记录和返回字符串
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JSONTypeHandlerBenchmark {
+
+    private static final String COLUMN_NAME = "full_privilege";
+
+    /**
+     * 可用范围的商品数量
+     */
+    @Param({"10", "1000"})
+    private int rangeSize;
+
+    private final JSONTypeHandler<PromotionActivityRespDTO.FullPrivilege> typeHandler
+            = new JSONTypeHandler<>(PromotionActivityRespDTO.FullPrivilege.class);
+
+    private PromotionActivityRespDTO.FullPrivilege fullPrivilege;
+    private PreparedStatement preparedStatement;
+    private ResultSet resultSet;
+    /**
+     * {@link #preparedStatement} 最后一次设置的字符串
+     */
+    private String parameter;
+
+    @Setup
+    public void setup() {
+        List<Integer> rangeValues = new ArrayList<>(rangeSize);
+        for (int i = 0; i < rangeSize; i++) {
+            rangeValues.add(10000 + i);
+        }
+        List<PromotionActivityRespDTO.FullPrivilege.Privilege> privileges = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            privileges.add(new PromotionActivityRespDTO.FullPrivilege.Privilege().setMeetType(MeetTypeEnum.PRICE.getValue())
+                    .setMeetValue(i * 10000).setPreferentialType(PreferentialTypeEnum.PRICE.getValue()).setPreferentialValue(i * 1000));
+        }
+        fullPrivilege = new PromotionActivityRespDTO.FullPrivilege().setRangeType(RangeTypeEnum.PRODUCT_INCLUDE_PART.getValue())
+                .setRangeValues(rangeValues).setCycled(false).setPrivileges(privileges);
+        // 创建 PreparedStatement、ResultSet
+        String json = JSON.toJSONString(fullPrivilege);
+        preparedStatement = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    if ("setString".equals(method.getName())) {
+                        parameter = (String) args[1];
+                    }
+                    return null;
+                });
+        resultSet = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ResultSet.class}, (proxy, method, args) -> {
+                    if ("getString".equals(method.getName())) {
+                        return json;
+                    }
+                    if ("wasNull".equals(method.getName())) {
+                        return false;
+                    }
+                    return null;
+                });
+    }
+
+    @Benchmark
+    public String serialize() throws SQLException {
+        typeHandler.setParameter(preparedStatement, 1, fullPrivilege, JdbcType.VARCHAR);
+        return parameter;
+    }
+
+    @Benchmark
+    public PromotionActivityRespDTO.FullPrivilege deserialize() throws SQLException {
+        return typeHandler.getResult(resultSet, COLUMN_NAME);
+    }
+
+}
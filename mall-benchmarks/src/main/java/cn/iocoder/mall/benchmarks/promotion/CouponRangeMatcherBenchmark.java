@@ -0,0 +1,116 @@
+package cn.iocoder.mall.benchmarks.promotion;
+
+import cn.iocoder.common.framework.util.StringUtils;
+import cn.iocoder.mall.promotion.api.enums.RangeTypeEnum;
+import cn.iocoder.mall.promotionservice.dal.mysql.dataobject.coupon.CouponTemplateDO;
+import cn.iocoder.mall.promotionservice.service.coupon.CouponCardService;
+import cn.iocoder.mall.promotionservice.service.coupon.CouponRangeMatcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 优惠劵可用范围匹配的 JMH 基准测试，即 {@link CouponCardService#listAvailableCouponCards} 的热点
+ *
+ * 对比每次解析 rangeValues 为 List 后逐个 contains 的旧实现，和预编译的 {@link CouponRangeMatcher}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CouponRangeMatcherBenchmark {
+
+    /**
+     * 用户的优惠劵数量，每张优惠劵一个模板
+     */
+    @Param({"10", "50"})
+    private int cardCount;
+    /**
+     * 购物车的商品数量
+     */
+    @Param({"5", "50"})
+    private int itemCount;
+    /**
+     * 每个优惠劵模板可用范围的商品数量
+     */
+    @Param({"10", "1000"})
+    private int rangeSize;
+
+    private List<CouponTemplateDO> templates;
+    private List<CouponRangeMatcher> matchers;
+
+    private List<Integer> itemSpuIds;
+    private List<Integer> itemPrices;
+    private int[] spuIds;
+    private int[] cids;
+    private int[] prices;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        // 创建优惠劵模板
+        templates = new ArrayList<>(cardCount);
+        for (int i = 0; i < cardCount; i++) {
+            List<String> rangeValues = new ArrayList<>(rangeSize);
+            for (int j = 0; j < rangeSize; j++) {
+                rangeValues.add(String.valueOf(random.nextInt(100000)));
+            }
+            CouponTemplateDO template = new CouponTemplateDO().setId(i).setRangeType(RangeTypeEnum.PRODUCT_INCLUDE_PART.getValue())
+                    .setRangeValues(String.join(",", rangeValues));
+            template.setUpdateTime(new Date(0L));
+            templates.add(template);
+        }
+        matchers = templates.stream().map(CouponRangeMatcher::new).collect(Collectors.toList());
+        // 创建购物车的商品
+        itemSpuIds = new ArrayList<>(itemCount);
+        itemPrices = new ArrayList<>(itemCount);
+        spuIds = new int[itemCount];
+        cids = new int[itemCount];
+        prices = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            spuIds[i] = random.nextInt(100000);
+            cids[i] = random.nextInt(100);
+            prices[i] = 100 + random.nextInt(10000);
+            itemSpuIds.add(spuIds[i]);
+            itemPrices.add(prices[i]);
+        }
+    }
+
+    @Benchmark
+    public int legacy() {
+        int total = 0;
+        for (CouponTemplateDO template : templates) {
+            List<Integer> rangeSpuIds = StringUtils.splitToInt(template.getRangeValues(), ",");
+            for (int i = 0; i < itemSpuIds.size(); i++) {
+                total += rangeSpuIds.contains(itemSpuIds.get(i)) ? itemPrices.get(i) : 0;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int precompiled() {
+        int total = 0;
+        for (int i = 0; i < templates.size(); i++) {
+            CouponRangeMatcher matcher = matchers.get(i);
+            if (!matcher.isCompiledFrom(templates.get(i))) {
+                throw new IllegalStateException("匹配器未命中");
+            }
+            total += matcher.sumMatchedPrice(spuIds, cids, prices);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public CouponRangeMatcher compile() {
+        return new CouponRangeMatcher(templates.get(0));
+    }
+
+}
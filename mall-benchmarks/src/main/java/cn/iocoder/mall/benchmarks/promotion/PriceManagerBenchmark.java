@@ -0,0 +1,222 @@
+package cn.iocoder.mall.benchmarks.promotion;
+
+import cn.iocoder.common.framework.vo.CommonResult;
+import cn.iocoder.common.framework.vo.PageResult;
+import cn.iocoder.mall.productservice.rpc.sku.ProductSkuRpc;
+import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuListQueryReqDTO;
+import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuRespDTO;
+import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuStockReserveReqDTO;
+import cn.iocoder.mall.productservice.rpc.spu.ProductSpuRpc;
+import cn.iocoder.mall.productservice.rpc.spu.dto.*;
+import cn.iocoder.mall.promotion.api.enums.MeetTypeEnum;
+import cn.iocoder.mall.promotion.api.enums.PreferentialTypeEnum;
+import cn.iocoder.mall.promotion.api.enums.RangeTypeEnum;
+import cn.iocoder.mall.promotion.api.enums.activity.PromotionActivityTypeEnum;
+import cn.iocoder.mall.promotion.api.rpc.activity.dto.PromotionActivityRespDTO;
+import cn.iocoder.mall.promotion.api.rpc.price.dto.PriceProductCalcReqDTO;
+import cn.iocoder.mall.promotion.api.rpc.price.dto.PriceProductCalcRespDTO;
+import cn.iocoder.mall.promotionservice.manager.price.PriceManager;
+import cn.iocoder.mall.promotionservice.service.activity.PromotionActivityRuleIndex;
+import cn.iocoder.mall.promotionservice.service.activity.PromotionActivityService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PriceManager#calcProductPrice(PriceProductCalcReqDTO)} 的 JMH 基准测试
+ *
+ * 商品服务的 {@link ProductSkuRpc}、{@link ProductSpuRpc} 替换为内存实现，促销活动规则索引直接构建后注入，不访问数据库。
+ * 因此，测试的是纯粹的价格计算：SKU、SPU 的拼装，限时折扣、满减送分组、价格拆分
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriceManagerBenchmark {
+
+    /**
+     * 商品 SPU 的数量
+     */
+    private static final int SPU_COUNT = 10000;
+    /**
+     * 商品分类的数量
+     */
+    private static final int CATEGORY_COUNT = 100;
+
+    /**
+     * 购物车的商品数量
+     */
+    @Param({"10", "200"})
+    private int itemCount;
+    /**
+     * 进行中的促销活动数量，限时折扣和满减送各一半
+     */
+    @Param({"10", "500"})
+    private int activityCount;
+
+    private PriceManager priceManager;
+    private PriceProductCalcReqDTO calcReqDTO;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        // 创建促销活动规则索引
+        List<PromotionActivityRespDTO> activities = new ArrayList<>(activityCount);
+        for (int i = 0; i < activityCount; i++) {
+            activities.add(i % 2 == 0 ? buildTimeLimitedDiscount(i, random) : buildFullPrivilege(i, random));
+        }
+        PromotionActivityService promotionActivityService = new PromotionActivityService();
+        ReflectionTestUtils.setField(promotionActivityService, "ruleIndex", new PromotionActivityRuleIndex(1L, activities));
+        // 创建商品 SKU、SPU ，每个 SKU 属于随机的 SPU
+        MemoryProductSkuRpc productSkuRpc = new MemoryProductSkuRpc();
+        MemoryProductSpuRpc productSpuRpc = new MemoryProductSpuRpc();
+        for (int i = 0; i < itemCount; i++) {
+            int spuId = random.nextInt(SPU_COUNT);
+            productSkuRpc.skus.put(i, new ProductSkuRespDTO().setId(i).setSpuId(spuId).setPrice(1000 + random.nextInt(100000)));
+            productSpuRpc.spus.put(spuId, new ProductSpuRespDTO().setId(spuId).setCid(spuId % CATEGORY_COUNT));
+        }
+        priceManager = new PriceManager();
+        ReflectionTestUtils.setField(priceManager, "promotionActivityService", promotionActivityService);
+        ReflectionTestUtils.setField(priceManager, "productSkuRpc", productSkuRpc);
+        ReflectionTestUtils.setField(priceManager, "productSpuRpc", productSpuRpc);
+        // 创建价格计算请求
+        List<PriceProductCalcReqDTO.Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new PriceProductCalcReqDTO.Item(i, 1 + random.nextInt(3), true));
+        }
+        calcReqDTO = new PriceProductCalcReqDTO().setUserId(1).setItems(items);
+    }
+
+    @Benchmark
+    public PriceProductCalcRespDTO calcProductPrice() {
+        return priceManager.calcProductPrice(calcReqDTO);
+    }
+
+    private static PromotionActivityRespDTO buildTimeLimitedDiscount(int id, Random random) {
+        List<PromotionActivityRespDTO.TimeLimitedDiscount.Item> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(new PromotionActivityRespDTO.TimeLimitedDiscount.Item().setSpuId(random.nextInt(SPU_COUNT))
+                    .setPreferentialType(PreferentialTypeEnum.DISCOUNT.getValue()).setPreferentialValue(80));
+        }
+        return new PromotionActivityRespDTO().setId(id).setActivityType(PromotionActivityTypeEnum.TIME_LIMITED_DISCOUNT.getValue())
+                .setTimeLimitedDiscount(new PromotionActivityRespDTO.TimeLimitedDiscount().setQuota(0).setItems(items));
+    }
+
+    private static PromotionActivityRespDTO buildFullPrivilege(int id, Random random) {
+        // 一半按照商品，一半按照分类
+        PromotionActivityRespDTO.FullPrivilege fullPrivilege = new PromotionActivityRespDTO.FullPrivilege().setCycled(false);
+        List<Integer> rangeValues = new ArrayList<>();
+        if (id % 4 == 1) {
+            fullPrivilege.setRangeType(RangeTypeEnum.PRODUCT_INCLUDE_PART.getValue());
+            for (int i = 0; i < 50; i++) {
+                rangeValues.add(random.nextInt(SPU_COUNT));
+            }
+        } else {
+            fullPrivilege.setRangeType(RangeTypeEnum.CATEGORY_INCLUDE_PART.getValue());
+            rangeValues.add(random.nextInt(CATEGORY_COUNT));
+        }
+        fullPrivilege.setRangeValues(rangeValues);
+        fullPrivilege.setPrivileges(Collections.singletonList(new PromotionActivityRespDTO.FullPrivilege.Privilege()
+                .setMeetType(MeetTypeEnum.PRICE.getValue()).setMeetValue(10000)
+                .setPreferentialType(PreferentialTypeEnum.PRICE.getValue()).setPreferentialValue(1000)));
+        return new PromotionActivityRespDTO().setId(id).setActivityType(PromotionActivityTypeEnum.FULL_PRIVILEGE.getValue())
+                .setFullPrivilege(fullPrivilege);
+    }
+
+    /**
+     * 内存实现的 {@link ProductSkuRpc} ，只支持按照 SKU 编号数组查询
+     */
+    private static class MemoryProductSkuRpc implements ProductSkuRpc {
+
+        private final Map<Integer, ProductSkuRespDTO> skus = new HashMap<>();
+
+        @Override
+        public CommonResult<ProductSkuRespDTO> getProductSku(Integer productSkuId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CommonResult<List<ProductSkuRespDTO>> listProductSkus(ProductSkuListQueryReqDTO queryReqDTO) {
+            List<ProductSkuRespDTO> result = new ArrayList<>(queryReqDTO.getProductSkuIds().size());
+            for (Integer skuId : queryReqDTO.getProductSkuIds()) {
+                ProductSkuRespDTO sku = skus.get(skuId);
+                if (sku != null) {
+                    result.add(sku);
+                }
+            }
+            return CommonResult.success(result);
+        }
+
+        @Override
+        public CommonResult<Boolean> reserveProductSkuStock(ProductSkuStockReserveReqDTO reserveReqDTO) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CommonResult<Boolean> confirmProductSkuStock(String reservationId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CommonResult<Boolean> releaseProductSkuStock(String reservationId) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    /**
+     * 内存实现的 {@link ProductSpuRpc} ，只支持按照 SPU 编号数组查询
+     */
+    private static class MemoryProductSpuRpc implements ProductSpuRpc {
+
+        private final Map<Integer, ProductSpuRespDTO> spus = new HashMap<>();
+
+        @Override
+        public CommonResult<Integer> createProductSpu(ProductSpuAndSkuCreateReqDTO createDTO) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CommonResult<Boolean> updateProductSpu(ProductSpuAndSkuUpdateReqDTO updateDTO) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CommonResult<ProductSpuRespDTO> getProductSpu(Integer productSpuId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CommonResult<List<ProductSpuRespDTO>> listProductSpus(Collection<Integer> productSpuIds) {
+            List<ProductSpuRespDTO> result = new ArrayList<>(productSpuIds.size());
+            for (Integer spuId : productSpuIds) {
+                ProductSpuRespDTO spu = spus.get(spuId);
+                if (spu != null) {
+                    result.add(spu);
+                }
+            }
+            return CommonResult.success(result);
+        }
+
+        @Override
+        public CommonResult<PageResult<ProductSpuRespDTO>> pageProductSpu(ProductSpuPageReqDTO pageDTO) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CommonResult<List<Integer>> listProductSpuIds(Integer lastSpuId, Integer limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CommonResult<ProductSpuDetailRespDTO> getProductSpuDetail(Integer productSpuId, Collection<String> fields) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,65 @@
+package cn.iocoder.mall.benchmarks.trade;
+
+import cn.iocoder.mall.tradeservice.convert.order.TradeOrderConvert;
+import cn.iocoder.mall.tradeservice.dal.mysql.dataobject.order.TradeOrderDO;
+import cn.iocoder.mall.tradeservice.dal.mysql.dataobject.order.TradeOrderItemDO;
+import cn.iocoder.mall.tradeservice.rpc.order.dto.TradeOrderItemRespDTO;
+import cn.iocoder.mall.tradeservice.rpc.order.dto.TradeOrderRespDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TradeOrderConvert} 的 JMH 基准测试，即 MapStruct 生成的转换代码
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TradeOrderConvertBenchmark {
+
+    /**
+     * 订单项的数量
+     */
+    @Param({"1", "20"})
+    private int itemCount;
+
+    private TradeOrderDO order;
+    private List<TradeOrderItemDO> orderItems;
+
+    @Setup
+    public void setup() {
+        Date now = new Date();
+        order = new TradeOrderDO().setId(1).setUserId(1).setOrderNo("202010181200001").setOrderStatus(10)
+                .setRemark("尽快发货").setBuyPrice(20000).setDiscountPrice(2000).setLogisticsPrice(0).setPresentPrice(18000)
+                .setPayPrice(18000).setRefundPrice(0).setPayTime(now).setPayTransactionId(1).setPayChannel(100)
+                .setDeliveryType(1).setReceiverName("芋艿").setReceiverMobile("15601691300").setReceiverAreaCode(110101)
+                .setReceiverDetailAddress("北京市东城区").setAfterSaleStatus(0);
+        order.setCreateTime(now);
+        orderItems = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            TradeOrderItemDO orderItem = new TradeOrderItemDO().setId(i).setOrderId(1).setStatus(10).setSpuId(i).setSkuId(i)
+                    .setSkuName("商品 " + i).setSkuImage("https://static.iocoder.cn/" + i + ".jpg").setQuantity(1)
+                    .setOriginPrice(1000).setBuyPrice(1000).setPresentPrice(900).setBuyTotal(1000).setDiscountTotal(100)
+                    .setPresentTotal(900).setRefundTotal(0).setAfterSaleStatus(0);
+            orderItem.setCreateTime(now);
+            orderItems.add(orderItem);
+        }
+    }
+
+    @Benchmark
+    public TradeOrderRespDTO convertOrder() {
+        return TradeOrderConvert.INSTANCE.convert(order);
+    }
+
+    @Benchmark
+    public List<TradeOrderItemRespDTO> convertOrderItems() {
+        return TradeOrderConvert.INSTANCE.convertList(orderItems);
+    }
+
+}
@@ -12,10 +12,14 @@ import cn.iocoder.security.annotations.RequiresPermissions;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiImplicitParams;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Date;
+
 import static cn.iocoder.common.framework.vo.CommonResult.success;
 
 /**
@@ -32,10 +36,14 @@ public class SystemExceptionLogController {
 
     @GetMapping("/get")
     @ApiOperation("获得系统异常日志明细")
-    @ApiImplicitParam(name = "logId", value = "系统异常日志编号", required = true)
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "logId", value = "系统异常日志编号", required = true),
+            @ApiImplicitParam(name = "exceptionTime", value = "异常发生时间，用于定位分区", example = "2026-10-18 12:00:00")
+    })
     @RequiresPermissions("system:system-exception-log:page")
-    public CommonResult<SystemExceptionLogDetailVO> getSystemExceptionLogDetail(@RequestParam("logId") Integer logId) {
-        return success(systemExceptionLogManager.getSystemExceptionLogDetail(logId));
+    public CommonResult<SystemExceptionLogDetailVO> getSystemExceptionLogDetail(@RequestParam("logId") Integer logId,
+            @RequestParam(value = "exceptionTime", required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") Date exceptionTime) {
+        return success(systemExceptionLogManager.getSystemExceptionLogDetail(logId, exceptionTime));
     }
 
     @GetMapping("/page")
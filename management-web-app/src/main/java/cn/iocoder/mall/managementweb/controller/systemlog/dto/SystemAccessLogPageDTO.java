@@ -4,6 +4,9 @@ import cn.iocoder.common.framework.vo.PageParam;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.util.Date;
 
 @ApiModel("系统访问日志分页 DTO")
 @Data
@@ -15,5 +18,11 @@ public class SystemAccessLogPageDTO extends PageParam {
     private Integer userType;
     @ApiModelProperty(value = "应用名", example = "xxx-service-application")
     private String applicationName;
+    @ApiModelProperty(value = "请求时间（开始）", notes = "和请求时间（结束）都不传时，默认查询最近两个月", example = "2019-10-10 11:12:13")
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date startBeginTime;
+    @ApiModelProperty(value = "请求时间（结束）", example = "2019-10-10 11:12:13")
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date startEndTime;
 
 }
@@ -4,6 +4,9 @@ import cn.iocoder.common.framework.vo.PageParam;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.util.Date;
 
 @ApiModel("系统异常日志分页 DTO")
 @Data
@@ -17,5 +20,11 @@ public class SystemExceptionLogPageDTO extends PageParam {
     private String applicationName;
     @ApiModelProperty(value = "处理状态", notes = "对应 SystemExceptionLogProcessStatusEnum 枚举类", example = "1")
     private Integer processStatus;
+    @ApiModelProperty(value = "异常时间（开始）", notes = "和异常时间（结束）都不传时，默认查询最近两个月", example = "2019-10-10 11:12:13")
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date exceptionBeginTime;
+    @ApiModelProperty(value = "异常时间（结束）", example = "2019-10-10 11:12:13")
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date exceptionEndTime;
 
 }
@@ -5,6 +5,9 @@ import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.util.Date;
 
 @ApiModel("系统异常日志处理 DTO")
 @Data
@@ -13,6 +16,9 @@ public class SystemExceptionLogProcessDTO extends PageParam {
 
     @ApiModelProperty(value = "系统异常日志编号", required = true, example = "1")
     private Integer logId;
+    @ApiModelProperty(value = "异常发生时间", notes = "用于定位分区", example = "2026-10-18 12:00:00")
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date exceptionTime;
     @ApiModelProperty(value = "处理状态", required = true, notes = "对应 SystemExceptionLogProcessStatusEnum 枚举类", example = "1")
     private Integer processStatus;
 
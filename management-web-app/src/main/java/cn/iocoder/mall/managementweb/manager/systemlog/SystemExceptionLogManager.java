@@ -13,6 +13,8 @@ import cn.iocoder.mall.systemservice.rpc.systemlog.SystemExceptionLogRpc;
 import org.apache.dubbo.config.annotation.Reference;
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
+
 /**
 * 系统异常日志 Manager
 */
@@ -28,12 +30,13 @@ public class SystemExceptionLogManager {
     * 获得系统异常日志
     *
     * @param systemExceptionLogId 系统异常日志编号
+    * @param exceptionTime 异常发生时间，用于定位分区
     * @return 系统异常日志
     */
-    public SystemExceptionLogDetailVO getSystemExceptionLogDetail(Integer systemExceptionLogId) {
+    public SystemExceptionLogDetailVO getSystemExceptionLogDetail(Integer systemExceptionLogId, Date exceptionTime) {
         // 获得系统异常明细
         CommonResult<cn.iocoder.mall.systemservice.rpc.systemlog.vo.SystemExceptionLogVO> getSystemExceptionLogResult
-                = systemExceptionLogRpc.getSystemExceptionLog(systemExceptionLogId);
+                = systemExceptionLogRpc.getSystemExceptionLog(systemExceptionLogId, exceptionTime);
         getSystemExceptionLogResult.checkError();
         SystemExceptionLogDetailVO logDetailVO = SystemExceptionLogConvert.INSTANCE.convert(getSystemExceptionLogResult.getData());
         // 拼接处理管理员信息
@@ -0,0 +1,42 @@
+package cn.iocoder.mall.payservice.common.bulkhead;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 按 key 隔离的舱壁
+ *
+ * 每个 key 最多 maxConcurrent 个并发，超出时 {@link #tryAcquire(String)} 立即返回 false，不会阻塞调用线程。
+ * 用于避免某一个慢的下游，占满所有的调用线程，拖垮其它下游。
+ */
+public class KeyedBulkhead {
+
+    private final int maxConcurrent;
+    private final ConcurrentMap<String, Semaphore> semaphores = new ConcurrentHashMap<>();
+
+    public KeyedBulkhead(int maxConcurrent) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent 必须大于 0");
+        }
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * 尝试获得 key 的一个并发许可
+     *
+     * @param key key
+     * @return 是否获得成功。成功时，调用方需要在 finally 中调用 {@link #release(String)}
+     */
+    public boolean tryAcquire(String key) {
+        return semaphores.computeIfAbsent(key, k -> new Semaphore(maxConcurrent)).tryAcquire();
+    }
+
+    public void release(String key) {
+        Semaphore semaphore = semaphores.get(key);
+        if (semaphore != null) {
+            semaphore.release();
+        }
+    }
+
+}
@@ -1,51 +1,200 @@
 package cn.iocoder.mall.payservice.common.dubbo;
 
+import cn.iocoder.common.framework.enums.CommonStatusEnum;
 import cn.iocoder.common.framework.util.StringUtils;
+import cn.iocoder.mall.payservice.dal.mysql.dataobject.app.PayAppDO;
+import cn.iocoder.mall.payservice.dal.mysql.mapper.app.PayAppMapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalNotification;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.dubbo.config.ApplicationConfig;
 import org.apache.dubbo.config.ReferenceConfig;
 import org.apache.dubbo.config.RegistryConfig;
+import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.service.GenericService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
-import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Dubbo 泛化调用的 Reference 池
+ *
+ * 1. 所有 Reference 共用一个 ApplicationConfig、RegistryConfig，避免每个 notifyUrl 都创建注册中心连接
+ * 2. 按 LRU + 空闲时间淘汰，淘汰后延迟调用 {@link ReferenceConfig#destroy()} 释放连接。
+ *    淘汰时，其它线程可能刚获取到同一个 Reference 并且正在调用，所以等待超过它的调用超时时间后，再销毁
+ * 3. 定时清理没有可用提供者的 Reference，例如说已经下线的商户应用
+ * 4. 启动后，预热所有开启的 {@link PayAppDO} 的通知地址
+ *
+ * 命中率、数量等指标通过 pay.notify.reference 缓存指标暴露，创建耗时通过 pay.notify.reference.creation 指标暴露
+ */
 @Component
+@Slf4j
 public class DubboReferencePool {
 
+    /**
+     * 默认的调用超时时间，单位：毫秒
+     */
+    private static final int DEFAULT_TIMEOUT = 3000;
+    /**
+     * Reference 数量上限
+     */
+    private static final int MAXIMUM_SIZE = 512;
+    /**
+     * 空闲多久后淘汰，单位：分钟
+     */
+    private static final int EXPIRE_AFTER_ACCESS = 30;
+    /**
+     * 清理的间隔，单位：分钟
+     */
+    private static final int CLEAN_UP_INTERVAL = 1;
+    /**
+     * 淘汰后延迟销毁的额外等待时间，单位：毫秒。实际等待时间为 Reference 的调用超时时间 + 该值
+     */
+    private static final long DESTROY_DELAY_GRACE = 5000;
+
     @Data
     public class ReferenceMeta {
 
-        private final ReferenceConfig config; // TODO 芋艿，后续需要做销毁
+        private final ReferenceConfig<GenericService> config;
         private final GenericService service;
         private final String methodName;
+        /**
+         * 创建时间，用于判断是否过了提供者的发现时间
+         */
+        private final long createTime = System.currentTimeMillis();
 
-        private ReferenceMeta(ReferenceConfig config, GenericService service, String methodName) {
+        private ReferenceMeta(ReferenceConfig<GenericService> config, GenericService service, String methodName) {
             this.config = config;
             this.service = service;
             this.methodName = methodName;
         }
 
-    }
+        /**
+         * @return 是否有可用的提供者
+         */
+        private boolean isAvailable() {
+            Invoker<?> invoker = config.getInvoker();
+            return invoker != null && invoker.isAvailable();
+        }
 
-    private LoadingCache<String, ReferenceMeta> referenceMetaCache = CacheBuilder.newBuilder()
-            .build(new CacheLoader<String, ReferenceMeta>() {
-                @Override
-                public ReferenceMeta load(String notifyUrl) {
-                    return createGenericService(notifyUrl);
-                }
-            });
+    }
 
     @Value("${dubbo.registry.address}")
     private String dubboRegistryAddress;
     @Value("${dubbo.application.name}")
     private String dubboApplicationName;
 
+    @Autowired
+    private PayAppMapper payAppMapper;
+
+    /**
+     * 共用的 ApplicationConfig 对象
+     */
+    private ApplicationConfig application;
+    private LoadingCache<String, ReferenceMeta> referenceMetaCache;
+    private Timer creationTimer;
+    private ScheduledExecutorService cleaner;
+    /**
+     * 已经淘汰、等待延迟销毁的 Reference 。按引用比较，因为 ReferenceConfig 的 equals 比较的是配置
+     *
+     * key：ReferenceMeta 对象
+     * value：notifyUrl
+     */
+    private final Map<ReferenceMeta, String> pendingDestroyReferenceMetas = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    @PostConstruct
+    public void init() {
+        // 创建共用的 ApplicationConfig、RegistryConfig 对象
+        RegistryConfig registry = new RegistryConfig();
+        registry.setAddress(dubboRegistryAddress);
+        application = new ApplicationConfig();
+        application.setName(dubboApplicationName);
+        application.setRegistry(registry);
+        // 创建缓存
+        creationTimer = Metrics.timer("pay.notify.reference.creation");
+        referenceMetaCache = CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfterAccess(EXPIRE_AFTER_ACCESS, TimeUnit.MINUTES)
+                .removalListener(this::onReferenceMetaRemoval)
+                .recordStats()
+                .build(new CacheLoader<String, ReferenceMeta>() {
+                    @Override
+                    public ReferenceMeta load(String notifyUrl) {
+                        return creationTimer.record(() -> createGenericService(notifyUrl));
+                    }
+                });
+        GuavaCacheMetrics.monitor(Metrics.globalRegistry, referenceMetaCache, "pay.notify.reference");
+        // 定时清理。Guava 只会在读写时顺带淘汰，空闲时需要主动清理才能释放连接
+        cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pay-notify-reference-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleaner.scheduleWithFixedDelay(this::cleanUp, CLEAN_UP_INTERVAL, CLEAN_UP_INTERVAL, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (cleaner != null) {
+            cleaner.shutdownNow();
+        }
+        // 关闭时，不再等待延迟销毁，全部立即销毁
+        referenceMetaCache.invalidateAll();
+        List<ReferenceMeta> referenceMetas;
+        synchronized (pendingDestroyReferenceMetas) {
+            referenceMetas = new ArrayList<>(pendingDestroyReferenceMetas.keySet());
+        }
+        referenceMetas.forEach(this::destroyReferenceMeta);
+    }
+
+    /**
+     * 启动后，预热所有开启的支付应用的通知地址
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        List<PayAppDO> apps = payAppMapper.selectList(new QueryWrapper<PayAppDO>()
+                .eq("status", CommonStatusEnum.ENABLE.getValue()));
+        Set<String> notifyUrls = new LinkedHashSet<>();
+        apps.forEach(app -> {
+            if (StringUtils.hasText(app.getPayNotifyUrl())) {
+                notifyUrls.add(app.getPayNotifyUrl());
+            }
+            if (StringUtils.hasText(app.getRefundNotifyUrl())) {
+                notifyUrls.add(app.getRefundNotifyUrl());
+            }
+        });
+        int count = 0;
+        for (String notifyUrl : notifyUrls) {
+            if (count++ >= MAXIMUM_SIZE) {
+                break;
+            }
+            try {
+                referenceMetaCache.getUnchecked(notifyUrl);
+            } catch (Throwable th) {
+                log.warn("[preload][notifyUrl({}) 预热失败]", notifyUrl, th);
+            }
+        }
+        log.info("[preload][预热 notifyUrl 数量({})]", referenceMetaCache.size());
+    }
+
     public ReferenceMeta getReferenceMeta(String notifyUrl) {
         DubboReferencePool.ReferenceMeta referenceMeta = referenceMetaCache.getUnchecked(notifyUrl);
         Assert.notNull(referenceMeta, String.format("notifyUrl(%s) 不存在对应的 ReferenceMeta 对象", notifyUrl));
@@ -53,28 +202,72 @@ public class DubboReferencePool {
     }
 
     private ReferenceMeta createGenericService(String notifyUrl) {
-        // 使用 # 号分隔，格式为 服务名#方法名#版本号
+        // 使用 # 号分隔，格式为 服务名#方法名#版本号#超时时间（毫秒）
         List<String> notifyUrlParts = this.parseNotifyUrl(notifyUrl);
-        // 创建 ApplicationConfig 对象
-        ApplicationConfig application = new ApplicationConfig();
-        application.setName(dubboApplicationName);
-        // 创建 RegistryConfig 对象
-        RegistryConfig registry = new RegistryConfig();
-//        registry.setAddress("zookeeper://127.0.0.1:2181");
-        registry.setAddress(dubboRegistryAddress);
-        application.setRegistry(registry);
         // 创建 ReferenceConfig 对象
         ReferenceConfig<GenericService> reference = new ReferenceConfig<>();
         reference.setInterface(notifyUrlParts.get(0)); // 弱类型接口名
         reference.setGeneric(true); // 声明为泛化接口
         reference.setApplication(application);
         reference.setVersion(notifyUrlParts.size() > 2 ? notifyUrlParts.get(2) : "1.0.0"); // 如果未配置服务的版本号，则默认使用 1.0.0
+        reference.setTimeout(notifyUrlParts.size() > 3 ? Integer.valueOf(notifyUrlParts.get(3)) : DEFAULT_TIMEOUT); // 每个 notifyUrl 独立的超时时间，避免慢的下游长时间占用调用线程
+        reference.setRetries(0); // 由 PayNotifyRetryScheduler 负责重试，Dubbo 不重试
         // 获得 GenericService 对象
         GenericService genericService = reference.get();
         // 构建最终的 ReferenceMeta 对象
         return new ReferenceMeta(reference, genericService, notifyUrlParts.get(1));
     }
 
+    private void onReferenceMetaRemoval(RemovalNotification<String, ReferenceMeta> notification) {
+        ReferenceMeta referenceMeta = notification.getValue();
+        if (referenceMeta == null) {
+            return;
+        }
+        log.info("[onReferenceMetaRemoval][notifyUrl({}) 淘汰，原因({})]", notification.getKey(), notification.getCause());
+        // 延迟销毁，等待已经获取到该 Reference 的调用完成
+        pendingDestroyReferenceMetas.put(referenceMeta, notification.getKey());
+        if (cleaner.isShutdown()) { // 关闭时，由 destroy 方法立即销毁
+            return;
+        }
+        Integer timeout = referenceMeta.getConfig().getTimeout();
+        long delay = (timeout != null ? timeout : DEFAULT_TIMEOUT) + DESTROY_DELAY_GRACE;
+        try {
+            cleaner.schedule(() -> destroyReferenceMeta(referenceMeta), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) { // 并发关闭时，由 destroy 方法立即销毁
+        }
+    }
+
+    private void destroyReferenceMeta(ReferenceMeta referenceMeta) {
+        String notifyUrl = pendingDestroyReferenceMetas.remove(referenceMeta);
+        if (notifyUrl == null) { // 已经销毁
+            return;
+        }
+        try {
+            referenceMeta.getConfig().destroy();
+            log.info("[destroyReferenceMeta][notifyUrl({}) 销毁]", notifyUrl);
+        } catch (Throwable th) {
+            log.error("[destroyReferenceMeta][notifyUrl({}) 销毁发生异常]", notifyUrl, th);
+        }
+    }
+
+    /**
+     * 清理空闲的 Reference，以及创建超过一个清理间隔、仍没有可用提供者的 Reference
+     */
+    private void cleanUp() {
+        try {
+            referenceMetaCache.cleanUp();
+            long unhealthyTime = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(CLEAN_UP_INTERVAL);
+            for (Map.Entry<String, ReferenceMeta> entry : referenceMetaCache.asMap().entrySet()) {
+                ReferenceMeta referenceMeta = entry.getValue();
+                if (referenceMeta.getCreateTime() < unhealthyTime && !referenceMeta.isAvailable()) {
+                    referenceMetaCache.invalidate(entry.getKey());
+                }
+            }
+        } catch (Throwable th) {
+            log.error("[cleanUp][清理 Reference 发生异常]", th);
+        }
+    }
+
     // TODO 芋艿，后续重构成一个对象
     private List<String> parseNotifyUrl(String notifyUrl) {
         return StringUtils.split(notifyUrl, "#");
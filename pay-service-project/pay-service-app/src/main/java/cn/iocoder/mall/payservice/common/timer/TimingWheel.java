@@ -0,0 +1,156 @@
+package cn.iocoder.mall.payservice.common.timer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 分层时间轮
+ *
+ * 第 0 层每格 tickMillis，第 i 层每格 tickMillis * wheelSize^i。元素按到期时间放入能容纳它的最低一层，
+ * 时间推进到高层某格的起点时，将该格的元素重新放入低层，直到在第 0 层到期。超出最高层范围的元素放在 overflow 中，
+ * 每当最高层转完一圈时重新放入。
+ *
+ * 添加、推进都是 O(1) 的（不计降层），元素数量受 capacity 限制，超出时 {@link #add(Object, long)} 返回 false，
+ * 由调用方自行兜底。非线程安全的操作都通过 synchronized 保护。
+ *
+ * @param <E> 元素类型
+ */
+public class TimingWheel<E> {
+
+    private static final class Entry<E> {
+
+        private final E element;
+        /**
+         * 到期的 tick
+         */
+        private final long deadlineTick;
+
+        private Entry(E element, long deadlineTick) {
+            this.element = element;
+            this.deadlineTick = deadlineTick;
+        }
+
+    }
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int capacity;
+    /**
+     * 每一层每格的 tick 数，即 wheelSize^i
+     */
+    private final long[] units;
+    /**
+     * 时间轮，buckets[level][index]
+     */
+    private final ArrayDeque<Entry<E>>[][] buckets;
+    /**
+     * 超出最高层范围的元素
+     */
+    private final List<Entry<E>> overflow = new ArrayList<>();
+
+    /**
+     * 当前 tick，到期时间不大于它的元素均已取出
+     */
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, int levels, int capacity, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 1 || levels <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("时间轮参数不正确");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.capacity = capacity;
+        this.units = new long[levels];
+        this.buckets = new ArrayDeque[levels][wheelSize];
+        long unit = 1;
+        for (int level = 0; level < levels; level++) {
+            units[level] = unit;
+            for (int index = 0; index < wheelSize; index++) {
+                buckets[level][index] = new ArrayDeque<>();
+            }
+            unit *= wheelSize;
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * 添加元素。已经到期的元素，会在下一个 tick 取出
+     *
+     * @param element 元素
+     * @param deadlineMillis 到期时间
+     * @return 是否添加成功。元素数量达到上限时，返回 false
+     */
+    public synchronized boolean add(E element, long deadlineMillis) {
+        if (size >= capacity) {
+            return false;
+        }
+        long deadlineTick = Math.max(ceilTick(deadlineMillis), currentTick + 1);
+        place(new Entry<>(element, deadlineTick));
+        size++;
+        return true;
+    }
+
+    /**
+     * 推进时间轮到指定时间，返回期间到期的元素
+     *
+     * @param nowMillis 当前时间
+     * @return 到期的元素
+     */
+    public synchronized List<E> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        if (targetTick <= currentTick) {
+            return Collections.emptyList();
+        }
+        List<E> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            // 从高层到低层，将到达起点的格子降层
+            int topLevel = units.length - 1;
+            if (currentTick % (units[topLevel] * wheelSize) == 0 && !overflow.isEmpty()) {
+                List<Entry<E>> entries = new ArrayList<>(overflow);
+                overflow.clear();
+                entries.forEach(this::place);
+            }
+            for (int level = topLevel; level > 0; level--) {
+                if (currentTick % units[level] != 0) {
+                    continue;
+                }
+                ArrayDeque<Entry<E>> bucket = buckets[level][(int) (currentTick / units[level] % wheelSize)];
+                for (int i = bucket.size(); i > 0; i--) {
+                    place(bucket.poll());
+                }
+            }
+            // 取出第 0 层到期的格子
+            ArrayDeque<Entry<E>> bucket = buckets[0][(int) (currentTick % wheelSize)];
+            for (Entry<E> entry; (entry = bucket.poll()) != null; ) {
+                expired.add(entry.element);
+            }
+        }
+        size -= expired.size();
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void place(Entry<E> entry) {
+        for (int level = 0; level < units.length; level++) {
+            long unit = units[level];
+            if (entry.deadlineTick / unit - currentTick / unit < wheelSize) {
+                buckets[level][(int) (entry.deadlineTick / unit % wheelSize)].add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    private long ceilTick(long millis) {
+        return (millis + tickMillis - 1) / tickMillis;
+    }
+
+}
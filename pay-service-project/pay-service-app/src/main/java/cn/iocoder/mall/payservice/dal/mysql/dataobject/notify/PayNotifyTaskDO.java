@@ -58,9 +58,17 @@ public class PayNotifyTaskDO extends DeletableDO {
     /**
      * 是否激活中，即处于正在 MQ 异步通知中
      *
-     * @see cn.iocoder.mall.payservice.job.notify.PayNotifyRetryJob
+     * 新建时为 false，由 PayNotifyOutboxDispatcher 派发时标记为 true，通知完成后恢复为 false
+     *
+     * @see cn.iocoder.mall.payservice.mq.producer.PayNotifyOutboxDispatcher
      */
     private Boolean active;
+    /**
+     * 认领令牌
+     *
+     * PayNotifyOutboxDispatcher 批量认领任务时写入，每次认领唯一，用于查询本次认领成功的任务
+     */
+    private String claimToken;
     /**
      * 下一次通知时间
      */
@@ -6,26 +6,83 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 @Repository
 public interface PayNotifyTaskMapper extends BaseMapper<PayNotifyTaskDO> {
 
     /**
-     * 获得需要通知的 PayTransactionNotifyTaskDO 记录。需要满足如下条件：
+     * 获得需要重试通知的 PayNotifyTaskDO 记录，按 (nextNotifyTime, id) 进行 keyset 分页。需要满足如下条件：
      *
      * 1. status 非成功
-     * 2. nextNotifyTime 小于当前时间
+     * 2. nextNotifyTime 小于等于 maxNextNotifyTime
      * 3. active 为 false 并未正在执行中
      *
-     * @return PayTransactionNotifyTaskDO 数组
+     * 只查询 id、next_notify_time 字段，减少内存占用
+     * 依赖 idx_active_next_notify_time 索引，按索引顺序扫描，status 回表过滤。见 sql/migration/20261018_01_pay_notify_task_retry_index.sql
+     *
+     * @param maxNextNotifyTime 最大的下一次通知时间
+     * @param lastNextNotifyTime 上一页最后一条的下一次通知时间，首页传 null
+     * @param lastId 上一页最后一条的编号，首页传 null
+     * @param limit 数量上限
+     * @return PayNotifyTaskDO 数组
      */
-    default List<PayNotifyTaskDO> selectListByNotify() {
-        return selectList(new QueryWrapper<PayNotifyTaskDO>()
+    default List<PayNotifyTaskDO> selectListByRetry(Date maxNextNotifyTime, Date lastNextNotifyTime, Integer lastId, int limit) {
+        QueryWrapper<PayNotifyTaskDO> query = new QueryWrapper<PayNotifyTaskDO>()
+                .select("id", "next_notify_time")
                 .in("status", PayNotifyStatusEnum.WAITING.getStatus(), PayNotifyStatusEnum.REQUEST_SUCCESS.getStatus(),
                         PayNotifyStatusEnum.REQUEST_FAILURE.getStatus())
-                .le("next_notify_time", "NOW()")
-                .eq("active", Boolean.FALSE));
+                .le("next_notify_time", maxNextNotifyTime)
+                .eq("active", Boolean.FALSE);
+        if (lastId != null) {
+            query.and(wrapper -> wrapper.gt("next_notify_time", lastNextNotifyTime)
+                    .or().eq("next_notify_time", lastNextNotifyTime).gt("id", lastId));
+        }
+        return selectList(query.orderByAsc("next_notify_time", "id").last("LIMIT " + limit));
+    }
+
+    /**
+     * 批量认领任务：将 active 从 false 标记为 true ，并记录认领令牌。只有认领成功的任务，才可以派发
+     *
+     * 同时校验 status 与 nextNotifyTime ，避免认领期间已经被其它节点通知完成的任务
+     *
+     * @param ids 编号数组
+     * @param claimToken 认领令牌，每次认领唯一
+     * @param statuses 需要通知的 status 数组
+     * @param maxNextNotifyTime 最大的下一次通知时间
+     * @return 更新数量
+     */
+    default int updateActiveBatchByClaim(Collection<Integer> ids, String claimToken, Collection<Integer> statuses,
+                                         Date maxNextNotifyTime) {
+        return update(new PayNotifyTaskDO().setActive(true).setClaimToken(claimToken), new QueryWrapper<PayNotifyTaskDO>()
+                .in("id", ids).eq("active", Boolean.FALSE).in("status", statuses).le("next_notify_time", maxNextNotifyTime));
+    }
+
+    /**
+     * 获得指定认领令牌认领成功的任务编号
+     *
+     * @param ids 认领的编号数组。作为条件按主键查询，避免扫描 claim_token
+     * @param claimToken 认领令牌
+     * @return 编号数组
+     */
+    default List<PayNotifyTaskDO> selectListByClaimToken(Collection<Integer> ids, String claimToken) {
+        return selectList(new QueryWrapper<PayNotifyTaskDO>().select("id")
+                .in("id", ids).eq("claim_token", claimToken).eq("active", Boolean.TRUE));
+    }
+
+    /**
+     * 批量更新 active 字段
+     *
+     * @param ids 编号数组
+     * @param whereActive 更新前的 active 值
+     * @param active 更新后的 active 值
+     * @return 更新数量
+     */
+    default int updateActiveBatch(Collection<Integer> ids, Boolean whereActive, Boolean active) {
+        return update(new PayNotifyTaskDO().setActive(active), new QueryWrapper<PayNotifyTaskDO>()
+                .in("id", ids).eq("active", whereActive));
     }
 
     default int update(PayNotifyTaskDO update, Integer whereNotifyTimes) {
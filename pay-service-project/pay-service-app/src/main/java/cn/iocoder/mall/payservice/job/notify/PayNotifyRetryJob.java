@@ -1,8 +1,10 @@
 package cn.iocoder.mall.payservice.job.notify;
 
+import cn.iocoder.common.framework.util.CollectionUtils;
+import cn.iocoder.common.framework.util.DateUtil;
 import cn.iocoder.mall.payservice.dal.mysql.dataobject.notify.PayNotifyTaskDO;
 import cn.iocoder.mall.payservice.dal.mysql.mapper.notify.PayNotifyTaskMapper;
-import cn.iocoder.mall.payservice.service.notify.PayNotifyService;
+import cn.iocoder.mall.payservice.mq.producer.PayNotifyOutboxDispatcher;
 import com.xxl.job.core.biz.model.ReturnT;
 import com.xxl.job.core.handler.IJobHandler;
 import com.xxl.job.core.handler.annotation.XxlJob;
@@ -10,42 +12,59 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Calendar;
+import java.util.Date;
 import java.util.List;
 
 /**
  * 支付通知重试 Job
  *
- * 由于 RocketMQ 不支持指定时间的延迟消息，所以我们需要通过 Job 扫描到达 {@link PayNotifyTaskDO#getNextNotifyTime()} 时间的任务。
- * 扫描到后，通过发送 MQ 去异步通知，提高通知效率。
+ * 正常情况下，新任务由 {@link PayNotifyOutboxDispatcher} 在事务提交后派发，重试的任务由 {@link PayNotifyRetryScheduler}
+ * 的时间轮到期后派发。该 Job 作为兜底，扫描逾期超过 {@link #OVERDUE_SECONDS} 秒仍未派发的任务，例如说应用重启、时间轮已满。
  *
- * 考虑到 MQ 执行可能存在延迟的情况，导致一个 {@link PayNotifyTaskDO} 同时触发多个通知，通过 {@link PayNotifyTaskDO#getActive()} 标记解决。
+ * 扫描按 (nextNotifyTime, id) keyset 分页，每页只加载编号；派发队列满时阻塞，因此内存、数据库压力都是有界的。
  */
 @Component
 @Slf4j
 public class PayNotifyRetryJob extends IJobHandler {
 
+    /**
+     * 逾期多少秒的任务才扫描，避免和时间轮重复派发
+     */
+    private static final int OVERDUE_SECONDS = 30;
+    /**
+     * 每页扫描的数量
+     */
+    private static final int PAGE_SIZE = 500;
+
     @Autowired
     private PayNotifyTaskMapper payNotifyTaskMapper;
-
     @Autowired
-    private PayNotifyService payNotifyService;
+    private PayNotifyOutboxDispatcher payNotifyOutboxDispatcher;
 
     @Override
     @XxlJob("payNotifyRetryJob")
-    public ReturnT<String> execute(String param) {
-        // 获得需要通知的任务
-        List<PayNotifyTaskDO> notifyTasks = payNotifyTaskMapper.selectListByNotify();
-
-        // 循环任务，发送通知
-        for (PayNotifyTaskDO notifyTask : notifyTasks) {
-            // 发送 MQ
-            payNotifyService.sendNotifyMessage(notifyTask);
-
-            // 标记任务执行中。考虑到 MQ 可能会存在先于该操作执行完，所以更新时，增加一个 notifyTimes 作为额外条件，避免覆盖更新的问题。
-            PayNotifyTaskDO updateNotifyTask = new PayNotifyTaskDO().setId(notifyTask.getId()).setActive(true);
-            payNotifyTaskMapper.update(updateNotifyTask, notifyTask.getNotifyTimes());
+    public ReturnT<String> execute(String param) throws Exception {
+        Date maxNextNotifyTime = DateUtil.addDate(Calendar.SECOND, -OVERDUE_SECONDS);
+        Date lastNextNotifyTime = null;
+        Integer lastId = null;
+        int count = 0;
+        while (true) {
+            List<PayNotifyTaskDO> notifyTasks = payNotifyTaskMapper.selectListByRetry(maxNextNotifyTime,
+                    lastNextNotifyTime, lastId, PAGE_SIZE);
+            if (notifyTasks.isEmpty()) {
+                break;
+            }
+            payNotifyOutboxDispatcher.dispatch(CollectionUtils.convertList(notifyTasks, PayNotifyTaskDO::getId));
+            count += notifyTasks.size();
+            if (notifyTasks.size() < PAGE_SIZE) {
+                break;
+            }
+            PayNotifyTaskDO lastNotifyTask = notifyTasks.get(notifyTasks.size() - 1);
+            lastNextNotifyTime = lastNotifyTask.getNextNotifyTime();
+            lastId = lastNotifyTask.getId();
         }
-        return new ReturnT<>("执行通知数：" + notifyTasks.size());
+        return new ReturnT<>("派发逾期通知数：" + count);
     }
 
 }
@@ -0,0 +1,105 @@
+package cn.iocoder.mall.payservice.job.notify;
+
+import cn.iocoder.mall.payservice.common.timer.TimingWheel;
+import cn.iocoder.mall.payservice.dal.mysql.dataobject.notify.PayNotifyTaskDO;
+import cn.iocoder.mall.payservice.mq.producer.PayNotifyOutboxDispatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 支付通知重试调度器
+ *
+ * 通知失败后，按 {@link PayNotifyTaskDO#NOTIFY_FREQUENCY} 计算出下一次通知时间，放入内存中的 {@link TimingWheel}，
+ * 到期后提交给 {@link PayNotifyOutboxDispatcher} 派发，不再需要定时全表扫描。
+ *
+ * 时间轮按秒推进，3 层 64 格可覆盖约 3 天，大于最长的重试间隔。任务数量达到上限，或者应用重启导致内存中的任务丢失时，
+ * 由 {@link PayNotifyRetryJob} 扫描逾期的任务兜底。
+ */
+@Component
+@Slf4j
+public class PayNotifyRetryScheduler {
+
+    private static final long TICK_MILLIS = 1000L;
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 3;
+    /**
+     * 时间轮中任务数量的上限
+     */
+    private static final int WHEEL_CAPACITY = 100000;
+
+    @Autowired
+    private PayNotifyOutboxDispatcher payNotifyOutboxDispatcher;
+
+    private final TimingWheel<Integer> timingWheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, WHEEL_LEVELS,
+            WHEEL_CAPACITY, System.currentTimeMillis());
+    private ScheduledExecutorService ticker;
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pay-notify-retry-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * 在当前事务提交后，调度任务在下一次通知时间重试。不在事务中时，立即调度
+     *
+     * @param taskId 任务编号
+     * @param nextNotifyTime 下一次通知时间
+     */
+    public void scheduleAfterCommit(Integer taskId, Date nextNotifyTime) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            schedule(taskId, nextNotifyTime);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                schedule(taskId, nextNotifyTime);
+            }
+
+        });
+    }
+
+    private void schedule(Integer taskId, Date nextNotifyTime) {
+        if (!timingWheel.add(taskId, nextNotifyTime.getTime())) {
+            log.warn("[schedule][通知任务({}) 时间轮已满，等待逾期扫描]", taskId);
+        }
+    }
+
+    private void tick() {
+        try {
+            List<Integer> taskIds = timingWheel.advance(System.currentTimeMillis());
+            if (!taskIds.isEmpty()) {
+                payNotifyOutboxDispatcher.dispatch(taskIds);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable th) {
+            log.error("[tick][时间轮推进发生异常]", th);
+        }
+    }
+
+}
@@ -3,24 +3,41 @@ package cn.iocoder.mall.payservice.mq.consumer;
 import cn.iocoder.common.framework.util.DateUtil;
 import cn.iocoder.common.framework.util.ExceptionUtil;
 import cn.iocoder.common.framework.vo.CommonResult;
+import cn.iocoder.mall.payservice.common.bulkhead.KeyedBulkhead;
 import cn.iocoder.mall.payservice.common.dubbo.DubboReferencePool;
 import cn.iocoder.mall.payservice.dal.mysql.dataobject.notify.PayNotifyLogDO;
 import cn.iocoder.mall.payservice.dal.mysql.dataobject.notify.PayNotifyTaskDO;
 import cn.iocoder.mall.payservice.dal.mysql.mapper.notify.PayNotifyLogMapper;
 import cn.iocoder.mall.payservice.dal.mysql.mapper.notify.PayNotifyTaskMapper;
 import cn.iocoder.mall.payservice.enums.notify.PayNotifyStatusEnum;
+import cn.iocoder.mall.payservice.job.notify.PayNotifyRetryScheduler;
 import cn.iocoder.mall.payservice.mq.producer.message.AbstractPayNotifySuccessMessage;
 import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
 
+@Slf4j
 public abstract class AbstractPayNotifySuccessMQConsumer<T extends AbstractPayNotifySuccessMessage> {
 //    implements RocketMQListener<T> TODO 芋艿，理论来说，可以实现 RocketMQListener 接口，然后 execute 作为 onMessage 的具体实现。但是新版本貌似不行，后续在排查下；
 
+    /**
+     * 单个 notifyUrl 的最大并发通知数
+     */
+    private static final int NOTIFY_MAX_CONCURRENT_PER_URL = 4;
+    /**
+     * 舱壁已满时，延迟重试的时间，单位：秒
+     */
+    private static final int BULKHEAD_RETRY_DELAY = 5;
+    /**
+     * 通知的舱壁，支付、退款通知共用，按 notifyUrl 隔离
+     */
+    private static final KeyedBulkhead NOTIFY_BULKHEAD = new KeyedBulkhead(NOTIFY_MAX_CONCURRENT_PER_URL);
+
     @Autowired
     private DubboReferencePool dubboReferencePool;
 
@@ -29,48 +46,76 @@ public abstract class AbstractPayNotifySuccessMQConsumer<T extends AbstractPayNo
     @Autowired
     private PayNotifyLogMapper payTransactionNotifyLogMapper;
 
-    @Transactional
+    @Autowired
+    private PayNotifyRetryScheduler payNotifyRetryScheduler;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     public void execute(T message) {
-        // 发起调用
+        // 舱壁：限制单个 notifyUrl 的并发，超出时延迟重试，不占用消费线程等待
+        if (!NOTIFY_BULKHEAD.tryAcquire(message.getNotifyUrl())) {
+            delayRetry(message);
+            return;
+        }
+        // 发起调用，不在事务中，避免慢的下游长时间占用数据库连接
         CommonResult<Boolean> invokeResult = null; // RPC / HTTP 调用的响应
         Throwable invokeException = null; //
-        PayNotifyTaskDO updateTask = new PayNotifyTaskDO() // 更新 PayTransactionNotifyTaskDO 对象
-                .setId(message.getId())
-                .setActive(false) // 标记本地通知已经完成
-                .setLastExecuteTime(new Date())
-                .setNotifyTimes(message.getNotifyTimes() + 1);
         try {
-            // 获得 ReferenceMeta 对象
+            // 获得 ReferenceMeta 对象。超时时间按 notifyUrl 配置，参见 DubboReferencePool
             DubboReferencePool.ReferenceMeta referenceMeta = dubboReferencePool.getReferenceMeta(message.getNotifyUrl());
-            // TODO 芋艿，这里要优化下，不要在事务里，进行 RPC 调用
             invokeResult = invoke(message, referenceMeta);
-            if (invokeResult.isSuccess()) { // 情况一，请求成功且返回成功
-                // 更新通知成功
-                updateTask.setStatus(PayNotifyStatusEnum.SUCCESS.getStatus());
-                payNotifyTaskMapper.updateById(updateTask);
-                // 需要更新支付交易单通知应用成功
-                afterInvokeSuccess(message);
-            } else { // 情况二，请求成功且返回失败
-                // 更新通知请求成功，但是结果失败
-                handleFailure(updateTask, PayNotifyStatusEnum.REQUEST_SUCCESS.getStatus());
-                payNotifyTaskMapper.updateById(updateTask);
-            }
         } catch (Throwable e) { // 请求失败
             invokeException = e;
-            // 更新通知请求失败
+        } finally {
+            NOTIFY_BULKHEAD.release(message.getNotifyUrl());
+        }
+        // 记录调用结果
+        saveNotifyResult(message, invokeResult, invokeException);
+    }
+
+    /**
+     * 在一个短事务中，更新 PayNotifyTaskDO、插入 PayNotifyLogDO，调用成功时执行 {@link #afterInvokeSuccess(AbstractPayNotifySuccessMessage)}
+     */
+    private void saveNotifyResult(T message, CommonResult<Boolean> invokeResult, Throwable invokeException) {
+        PayNotifyTaskDO updateTask = new PayNotifyTaskDO() // 更新 PayTransactionNotifyTaskDO 对象
+                .setId(message.getId())
+                .setActive(false) // 标记本地通知已经完成
+                .setLastExecuteTime(new Date())
+                .setNotifyTimes(message.getNotifyTimes() + 1);
+        boolean success = invokeResult != null && invokeResult.isSuccess();
+        if (success) { // 情况一，请求成功且返回成功
+            updateTask.setStatus(PayNotifyStatusEnum.SUCCESS.getStatus());
+        } else if (invokeResult != null) { // 情况二，请求成功且返回失败
+            handleFailure(updateTask, PayNotifyStatusEnum.REQUEST_SUCCESS.getStatus());
+        } else { // 情况三，请求失败
             handleFailure(updateTask, PayNotifyStatusEnum.REQUEST_FAILURE.getStatus());
+        }
+        PayNotifyLogDO notifyLog = new PayNotifyLogDO().setNotifyId(message.getId())
+                .setStatus(updateTask.getStatus())
+                .setRequest(JSON.toJSONString(message))
+                .setResponse(invokeResult != null ? JSON.toJSONString(invokeResult) : ExceptionUtil.getRootCauseMessage(invokeException));
+        transactionTemplate.executeWithoutResult(status -> {
             payNotifyTaskMapper.updateById(updateTask);
-            // 抛出异常，回滚事务
-            // TODO 芋艿，此处不能抛出异常。因为，会导致 MQ + 定时任务多重试。此处的目标是，事务回滚 + 吃掉事务。另外，最后的 finally 的日志，要插入成功。
-//            throw e;
-        } finally {
-            // 插入 PayTransactionNotifyLogDO 日志
-            PayNotifyLogDO notifyLog = new PayNotifyLogDO().setNotifyId(message.getId())
-                    .setStatus(updateTask.getStatus())
-                    .setRequest(JSON.toJSONString(message))
-                    .setResponse(invokeResult != null ? JSON.toJSONString(invokeResult) : ExceptionUtil.getRootCauseMessage(invokeException));
             payTransactionNotifyLogMapper.insert(notifyLog);
-        }
+            if (success) {
+                // 需要更新支付交易单通知应用成功
+                afterInvokeSuccess(message);
+            } else {
+                scheduleRetry(updateTask);
+            }
+        });
+    }
+
+    /**
+     * 舱壁已满时，不计入通知次数，延迟后重新派发
+     */
+    private void delayRetry(T message) {
+        Date nextNotifyTime = DateUtil.addDate(Calendar.SECOND, BULKHEAD_RETRY_DELAY);
+        payNotifyTaskMapper.updateById(new PayNotifyTaskDO().setId(message.getId())
+                .setActive(false).setNextNotifyTime(nextNotifyTime));
+        payNotifyRetryScheduler.scheduleAfterCommit(message.getId(), nextNotifyTime);
+        log.warn("[delayRetry][通知任务({}) 的 notifyUrl({}) 并发已满，延迟重试]", message.getId(), message.getNotifyUrl());
     }
 
     private void handleFailure(PayNotifyTaskDO updateTask, Integer defaultStatus) {
@@ -82,6 +127,12 @@ public abstract class AbstractPayNotifySuccessMQConsumer<T extends AbstractPayNo
         }
     }
 
+    private void scheduleRetry(PayNotifyTaskDO updateTask) {
+        if (updateTask.getNextNotifyTime() != null) { // 彻底失败时，不设置下一次通知时间
+            payNotifyRetryScheduler.scheduleAfterCommit(updateTask.getId(), updateTask.getNextNotifyTime());
+        }
+    }
+
     protected abstract CommonResult<Boolean> invoke(T message, DubboReferencePool.ReferenceMeta referenceMeta);
 
     protected abstract void afterInvokeSuccess(T message);
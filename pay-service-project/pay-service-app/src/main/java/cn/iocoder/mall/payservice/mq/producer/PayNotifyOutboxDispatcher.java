@@ -0,0 +1,249 @@
+package cn.iocoder.mall.payservice.mq.producer;
+
+import cn.iocoder.common.framework.util.CollectionUtils;
+import cn.iocoder.common.framework.util.StringUtils;
+import cn.iocoder.mall.payservice.convert.notify.PayNotifyConvert;
+import cn.iocoder.mall.payservice.dal.mysql.dataobject.notify.PayNotifyTaskDO;
+import cn.iocoder.mall.payservice.dal.mysql.mapper.notify.PayNotifyTaskMapper;
+import cn.iocoder.mall.payservice.enums.notify.PayNotifyStatusEnum;
+import cn.iocoder.mall.payservice.enums.notify.PayNotifyType;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 支付通知的 Outbox 派发器
+ *
+ * {@link PayNotifyTaskDO} 作为 Outbox，和业务数据在同一个事务中写入，不再在事务中同步发送 MQ。
+ * 待派发的任务编号放入有界队列，派发线程批量取出，重新加载任务并校验仍需通知后，异步发送 MQ，再批量更新任务状态：
+ * 1. 发送前，通过一条 UPDATE 批量将 active 从 false 标记为 true 并写入本次的认领令牌，再按认领令牌查询认领成功的任务，只发送这些任务。
+ *    从而多个节点、或者重试与事务提交后的派发，同时派发同一个任务时，只有一个会发送。先标记再发送，避免 MQ 消费先于标记完成，导致覆盖更新
+ * 2. 发送失败或超时的任务，批量恢复 active 为 false，由 PayNotifyRetryJob 扫描逾期任务后重新派发
+ *
+ * 任务编号的来源：
+ * 1. 新任务，在事务提交后通过 {@link #dispatchAfterCommit(Integer)} 提交
+ * 2. 重试的任务，由 PayNotifyRetryScheduler 的时间轮到期后提交
+ * 3. 逾期的任务，由 PayNotifyRetryJob 分页扫描后提交
+ *
+ * 派发是 at-least-once 的，极端情况下（例如说发送超时但实际成功）会重复通知，业务方需要保证幂等
+ */
+@Component
+@Slf4j
+public class PayNotifyOutboxDispatcher {
+
+    /**
+     * 每批派发的任务数量
+     */
+    private static final int DISPATCH_BATCH_SIZE = 100;
+    /**
+     * 需要通知的状态
+     */
+    private static final Set<Integer> RETRY_STATUSES = CollectionUtils.asSet(PayNotifyStatusEnum.WAITING.getStatus(),
+            PayNotifyStatusEnum.REQUEST_SUCCESS.getStatus(), PayNotifyStatusEnum.REQUEST_FAILURE.getStatus());
+    /**
+     * 待派发队列的容量
+     */
+    private static final int DISPATCH_QUEUE_CAPACITY = 10000;
+    /**
+     * 派发线程等待队列的间隔，单位：毫秒
+     */
+    private static final long DISPATCH_POLL_INTERVAL = 1000L;
+    /**
+     * 到期时间的容差，单位：毫秒。时间轮按 tick 到期，可能早于 nextNotifyTime 不到一个 tick
+     */
+    private static final long DISPATCH_DEADLINE_TOLERANCE = 1000L;
+    /**
+     * 等待一批消息发送完成的超时时间，单位：毫秒
+     */
+    private static final long DISPATCH_SEND_TIMEOUT = 5000L;
+
+    @Autowired
+    private PayNotifyTaskMapper payNotifyTaskMapper;
+    @Autowired
+    private PayMQProducer payMQProducer;
+
+    /**
+     * 待派发的任务编号
+     */
+    private final BlockingQueue<Integer> queue = new LinkedBlockingQueue<>(DISPATCH_QUEUE_CAPACITY);
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        dispatcher = new Thread(this::run, "pay-notify-outbox-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            dispatcher.join(DISPATCH_SEND_TIMEOUT);
+        }
+    }
+
+    /**
+     * 提交待派发的任务编号。队列已满时阻塞，从而限制扫描、时间轮的派发速度
+     *
+     * @param taskIds 任务编号数组
+     */
+    public void dispatch(Collection<Integer> taskIds) throws InterruptedException {
+        for (Integer taskId : taskIds) {
+            queue.put(taskId);
+        }
+    }
+
+    /**
+     * 在当前事务提交后，提交待派发的任务编号。不在事务中时，立即提交
+     *
+     * 队列已满时直接放弃，由 PayNotifyRetryJob 扫描逾期任务后派发，避免阻塞业务线程
+     *
+     * @param taskId 任务编号
+     */
+    public void dispatchAfterCommit(Integer taskId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            offer(taskId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                offer(taskId);
+            }
+
+        });
+    }
+
+    private void offer(Integer taskId) {
+        if (!queue.offer(taskId)) {
+            log.warn("[offer][通知任务({}) 派发队列已满，等待逾期扫描]", taskId);
+        }
+    }
+
+    private void run() {
+        List<Integer> taskIds = new ArrayList<>(DISPATCH_BATCH_SIZE);
+        while (running) {
+            try {
+                Integer taskId = queue.poll(DISPATCH_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (taskId == null) {
+                    continue;
+                }
+                taskIds.add(taskId);
+                queue.drainTo(taskIds, DISPATCH_BATCH_SIZE - 1);
+                doDispatch(taskIds);
+            } catch (InterruptedException e) {
+                break;
+            } catch (Throwable th) {
+                log.error("[run][派发通知任务({}) 发生异常]", taskIds, th);
+            } finally {
+                taskIds.clear();
+            }
+        }
+    }
+
+    private void doDispatch(List<Integer> taskIds) throws InterruptedException {
+        // 重新加载任务，过滤掉已经不需要通知的任务，例如说重复提交、已通知成功
+        long deadline = System.currentTimeMillis() + DISPATCH_DEADLINE_TOLERANCE;
+        List<PayNotifyTaskDO> notifyTasks = payNotifyTaskMapper.selectBatchIds(taskIds).stream()
+                .filter(notifyTask -> !notifyTask.getActive() && RETRY_STATUSES.contains(notifyTask.getStatus())
+                        && notifyTask.getNextNotifyTime().getTime() <= deadline)
+                .collect(Collectors.toList());
+        if (notifyTasks.isEmpty()) {
+            return;
+        }
+        // 批量认领任务，只发送认领成功的任务。已经被其它节点认领的任务，不会被更新
+        Set<Integer> claimedIds = claim(notifyTasks, deadline);
+        notifyTasks.removeIf(notifyTask -> !claimedIds.contains(notifyTask.getId()));
+        if (notifyTasks.isEmpty()) {
+            return;
+        }
+        // 异步发送 MQ
+        Set<Integer> failureIds = ConcurrentHashMap.newKeySet();
+        CountDownLatch latch = new CountDownLatch(notifyTasks.size());
+        for (PayNotifyTaskDO notifyTask : notifyTasks) {
+            failureIds.add(notifyTask.getId()); // 先标记为失败，发送成功后移除，超时未回调的任务也按失败处理
+            try {
+                sendNotifyMessage(notifyTask, new SendCallback() {
+
+                    @Override
+                    public void onSuccess(SendResult sendResult) {
+                        if (SendStatus.SEND_OK.equals(sendResult.getSendStatus())) {
+                            failureIds.remove(notifyTask.getId());
+                        } else {
+                            log.error("[onSuccess][通知任务({}) 发送消息失败，结果为({})]", notifyTask.getId(), sendResult);
+                        }
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onException(Throwable throwable) {
+                        log.error("[onException][通知任务({}) 发送消息失败，发生异常]", notifyTask.getId(), throwable);
+                        latch.countDown();
+                    }
+
+                });
+            } catch (Throwable throwable) {
+                log.error("[doDispatch][通知任务({}) 发送消息失败，发生异常]", notifyTask.getId(), throwable);
+                latch.countDown();
+            }
+        }
+        if (!latch.await(DISPATCH_SEND_TIMEOUT, TimeUnit.MILLISECONDS)) {
+            log.warn("[doDispatch][等待消息发送超时，剩余({}) 条按失败处理]", latch.getCount());
+        }
+        // 批量恢复发送失败的任务
+        if (!failureIds.isEmpty()) {
+            payNotifyTaskMapper.updateActiveBatch(failureIds, true, false);
+        }
+    }
+
+    /**
+     * 批量认领任务
+     *
+     * @param notifyTasks 任务数组
+     * @param deadline 最大的下一次通知时间
+     * @return 认领成功的任务编号
+     */
+    private Set<Integer> claim(List<PayNotifyTaskDO> notifyTasks, long deadline) {
+        Set<Integer> ids = CollectionUtils.convertSet(notifyTasks, PayNotifyTaskDO::getId);
+        String claimToken = StringUtils.uuid(true);
+        int count = payNotifyTaskMapper.updateActiveBatchByClaim(ids, claimToken, RETRY_STATUSES, new Date(deadline));
+        if (count == 0) {
+            return Collections.emptySet();
+        }
+        if (count == ids.size()) { // 全部认领成功，无需查询
+            return ids;
+        }
+        return CollectionUtils.convertSet(payNotifyTaskMapper.selectListByClaimToken(ids, claimToken), PayNotifyTaskDO::getId);
+    }
+
+    private void sendNotifyMessage(PayNotifyTaskDO notifyTask, SendCallback sendCallback) {
+        if (PayNotifyType.TRANSACTION.getType().equals(notifyTask.getType())) {
+            payMQProducer.sendPayTransactionNotifyTaskMessage(PayNotifyConvert.INSTANCE.convertTransaction(notifyTask), sendCallback);
+        } else if (PayNotifyType.REFUND.getType().equals(notifyTask.getType())) {
+            payMQProducer.sendPayRefundNotifyTaskMessage(PayNotifyConvert.INSTANCE.convertRefund(notifyTask), sendCallback);
+        } else {
+            throw new IllegalArgumentException(String.format("通知任务(%s) 无法发送通知消息", notifyTask.toString()));
+        }
+    }
+
+}
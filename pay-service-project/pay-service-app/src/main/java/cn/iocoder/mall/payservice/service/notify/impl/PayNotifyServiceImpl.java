@@ -1,7 +1,5 @@
 package cn.iocoder.mall.payservice.service.notify.impl;
 
-import cn.iocoder.common.framework.util.DateUtil;
-import cn.iocoder.mall.payservice.convert.notify.PayNotifyConvert;
 import cn.iocoder.mall.payservice.dal.mysql.dataobject.notify.PayNotifyTaskDO;
 import cn.iocoder.mall.payservice.dal.mysql.dataobject.refund.PayRefundDO;
 import cn.iocoder.mall.payservice.dal.mysql.dataobject.transaction.PayTransactionDO;
@@ -9,12 +7,12 @@ import cn.iocoder.mall.payservice.dal.mysql.dataobject.transaction.PayTransactio
 import cn.iocoder.mall.payservice.dal.mysql.mapper.notify.PayNotifyTaskMapper;
 import cn.iocoder.mall.payservice.enums.notify.PayNotifyStatusEnum;
 import cn.iocoder.mall.payservice.enums.notify.PayNotifyType;
-import cn.iocoder.mall.payservice.mq.producer.PayMQProducer;
+import cn.iocoder.mall.payservice.mq.producer.PayNotifyOutboxDispatcher;
 import cn.iocoder.mall.payservice.service.notify.PayNotifyService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Calendar;
+import java.util.Date;
 
 /**
  * 支付通知 Service 实现类
@@ -26,7 +24,7 @@ public class PayNotifyServiceImpl implements PayNotifyService {
     private PayNotifyTaskMapper payNotifyTaskMapper;
 
     @Autowired
-    private PayMQProducer payMQProducer;
+    private PayNotifyOutboxDispatcher payNotifyOutboxDispatcher;
 
     @Override
     public void addPayRefundNotifyTask(PayRefundDO refund) {
@@ -35,11 +33,11 @@ public class PayNotifyServiceImpl implements PayNotifyService {
         // 设置 Refund 属性
         payNotifyTaskDO.setRefund(new PayNotifyTaskDO.Refund().setRefundId(refund.getId())
                 .setTransactionId(refund.getTransactionId()).setOrderId(refund.getOrderId()));
-        // 保存到数据库
+        // 保存到数据库，和业务数据在同一个事务中
         payNotifyTaskMapper.insert(payNotifyTaskDO);
 
-        // 发送 MQ 消息
-        sendNotifyMessage(payNotifyTaskDO);
+        // 事务提交后，提交给派发器发送 MQ 消息
+        payNotifyOutboxDispatcher.dispatchAfterCommit(payNotifyTaskDO.getId());
     }
 
     @Override
@@ -49,30 +47,19 @@ public class PayNotifyServiceImpl implements PayNotifyService {
         // 设置 Transaction 属性
         payNotifyTaskDO.setTransaction(new PayNotifyTaskDO.Transaction().setOrderId(transaction.getOrderId())
                 .setTransactionId(extension.getTransactionId()).setTransactionExtensionId(extension.getId()));
-        // 保存到数据库
+        // 保存到数据库，和业务数据在同一个事务中
         payNotifyTaskMapper.insert(payNotifyTaskDO);
 
-        // 发送 MQ 消息
-        sendNotifyMessage(payNotifyTaskDO);
-    }
-
-    @Override
-    public void sendNotifyMessage(PayNotifyTaskDO notifyTask) {
-        if (PayNotifyType.TRANSACTION.getType().equals(notifyTask.getType())) {
-            payMQProducer.sendPayTransactionNotifyTaskMessage(PayNotifyConvert.INSTANCE.convertTransaction(notifyTask));
-        } else if (PayNotifyType.REFUND.getType().equals(notifyTask.getType())) {
-            payMQProducer.sendPayRefundNotifyTaskMessage(PayNotifyConvert.INSTANCE.convertRefund(notifyTask));
-        } else {
-            throw new IllegalArgumentException(String.format("通知任务(%s) 无法发送通知消息", notifyTask.toString()));
-        }
+        // 事务提交后，提交给派发器发送 MQ 消息
+        payNotifyOutboxDispatcher.dispatchAfterCommit(payNotifyTaskDO.getId());
     }
 
     private PayNotifyTaskDO createBasePayNotifyTaskDO(String appId, String notifyUrl) {
         return new PayNotifyTaskDO()
                 .setAppId(appId)
-                .setStatus(PayNotifyStatusEnum.WAITING.getStatus()).setActive(true)
+                .setStatus(PayNotifyStatusEnum.WAITING.getStatus()).setActive(false) // 由 PayNotifyOutboxDispatcher 派发
                 .setNotifyTimes(0).setMaxNotifyTimes(PayNotifyTaskDO.NOTIFY_FREQUENCY.length + 1)
-                .setNextNotifyTime(DateUtil.addDate(Calendar.SECOND, PayNotifyTaskDO.NOTIFY_FREQUENCY[0]))
+                .setNextNotifyTime(new Date())
                 .setNotifyUrl(notifyUrl);
     }
 
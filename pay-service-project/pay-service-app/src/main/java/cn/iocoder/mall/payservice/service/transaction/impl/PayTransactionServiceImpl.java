@@ -1,10 +1,9 @@
 package cn.iocoder.mall.payservice.service.transaction.impl;
 
 import cn.iocoder.common.framework.exception.util.ServiceExceptionUtil;
-import cn.iocoder.common.framework.util.DateUtil;
-import cn.iocoder.common.framework.util.MathUtil;
 import cn.iocoder.common.framework.vo.CommonResult;
 import cn.iocoder.common.framework.vo.PageResult;
+import cn.iocoder.mall.id.core.SnowflakeIdGenerator;
 import cn.iocoder.mall.payservice.client.thirdpay.AbstractThirdPayClient;
 import cn.iocoder.mall.payservice.client.thirdpay.ThirdPayClientFactory;
 import cn.iocoder.mall.payservice.client.thirdpay.dto.ThirdPayTransactionSuccessRespDTO;
@@ -48,6 +47,9 @@ public class PayTransactionServiceImpl implements PayTransactionService {
     @Autowired
     private PayNotifyService payNotifyService;
 
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+
     @Override
     public Integer createPayTransaction(PayTransactionCreateReqDTO createReqDTO) {
         // 校验 App
@@ -179,21 +181,8 @@ public class PayTransactionServiceImpl implements PayTransactionService {
     }
 
     private String generateTransactionCode() {
-//    wx
-//    2014
-//    10
-//    27
-//    20
-//    09
-//    39
-//    5522657
-//    a690389285100
-        // 目前的算法
-        // 时间序列，年月日时分秒 14 位
-        // 纯随机，6 位 TODO 此处估计是会有问题的，后续在调整
-        return DateUtil.format(new Date(), "yyyyMMddHHmmss") + // 时间序列
-                MathUtil.random(100000, 999999) // 随机。为什么是这个范围，因为偷懒
-                ;
+        // 基于 Snowflake 算法生成，单调递增、按时间有序，且多节点之间不重复
+        return snowflakeIdGenerator.nextIdStr();
     }
 
 //    CommonResult cancelTransaction(); // TODO 1. params 2. result
@@ -0,0 +1,12 @@
+-- ----------------------------
+-- 支付通知重试：pay_notify_task 增加 (active, next_notify_time, id) 索引
+--
+-- PayNotifyRetryJob 通过 PayNotifyTaskMapper#selectListByRetry 按 (next_notify_time, id) 进行 keyset 分页，
+-- 没有该索引时每一页都需要全表扫描。
+-- active 为等值条件，索引的顺序即 (next_notify_time, id) 的顺序，每一页只需要扫描 LIMIT 条记录，无需排序。
+-- status 为 IN 多值条件，不放在索引中，否则无法按索引顺序返回，每一页都需要对所有到期的记录排序；改为回表过滤。
+-- 需要在部署 PayNotifyRetryJob 之前执行。InnoDB 支持 Online DDL 添加二级索引，不阻塞读写
+-- ----------------------------
+ALTER TABLE `pay_notify_task`
+    ADD INDEX `idx_active_next_notify_time` (`active`, `next_notify_time`, `id`) USING BTREE COMMENT '重试通知的 keyset 扫描',
+    ALGORITHM = INPLACE, LOCK = NONE;
@@ -0,0 +1,10 @@
+-- ----------------------------
+-- 支付通知派发：pay_notify_task 增加 claim_token 字段
+--
+-- PayNotifyOutboxDispatcher 通过一条 UPDATE 批量认领任务，同时写入本次的认领令牌，
+-- 再按 (id, claim_token) 查询认领成功的任务。查询条件包含主键，无需为 claim_token 添加索引。
+-- 需要在部署新版本 PayNotifyOutboxDispatcher 之前执行。InnoDB 支持 Online DDL 添加字段，不阻塞读写
+-- ----------------------------
+ALTER TABLE `pay_notify_task`
+    ADD COLUMN `claim_token` varchar(32) NULL DEFAULT NULL COMMENT '认领令牌' AFTER `active`,
+    ALGORITHM = INPLACE, LOCK = NONE;
@@ -0,0 +1,160 @@
+package cn.iocoder.mall.payservice.common.timer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * {@link TimingWheel} 的单元测试
+ *
+ * 使用 tickMillis = 10、wheelSize = 4、levels = 3 的时间轮，各层每格分别为 1、4、16 个 tick ，最高层范围为 64 个 tick
+ */
+public class TimingWheelTest {
+
+    private static final long TICK_MILLIS = 10;
+    private static final int WHEEL_SIZE = 4;
+    private static final int LEVELS = 3;
+    private static final long RANGE_TICKS = 64;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructInvalid() {
+        new TimingWheel<String>(TICK_MILLIS, 1, LEVELS, 10, 0);
+    }
+
+    @Test
+    public void testAdvanceLevel0() {
+        TimingWheel<String> wheel = createWheel(10, 0);
+        Assert.assertTrue(wheel.add("a", 25)); // 向上取整到 tick 3
+        Assert.assertTrue(wheel.add("b", 30));
+        Assert.assertEquals(Collections.emptyList(), wheel.advance(29));
+        Assert.assertEquals(Arrays.asList("a", "b"), wheel.advance(30));
+        Assert.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testAddExpired() {
+        TimingWheel<String> wheel = createWheel(10, 1000);
+        // 已经到期的元素，在下一个 tick 取出
+        wheel.add("a", 0);
+        wheel.add("b", 1000);
+        Assert.assertEquals(Collections.emptyList(), wheel.advance(1009));
+        Assert.assertEquals(Arrays.asList("a", "b"), wheel.advance(1010));
+    }
+
+    @Test
+    public void testAdvanceBackward() {
+        TimingWheel<String> wheel = createWheel(10, 1000);
+        wheel.add("a", 1010);
+        // 时间回拨时，不推进
+        Assert.assertEquals(Collections.emptyList(), wheel.advance(500));
+        Assert.assertEquals(Collections.singletonList("a"), wheel.advance(1010));
+    }
+
+    @Test
+    public void testCascade() {
+        TimingWheel<String> wheel = createWheel(10, 0);
+        // tick 6 放在第 1 层，tick 40 放在第 2 层，推进过程中逐层降到第 0 层
+        wheel.add("level1", 6 * TICK_MILLIS);
+        wheel.add("level2", 40 * TICK_MILLIS);
+        assertExpireTicks(wheel, 0, 64, map("level1", 6L, "level2", 40L));
+    }
+
+    @Test
+    public void testOverflow() {
+        TimingWheel<String> wheel = createWheel(10, 0);
+        // 超出最高层范围的元素，放在 overflow 中，最高层转完一圈后重新放入
+        wheel.add("overflow", 100 * TICK_MILLIS);
+        wheel.add("overflow2", 300 * TICK_MILLIS);
+        Assert.assertEquals(2, wheel.size());
+        assertExpireTicks(wheel, 0, 400, map("overflow", 100L, "overflow2", 300L));
+    }
+
+    @Test
+    public void testAdvanceAcrossManyTicks() {
+        TimingWheel<String> wheel = createWheel(10, 0);
+        wheel.add("a", 5 * TICK_MILLIS);
+        wheel.add("b", 50 * TICK_MILLIS);
+        wheel.add("c", 150 * TICK_MILLIS);
+        // 一次推进多个 tick ，期间降层、到期的元素都能取出
+        Assert.assertEquals(Arrays.asList("a", "b"), wheel.advance(100 * TICK_MILLIS));
+        Assert.assertEquals(Collections.singletonList("c"), wheel.advance(1000 * TICK_MILLIS));
+        Assert.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCapacity() {
+        TimingWheel<String> wheel = createWheel(2, 0);
+        Assert.assertTrue(wheel.add("a", 10));
+        Assert.assertTrue(wheel.add("b", 20));
+        Assert.assertFalse(wheel.add("c", 10));
+        Assert.assertEquals(2, wheel.size());
+        // 到期取出后，可以继续添加
+        Assert.assertEquals(Collections.singletonList("a"), wheel.advance(10));
+        Assert.assertTrue(wheel.add("c", 30));
+        Assert.assertEquals(2, wheel.size());
+    }
+
+    @Test
+    public void testPlacementRandom() {
+        // 随机的起始时间、到期时间、推进步长，每个元素都恰好在到期的 tick 取出
+        Random random = new Random(20261018L);
+        for (int round = 0; round < 50; round++) {
+            long startMillis = random.nextInt(100_000);
+            TimingWheel<Integer> wheel = createWheel(1000, startMillis);
+            long currentTick = startMillis / TICK_MILLIS;
+            Map<Integer, Long> expectedTicks = new HashMap<>();
+            int next = 0;
+            long nowMillis = startMillis;
+            while (nowMillis < startMillis + 4 * RANGE_TICKS * TICK_MILLIS) {
+                // 添加若干元素，到期时间覆盖已到期、各层、以及 overflow
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    long deadlineMillis = nowMillis - TICK_MILLIS + random.nextInt((int) (3 * RANGE_TICKS * TICK_MILLIS));
+                    long deadlineTick = Math.max((deadlineMillis + TICK_MILLIS - 1) / TICK_MILLIS, currentTick + 1);
+                    Assert.assertTrue(wheel.add(next, deadlineMillis));
+                    expectedTicks.put(next++, deadlineTick);
+                }
+                // 推进随机步长
+                nowMillis += random.nextInt((int) (WHEEL_SIZE * WHEEL_SIZE * TICK_MILLIS));
+                long targetTick = nowMillis / TICK_MILLIS;
+                for (Integer element : wheel.advance(nowMillis)) {
+                    Long expectedTick = expectedTicks.remove(element);
+                    Assert.assertNotNull(expectedTick);
+                    Assert.assertTrue(expectedTick > currentTick && expectedTick <= targetTick);
+                }
+                currentTick = Math.max(currentTick, targetTick);
+                // 已经到期的元素，都已经取出
+                for (Long expectedTick : expectedTicks.values()) {
+                    Assert.assertTrue(expectedTick > currentTick);
+                }
+                Assert.assertEquals(expectedTicks.size(), wheel.size());
+            }
+        }
+    }
+
+    private static <E> TimingWheel<E> createWheel(int capacity, long startMillis) {
+        return new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, LEVELS, capacity, startMillis);
+    }
+
+    /**
+     * 逐个 tick 推进时间轮，校验每个元素恰好在期望的 tick 取出
+     */
+    private static void assertExpireTicks(TimingWheel<String> wheel, long fromTick, long toTick, Map<String, Long> expectedTicks) {
+        Map<String, Long> actualTicks = new HashMap<>();
+        for (long tick = fromTick + 1; tick <= toTick; tick++) {
+            for (String element : wheel.advance(tick * TICK_MILLIS)) {
+                actualTicks.put(element, tick);
+            }
+        }
+        Assert.assertEquals(expectedTicks, actualTicks);
+        Assert.assertEquals(0, wheel.size());
+    }
+
+    private static Map<String, Long> map(String key1, Long value1, String key2, Long value2) {
+        Map<String, Long> map = new HashMap<>();
+        map.put(key1, value1);
+        map.put(key2, value2);
+        return map;
+    }
+
+}
@@ -3,6 +3,7 @@ package cn.iocoder.mall.productservice.rpc.sku;
 import cn.iocoder.common.framework.vo.CommonResult;
 import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuListQueryReqDTO;
 import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuRespDTO;
+import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuStockReserveReqDTO;
 
 import java.util.List;
 
@@ -27,4 +28,34 @@ public interface ProductSkuRpc {
      */
     CommonResult<List<ProductSkuRespDTO>> listProductSkus(ProductSkuListQueryReqDTO queryReqDTO);
 
+    /**
+     * 预占商品 SKU 库存
+     *
+     * 创建订单时调用。超过过期时间未确认时，预占的库存会被自动释放
+     *
+     * @param reserveReqDTO 预占请求 DTO
+     * @return 预占成功
+     */
+    CommonResult<Boolean> reserveProductSkuStock(ProductSkuStockReserveReqDTO reserveReqDTO);
+
+    /**
+     * 确认预占的商品 SKU 库存
+     *
+     * 订单支付成功时调用
+     *
+     * @param reservationId 预占编号
+     * @return 是否确认成功。失败时，说明预占已经被确认或者释放
+     */
+    CommonResult<Boolean> confirmProductSkuStock(String reservationId);
+
+    /**
+     * 释放预占的商品 SKU 库存
+     *
+     * 订单取消、或者创建失败时调用
+     *
+     * @param reservationId 预占编号
+     * @return 是否释放成功。失败时，说明预占已经被确认或者释放
+     */
+    CommonResult<Boolean> releaseProductSkuStock(String reservationId);
+
 }
@@ -27,6 +27,10 @@ public class ProductSkuListQueryReqDTO implements Serializable {
      * 商品 SPU 编号
      */
     private Integer productSpuId;
+    /**
+     * 商品 SPU 编号数组
+     */
+    private Collection<Integer> productSpuIds;
 
     /**
      * 额外返回字段
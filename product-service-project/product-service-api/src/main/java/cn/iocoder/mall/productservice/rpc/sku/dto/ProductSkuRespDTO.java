@@ -49,6 +49,10 @@ public class ProductSkuRespDTO implements Serializable {
      * 创建时间
      */
     private Date createTime;
+    /**
+     * 最后更新时间
+     */
+    private Date updateTime;
     /**
      * 规格值数组
      *
@@ -0,0 +1,60 @@
+package cn.iocoder.mall.productservice.rpc.sku.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 商品 SKU 库存预占 Request DTO
+ */
+@Data
+@Accessors(chain = true)
+public class ProductSkuStockReserveReqDTO implements Serializable {
+
+    /**
+     * 预占编号，例如说交易订单号
+     *
+     * 同一个预占编号，重复预占时，只会生效一次
+     */
+    @NotEmpty(message = "预占编号不能为空")
+    private String reservationId;
+    /**
+     * 过期时间
+     *
+     * 超过该时间未确认时，预占的库存会被自动释放
+     */
+    @NotNull(message = "过期时间不能为空")
+    private Date expireTime;
+    /**
+     * 预占的商品 SKU 数组
+     */
+    @NotEmpty(message = "预占的商品 SKU 不能为空")
+    @Valid
+    private List<Item> items;
+
+    @Data
+    @Accessors(chain = true)
+    public static class Item implements Serializable {
+
+        /**
+         * 商品 SKU 编号
+         */
+        @NotNull(message = "商品 SKU 编号不能为空")
+        private Integer skuId;
+        /**
+         * 预占数量
+         */
+        @NotNull(message = "预占数量不能为空")
+        @Min(value = 1, message = "预占数量必须大于 0")
+        private Integer quantity;
+
+    }
+
+}
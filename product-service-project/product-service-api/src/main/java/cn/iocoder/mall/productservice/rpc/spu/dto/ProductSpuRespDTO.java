@@ -58,5 +58,9 @@ public class ProductSpuRespDTO implements Serializable {
      * 创建时间
      */
     private Date createTime;
+    /**
+     * 最后更新时间
+     */
+    private Date updateTime;
 
 }
@@ -0,0 +1,9 @@
+package cn.iocoder.mall.productservice.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling // 开启调度任务的功能，因为 ProductCategoryService 通过定时重建商品分类快照
+public class ScheduleConfiguration {
+}
@@ -6,11 +6,13 @@ import cn.iocoder.mall.productservice.dal.mysql.dataobject.sku.ProductSkuDO;
 import cn.iocoder.mall.productservice.rpc.attr.dto.ProductAttrKeyValueRespDTO;
 import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuListQueryReqDTO;
 import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuRespDTO;
+import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuStockReserveReqDTO;
 import cn.iocoder.mall.productservice.rpc.spu.dto.ProductSpuRespDTO;
 import cn.iocoder.mall.productservice.service.attr.bo.ProductAttrKeyValueBO;
 import cn.iocoder.mall.productservice.service.sku.bo.ProductSkuBO;
 import cn.iocoder.mall.productservice.service.sku.bo.ProductSkuCreateOrUpdateBO;
 import cn.iocoder.mall.productservice.service.sku.bo.ProductSkuListQueryBO;
+import cn.iocoder.mall.productservice.service.sku.bo.ProductSkuStockReserveBO;
 import cn.iocoder.mall.productservice.service.spu.bo.ProductSpuBO;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -40,6 +42,8 @@ public interface ProductSkuConvert {
 
     ProductSkuListQueryBO convert(ProductSkuListQueryReqDTO bean);
 
+    ProductSkuStockReserveBO convert(ProductSkuStockReserveReqDTO bean);
+
     ProductSpuRespDTO convert(ProductSpuBO bean);
 
     ProductAttrKeyValueRespDTO convert(ProductAttrKeyValueBO bean);
@@ -7,6 +7,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,12 +18,24 @@ public interface ProductSkuMapper extends BaseMapper<ProductSkuDO> {
                 .eq("status", status));
     }
 
+    default List<ProductSkuDO> selectListBySpuIds(Collection<Integer> spuIds) {
+        return selectList(new QueryWrapperX<ProductSkuDO>().in("spu_id", spuIds));
+    }
+
     void insertList(@Param("productSkuDOs") List<ProductSkuDO> productSkuDOs);
 
+    /**
+     * 批量更新商品 SKU 的库存数量
+     *
+     * @param productSkuDOs 商品 SKU 数组，只需要设置 id 和 quantity 字段
+     */
+    void updateQuantityList(@Param("productSkuDOs") List<ProductSkuDO> productSkuDOs);
+
     default List<ProductSkuDO> selectList(ProductSkuListQueryBO queryBO) {
         return selectList(new QueryWrapperX<ProductSkuDO>().eqIfPresent("id", queryBO.getProductSkuId())
                 .inIfPresent("id", queryBO.getProductSkuIds())
                 .eqIfPresent("spu_id", queryBO.getProductSpuId())
+                .inIfPresent("spu_id", queryBO.getProductSpuIds())
                 .eqIfPresent("status", queryBO.getProductSkuStatus()));
     }
 
@@ -0,0 +1,86 @@
+package cn.iocoder.mall.productservice.dal.redis;
+
+import cn.iocoder.mall.productservice.dal.mysql.dataobject.sku.ProductSkuDO;
+import cn.iocoder.mall.productservice.dal.mysql.dataobject.spu.ProductSpuDO;
+import cn.iocoder.mall.redis.core.RedisKeyDefine;
+
+import java.time.Duration;
+import java.util.List;
+
+import static cn.iocoder.mall.redis.core.RedisKeyDefine.KeyTypeEnum.*;
+
+/**
+ * Redis Key 枚举类
+ *
+ * 通过将项目中的 Key 枚举在该类中，方便统一管理。
+ *
+ * 商品 SKU 库存的 Key ，以商品 SKU 编号作为 hash tag ，同一个商品 SKU 的可用库存、预占数量、已释放数量位于同一个 slot ，
+ * 从而可以在一个 Lua 脚本中原子操作；不同商品 SKU 分散到不同的 slot ，避免所有库存操作集中在 Redis Cluster 的一个节点上
+ */
+public interface RedisKeyConstants {
+
+    /**
+     * 商品 SKU 的可用库存，即 {@link ProductSkuDO#getQuantity()} 扣除已预占的数量
+     *
+     * key 的 format 的参数是 [{@link ProductSkuDO#getId()}]
+     */
+    RedisKeyDefine PRODUCT_SKU_STOCK = new RedisKeyDefine("product_sku_stock:{%s}", STRING, Integer.class,
+            RedisKeyDefine.TIMEOUT_FOREVER);
+    /**
+     * 商品 SKU 在一次预占中的预占数量。确认时删除；释放时归还到可用库存后删除
+     *
+     * key 的 format 的参数是 [{@link ProductSkuDO#getId()}, 预占编号]
+     * 过期时间，同 {@link #PRODUCT_SKU_STOCK_RESERVATION}
+     */
+    RedisKeyDefine PRODUCT_SKU_STOCK_RESERVED = new RedisKeyDefine("product_sku_stock:{%s}:reserved:%s", STRING, Integer.class,
+            Duration.ofDays(1));
+    /**
+     * 商品 SKU 在一次预占中的已释放数量，只记录实际归还到可用库存的
+     *
+     * key 的 format 的参数是 [{@link ProductSkuDO#getId()}, 预占编号]
+     * 用于预占过期释放后，仍然支付成功时，确认预占可以重新扣减已归还的库存，避免超卖
+     */
+    RedisKeyDefine PRODUCT_SKU_STOCK_RELEASED = new RedisKeyDefine("product_sku_stock:{%s}:released:%s", STRING, Integer.class,
+            Duration.ofDays(1));
+    /**
+     * 商品 SKU 库存的预占记录。其中，field 为 {@link ProductSkuDO#getId()}，value 为预占数量。创建后不会修改
+     *
+     * key 的 format 的参数是 [预占编号]
+     * 过期时间，在预占过期时间的基础上，额外保留 1 天，保证过期 Job 释放库存、以及释放后确认时，依然可以读取到
+     */
+    RedisKeyDefine PRODUCT_SKU_STOCK_RESERVATION = new RedisKeyDefine("product_sku_stock_reservation:%s", HASH, Integer.class,
+            Duration.ofDays(1));
+    /**
+     * 商品 SKU 库存的预占过期时间。其中，member 为预占编号，score 为过期时间的毫秒时间戳
+     */
+    RedisKeyDefine PRODUCT_SKU_STOCK_RESERVATION_EXPIRE = new RedisKeyDefine("product_sku_stock_reservation_expire", ZSET, String.class,
+            RedisKeyDefine.TIMEOUT_FOREVER);
+    /**
+     * 可用库存发生变化，需要回写到 MySQL 的商品 SKU 编号集合
+     */
+    RedisKeyDefine PRODUCT_SKU_STOCK_DIRTY = new RedisKeyDefine("product_sku_stock_dirty", SET, Integer.class,
+            RedisKeyDefine.TIMEOUT_FOREVER);
+
+    /**
+     * 商品 SKU 的缓存，value 为 {@link ProductSkuDO} 的 JSON 。不存在的商品 SKU ，value 为空字符串
+     *
+     * key 的 format 的参数是 [{@link ProductSkuDO#getId()}]
+     */
+    RedisKeyDefine PRODUCT_SKU_CACHE = new RedisKeyDefine("product_sku_cache:%s", STRING, ProductSkuDO.class,
+            Duration.ofMinutes(30));
+    /**
+     * 商品 SPU 的缓存，value 为 {@link ProductSpuDO} 的 JSON 。不存在的商品 SPU ，value 为空字符串
+     *
+     * key 的 format 的参数是 [{@link ProductSpuDO#getId()}]
+     */
+    RedisKeyDefine PRODUCT_SPU_CACHE = new RedisKeyDefine("product_spu_cache:%s", STRING, ProductSpuDO.class,
+            Duration.ofMinutes(30));
+    /**
+     * 商品 SPU 下的商品 SKU 编号数组的缓存，value 为 {@link ProductSkuDO#getId()} 数组的 JSON
+     *
+     * key 的 format 的参数是 [{@link ProductSpuDO#getId()}]
+     */
+    RedisKeyDefine PRODUCT_SPU_SKU_IDS_CACHE = new RedisKeyDefine("product_spu_sku_ids_cache:%s", STRING, List.class,
+            Duration.ofMinutes(30));
+
+}
@@ -0,0 +1,88 @@
+package cn.iocoder.mall.productservice.dal.redis.dao;
+
+import cn.iocoder.mall.redis.core.RedisKeyDefine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * 商品缓存的 Redis DAO
+ *
+ * 商品 SKU、SPU 等缓存都是「编号 - JSON」的 STRING 结构，所以通过 {@link RedisKeyDefine} 区分不同的缓存
+ */
+@Repository
+public class ProductCacheRedisDAO {
+
+    /**
+     * 过期时间的随机浮动比例，避免同一批写入的缓存同时过期
+     */
+    private static final double TIMEOUT_JITTER = 0.1;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    /**
+     * 批量获得缓存
+     *
+     * @param keyDefine 缓存的 Key 定义
+     * @param ids 编号数组
+     * @return 编号与缓存值的映射，不包含未缓存的编号
+     */
+    public Map<Integer, String> multiGet(RedisKeyDefine keyDefine, Collection<Integer> ids) {
+        List<Integer> idList = new ArrayList<>(ids);
+        List<String> values = redisTemplate.opsForValue().multiGet(idList.stream()
+                .map(id -> formatKey(keyDefine, id)).collect(Collectors.toList()));
+        Map<Integer, String> result = new HashMap<>(idList.size());
+        for (int i = 0; i < idList.size(); i++) {
+            if (values != null && values.get(i) != null) {
+                result.put(idList.get(i), values.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量设置缓存，通过 pipeline 一次性写入
+     *
+     * @param keyDefine 缓存的 Key 定义
+     * @param values 编号与缓存值的映射
+     * @param timeout 过期时间，实际会增加 10% 以内的随机浮动
+     */
+    public void multiSet(RedisKeyDefine keyDefine, Map<Integer, String> values, Duration timeout) {
+        if (values.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            values.forEach((id, value) -> connection.set(formatKey(keyDefine, id).getBytes(StandardCharsets.UTF_8),
+                    value.getBytes(StandardCharsets.UTF_8), Expiration.seconds(jitter(timeout)),
+                    RedisStringCommands.SetOption.UPSERT));
+            return null;
+        });
+    }
+
+    public void delete(RedisKeyDefine keyDefine, Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        redisTemplate.delete(ids.stream().map(id -> formatKey(keyDefine, id)).collect(Collectors.toList()));
+    }
+
+    private static String formatKey(RedisKeyDefine keyDefine, Integer id) {
+        return String.format(keyDefine.getKeyTemplate(), id);
+    }
+
+    private static long jitter(Duration timeout) {
+        long seconds = timeout.getSeconds();
+        return seconds + ThreadLocalRandom.current().nextLong((long) (seconds * TIMEOUT_JITTER) + 1);
+    }
+
+}
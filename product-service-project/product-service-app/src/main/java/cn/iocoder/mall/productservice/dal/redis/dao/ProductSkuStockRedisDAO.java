@@ -0,0 +1,277 @@
+package cn.iocoder.mall.productservice.dal.redis.dao;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static cn.iocoder.mall.productservice.dal.redis.RedisKeyConstants.*;
+
+/**
+ * 商品 SKU 库存的 Redis DAO
+ *
+ * 通过 Lua 脚本，保证单个商品 SKU 的库存校验、扣减、预占数量是原子的，从而避免 MySQL 行锁的竞争。
+ * Lua 脚本操作的 key 都通过 KEYS 传入，并且以商品 SKU 编号作为 hash tag ，所以也支持 Redis Cluster ，
+ * 不同商品 SKU 的库存分散在不同的 slot 上。
+ *
+ * 一次预占涉及多个商品 SKU 时，逐个商品 SKU 预占，任一商品 SKU 预占失败时，回滚已经预占的商品 SKU ，保证全部成功或全部失败。
+ * 预占前先写入预占记录和预占过期时间，进程在回滚前崩溃时，由过期 Job 释放已经预占的商品 SKU
+ */
+@Repository
+public class ProductSkuStockRedisDAO {
+
+    private static final DefaultRedisScript<Long> RESERVATION_CREATE_SCRIPT = buildScript("lua/product_sku_stock_reservation_create.lua", Long.class);
+    private static final DefaultRedisScript<Long> RESERVE_SCRIPT = buildScript("lua/product_sku_stock_reserve.lua", Long.class);
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = buildScript("lua/product_sku_stock_release.lua", Long.class);
+    private static final DefaultRedisScript<Long> RECLAIM_SCRIPT = buildScript("lua/product_sku_stock_reclaim.lua", Long.class);
+    private static final DefaultRedisScript<Long> INCR_SCRIPT = buildScript("lua/product_sku_stock_incr.lua", Long.class);
+
+    /**
+     * 预占结果 - 成功，见 product_sku_stock_reserve.lua 脚本
+     */
+    private static final long RESERVE_RESULT_SUCCESS = 1;
+    /**
+     * 预占结果 - 已经预占过，见 product_sku_stock_reserve.lua 脚本
+     */
+    private static final long RESERVE_RESULT_DUPLICATE = 2;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    /**
+     * 预占商品 SKU 库存
+     *
+     * 1. 创建预占记录，已经存在时，说明已经预占过，直接返回
+     * 2. 添加预占过期时间，从而进程在第 3 步崩溃时，过期 Job 可以释放已经预占的商品 SKU
+     * 3. 逐个商品 SKU 预占。任一商品 SKU 预占失败时，回滚已经预占的商品 SKU ，并删除预占记录，允许使用相同编号重新预占
+     *
+     * @param reservationId 预占编号
+     * @param expireTime 过期时间的毫秒时间戳
+     * @param skuQuantities 商品 SKU 编号与预占数量的映射
+     * @return {结果, 商品 SKU 的序号（从 1 开始）}，结果的说明见 product_sku_stock_reserve.lua 脚本
+     */
+    public List<Long> reserve(String reservationId, long expireTime, LinkedHashMap<Integer, Integer> skuQuantities) {
+        long ttl = (expireTime - System.currentTimeMillis()) / 1000 + PRODUCT_SKU_STOCK_RESERVATION.getTimeout().getSeconds();
+        // 创建预占记录
+        List<String> args = new ArrayList<>(1 + skuQuantities.size() * 2);
+        args.add(String.valueOf(ttl));
+        skuQuantities.forEach((skuId, quantity) -> {
+            args.add(String.valueOf(skuId));
+            args.add(String.valueOf(quantity));
+        });
+        Long created = redisTemplate.execute(RESERVATION_CREATE_SCRIPT,
+                Collections.singletonList(formatReservationKey(reservationId)), args.toArray());
+        if (created == null || created == 0) {
+            return Arrays.asList(RESERVE_RESULT_DUPLICATE, 0L);
+        }
+        redisTemplate.opsForZSet().add(PRODUCT_SKU_STOCK_RESERVATION_EXPIRE.getKeyTemplate(), reservationId, expireTime);
+        // 逐个商品 SKU 预占
+        List<Integer> reservedSkuIds = new ArrayList<>(skuQuantities.size());
+        try {
+            int index = 0;
+            for (Map.Entry<Integer, Integer> entry : skuQuantities.entrySet()) {
+                index++;
+                Long result = redisTemplate.execute(RESERVE_SCRIPT, Arrays.asList(formatStockKey(entry.getKey()),
+                        formatReservedKey(entry.getKey(), reservationId)), String.valueOf(entry.getValue()), String.valueOf(ttl));
+                if (result == null || (result != RESERVE_RESULT_SUCCESS && result != RESERVE_RESULT_DUPLICATE)) {
+                    rollback(reservationId, reservedSkuIds);
+                    return Arrays.asList(result, (long) index);
+                }
+                reservedSkuIds.add(entry.getKey());
+            }
+        } catch (RuntimeException ex) {
+            rollback(reservationId, reservedSkuIds);
+            throw ex;
+        }
+        addDirtySkuIds(reservedSkuIds);
+        return Arrays.asList(RESERVE_RESULT_SUCCESS, 0L);
+    }
+
+    /**
+     * 回滚预占失败的预占记录，归还已经预占的商品 SKU 库存，不记录已释放数量
+     *
+     * @param reservationId 预占编号
+     * @param reservedSkuIds 已经预占的商品 SKU 编号数组
+     */
+    private void rollback(String reservationId, List<Integer> reservedSkuIds) {
+        reservedSkuIds.forEach(skuId -> redisTemplate.execute(RELEASE_SCRIPT, Arrays.asList(formatStockKey(skuId),
+                formatReservedKey(skuId, reservationId), formatReleasedKey(skuId, reservationId)), "0"));
+        redisTemplate.delete(formatReservationKey(reservationId));
+        redisTemplate.opsForZSet().remove(PRODUCT_SKU_STOCK_RESERVATION_EXPIRE.getKeyTemplate(), reservationId);
+    }
+
+    /**
+     * 确认预占的商品 SKU 库存，即删除各个商品 SKU 的预占数量
+     *
+     * 先移除预占过期时间，再删除预占数量，进程在两者之间崩溃时，库存保持扣减，即视为已确认
+     *
+     * @param reservationId 预占编号
+     * @return 是否确认成功，即全部商品 SKU 的预占数量都存在。
+     *         失败时，说明预占已经确认，或者全部、部分商品 SKU 已经释放，需要通过 {@link #reclaim(String)} 重新扣减
+     */
+    public boolean confirm(String reservationId) {
+        List<Integer> skuIds = getReservationSkuIds(reservationId);
+        if (skuIds.isEmpty()) {
+            return false;
+        }
+        redisTemplate.opsForZSet().remove(PRODUCT_SKU_STOCK_RESERVATION_EXPIRE.getKeyTemplate(), reservationId);
+        int count = 0;
+        for (Integer skuId : skuIds) {
+            if (Boolean.TRUE.equals(redisTemplate.delete(formatReservedKey(skuId, reservationId)))) {
+                count++;
+            }
+        }
+        return count == skuIds.size();
+    }
+
+    /**
+     * 释放预占的商品 SKU 库存，并记录各个商品 SKU 的已释放数量
+     *
+     * 预占记录保留到过期，用于释放后仍然支付成功时，{@link #reclaim(String)} 读取预占的商品 SKU
+     *
+     * @param reservationId 预占编号
+     * @return 释放的商品 SKU 数量。为 0 时，说明预占已经确认或者释放
+     */
+    public int release(String reservationId) {
+        List<Integer> skuIds = getReservationSkuIds(reservationId);
+        String releasedTimeout = String.valueOf(PRODUCT_SKU_STOCK_RELEASED.getTimeout().getSeconds());
+        List<Integer> releasedSkuIds = new ArrayList<>(skuIds.size());
+        for (Integer skuId : skuIds) {
+            Long result = redisTemplate.execute(RELEASE_SCRIPT, Arrays.asList(formatStockKey(skuId),
+                    formatReservedKey(skuId, reservationId), formatReleasedKey(skuId, reservationId)), releasedTimeout);
+            if (result != null && result > 0) {
+                releasedSkuIds.add(skuId);
+            }
+        }
+        addDirtySkuIds(releasedSkuIds);
+        redisTemplate.opsForZSet().remove(PRODUCT_SKU_STOCK_RESERVATION_EXPIRE.getKeyTemplate(), reservationId);
+        return releasedSkuIds.size();
+    }
+
+    /**
+     * 重新扣减已释放的商品 SKU 库存
+     *
+     * @param reservationId 预占编号
+     * @return 重新扣减的商品 SKU 数量。为 0 时，说明已释放数量不存在
+     */
+    public int reclaim(String reservationId) {
+        List<Integer> skuIds = getReservationSkuIds(reservationId);
+        List<Integer> reclaimedSkuIds = new ArrayList<>(skuIds.size());
+        for (Integer skuId : skuIds) {
+            Long result = redisTemplate.execute(RECLAIM_SCRIPT, Arrays.asList(formatStockKey(skuId),
+                    formatReleasedKey(skuId, reservationId)));
+            if (result != null && result > 0) {
+                reclaimedSkuIds.add(skuId);
+            }
+        }
+        addDirtySkuIds(reclaimedSkuIds);
+        return reclaimedSkuIds.size();
+    }
+
+    public Set<String> listExpiredReservationIds(long now, int limit) {
+        return redisTemplate.opsForZSet().rangeByScore(PRODUCT_SKU_STOCK_RESERVATION_EXPIRE.getKeyTemplate(),
+                0, now, 0, limit);
+    }
+
+    public Map<Integer, Integer> getStocks(Collection<Integer> skuIds) {
+        List<Integer> skuIdList = new ArrayList<>(skuIds);
+        List<String> stocks = redisTemplate.opsForValue().multiGet(skuIdList.stream()
+                .map(ProductSkuStockRedisDAO::formatStockKey).collect(Collectors.toList()));
+        Map<Integer, Integer> result = new HashMap<>(skuIdList.size());
+        for (int i = 0; i < skuIdList.size(); i++) {
+            if (stocks != null && stocks.get(i) != null) {
+                result.put(skuIdList.get(i), Integer.valueOf(stocks.get(i)));
+            }
+        }
+        return result;
+    }
+
+    public void setStockIfAbsent(Integer skuId, Integer quantity) {
+        redisTemplate.opsForValue().setIfAbsent(formatStockKey(skuId), String.valueOf(quantity));
+    }
+
+    /**
+     * 调整商品 SKU 的可用库存，并标记需要回写。未加载到 Redis 的商品 SKU ，不做处理
+     *
+     * @param skuQuantityDeltas 商品 SKU 编号与库存变化量的映射
+     * @return 调整的商品 SKU 数量
+     */
+    public int incrStocksIfPresent(Map<Integer, Integer> skuQuantityDeltas) {
+        List<Integer> incrSkuIds = new ArrayList<>(skuQuantityDeltas.size());
+        skuQuantityDeltas.forEach((skuId, delta) -> {
+            Long result = redisTemplate.execute(INCR_SCRIPT, Collections.singletonList(formatStockKey(skuId)),
+                    String.valueOf(delta));
+            if (result != null && result > 0) {
+                incrSkuIds.add(skuId);
+            }
+        });
+        addDirtySkuIds(incrSkuIds);
+        return incrSkuIds.size();
+    }
+
+    /**
+     * 删除商品 SKU 的可用库存，例如说商品 SKU 被删除
+     *
+     * @param skuIds 商品 SKU 编号数组
+     */
+    public void deleteStocks(Collection<Integer> skuIds) {
+        redisTemplate.delete(skuIds.stream().map(ProductSkuStockRedisDAO::formatStockKey).collect(Collectors.toList()));
+        redisTemplate.opsForSet().remove(PRODUCT_SKU_STOCK_DIRTY.getKeyTemplate(),
+                skuIds.stream().map(String::valueOf).toArray());
+    }
+
+    public List<Integer> popDirtySkuIds(int count) {
+        List<String> skuIds = redisTemplate.opsForSet().pop(PRODUCT_SKU_STOCK_DIRTY.getKeyTemplate(), count);
+        if (skuIds == null) {
+            return Collections.emptyList();
+        }
+        return skuIds.stream().map(Integer::valueOf).collect(Collectors.toList());
+    }
+
+    /**
+     * 标记需要回写的商品 SKU 。在修改可用库存之后标记，从而回写时一定可以读取到修改后的可用库存
+     *
+     * @param skuIds 商品 SKU 编号数组
+     */
+    public void addDirtySkuIds(Collection<Integer> skuIds) {
+        if (skuIds.isEmpty()) {
+            return;
+        }
+        redisTemplate.opsForSet().add(PRODUCT_SKU_STOCK_DIRTY.getKeyTemplate(),
+                skuIds.stream().map(String::valueOf).toArray(String[]::new));
+    }
+
+    private static String formatStockKey(Object skuId) {
+        return String.format(PRODUCT_SKU_STOCK.getKeyTemplate(), skuId);
+    }
+
+    private static String formatReservedKey(Integer skuId, String reservationId) {
+        return String.format(PRODUCT_SKU_STOCK_RESERVED.getKeyTemplate(), skuId, reservationId);
+    }
+
+    private static String formatReleasedKey(Integer skuId, String reservationId) {
+        return String.format(PRODUCT_SKU_STOCK_RELEASED.getKeyTemplate(), skuId, reservationId);
+    }
+
+    private static String formatReservationKey(String reservationId) {
+        return String.format(PRODUCT_SKU_STOCK_RESERVATION.getKeyTemplate(), reservationId);
+    }
+
+    private List<Integer> getReservationSkuIds(String reservationId) {
+        Set<Object> skuIds = redisTemplate.opsForHash().keys(formatReservationKey(reservationId));
+        return skuIds.stream().map(skuId -> Integer.valueOf(String.valueOf(skuId))).collect(Collectors.toList());
+    }
+
+    private static <T> DefaultRedisScript<T> buildScript(String path, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(resultType);
+        return script;
+    }
+
+}
@@ -0,0 +1 @@
+package cn.iocoder.mall.productservice.job;
@@ -0,0 +1,46 @@
+package cn.iocoder.mall.productservice.job.sku;
+
+import cn.iocoder.mall.productservice.service.sku.ProductSkuStockService;
+import com.xxl.job.core.biz.model.ReturnT;
+import com.xxl.job.core.handler.IJobHandler;
+import com.xxl.job.core.handler.annotation.XxlJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 商品 SKU 库存预占过期释放 Job
+ *
+ * 超过过期时间仍未确认的预占（例如说，订单超时未支付），将预占的库存归还到可用库存
+ */
+@Component
+@Slf4j
+public class ProductSkuStockReleaseJob extends IJobHandler {
+
+    /**
+     * 每批释放的预占数量
+     */
+    private static final int BATCH_SIZE = 500;
+    /**
+     * 每次执行的最大批次，避免单次执行时间过长
+     */
+    private static final int MAX_BATCH = 20;
+
+    @Autowired
+    private ProductSkuStockService productSkuStockService;
+
+    @Override
+    @XxlJob("productSkuStockReleaseJob")
+    public ReturnT<String> execute(String param) {
+        int count = 0;
+        for (int i = 0; i < MAX_BATCH; i++) {
+            int batchCount = productSkuStockService.releaseExpiredProductSkuStocks(BATCH_SIZE);
+            count += batchCount;
+            if (batchCount < BATCH_SIZE) {
+                break;
+            }
+        }
+        return new ReturnT<>("释放预占数：" + count);
+    }
+
+}
@@ -0,0 +1,47 @@
+package cn.iocoder.mall.productservice.job.sku;
+
+import cn.iocoder.mall.productservice.service.sku.ProductSkuStockService;
+import com.xxl.job.core.biz.model.ReturnT;
+import com.xxl.job.core.handler.IJobHandler;
+import com.xxl.job.core.handler.annotation.XxlJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 商品 SKU 库存回写 Job
+ *
+ * 将 Redis 中发生变化的可用库存，批量回写到 MySQL 的 product_sku.quantity 字段。
+ * 建议每隔几秒执行一次，回写的间隔，即 MySQL 中库存的延迟
+ */
+@Component
+@Slf4j
+public class ProductSkuStockWriteBackJob extends IJobHandler {
+
+    /**
+     * 每批回写的商品 SKU 数量
+     */
+    private static final int BATCH_SIZE = 500;
+    /**
+     * 每次执行的最大批次，避免单次执行时间过长
+     */
+    private static final int MAX_BATCH = 20;
+
+    @Autowired
+    private ProductSkuStockService productSkuStockService;
+
+    @Override
+    @XxlJob("productSkuStockWriteBackJob")
+    public ReturnT<String> execute(String param) {
+        int count = 0;
+        for (int i = 0; i < MAX_BATCH; i++) {
+            int batchCount = productSkuStockService.writeBackProductSkuStocks(BATCH_SIZE);
+            count += batchCount;
+            if (batchCount < BATCH_SIZE) {
+                break;
+            }
+        }
+        return new ReturnT<>("回写库存数：" + count);
+    }
+
+}
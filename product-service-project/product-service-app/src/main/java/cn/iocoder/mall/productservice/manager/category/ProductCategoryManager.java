@@ -1,6 +1,7 @@
 package cn.iocoder.mall.productservice.manager.category;
 
 import cn.iocoder.mall.productservice.convert.category.ProductCategoryConvert;
+import cn.iocoder.mall.productservice.mq.producer.ProductMQProducer;
 import cn.iocoder.mall.productservice.rpc.category.dto.ProductCategoryCreateReqDTO;
 import cn.iocoder.mall.productservice.rpc.category.dto.ProductCategoryListQueryReqDTO;
 import cn.iocoder.mall.productservice.rpc.category.dto.ProductCategoryRespDTO;
@@ -21,6 +22,8 @@ public class ProductCategoryManager {
 
     @Autowired
     private ProductCategoryService productCategoryService;
+    @Autowired
+    private ProductMQProducer productMQProducer;
 
     /**
     * 创建商品分类
@@ -30,6 +33,8 @@ public class ProductCategoryManager {
     */
     public Integer createProductCategory(ProductCategoryCreateReqDTO createDTO) {
         ProductCategoryBO productCategoryBO = productCategoryService.createProductCategory(ProductCategoryConvert.INSTANCE.convert(createDTO));
+        // 通知其它节点，重建商品分类快照
+        productMQProducer.sendProductCategoryUpdateMessage(productCategoryBO.getId());
         return productCategoryBO.getId();
     }
 
@@ -40,6 +45,8 @@ public class ProductCategoryManager {
     */
     public void updateProductCategory(ProductCategoryUpdateReqDTO updateDTO) {
         productCategoryService.updateProductCategory(ProductCategoryConvert.INSTANCE.convert(updateDTO));
+        // 通知其它节点，重建商品分类快照
+        productMQProducer.sendProductCategoryUpdateMessage(updateDTO.getId());
     }
 
     /**
@@ -49,6 +56,8 @@ public class ProductCategoryManager {
     */
     public void deleteProductCategory(Integer productCategoryId) {
         productCategoryService.deleteProductCategory(productCategoryId);
+        // 通知其它节点，重建商品分类快照
+        productMQProducer.sendProductCategoryUpdateMessage(productCategoryId);
     }
 
     /**
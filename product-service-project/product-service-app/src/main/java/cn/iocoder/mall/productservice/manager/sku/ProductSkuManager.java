@@ -5,9 +5,11 @@ import cn.iocoder.mall.productservice.convert.sku.ProductSkuConvert;
 import cn.iocoder.mall.productservice.enums.sku.ProductSkuDetailFieldEnum;
 import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuListQueryReqDTO;
 import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuRespDTO;
+import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuStockReserveReqDTO;
 import cn.iocoder.mall.productservice.service.attr.ProductAttrService;
 import cn.iocoder.mall.productservice.service.attr.bo.ProductAttrKeyValueBO;
 import cn.iocoder.mall.productservice.service.sku.ProductSkuService;
+import cn.iocoder.mall.productservice.service.sku.ProductSkuStockService;
 import cn.iocoder.mall.productservice.service.sku.bo.ProductSkuBO;
 import cn.iocoder.mall.productservice.service.spu.ProductSpuService;
 import cn.iocoder.mall.productservice.service.spu.bo.ProductSpuBO;
@@ -31,6 +33,8 @@ public class ProductSkuManager {
     private ProductSpuService productSpuService;
     @Autowired
     private ProductAttrService productAttrService;
+    @Autowired
+    private ProductSkuStockService productSkuStockService;
 
     /**
      * 获得商品 SKU
@@ -73,4 +77,33 @@ public class ProductSkuManager {
         return ProductSkuConvert.INSTANCE.convertList(skuBOs, spuBOs, attrBOs);
     }
 
+    /**
+     * 预占商品 SKU 库存
+     *
+     * @param reserveReqDTO 预占请求 DTO
+     */
+    public void reserveProductSkuStock(ProductSkuStockReserveReqDTO reserveReqDTO) {
+        productSkuStockService.reserveProductSkuStock(ProductSkuConvert.INSTANCE.convert(reserveReqDTO));
+    }
+
+    /**
+     * 确认预占的商品 SKU 库存
+     *
+     * @param reservationId 预占编号
+     * @return 是否确认成功
+     */
+    public Boolean confirmProductSkuStock(String reservationId) {
+        return productSkuStockService.confirmProductSkuStock(reservationId);
+    }
+
+    /**
+     * 释放预占的商品 SKU 库存
+     *
+     * @param reservationId 预占编号
+     * @return 是否释放成功
+     */
+    public Boolean releaseProductSkuStock(String reservationId) {
+        return productSkuStockService.releaseProductSkuStock(reservationId);
+    }
+
 }
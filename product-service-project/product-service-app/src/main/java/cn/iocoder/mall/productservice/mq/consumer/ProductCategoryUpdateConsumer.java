@@ -0,0 +1,32 @@
+package cn.iocoder.mall.productservice.mq.consumer;
+
+import cn.iocoder.mall.productservice.mq.producer.message.ProductCategoryUpdateMessage;
+import cn.iocoder.mall.productservice.service.category.ProductCategoryService;
+import org.apache.rocketmq.spring.annotation.MessageModel;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * 商品分类更新 Topic 的消费者，重建商品分类树的快照
+ *
+ * 使用广播消费，每个节点都需要重建自己的快照
+ */
+@Service
+@RocketMQMessageListener(
+        topic = ProductCategoryUpdateMessage.TOPIC,
+        consumerGroup = "${spring.application.name}-consumer-group-" + ProductCategoryUpdateMessage.TOPIC,
+        messageModel = MessageModel.BROADCASTING
+)
+public class ProductCategoryUpdateConsumer implements RocketMQListener<ProductCategoryUpdateMessage> {
+
+    @Autowired
+    private ProductCategoryService productCategoryService;
+
+    @Override
+    public void onMessage(ProductCategoryUpdateMessage message) {
+        productCategoryService.reloadSnapshot();
+    }
+
+}
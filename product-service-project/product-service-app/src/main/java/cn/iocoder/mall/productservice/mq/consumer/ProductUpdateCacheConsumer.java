@@ -0,0 +1,32 @@
+package cn.iocoder.mall.productservice.mq.consumer;
+
+import cn.iocoder.mall.productservice.mq.producer.message.ProductUpdateMessage;
+import cn.iocoder.mall.productservice.service.cache.ProductCacheService;
+import org.apache.rocketmq.spring.annotation.MessageModel;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * 商品更新 Topic 的消费者，删除对应的商品的缓存
+ *
+ * 使用广播消费，每个节点都需要删除自己的本地缓存
+ */
+@Service
+@RocketMQMessageListener(
+        topic = ProductUpdateMessage.TOPIC,
+        consumerGroup = "${spring.application.name}-cache-consumer-group-" + ProductUpdateMessage.TOPIC,
+        messageModel = MessageModel.BROADCASTING
+)
+public class ProductUpdateCacheConsumer implements RocketMQListener<ProductUpdateMessage> {
+
+    @Autowired
+    private ProductCacheService productCacheService;
+
+    @Override
+    public void onMessage(ProductUpdateMessage message) {
+        productCacheService.evictProductSpu(message.getId());
+    }
+
+}
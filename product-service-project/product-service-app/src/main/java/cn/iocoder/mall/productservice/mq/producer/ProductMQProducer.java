@@ -1,5 +1,6 @@
 package cn.iocoder.mall.productservice.mq.producer;
 
+import cn.iocoder.mall.productservice.mq.producer.message.ProductCategoryUpdateMessage;
 import cn.iocoder.mall.productservice.mq.producer.message.ProductUpdateMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.rocketmq.client.producer.SendResult;
@@ -27,4 +28,16 @@ public class ProductMQProducer {
         }
     }
 
+    public void sendProductCategoryUpdateMessage(Integer id) {
+        try {
+            SendResult sendResult = rocketMQTemplate.syncSend(ProductCategoryUpdateMessage.TOPIC,
+                    new ProductCategoryUpdateMessage().setId(id));
+            if (!SendStatus.SEND_OK.equals(sendResult.getSendStatus())) {
+                log.error("[sendProductCategoryUpdateMessage][category({}) 发送更新消息失败，结果为({})]", id, sendResult);
+            }
+        } catch (Throwable throwable) {
+            log.error("[sendProductCategoryUpdateMessage][category({}) 发送更新消息失败，发生异常]", id, throwable);
+        }
+    }
+
 }
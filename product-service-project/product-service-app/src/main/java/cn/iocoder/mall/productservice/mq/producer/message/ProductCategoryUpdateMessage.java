@@ -0,0 +1,20 @@
+package cn.iocoder.mall.productservice.mq.producer.message;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 商品分类更新（包括创建、删除）消息
+ */
+@Data
+@Accessors(chain = true)
+public class ProductCategoryUpdateMessage {
+
+    public static final String TOPIC = "ProductCategoryUpdate";
+
+    /**
+     * 商品分类编号
+     */
+    private Integer id;
+
+}
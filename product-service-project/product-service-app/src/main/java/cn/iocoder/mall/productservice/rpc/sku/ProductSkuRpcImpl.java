@@ -4,6 +4,7 @@ import cn.iocoder.common.framework.vo.CommonResult;
 import cn.iocoder.mall.productservice.manager.sku.ProductSkuManager;
 import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuListQueryReqDTO;
 import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuRespDTO;
+import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuStockReserveReqDTO;
 import org.apache.dubbo.config.annotation.DubboService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -30,4 +31,20 @@ public class ProductSkuRpcImpl implements ProductSkuRpc {
         return success(productSkuManager.listProductSkus(queryReqDTO));
     }
 
+    @Override
+    public CommonResult<Boolean> reserveProductSkuStock(ProductSkuStockReserveReqDTO reserveReqDTO) {
+        productSkuManager.reserveProductSkuStock(reserveReqDTO);
+        return success(true);
+    }
+
+    @Override
+    public CommonResult<Boolean> confirmProductSkuStock(String reservationId) {
+        return success(productSkuManager.confirmProductSkuStock(reservationId));
+    }
+
+    @Override
+    public CommonResult<Boolean> releaseProductSkuStock(String reservationId) {
+        return success(productSkuManager.releaseProductSkuStock(reservationId));
+    }
+
 }
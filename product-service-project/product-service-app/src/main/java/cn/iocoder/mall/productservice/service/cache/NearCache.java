@@ -0,0 +1,276 @@
+package cn.iocoder.mall.productservice.service.cache;
+
+import cn.iocoder.mall.productservice.dal.redis.dao.ProductCacheRedisDAO;
+import cn.iocoder.mall.redis.core.RedisKeyDefine;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 近端缓存，按照「本地缓存 - Redis - 数据库」三级读取，每一级只查询上一级未命中的编号
+ *
+ * 1. 本地缓存使用有界的 Caffeine ，过期时间较短，作为跨节点失效消息丢失时的兜底
+ * 2. 不存在的编号也进行缓存（本地缓存为 {@link Optional#empty()}，Redis 为空字符串），避免穿透到数据库
+ * 3. 同一个节点内，同一个编号同时只有一个线程从数据库加载，其它线程等待加载结果，避免热点编号过期时击穿数据库
+ *
+ * 本地缓存的命中率通过 {name} 缓存指标暴露，Redis 的命中情况通过 {name}.redis 指标暴露，数据库的加载耗时通过 {name}.load 指标暴露
+ *
+ * @param <V> 缓存值的类型
+ */
+@Slf4j
+public class NearCache<V> {
+
+    /**
+     * 等待其它线程加载的超时时间，单位：毫秒
+     */
+    private static final long LOAD_WAIT_TIMEOUT = 3000L;
+    /**
+     * 不存在的编号，在 Redis 中的过期时间
+     */
+    private static final Duration NULL_VALUE_TIMEOUT = Duration.ofMinutes(1);
+    /**
+     * 不存在的编号，在 Redis 中的缓存值
+     */
+    private static final String NULL_VALUE = "";
+
+    /**
+     * 忽略未知的字段，避免滚动发布时，新旧版本的节点读取对方写入的缓存失败
+     */
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final RedisKeyDefine redisKeyDefine;
+    private final JavaType valueType;
+    private final ProductCacheRedisDAO productCacheRedisDAO;
+    /**
+     * 从数据库批量加载的函数。返回结果中，不包含不存在的编号
+     */
+    private final Function<Collection<Integer>, Map<Integer, V>> loader;
+
+    private final Cache<Integer, Optional<V>> localCache;
+    /**
+     * 正在从数据库加载的编号
+     */
+    private final ConcurrentMap<Integer, CompletableFuture<Optional<V>>> loadingFutures = new ConcurrentHashMap<>();
+
+    private final Counter redisHitCounter;
+    private final Counter redisMissCounter;
+    private final Timer loadTimer;
+
+    public NearCache(String name, RedisKeyDefine redisKeyDefine, JavaType valueType, ProductCacheRedisDAO productCacheRedisDAO,
+                     long maximumSize, Duration localTimeout, Function<Collection<Integer>, Map<Integer, V>> loader) {
+        this.redisKeyDefine = redisKeyDefine;
+        this.valueType = valueType;
+        this.productCacheRedisDAO = productCacheRedisDAO;
+        this.loader = loader;
+        // 创建本地缓存
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(localTimeout)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, localCache, name);
+        // 创建指标
+        this.redisHitCounter = Metrics.counter(name + ".redis", "result", "hit");
+        this.redisMissCounter = Metrics.counter(name + ".redis", "result", "miss");
+        this.loadTimer = Metrics.timer(name + ".load");
+    }
+
+    public static JavaType constructType(Class<?> clazz) {
+        return OBJECT_MAPPER.getTypeFactory().constructType(clazz);
+    }
+
+    public static JavaType constructListType(Class<?> elementClass) {
+        return OBJECT_MAPPER.getTypeFactory().constructCollectionType(List.class, elementClass);
+    }
+
+    /**
+     * 批量获得缓存
+     *
+     * @param ids 编号数组
+     * @return 编号与缓存值的映射，不包含不存在的编号
+     */
+    public Map<Integer, V> getAll(Collection<Integer> ids) {
+        Map<Integer, V> result = new HashMap<>(ids.size());
+        // 读取本地缓存
+        Set<Integer> missIds = new LinkedHashSet<>();
+        for (Integer id : ids) {
+            if (result.containsKey(id) || missIds.contains(id)) {
+                continue;
+            }
+            Optional<V> value = localCache.getIfPresent(id);
+            if (value == null) {
+                missIds.add(id);
+            } else {
+                value.ifPresent(v -> result.put(id, v));
+            }
+        }
+        if (missIds.isEmpty()) {
+            return result;
+        }
+        // 读取 Redis
+        getAllFromRedis(missIds).forEach((id, value) -> {
+            missIds.remove(id);
+            localCache.put(id, value);
+            value.ifPresent(v -> result.put(id, v));
+        });
+        if (missIds.isEmpty()) {
+            return result;
+        }
+        // 从数据库加载
+        loadAll(missIds).forEach((id, value) -> value.ifPresent(v -> result.put(id, v)));
+        return result;
+    }
+
+    /**
+     * 删除缓存，包括本地缓存和 Redis
+     *
+     * @param ids 编号数组
+     */
+    public void invalidateAll(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        productCacheRedisDAO.delete(redisKeyDefine, ids);
+        localCache.invalidateAll(ids);
+    }
+
+    /**
+     * 删除本地缓存中，符合条件的缓存值
+     *
+     * @param predicate 条件
+     * @return 符合条件的编号数组
+     */
+    public Set<Integer> invalidateLocalIf(Predicate<V> predicate) {
+        Set<Integer> ids = new HashSet<>();
+        localCache.asMap().forEach((id, value) -> {
+            if (value.isPresent() && predicate.test(value.get())) {
+                ids.add(id);
+            }
+        });
+        localCache.invalidateAll(ids);
+        return ids;
+    }
+
+    private Map<Integer, Optional<V>> getAllFromRedis(Collection<Integer> ids) {
+        Map<Integer, String> redisValues;
+        try {
+            redisValues = productCacheRedisDAO.multiGet(redisKeyDefine, ids);
+        } catch (Throwable th) {
+            // Redis 不可用时，降级从数据库加载
+            log.error("[getAllFromRedis][编号({}) 读取 Redis 发生异常]", ids, th);
+            return Collections.emptyMap();
+        }
+        redisHitCounter.increment(redisValues.size());
+        redisMissCounter.increment(ids.size() - redisValues.size());
+        Map<Integer, Optional<V>> result = new HashMap<>(redisValues.size());
+        redisValues.forEach((id, value) -> result.put(id, NULL_VALUE.equals(value) ? Optional.empty()
+                : Optional.of(parseValue(value))));
+        return result;
+    }
+
+    private Map<Integer, Optional<V>> loadAll(Collection<Integer> ids) {
+        // 认领需要加载的编号，已经被其它线程认领的，等待其加载结果
+        Map<Integer, CompletableFuture<Optional<V>>> futures = new HashMap<>(ids.size());
+        List<Integer> loadIds = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            CompletableFuture<Optional<V>> future = new CompletableFuture<>();
+            CompletableFuture<Optional<V>> loadingFuture = loadingFutures.putIfAbsent(id, future);
+            if (loadingFuture == null) {
+                loadIds.add(id);
+                futures.put(id, future);
+            } else {
+                futures.put(id, loadingFuture);
+            }
+        }
+        // 加载认领的编号
+        if (!loadIds.isEmpty()) {
+            try {
+                Map<Integer, Optional<V>> values = loadTimer.record(() -> load(loadIds));
+                values.forEach((id, value) -> futures.get(id).complete(value));
+            } catch (Throwable th) {
+                loadIds.forEach(id -> futures.get(id).completeExceptionally(th));
+                throw th;
+            } finally {
+                loadIds.forEach(id -> loadingFutures.remove(id, futures.get(id)));
+            }
+        }
+        // 获得加载结果
+        Map<Integer, Optional<V>> result = new HashMap<>(futures.size());
+        long deadline = System.currentTimeMillis() + LOAD_WAIT_TIMEOUT;
+        try {
+            for (Map.Entry<Integer, CompletableFuture<Optional<V>>> entry : futures.entrySet()) {
+                long timeout = Math.max(deadline - System.currentTimeMillis(), 0);
+                result.put(entry.getKey(), entry.getValue().get(timeout, TimeUnit.MILLISECONDS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("等待编号(%s) 加载被中断", ids), e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException(String.format("等待编号(%s) 加载失败", ids), e);
+        }
+        return result;
+    }
+
+    private Map<Integer, Optional<V>> load(List<Integer> ids) {
+        Map<Integer, V> loadValues = loader.apply(ids);
+        Map<Integer, Optional<V>> result = new HashMap<>(ids.size());
+        Map<Integer, String> redisValues = new HashMap<>(loadValues.size());
+        List<Integer> nullIds = new ArrayList<>();
+        for (Integer id : ids) {
+            V value = loadValues.get(id);
+            result.put(id, Optional.ofNullable(value));
+            localCache.put(id, Optional.ofNullable(value));
+            if (value != null) {
+                redisValues.put(id, formatValue(value));
+            } else {
+                nullIds.add(id);
+            }
+        }
+        // 写入 Redis 。写入失败时，仅影响其它节点的命中率，所以不抛出异常
+        try {
+            productCacheRedisDAO.multiSet(redisKeyDefine, redisValues, redisKeyDefine.getTimeout());
+            if (!nullIds.isEmpty()) {
+                Map<Integer, String> nullValues = new HashMap<>(nullIds.size());
+                nullIds.forEach(id -> nullValues.put(id, NULL_VALUE));
+                productCacheRedisDAO.multiSet(redisKeyDefine, nullValues, NULL_VALUE_TIMEOUT);
+            }
+        } catch (Throwable th) {
+            log.error("[load][编号({}) 写入 Redis 发生异常]", ids, th);
+        }
+        return result;
+    }
+
+    private V parseValue(String value) {
+        try {
+            return OBJECT_MAPPER.readValue(value, valueType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String formatValue(V value) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
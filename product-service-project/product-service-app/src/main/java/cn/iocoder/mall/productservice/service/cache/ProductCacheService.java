@@ -0,0 +1,180 @@
+package cn.iocoder.mall.productservice.service.cache;
+
+import cn.iocoder.common.framework.util.CollectionUtils;
+import cn.iocoder.mall.productservice.dal.mysql.dataobject.sku.ProductSkuDO;
+import cn.iocoder.mall.productservice.dal.mysql.dataobject.spu.ProductSpuDO;
+import cn.iocoder.mall.productservice.dal.mysql.mapper.sku.ProductSkuMapper;
+import cn.iocoder.mall.productservice.dal.mysql.mapper.spu.ProductSpuMapper;
+import cn.iocoder.mall.productservice.dal.redis.dao.ProductCacheRedisDAO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static cn.iocoder.mall.productservice.dal.redis.RedisKeyConstants.*;
+
+/**
+ * 商品缓存 Service
+ *
+ * 商品 SKU、SPU 是调用最频繁的数据（购物车、价格计算、订单、搜索、商品详情），所以通过 {@link NearCache} 缓存，
+ * 按照编号批量读取时，只有未命中的编号才会访问 MySQL 。
+ *
+ * 缓存的删除：
+ * 1. 修改商品时，在事务提交后删除 Redis 和当前节点的本地缓存
+ * 2. 其它节点的本地缓存，由 ProductUpdateCacheConsumer 广播消费商品更新消息后删除。同时再删除一次 Redis ，
+ *    避免事务提交前读取到旧数据的线程，在第 1 步之后又写入了 Redis
+ *
+ * 注意，返回的 DO 对象是共享的缓存值，调用方不允许修改
+ */
+@Service
+@Slf4j
+public class ProductCacheService {
+
+    /**
+     * 本地缓存的过期时间
+     */
+    private static final Duration LOCAL_TIMEOUT = Duration.ofMinutes(1);
+
+    @Autowired
+    private ProductSkuMapper productSkuMapper;
+    @Autowired
+    private ProductSpuMapper productSpuMapper;
+    @Autowired
+    private ProductCacheRedisDAO productCacheRedisDAO;
+
+    private NearCache<ProductSkuDO> productSkuCache;
+    private NearCache<ProductSpuDO> productSpuCache;
+    /**
+     * 商品 SPU 下的商品 SKU 编号数组的缓存，用于按照商品 SPU 查询商品 SKU
+     */
+    private NearCache<List<Integer>> productSpuSkuIdsCache;
+
+    @PostConstruct
+    public void init() {
+        productSkuCache = new NearCache<>("product.sku.cache", PRODUCT_SKU_CACHE,
+                NearCache.constructType(ProductSkuDO.class), productCacheRedisDAO, 100000, LOCAL_TIMEOUT,
+                ids -> CollectionUtils.convertMap(productSkuMapper.selectBatchIds(ids), ProductSkuDO::getId));
+        productSpuCache = new NearCache<>("product.spu.cache", PRODUCT_SPU_CACHE,
+                NearCache.constructType(ProductSpuDO.class), productCacheRedisDAO, 20000, LOCAL_TIMEOUT,
+                ids -> CollectionUtils.convertMap(productSpuMapper.selectBatchIds(ids), ProductSpuDO::getId));
+        productSpuSkuIdsCache = new NearCache<>("product.spu-sku-ids.cache", PRODUCT_SPU_SKU_IDS_CACHE,
+                NearCache.constructListType(Integer.class), productCacheRedisDAO, 20000, LOCAL_TIMEOUT,
+                this::loadProductSpuSkuIds);
+    }
+
+    /**
+     * 获得商品 SKU 列表
+     *
+     * @param skuIds 商品 SKU 编号数组
+     * @return 商品 SKU 列表，按照编号数组的顺序，不包含不存在的商品 SKU
+     */
+    public List<ProductSkuDO> getProductSkus(Collection<Integer> skuIds) {
+        if (CollectionUtils.isEmpty(skuIds)) {
+            return Collections.emptyList();
+        }
+        Map<Integer, ProductSkuDO> skuMap = productSkuCache.getAll(skuIds);
+        return skuIds.stream().distinct().map(skuMap::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * 获得商品 SPU 下的商品 SKU 列表
+     *
+     * @param spuIds 商品 SPU 编号数组
+     * @return 商品 SKU 列表
+     */
+    public List<ProductSkuDO> getProductSkusBySpuIds(Collection<Integer> spuIds) {
+        if (CollectionUtils.isEmpty(spuIds)) {
+            return Collections.emptyList();
+        }
+        List<Integer> skuIds = new ArrayList<>();
+        productSpuSkuIdsCache.getAll(spuIds).values().forEach(skuIds::addAll);
+        return getProductSkus(skuIds);
+    }
+
+    /**
+     * 获得商品 SPU 列表
+     *
+     * @param spuIds 商品 SPU 编号数组
+     * @return 商品 SPU 列表，按照编号数组的顺序，不包含不存在的商品 SPU
+     */
+    public List<ProductSpuDO> getProductSpus(Collection<Integer> spuIds) {
+        if (CollectionUtils.isEmpty(spuIds)) {
+            return Collections.emptyList();
+        }
+        Map<Integer, ProductSpuDO> spuMap = productSpuCache.getAll(spuIds);
+        return spuIds.stream().distinct().map(spuMap::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * 在当前事务提交后，删除商品 SPU 的缓存。不在事务中时，立即删除
+     *
+     * @param spuId 商品 SPU 编号
+     */
+    public void evictProductSpuAfterCommit(Integer spuId) {
+        executeAfterCommit(() -> productSpuCache.invalidateAll(Collections.singleton(spuId)));
+    }
+
+    /**
+     * 在当前事务提交后，删除商品 SPU 下的商品 SKU 的缓存。不在事务中时，立即删除
+     *
+     * @param spuId 商品 SPU 编号
+     * @param skuIds 商品 SKU 编号数组，需要包括被删除的商品 SKU
+     */
+    public void evictProductSkusAfterCommit(Integer spuId, Collection<Integer> skuIds) {
+        executeAfterCommit(() -> {
+            productSkuCache.invalidateAll(skuIds);
+            productSpuSkuIdsCache.invalidateAll(Collections.singleton(spuId));
+        });
+    }
+
+    /**
+     * 删除商品 SPU ，以及其下的商品 SKU 的缓存
+     *
+     * 由于不知道被删除的商品 SKU 编号，所以本地缓存按照商品 SPU 编号匹配，Redis 按照 MySQL 中现有的商品 SKU 编号删除
+     *
+     * @param spuId 商品 SPU 编号
+     */
+    public void evictProductSpu(Integer spuId) {
+        Set<Integer> skuIds = productSkuCache.invalidateLocalIf(sku -> spuId.equals(sku.getSpuId()));
+        skuIds.addAll(CollectionUtils.convertList(productSkuMapper.selectListBySpuIds(Collections.singleton(spuId)),
+                ProductSkuDO::getId));
+        productSkuCache.invalidateAll(skuIds);
+        productSpuSkuIdsCache.invalidateAll(Collections.singleton(spuId));
+        productSpuCache.invalidateAll(Collections.singleton(spuId));
+    }
+
+    private Map<Integer, List<Integer>> loadProductSpuSkuIds(Collection<Integer> spuIds) {
+        Map<Integer, List<Integer>> result = CollectionUtils.convertMultiMap(productSkuMapper.selectListBySpuIds(spuIds),
+                ProductSkuDO::getSpuId, ProductSkuDO::getId);
+        // 没有商品 SKU 的商品 SPU ，缓存空数组
+        spuIds.forEach(spuId -> result.putIfAbsent(spuId, Collections.emptyList()));
+        return result;
+    }
+
+    private static void executeAfterCommit(Runnable runnable) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runnable.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                try {
+                    runnable.run();
+                } catch (Throwable th) {
+                    // 删除失败时，依赖商品更新消息的再次删除，以及缓存的过期
+                    log.error("[afterCommit][删除商品缓存发生异常]", th);
+                }
+            }
+
+        });
+    }
+
+}
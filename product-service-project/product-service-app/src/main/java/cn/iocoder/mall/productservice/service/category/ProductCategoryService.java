@@ -9,26 +9,60 @@ import cn.iocoder.mall.productservice.service.category.bo.ProductCategoryBO;
 import cn.iocoder.mall.productservice.service.category.bo.ProductCategoryCreateBO;
 import cn.iocoder.mall.productservice.service.category.bo.ProductCategoryListQueryBO;
 import cn.iocoder.mall.productservice.service.category.bo.ProductCategoryUpdateBO;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
+import javax.annotation.PostConstruct;
 import javax.validation.Valid;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static cn.iocoder.mall.productservice.enums.ProductErrorCodeConstants.*;
 
 /**
 * 商品分类 Service
+*
+* 商品分类的数量很少、变化很少，所以读取全部来自内存中的 {@link ProductCategorySnapshot} 快照。
+* 快照在分类发生变化后重建，其它节点通过 ProductCategoryUpdateConsumer 广播消费更新消息后重建，
+* 同时定时重建，作为更新消息丢失时的兜底。写操作的校验，依然读取 MySQL
 */
 @Service
 @Validated
+@Slf4j
 public class ProductCategoryService {
 
+    /**
+     * 定时重建快照的间隔，单位：毫秒。用于兜底更新消息的丢失
+     */
+    private static final long RELOAD_SNAPSHOT_PERIOD = 5 * 60 * 1000L;
+
     @Autowired
     private ProductCategoryMapper productCategoryMapper;
 
+    private volatile ProductCategorySnapshot snapshot = ProductCategorySnapshot.EMPTY;
+
+    @PostConstruct
+    public void initSnapshot() {
+        reloadSnapshot();
+    }
+
+    /**
+     * 从 MySQL 加载全部商品分类，重建快照
+     *
+     * 通过 synchronized 串行重建，避免先读取的旧数据覆盖后读取的新数据
+     */
+    @Scheduled(fixedDelay = RELOAD_SNAPSHOT_PERIOD, initialDelay = RELOAD_SNAPSHOT_PERIOD)
+    public synchronized void reloadSnapshot() {
+        List<ProductCategoryDO> productCategoryDOs = productCategoryMapper.selectList(new ProductCategoryListQueryBO());
+        snapshot = new ProductCategorySnapshot(ProductCategoryConvert.INSTANCE.convertList(productCategoryDOs));
+        log.debug("[reloadSnapshot][重建商品分类快照，数量({})]", productCategoryDOs.size());
+    }
+
     /**
     * 创建商品分类
     *
@@ -41,6 +75,7 @@ public class ProductCategoryService {
         // 插入到数据库
         ProductCategoryDO productCategoryDO = ProductCategoryConvert.INSTANCE.convert(createBO);
         productCategoryMapper.insert(productCategoryDO);
+        reloadSnapshot();
         // 返回
         return ProductCategoryConvert.INSTANCE.convert(productCategoryDO);
     }
@@ -64,6 +99,7 @@ public class ProductCategoryService {
         // 更新到数据库
         ProductCategoryDO updateObject = ProductCategoryConvert.INSTANCE.convert(updateBO);
         productCategoryMapper.updateById(updateObject);
+        reloadSnapshot();
     }
 
     /**
@@ -84,17 +120,17 @@ public class ProductCategoryService {
         // TODO 芋艿 补充只有不存在商品才可以删除
         // 标记删除
         productCategoryMapper.deleteById(productCategoryId);
+        reloadSnapshot();
     }
 
     /**
     * 获得商品分类
     *
     * @param productCategoryId 商品分类编号
-    * @return 商品分类
+    * @return 商品分类。注意，返回的是快照中共享的对象，不允许修改
     */
     public ProductCategoryBO getProductCategory(Integer productCategoryId) {
-        ProductCategoryDO productCategoryDO = productCategoryMapper.selectById(productCategoryId);
-        return ProductCategoryConvert.INSTANCE.convert(productCategoryDO);
+        return snapshot.get(productCategoryId);
     }
 
     /**
@@ -104,8 +140,15 @@ public class ProductCategoryService {
     * @return 商品分类列表
     */
     public List<ProductCategoryBO> listProductCategories(Collection<Integer> productCategoryIds) {
-        List<ProductCategoryDO> productCategoryDOs = productCategoryMapper.selectBatchIds(productCategoryIds);
-        return ProductCategoryConvert.INSTANCE.convertList(productCategoryDOs);
+        ProductCategorySnapshot snapshot = this.snapshot;
+        List<ProductCategoryBO> productCategoryBOs = new ArrayList<>(productCategoryIds.size());
+        for (Integer productCategoryId : productCategoryIds) {
+            ProductCategoryBO productCategoryBO = snapshot.get(productCategoryId);
+            if (productCategoryBO != null) {
+                productCategoryBOs.add(productCategoryBO);
+            }
+        }
+        return productCategoryBOs;
     }
 
     /**
@@ -114,8 +157,14 @@ public class ProductCategoryService {
      * @return 商品分类全列表
      */
     public List<ProductCategoryBO> listProductCategories(ProductCategoryListQueryBO listQueryBO) {
-        List<ProductCategoryDO> resourceDOs = productCategoryMapper.selectList(listQueryBO);
-        return ProductCategoryConvert.INSTANCE.convertList(resourceDOs);
+        ProductCategorySnapshot snapshot = this.snapshot;
+        List<ProductCategoryBO> productCategoryBOs = listQueryBO.getPid() != null
+                ? snapshot.getChildren(listQueryBO.getPid()) : snapshot.getAll();
+        if (listQueryBO.getStatus() == null) {
+            return productCategoryBOs;
+        }
+        return productCategoryBOs.stream().filter(productCategoryBO -> listQueryBO.getStatus().equals(productCategoryBO.getStatus()))
+                .collect(Collectors.toList());
     }
 
     private void validParent(Integer pid) {
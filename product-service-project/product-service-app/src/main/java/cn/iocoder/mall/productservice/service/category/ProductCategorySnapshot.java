@@ -0,0 +1,65 @@
+package cn.iocoder.mall.productservice.service.category;
+
+import cn.iocoder.mall.productservice.service.category.bo.ProductCategoryBO;
+
+import java.util.*;
+
+/**
+ * 商品分类树的快照
+ *
+ * 快照构建后不再修改，分类发生变化时，构建新的快照整体替换，所以读取时不需要加锁。
+ * 注意，返回的 BO 对象和数组是快照中共享的，调用方不允许修改
+ */
+public class ProductCategorySnapshot {
+
+    public static final ProductCategorySnapshot EMPTY = new ProductCategorySnapshot(Collections.emptyList());
+
+    /**
+     * 全部商品分类，按照编号升序
+     */
+    private final List<ProductCategoryBO> categories;
+    /**
+     * 商品分类编号与商品分类的映射
+     */
+    private final Map<Integer, ProductCategoryBO> categoryMap;
+    /**
+     * 父分类编号与子分类数组的映射，子分类按照编号升序
+     */
+    private final Map<Integer, List<ProductCategoryBO>> childrenMap;
+
+    public ProductCategorySnapshot(List<ProductCategoryBO> categories) {
+        List<ProductCategoryBO> sortedCategories = new ArrayList<>(categories);
+        sortedCategories.sort(Comparator.comparing(ProductCategoryBO::getId));
+        Map<Integer, ProductCategoryBO> categoryMap = new HashMap<>(sortedCategories.size() * 2);
+        Map<Integer, List<ProductCategoryBO>> childrenMap = new HashMap<>();
+        for (ProductCategoryBO category : sortedCategories) {
+            categoryMap.put(category.getId(), category);
+            childrenMap.computeIfAbsent(category.getPid(), pid -> new ArrayList<>()).add(category);
+        }
+        childrenMap.replaceAll((pid, children) -> Collections.unmodifiableList(children));
+        this.categories = Collections.unmodifiableList(sortedCategories);
+        this.categoryMap = categoryMap;
+        this.childrenMap = childrenMap;
+    }
+
+    public ProductCategoryBO get(Integer id) {
+        return categoryMap.get(id);
+    }
+
+    /**
+     * @param pid 父分类编号
+     * @return 子分类数组。不存在时，返回空数组
+     */
+    public List<ProductCategoryBO> getChildren(Integer pid) {
+        return childrenMap.getOrDefault(pid, Collections.emptyList());
+    }
+
+    public List<ProductCategoryBO> getAll() {
+        return categories;
+    }
+
+    public int size() {
+        return categories.size();
+    }
+
+}
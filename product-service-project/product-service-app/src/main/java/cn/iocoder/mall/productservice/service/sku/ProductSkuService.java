@@ -6,6 +6,7 @@ import cn.iocoder.common.framework.util.StringUtils;
 import cn.iocoder.mall.productservice.convert.sku.ProductSkuConvert;
 import cn.iocoder.mall.productservice.dal.mysql.dataobject.sku.ProductSkuDO;
 import cn.iocoder.mall.productservice.dal.mysql.mapper.sku.ProductSkuMapper;
+import cn.iocoder.mall.productservice.service.cache.ProductCacheService;
 import cn.iocoder.mall.productservice.service.sku.bo.ProductSkuBO;
 import cn.iocoder.mall.productservice.service.sku.bo.ProductSkuCreateOrUpdateBO;
 import cn.iocoder.mall.productservice.service.sku.bo.ProductSkuListQueryBO;
@@ -22,6 +23,11 @@ public class ProductSkuService {
     @Autowired
     private ProductSkuMapper productSkuMapper;
 
+    @Autowired
+    private ProductSkuStockService productSkuStockService;
+    @Autowired
+    private ProductCacheService productCacheService;
+
     public void createProductSkus(Integer spuId, List<ProductSkuCreateOrUpdateBO> createSkuBOs) {
         List<ProductSkuDO> skus = ProductSkuConvert.INSTANCE.convertList(createSkuBOs);
         skus.forEach(sku -> {
@@ -29,15 +35,21 @@ public class ProductSkuService {
             sku.setSpuId(spuId);
         });
         productSkuMapper.insertList(skus);
+        // 删除缓存。商品 SPU 下的商品 SKU 编号数组、以及新的商品 SKU 编号，在创建前可能已经被缓存为空
+        productCacheService.evictProductSkusAfterCommit(spuId, CollectionUtils.convertList(skus, ProductSkuDO::getId));
     }
 
     @Transactional
     public void updateProductSkus(Integer spuId, List<ProductSkuCreateOrUpdateBO> skuUpdateBOs) {
         List<ProductSkuDO> existsSkus = productSkuMapper.selectListBySpuIdAndStatus(spuId,
                 CommonStatusEnum.ENABLE.getValue());
+        List<Integer> existsSkuIds = CollectionUtils.convertList(existsSkus, ProductSkuDO::getId); // 包括更新和删除的，用于删除缓存
         List<ProductSkuDO> insertSkus = new ArrayList<>(); // 1、找不到，进行插入
         List<Integer> deleteSkus = new ArrayList<>(); // 2、多余的，删除
         List<ProductSkuDO> updateSkus = new ArrayList<>(); // 3、找的到，进行更新。
+        Map<Integer, Integer> skuQuantityDeltas = new HashMap<>(); // 库存的变化量，用于同步调整 Redis 中的可用库存
+        // 已加载到 Redis 的可用库存是最新的，MySQL 中的库存可能尚未回写，所以优先以 Redis 的可用库存计算变化量
+        Map<Integer, Integer> existsStocks = productSkuStockService.getProductSkuStocks(existsSkuIds);
         for (ProductSkuCreateOrUpdateBO skuUpdateDTO : skuUpdateBOs) {
             ProductSkuDO existsSku = findProductSku(skuUpdateDTO.getAttrValueIds(), existsSkus);
             // 3、找的到，进行更新。
@@ -46,6 +58,10 @@ public class ProductSkuService {
                 existsSkus.remove(existsSku);
                 // 创建 ProductSkuDO
                 updateSkus.add(ProductSkuConvert.INSTANCE.convert(skuUpdateDTO).setId(existsSku.getId()));
+                Integer existsQuantity = existsStocks.getOrDefault(existsSku.getId(), existsSku.getQuantity());
+                if (!Objects.equals(existsQuantity, skuUpdateDTO.getQuantity())) {
+                    skuQuantityDeltas.put(existsSku.getId(), skuUpdateDTO.getQuantity() - existsQuantity);
+                }
                 continue;
             }
             // 1、找不到，进行插入
@@ -67,6 +83,11 @@ public class ProductSkuService {
         if (!deleteSkus.isEmpty()) {
             productSkuMapper.deleteBatchIds(deleteSkus);
         }
+        // 调整 Redis 中的可用库存，并删除已删除的商品 SKU 的可用库存
+        productSkuStockService.incrProductSkuStocks(skuQuantityDeltas);
+        productSkuStockService.deleteProductSkuStocks(deleteSkus);
+        // 删除缓存
+        productCacheService.evictProductSkusAfterCommit(spuId, existsSkuIds);
     }
 
     /**
@@ -99,8 +120,13 @@ public class ProductSkuService {
      * @return 商品 SKU
      */
     public ProductSkuBO getProductSku(Integer productSkuId) {
-        ProductSkuDO productSkuDO = productSkuMapper.selectById(productSkuId);
-        return ProductSkuConvert.INSTANCE.convert(productSkuDO);
+        ProductSkuDO productSkuDO = CollectionUtils.getFirst(productCacheService.getProductSkus(
+                Collections.singleton(productSkuId)));
+        ProductSkuBO productSkuBO = ProductSkuConvert.INSTANCE.convert(productSkuDO);
+        if (productSkuBO != null) {
+            fillProductSkuStocks(Collections.singletonList(productSkuBO));
+        }
+        return productSkuBO;
     }
 
     /**
@@ -110,9 +136,52 @@ public class ProductSkuService {
      * @return 商品 SKU 列表
      */
     public List<ProductSkuBO> listProductSkus(ProductSkuListQueryBO queryBO) {
-        // TODO FROM 芋艿：可能要考虑下，是不是要必须传递条件
-        List<ProductSkuDO> productSkuDOs = productSkuMapper.selectList(queryBO);
-        return ProductSkuConvert.INSTANCE.convertList02(productSkuDOs);
+        // 有商品 SKU 或 SPU 编号条件时，从缓存中读取，再在内存中过滤其它条件
+        List<ProductSkuDO> productSkuDOs;
+        if (queryBO.getProductSkuId() != null) {
+            productSkuDOs = productCacheService.getProductSkus(Collections.singleton(queryBO.getProductSkuId()));
+        } else if (!CollectionUtils.isEmpty(queryBO.getProductSkuIds())) {
+            productSkuDOs = productCacheService.getProductSkus(queryBO.getProductSkuIds());
+        } else if (queryBO.getProductSpuId() != null) {
+            productSkuDOs = productCacheService.getProductSkusBySpuIds(Collections.singleton(queryBO.getProductSpuId()));
+        } else if (!CollectionUtils.isEmpty(queryBO.getProductSpuIds())) {
+            productSkuDOs = productCacheService.getProductSkusBySpuIds(queryBO.getProductSpuIds());
+        } else {
+            // TODO FROM 芋艿：可能要考虑下，是不是要必须传递条件
+            productSkuDOs = productSkuMapper.selectList(queryBO);
+        }
+        List<ProductSkuBO> productSkuBOs = ProductSkuConvert.INSTANCE.convertList02(productSkuDOs.stream()
+                .filter(productSkuDO -> matches(queryBO, productSkuDO)).collect(Collectors.toList()));
+        fillProductSkuStocks(productSkuBOs);
+        return productSkuBOs;
+    }
+
+    private static boolean matches(ProductSkuListQueryBO queryBO, ProductSkuDO productSkuDO) {
+        return (queryBO.getProductSkuId() == null || queryBO.getProductSkuId().equals(productSkuDO.getId()))
+                && (CollectionUtils.isEmpty(queryBO.getProductSkuIds()) || queryBO.getProductSkuIds().contains(productSkuDO.getId()))
+                && (queryBO.getProductSpuId() == null || queryBO.getProductSpuId().equals(productSkuDO.getSpuId()))
+                && (CollectionUtils.isEmpty(queryBO.getProductSpuIds()) || queryBO.getProductSpuIds().contains(productSkuDO.getSpuId()))
+                && (queryBO.getProductSkuStatus() == null || queryBO.getProductSkuStatus().equals(productSkuDO.getStatus()));
+    }
+
+    /**
+     * 使用 Redis 中的可用库存，覆盖缓存中的库存数量。
+     * 因为可用库存是异步回写到 MySQL 的，所以缓存中的库存数量可能是旧的
+     *
+     * @param productSkuBOs 商品 SKU 数组
+     */
+    private void fillProductSkuStocks(List<ProductSkuBO> productSkuBOs) {
+        if (productSkuBOs.isEmpty()) {
+            return;
+        }
+        Map<Integer, Integer> stocks = productSkuStockService.getProductSkuStocks(
+                CollectionUtils.convertList(productSkuBOs, ProductSkuBO::getId));
+        productSkuBOs.forEach(productSkuBO -> {
+            Integer stock = stocks.get(productSkuBO.getId());
+            if (stock != null) {
+                productSkuBO.setQuantity(stock);
+            }
+        });
     }
 
 }
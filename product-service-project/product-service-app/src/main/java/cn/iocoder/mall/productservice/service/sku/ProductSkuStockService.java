@@ -0,0 +1,237 @@
+package cn.iocoder.mall.productservice.service.sku;
+
+import cn.iocoder.common.framework.exception.util.ServiceExceptionUtil;
+import cn.iocoder.common.framework.util.CollectionUtils;
+import cn.iocoder.mall.productservice.dal.mysql.dataobject.sku.ProductSkuDO;
+import cn.iocoder.mall.productservice.dal.mysql.mapper.sku.ProductSkuMapper;
+import cn.iocoder.mall.productservice.dal.redis.dao.ProductSkuStockRedisDAO;
+import cn.iocoder.mall.productservice.service.sku.bo.ProductSkuStockReserveBO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static cn.iocoder.mall.productservice.enums.ProductErrorCodeConstants.PRODUCT_SKU_NOT_EXISTS;
+import static cn.iocoder.mall.productservice.enums.ProductErrorCodeConstants.PRODUCT_SKU_STOCK_NOT_ENOUGH;
+
+/**
+ * 商品 SKU 库存 Service
+ *
+ * 库存扣减采用「预占 - 确认」两个阶段：
+ * 1. 创建订单时，{@link #reserveProductSkuStock(ProductSkuStockReserveBO)} 在 Redis 中原子扣减可用库存，并记录预占；
+ * 2. 支付成功时，{@link #confirmProductSkuStock(String)} 确认预占；
+ *    取消订单、或者超时未确认时，{@link #releaseProductSkuStock(String)} 将预占的库存归还，并记录已释放记录。
+ *    如果支付成功时预占已经超时释放，则根据已释放记录重新扣减库存，避免已售出的库存被再次售卖。
+ *
+ * Redis 中的可用库存，由 {@link #writeBackProductSkuStocks(int)} 异步回写到 product_sku.quantity 字段，
+ * 从而避免热点商品 SKU 在 MySQL 上的行锁竞争。
+ */
+@Service
+@Slf4j
+public class ProductSkuStockService {
+
+    /**
+     * 预占结果 - 成功
+     */
+    private static final int RESERVE_RESULT_SUCCESS = 1;
+    /**
+     * 预占结果 - 已经预占过
+     */
+    private static final int RESERVE_RESULT_DUPLICATE = 2;
+    /**
+     * 预占结果 - 库存不足
+     */
+    private static final int RESERVE_RESULT_NOT_ENOUGH = 0;
+    /**
+     * 预占结果 - 可用库存未加载到 Redis
+     */
+    private static final int RESERVE_RESULT_NOT_LOADED = -1;
+
+    @Autowired
+    private ProductSkuStockRedisDAO productSkuStockRedisDAO;
+    @Autowired
+    private ProductSkuMapper productSkuMapper;
+
+    /**
+     * 预占商品 SKU 库存
+     *
+     * @param reserveBO 预占信息
+     */
+    public void reserveProductSkuStock(ProductSkuStockReserveBO reserveBO) {
+        // 合并相同的商品 SKU，保证按照合计数量校验库存
+        LinkedHashMap<Integer, Integer> skuQuantities = new LinkedHashMap<>();
+        reserveBO.getItems().forEach(item -> skuQuantities.merge(item.getSkuId(), item.getQuantity(), Integer::sum));
+        // 预占库存。如果可用库存未加载到 Redis ，则从 MySQL 加载后重试
+        long expireTime = reserveBO.getExpireTime().getTime();
+        List<Long> result = productSkuStockRedisDAO.reserve(reserveBO.getReservationId(), expireTime, skuQuantities);
+        if (result.get(0).intValue() == RESERVE_RESULT_NOT_LOADED) {
+            loadProductSkuStocks(skuQuantities.keySet());
+            result = productSkuStockRedisDAO.reserve(reserveBO.getReservationId(), expireTime, skuQuantities);
+        }
+        // 处理结果
+        int code = result.get(0).intValue();
+        if (code == RESERVE_RESULT_SUCCESS || code == RESERVE_RESULT_DUPLICATE) {
+            return;
+        }
+        Integer skuId = new ArrayList<>(skuQuantities.keySet()).get(result.get(1).intValue() - 1);
+        if (code == RESERVE_RESULT_NOT_ENOUGH) {
+            throw ServiceExceptionUtil.exception(PRODUCT_SKU_STOCK_NOT_ENOUGH, skuId);
+        }
+        throw ServiceExceptionUtil.exception(PRODUCT_SKU_NOT_EXISTS);
+    }
+
+    /**
+     * 确认预占的商品 SKU 库存
+     *
+     * 如果预占已经超时释放，则根据已释放记录重新扣减库存。此时库存可能被扣减为负数，需要人工处理超卖
+     *
+     * @param reservationId 预占编号
+     * @return 是否确认成功。失败时，说明预占已经被确认，或者不存在
+     */
+    public boolean confirmProductSkuStock(String reservationId) {
+        if (productSkuStockRedisDAO.confirm(reservationId)) {
+            return true;
+        }
+        if (productSkuStockRedisDAO.reclaim(reservationId) > 0) {
+            log.warn("[confirmProductSkuStock][预占({}) 已经超时释放，重新扣减库存]", reservationId);
+            return true;
+        }
+        log.warn("[confirmProductSkuStock][预占({}) 不存在，可能已经被确认]", reservationId);
+        return false;
+    }
+
+    /**
+     * 释放预占的商品 SKU 库存
+     *
+     * @param reservationId 预占编号
+     * @return 是否释放成功。失败时，说明预占已经被确认或者释放
+     */
+    public boolean releaseProductSkuStock(String reservationId) {
+        return productSkuStockRedisDAO.release(reservationId) > 0;
+    }
+
+    /**
+     * 释放已经过期的预占
+     *
+     * @param limit 最大数量
+     * @return 释放的数量
+     */
+    public int releaseExpiredProductSkuStocks(int limit) {
+        Set<String> reservationIds = productSkuStockRedisDAO.listExpiredReservationIds(System.currentTimeMillis(), limit);
+        if (CollectionUtils.isEmpty(reservationIds)) {
+            return 0;
+        }
+        reservationIds.forEach(reservationId -> productSkuStockRedisDAO.release(reservationId));
+        return reservationIds.size();
+    }
+
+    /**
+     * 将 Redis 中发生变化的可用库存，批量回写到 MySQL 中
+     *
+     * @param limit 最大数量
+     * @return 回写的数量
+     */
+    public int writeBackProductSkuStocks(int limit) {
+        List<Integer> skuIds = productSkuStockRedisDAO.popDirtySkuIds(limit);
+        if (skuIds.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, Integer> stocks = productSkuStockRedisDAO.getStocks(skuIds);
+        if (stocks.isEmpty()) {
+            return 0;
+        }
+        List<ProductSkuDO> updateSkus = stocks.entrySet().stream()
+                .map(entry -> new ProductSkuDO().setId(entry.getKey()).setQuantity(entry.getValue()))
+                .collect(Collectors.toList());
+        try {
+            productSkuMapper.updateQuantityList(updateSkus);
+        } catch (RuntimeException ex) {
+            // 回写失败，重新标记，等待下次回写
+            productSkuStockRedisDAO.addDirtySkuIds(stocks.keySet());
+            throw ex;
+        }
+        return updateSkus.size();
+    }
+
+    /**
+     * 获得商品 SKU 的可用库存
+     *
+     * @param skuIds 商品 SKU 编号数组
+     * @return 商品 SKU 编号与可用库存的映射，不包含未加载到 Redis 的商品 SKU
+     */
+    public Map<Integer, Integer> getProductSkuStocks(Collection<Integer> skuIds) {
+        return productSkuStockRedisDAO.getStocks(skuIds);
+    }
+
+    /**
+     * 调整商品 SKU 的可用库存，例如说管理员修改了商品 SKU 的库存
+     *
+     * 如果存在事务，则在事务提交后执行，避免事务回滚时 Redis 和 MySQL 不一致
+     *
+     * @param skuQuantityDeltas 商品 SKU 编号与库存变化量的映射
+     */
+    public void incrProductSkuStocks(Map<Integer, Integer> skuQuantityDeltas) {
+        if (skuQuantityDeltas.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            incrProductSkuStocks0(skuQuantityDeltas);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                incrProductSkuStocks0(skuQuantityDeltas);
+            }
+
+        });
+    }
+
+    private void incrProductSkuStocks0(Map<Integer, Integer> skuQuantityDeltas) {
+        // 未加载到 Redis 的可用库存，后续会从 MySQL 加载到最新值，无需调整
+        productSkuStockRedisDAO.incrStocksIfPresent(skuQuantityDeltas);
+    }
+
+    /**
+     * 删除商品 SKU 的可用库存，例如说商品 SKU 被删除
+     *
+     * 如果存在事务，则在事务提交后执行
+     *
+     * @param skuIds 商品 SKU 编号数组
+     */
+    public void deleteProductSkuStocks(Collection<Integer> skuIds) {
+        if (skuIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            productSkuStockRedisDAO.deleteStocks(skuIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                productSkuStockRedisDAO.deleteStocks(skuIds);
+            }
+
+        });
+    }
+
+    private void loadProductSkuStocks(Collection<Integer> skuIds) {
+        Map<Integer, Integer> stocks = productSkuStockRedisDAO.getStocks(skuIds);
+        List<Integer> loadSkuIds = skuIds.stream().filter(skuId -> !stocks.containsKey(skuId))
+                .collect(Collectors.toList());
+        if (loadSkuIds.isEmpty()) {
+            return;
+        }
+        // 使用 setIfAbsent 加载，避免并发加载时，覆盖已经扣减的库存
+        List<ProductSkuDO> skuDOs = productSkuMapper.selectBatchIds(loadSkuIds);
+        skuDOs.forEach(skuDO -> productSkuStockRedisDAO.setStockIfAbsent(skuDO.getId(), skuDO.getQuantity()));
+    }
+
+}
@@ -24,6 +24,10 @@ public class ProductSkuListQueryBO {
      * 商品 SPU 编号
      */
     private Integer productSpuId;
+    /**
+     * 商品 SPU 编号数组
+     */
+    private Collection<Integer> productSpuIds;
     /**
      * 商品 SKU 状态
      */
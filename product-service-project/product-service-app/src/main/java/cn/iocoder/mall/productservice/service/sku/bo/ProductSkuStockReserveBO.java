@@ -0,0 +1,44 @@
+package cn.iocoder.mall.productservice.service.sku.bo;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 商品 SKU 库存预占 BO
+ */
+@Data
+@Accessors(chain = true)
+public class ProductSkuStockReserveBO {
+
+    /**
+     * 预占编号
+     */
+    private String reservationId;
+    /**
+     * 过期时间
+     */
+    private Date expireTime;
+    /**
+     * 预占的商品 SKU 数组
+     */
+    private List<Item> items;
+
+    @Data
+    @Accessors(chain = true)
+    public static class Item {
+
+        /**
+         * 商品 SKU 编号
+         */
+        private Integer skuId;
+        /**
+         * 预占数量
+         */
+        private Integer quantity;
+
+    }
+
+}
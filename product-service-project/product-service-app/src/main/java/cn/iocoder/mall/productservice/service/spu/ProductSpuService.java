@@ -6,6 +6,7 @@ import cn.iocoder.common.framework.vo.PageResult;
 import cn.iocoder.mall.productservice.convert.spu.ProductSpuConvert;
 import cn.iocoder.mall.productservice.dal.mysql.dataobject.spu.ProductSpuDO;
 import cn.iocoder.mall.productservice.dal.mysql.mapper.spu.ProductSpuMapper;
+import cn.iocoder.mall.productservice.service.cache.ProductCacheService;
 import cn.iocoder.mall.productservice.service.spu.bo.ProductSpuBO;
 import cn.iocoder.mall.productservice.service.spu.bo.ProductSpuCreateBO;
 import cn.iocoder.mall.productservice.service.spu.bo.ProductSpuPageBO;
@@ -17,6 +18,7 @@ import org.springframework.validation.annotation.Validated;
 
 import javax.validation.Valid;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import static cn.iocoder.mall.productservice.enums.ProductErrorCodeConstants.PRODUCT_SPU_NOT_EXISTS;
@@ -30,6 +32,8 @@ public class ProductSpuService {
 
     @Autowired
     private ProductSpuMapper productSpuMapper;
+    @Autowired
+    private ProductCacheService productCacheService;
 
     /**
     * 创建商品 SPU
@@ -58,6 +62,8 @@ public class ProductSpuService {
         // 更新到数据库
         ProductSpuDO updateObject = ProductSpuConvert.INSTANCE.convert(updateBO);
         productSpuMapper.updateById(updateObject);
+        // 删除缓存
+        productCacheService.evictProductSpuAfterCommit(updateBO.getId());
     }
 
     /**
@@ -67,7 +73,8 @@ public class ProductSpuService {
     * @return 商品 SPU
     */
     public ProductSpuBO getProductSpu(Integer productSpuId) {
-        ProductSpuDO productSpuDO = productSpuMapper.selectById(productSpuId);
+        ProductSpuDO productSpuDO = CollectionUtils.getFirst(productCacheService.getProductSpus(
+                Collections.singleton(productSpuId)));
         return ProductSpuConvert.INSTANCE.convert(productSpuDO);
     }
 
@@ -78,7 +85,7 @@ public class ProductSpuService {
     * @return 商品 SPU列表
     */
     public List<ProductSpuBO> listProductSpus(Collection<Integer> productSpuIds) {
-        List<ProductSpuDO> productSpuDOs = productSpuMapper.selectBatchIds(productSpuIds);
+        List<ProductSpuDO> productSpuDOs = productCacheService.getProductSpus(productSpuIds);
         return ProductSpuConvert.INSTANCE.convertList(productSpuDOs);
     }
 
@@ -57,5 +57,9 @@ public class ProductSpuBO {
      * 创建时间
      */
     private Date createTime;
+    /**
+     * 最后更新时间
+     */
+    private Date updateTime;
 
 }
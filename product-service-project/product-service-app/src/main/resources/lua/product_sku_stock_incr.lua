@@ -0,0 +1,12 @@
+-- 调整单个商品 SKU 的可用库存。未加载到 Redis 时，不做处理，后续会从 MySQL 加载到最新值
+--
+-- KEYS[1] 可用库存
+-- ARGV[1] 变化量
+--
+-- 返回 1 调整成功；0 可用库存未加载到 Redis
+
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    redis.call('INCRBY', KEYS[1], ARGV[1])
+    return 1
+end
+return 0
@@ -0,0 +1,16 @@
+-- 重新扣减单个商品 SKU 已释放的库存。用于预占过期释放后，仍然支付成功的情况，避免已经卖出的库存被再次卖出
+--
+-- KEYS[1] 可用库存；KEYS[2] 已释放数量
+--
+-- 返回 1 重新扣减成功；0 已释放数量不存在
+
+local quantity = redis.call('GET', KEYS[2])
+if not quantity then
+    return 0
+end
+redis.call('DEL', KEYS[2])
+-- 可用库存不存在时，说明已经被重置或者删除，无需扣减。允许扣减为负数，由管理员补充库存
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    redis.call('DECRBY', KEYS[1], quantity)
+end
+return 1
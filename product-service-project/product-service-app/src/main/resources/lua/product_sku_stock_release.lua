@@ -0,0 +1,20 @@
+-- 释放单个商品 SKU 库存的预占，将预占数量归还到可用库存，并记录已释放数量
+--
+-- KEYS[1] 可用库存；KEYS[2] 预占数量；KEYS[3] 已释放数量
+-- ARGV[1] 已释放数量的过期秒数。为 0 时，不记录已释放数量，用于预占失败时的回滚
+--
+-- 返回 1 释放成功；0 预占数量不存在（已经确认，或者已经释放）
+
+local quantity = redis.call('GET', KEYS[2])
+if not quantity then
+    return 0
+end
+redis.call('DEL', KEYS[2])
+-- 可用库存不存在时，说明已经被重置或者删除，无需归还
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    redis.call('INCRBY', KEYS[1], quantity)
+    if tonumber(ARGV[1]) > 0 then
+        redis.call('SET', KEYS[3], quantity, 'EX', ARGV[1])
+    end
+end
+return 1
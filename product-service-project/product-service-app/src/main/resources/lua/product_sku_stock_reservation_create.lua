@@ -0,0 +1,15 @@
+-- 创建商品 SKU 库存的预占记录
+--
+-- KEYS[1] 预占记录
+-- ARGV[1] 预占记录的过期秒数；ARGV[2...] 每个商品 SKU 的编号、预占数量
+--
+-- 返回 1 创建成功；0 预占记录已经存在，即已经预占过
+
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+for i = 2, #ARGV, 2 do
+    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+end
+redis.call('EXPIRE', KEYS[1], ARGV[1])
+return 1
@@ -0,0 +1,22 @@
+-- 预占单个商品 SKU 的库存
+--
+-- KEYS[1] 可用库存；KEYS[2] 预占数量
+-- ARGV[1] 预占数量；ARGV[2] 预占数量的过期秒数
+--
+-- 返回 1 预占成功；2 已经预占过；0 库存不足；-1 可用库存未加载到 Redis
+
+-- 幂等，已经预占过，直接返回
+if redis.call('EXISTS', KEYS[2]) == 1 then
+    return 2
+end
+
+local stock = redis.call('GET', KEYS[1])
+if not stock then
+    return -1
+end
+if tonumber(stock) < tonumber(ARGV[1]) then
+    return 0
+end
+redis.call('DECRBY', KEYS[1], ARGV[1])
+redis.call('SET', KEYS[2], ARGV[1], 'EX', ARGV[2])
+return 1
@@ -0,0 +1,180 @@
+package cn.iocoder.mall.productservice.dal.redis.dao;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.*;
+
+import static cn.iocoder.mall.productservice.dal.redis.RedisKeyConstants.*;
+
+/**
+ * {@link ProductSkuStockRedisDAO} 的测试类，覆盖各个 Lua 脚本
+ *
+ * 目前是集成测试类，需要连接本地的 Redis 。使用较大的商品 SKU 编号，并在测试结束后删除，避免影响真实数据
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public class ProductSkuStockRedisDAOTest {
+
+    private static final int SKU_ID_01 = 900_000_001;
+    private static final int SKU_ID_02 = 900_000_002;
+    private static final String RESERVATION_ID = "test_product_sku_stock_reservation";
+
+    @Autowired
+    private ProductSkuStockRedisDAO productSkuStockRedisDAO;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Before
+    public void setUp() {
+        clean();
+        productSkuStockRedisDAO.setStockIfAbsent(SKU_ID_01, 10);
+        productSkuStockRedisDAO.setStockIfAbsent(SKU_ID_02, 5);
+    }
+
+    @After
+    public void tearDown() {
+        clean();
+    }
+
+    private void clean() {
+        productSkuStockRedisDAO.deleteStocks(Arrays.asList(SKU_ID_01, SKU_ID_02));
+        List<String> keys = new ArrayList<>();
+        keys.add(String.format(PRODUCT_SKU_STOCK_RESERVATION.getKeyTemplate(), RESERVATION_ID));
+        for (Integer skuId : Arrays.asList(SKU_ID_01, SKU_ID_02)) {
+            keys.add(String.format(PRODUCT_SKU_STOCK_RESERVED.getKeyTemplate(), skuId, RESERVATION_ID));
+            keys.add(String.format(PRODUCT_SKU_STOCK_RELEASED.getKeyTemplate(), skuId, RESERVATION_ID));
+        }
+        redisTemplate.delete(keys);
+        redisTemplate.opsForZSet().remove(PRODUCT_SKU_STOCK_RESERVATION_EXPIRE.getKeyTemplate(), RESERVATION_ID);
+    }
+
+    @Test
+    public void testReserveAndConfirm() {
+        Assert.assertEquals(Arrays.asList(1L, 0L), reserve(3, 2));
+        assertStocks(7, 3);
+        // 重复预占
+        Assert.assertEquals(Arrays.asList(2L, 0L), reserve(3, 2));
+        assertStocks(7, 3);
+
+        Assert.assertTrue(productSkuStockRedisDAO.confirm(RESERVATION_ID));
+        Assert.assertFalse(productSkuStockRedisDAO.confirm(RESERVATION_ID));
+        // 确认后，释放不再归还库存
+        Assert.assertEquals(0, productSkuStockRedisDAO.release(RESERVATION_ID));
+        assertStocks(7, 3);
+        Assert.assertTrue(productSkuStockRedisDAO.listExpiredReservationIds(Long.MAX_VALUE, 1000).stream()
+                .noneMatch(RESERVATION_ID::equals));
+    }
+
+    @Test
+    public void testReserveNotEnough() {
+        Assert.assertEquals(Arrays.asList(0L, 2L), reserve(3, 6));
+        // 任一商品 SKU 库存不足时，回滚已经预占的商品 SKU ，都不扣减
+        assertStocks(10, 5);
+        Assert.assertEquals(0, productSkuStockRedisDAO.release(RESERVATION_ID));
+        Assert.assertTrue(productSkuStockRedisDAO.listExpiredReservationIds(Long.MAX_VALUE, 1000).stream()
+                .noneMatch(RESERVATION_ID::equals));
+        // 回滚后，可以使用相同编号重新预占
+        Assert.assertEquals(Arrays.asList(1L, 0L), reserve(3, 2));
+        assertStocks(7, 3);
+    }
+
+    @Test
+    public void testHashTag() {
+        // 同一个商品 SKU 的 Key 位于同一个 slot ，不同商品 SKU 的 Key 不共用 hash tag
+        String tag = "{" + SKU_ID_01 + "}";
+        Assert.assertTrue(String.format(PRODUCT_SKU_STOCK.getKeyTemplate(), SKU_ID_01).contains(tag));
+        Assert.assertTrue(String.format(PRODUCT_SKU_STOCK_RESERVED.getKeyTemplate(), SKU_ID_01, RESERVATION_ID).contains(tag));
+        Assert.assertTrue(String.format(PRODUCT_SKU_STOCK_RELEASED.getKeyTemplate(), SKU_ID_01, RESERVATION_ID).contains(tag));
+        Assert.assertFalse(String.format(PRODUCT_SKU_STOCK.getKeyTemplate(), SKU_ID_02).contains(tag));
+    }
+
+    @Test
+    public void testReserveNotLoaded() {
+        productSkuStockRedisDAO.deleteStocks(Collections.singletonList(SKU_ID_02));
+        Assert.assertEquals(Arrays.asList(-1L, 2L), reserve(3, 2));
+        Assert.assertEquals(Collections.singletonMap(SKU_ID_01, 10),
+                productSkuStockRedisDAO.getStocks(Arrays.asList(SKU_ID_01, SKU_ID_02)));
+        // 加载后，可以使用相同编号重新预占
+        productSkuStockRedisDAO.setStockIfAbsent(SKU_ID_02, 5);
+        Assert.assertEquals(Arrays.asList(1L, 0L), reserve(3, 2));
+        assertStocks(7, 3);
+    }
+
+    @Test
+    public void testReleaseAndReclaim() {
+        reserve(3, 2);
+        Assert.assertEquals(2, productSkuStockRedisDAO.release(RESERVATION_ID));
+        assertStocks(10, 5);
+        // 重复释放
+        Assert.assertEquals(0, productSkuStockRedisDAO.release(RESERVATION_ID));
+        assertStocks(10, 5);
+
+        // 释放后仍然支付成功，根据已释放记录重新扣减
+        Assert.assertFalse(productSkuStockRedisDAO.confirm(RESERVATION_ID));
+        Assert.assertEquals(2, productSkuStockRedisDAO.reclaim(RESERVATION_ID));
+        assertStocks(7, 3);
+        // 重复扣减
+        Assert.assertEquals(0, productSkuStockRedisDAO.reclaim(RESERVATION_ID));
+        assertStocks(7, 3);
+    }
+
+    @Test
+    public void testReclaimAllowNegative() {
+        reserve(3, 2);
+        productSkuStockRedisDAO.release(RESERVATION_ID);
+        // 释放后，库存被其它订单全部预占
+        productSkuStockRedisDAO.incrStocksIfPresent(Collections.singletonMap(SKU_ID_02, -5));
+        Assert.assertEquals(2, productSkuStockRedisDAO.reclaim(RESERVATION_ID));
+        assertStocks(7, -2);
+    }
+
+    @Test
+    public void testIncrStocksIfPresent() {
+        productSkuStockRedisDAO.deleteStocks(Collections.singletonList(SKU_ID_02));
+        Map<Integer, Integer> deltas = new HashMap<>();
+        deltas.put(SKU_ID_01, -4);
+        deltas.put(SKU_ID_02, 100);
+        Assert.assertEquals(1, productSkuStockRedisDAO.incrStocksIfPresent(deltas));
+        // 未加载的商品 SKU ，不会被创建
+        Assert.assertEquals(Collections.singletonMap(SKU_ID_01, 6),
+                productSkuStockRedisDAO.getStocks(Arrays.asList(SKU_ID_01, SKU_ID_02)));
+        Set<String> dirtySkuIds = redisTemplate.opsForSet().members(PRODUCT_SKU_STOCK_DIRTY.getKeyTemplate());
+        Assert.assertTrue(dirtySkuIds.contains(String.valueOf(SKU_ID_01)));
+        Assert.assertFalse(dirtySkuIds.contains(String.valueOf(SKU_ID_02)));
+    }
+
+    @Test
+    public void testDeleteStocks() {
+        reserve(3, 2);
+        productSkuStockRedisDAO.deleteStocks(Collections.singletonList(SKU_ID_02));
+        Assert.assertFalse(redisTemplate.opsForSet().isMember(PRODUCT_SKU_STOCK_DIRTY.getKeyTemplate(),
+                String.valueOf(SKU_ID_02)));
+        // 已删除的商品 SKU ，释放时不归还库存
+        Assert.assertEquals(2, productSkuStockRedisDAO.release(RESERVATION_ID));
+        Assert.assertEquals(Collections.singletonMap(SKU_ID_01, 10),
+                productSkuStockRedisDAO.getStocks(Arrays.asList(SKU_ID_01, SKU_ID_02)));
+    }
+
+    private List<Long> reserve(int quantity01, int quantity02) {
+        LinkedHashMap<Integer, Integer> skuQuantities = new LinkedHashMap<>();
+        skuQuantities.put(SKU_ID_01, quantity01);
+        skuQuantities.put(SKU_ID_02, quantity02);
+        return productSkuStockRedisDAO.reserve(RESERVATION_ID, System.currentTimeMillis() + 60_000, skuQuantities);
+    }
+
+    private void assertStocks(int stock01, int stock02) {
+        Map<Integer, Integer> expected = new HashMap<>();
+        expected.put(SKU_ID_01, stock01);
+        expected.put(SKU_ID_02, stock02);
+        Assert.assertEquals(expected, productSkuStockRedisDAO.getStocks(Arrays.asList(SKU_ID_01, SKU_ID_02)));
+    }
+
+}
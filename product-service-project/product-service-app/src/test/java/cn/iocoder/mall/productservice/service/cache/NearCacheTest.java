@@ -0,0 +1,216 @@
+package cn.iocoder.mall.productservice.service.cache;
+
+import cn.iocoder.mall.productservice.dal.redis.dao.ProductCacheRedisDAO;
+import cn.iocoder.mall.redis.core.RedisKeyDefine;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * {@link NearCache} 的单元测试
+ *
+ * 使用内存实现的 {@link ProductCacheRedisDAO} 代替 Redis ，多个 NearCache 共享它时，相当于多个节点共享同一个 Redis
+ */
+public class NearCacheTest {
+
+    private static final RedisKeyDefine KEY_DEFINE = new RedisKeyDefine("near_cache_test:%s",
+            RedisKeyDefine.KeyTypeEnum.STRING, String.class, Duration.ofMinutes(30));
+
+    private MemoryProductCacheRedisDAO redisDAO;
+    /**
+     * 数据库中的数据
+     */
+    private Map<Integer, String> database;
+    /**
+     * 从数据库加载的编号，每次加载一个数组
+     */
+    private List<Collection<Integer>> loadedIds;
+
+    @Before
+    public void setUp() {
+        redisDAO = new MemoryProductCacheRedisDAO();
+        database = new ConcurrentHashMap<>();
+        database.put(1, "one");
+        loadedIds = new CopyOnWriteArrayList<>();
+    }
+
+    @Test
+    public void testGetAllNullValue() {
+        NearCache<String> cache = createCache(this::loadFromDatabase);
+        Assert.assertEquals(Collections.singletonMap(1, "one"), cache.getAll(Arrays.asList(1, 2)));
+        // 不存在的编号，本地缓存为空，不再从数据库加载
+        Assert.assertEquals(Collections.singletonMap(1, "one"), cache.getAll(Arrays.asList(1, 2)));
+        Assert.assertEquals(Collections.singletonList(Arrays.asList(1, 2)), loadedIds);
+        // 不存在的编号，Redis 缓存为空字符串，使用较短的过期时间
+        Assert.assertEquals("", redisDAO.values.get(2));
+        Assert.assertEquals(Duration.ofMinutes(1), redisDAO.timeouts.get(2));
+        Assert.assertEquals(KEY_DEFINE.getTimeout(), redisDAO.timeouts.get(1));
+
+        // 其它节点从 Redis 读取，也不再从数据库加载
+        NearCache<String> otherCache = createCache(this::loadFromDatabase);
+        Assert.assertEquals(Collections.singletonMap(1, "one"), otherCache.getAll(Arrays.asList(1, 2)));
+        Assert.assertEquals(1, loadedIds.size());
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        NearCache<String> cache = createCache(this::loadFromDatabase);
+        Assert.assertEquals(Collections.emptyMap(), cache.getAll(Collections.singleton(2)));
+        // 创建后删除缓存，才能读取到新的数据
+        database.put(2, "two");
+        Assert.assertEquals(Collections.emptyMap(), cache.getAll(Collections.singleton(2)));
+        cache.invalidateAll(Collections.singleton(2));
+        Assert.assertFalse(redisDAO.values.containsKey(2));
+        Assert.assertEquals(Collections.singletonMap(2, "two"), cache.getAll(Collections.singleton(2)));
+        Assert.assertEquals(2, loadedIds.size());
+    }
+
+    @Test
+    public void testGetAllConcurrentLoadOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        NearCache<String> cache = createCache(ids -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return loadFromDatabase(ids);
+        });
+        int threadCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Map<Integer, String>>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> cache.getAll(Collections.singleton(1))));
+            // 第一个线程加载中，其它线程读取同一个编号
+            Assert.assertTrue(loading.await(1, TimeUnit.SECONDS));
+            for (int i = 1; i < threadCount; i++) {
+                futures.add(executor.submit(() -> cache.getAll(Collections.singleton(1))));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Map<Integer, String>> future : futures) {
+                Assert.assertEquals(Collections.singletonMap(1, "one"), future.get(1, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // 只有一个线程从数据库加载
+        Assert.assertEquals(Collections.singletonList(Collections.singletonList(1)), loadedIds);
+    }
+
+    @Test
+    public void testGetAllConcurrentLoadFailure() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loadCount = new AtomicInteger();
+        NearCache<String> cache = createCache(ids -> {
+            loadCount.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            throw new IllegalStateException("数据库不可用");
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Map<Integer, String>> loader = executor.submit(() -> cache.getAll(Collections.singleton(1)));
+            Assert.assertTrue(loading.await(1, TimeUnit.SECONDS));
+            Future<Map<Integer, String>> waiter = executor.submit(() -> cache.getAll(Collections.singleton(1)));
+            Thread.sleep(100);
+            release.countDown();
+            // 加载失败时，等待的线程也失败，而不是一直等待
+            assertFailure(loader);
+            assertFailure(waiter);
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, loadCount.get());
+        // 失败的加载不会被缓存
+        Assert.assertTrue(redisDAO.values.isEmpty());
+    }
+
+    @Test
+    public void testGetAllRedisUnavailable() {
+        NearCache<String> cache = createCache(this::loadFromDatabase);
+        redisDAO.available = false;
+        // Redis 不可用时，降级从数据库加载
+        Assert.assertEquals(Collections.singletonMap(1, "one"), cache.getAll(Arrays.asList(1, 2)));
+        Assert.assertEquals(Collections.singletonMap(1, "one"), cache.getAll(Arrays.asList(1, 2)));
+        Assert.assertEquals(1, loadedIds.size());
+    }
+
+    private NearCache<String> createCache(Function<Collection<Integer>, Map<Integer, String>> loader) {
+        return new NearCache<>("near_cache_test", KEY_DEFINE, NearCache.constructType(String.class), redisDAO,
+                100, Duration.ofMinutes(1), loader);
+    }
+
+    private Map<Integer, String> loadFromDatabase(Collection<Integer> ids) {
+        loadedIds.add(new ArrayList<>(ids));
+        Map<Integer, String> result = new HashMap<>();
+        ids.forEach(id -> {
+            if (database.containsKey(id)) {
+                result.put(id, database.get(id));
+            }
+        });
+        return result;
+    }
+
+    private static void assertFailure(Future<?> future) throws Exception {
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            Assert.fail("未抛出异常");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    private static class MemoryProductCacheRedisDAO extends ProductCacheRedisDAO {
+
+        private final Map<Integer, String> values = new ConcurrentHashMap<>();
+        private final Map<Integer, Duration> timeouts = new ConcurrentHashMap<>();
+        private volatile boolean available = true;
+
+        @Override
+        public Map<Integer, String> multiGet(RedisKeyDefine keyDefine, Collection<Integer> ids) {
+            checkAvailable();
+            Map<Integer, String> result = new HashMap<>();
+            ids.forEach(id -> {
+                if (values.containsKey(id)) {
+                    result.put(id, values.get(id));
+                }
+            });
+            return result;
+        }
+
+        @Override
+        public void multiSet(RedisKeyDefine keyDefine, Map<Integer, String> values, Duration timeout) {
+            checkAvailable();
+            this.values.putAll(values);
+            values.keySet().forEach(id -> timeouts.put(id, timeout));
+        }
+
+        @Override
+        public void delete(RedisKeyDefine keyDefine, Collection<Integer> ids) {
+            checkAvailable();
+            ids.forEach(values::remove);
+        }
+
+        private void checkAvailable() {
+            if (!available) {
+                throw new IllegalStateException("Redis 不可用");
+            }
+        }
+
+    }
+
+}
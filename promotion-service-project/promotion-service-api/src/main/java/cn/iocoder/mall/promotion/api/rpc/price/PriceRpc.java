@@ -4,6 +4,8 @@ import cn.iocoder.common.framework.vo.CommonResult;
 import cn.iocoder.mall.promotion.api.rpc.price.dto.PriceProductCalcReqDTO;
 import cn.iocoder.mall.promotion.api.rpc.price.dto.PriceProductCalcRespDTO;
 
+import java.util.List;
+
 /**
  * 价格 Rpc 接口，提供价格计算的功能
  */
@@ -11,4 +13,12 @@ public interface PriceRpc {
 
     CommonResult<PriceProductCalcRespDTO> calcProductPrice(PriceProductCalcReqDTO calcReqDTO);
 
+    /**
+     * 批量计算商品价格，所有请求共用一次商品查询与促销活动匹配
+     *
+     * @param calcReqDTOs 价格计算请求数组。用户编号允许为空，用于列表页等匿名场景
+     * @return 价格计算结果数组，和请求的顺序一一对应
+     */
+    CommonResult<List<PriceProductCalcRespDTO>> calcProductPrices(List<PriceProductCalcReqDTO> calcReqDTOs);
+
 }
@@ -0,0 +1,9 @@
+package cn.iocoder.mall.promotionservice.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling // 开启调度任务的功能，因为 PromotionActivityService 通过定时刷新促销活动规则索引
+public class ScheduleConfiguration {
+}
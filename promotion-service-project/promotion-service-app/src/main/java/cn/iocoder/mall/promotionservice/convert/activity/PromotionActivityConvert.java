@@ -15,6 +15,8 @@ public interface PromotionActivityConvert {
 
     PromotionActivityConvert INSTANCE = Mappers.getMapper(PromotionActivityConvert.class);
 
+    PromotionActivityRespDTO convert(PromotionActivityDO bean);
+
     List<PromotionActivityRespDTO> convertList(List<PromotionActivityDO> list);
 
     @Mapping(source = "records", target = "list")
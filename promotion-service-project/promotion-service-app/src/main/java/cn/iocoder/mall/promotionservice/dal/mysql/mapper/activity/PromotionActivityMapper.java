@@ -11,6 +11,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 @Repository
@@ -20,6 +21,10 @@ public interface PromotionActivityMapper extends BaseMapper<PromotionActivityDO>
         return selectList(new QueryWrapper<PromotionActivityDO>().in("status", statuses));
     }
 
+    default List<PromotionActivityDO> selectListByUpdateTimeGe(Date minUpdateTime) {
+        return selectList(new QueryWrapperX<PromotionActivityDO>().geIfPresent("update_time", minUpdateTime));
+    }
+
     default IPage<PromotionActivityDO> selectPage(PromotionActivityPageReqDTO pageReqDTO) {
         return selectPage(new Page<>(pageReqDTO.getPageNo(), pageReqDTO.getPageSize()),
                 new QueryWrapperX<PromotionActivityDO>().likeIfPresent("title", pageReqDTO.getTitle())
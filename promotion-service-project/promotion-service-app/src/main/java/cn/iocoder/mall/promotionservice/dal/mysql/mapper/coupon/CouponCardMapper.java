@@ -1,15 +1,21 @@
 package cn.iocoder.mall.promotionservice.dal.mysql.mapper.coupon;
 
 import cn.iocoder.mall.mybatis.core.query.QueryWrapperX;
+import cn.iocoder.mall.promotion.api.enums.coupon.card.CouponCardStatusEnum;
 import cn.iocoder.mall.promotion.api.rpc.coupon.dto.card.CouponCardPageReqDTO;
 import cn.iocoder.mall.promotionservice.dal.mysql.dataobject.coupon.CouponCardDO;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.apache.ibatis.annotations.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public interface CouponCardMapper extends BaseMapper<CouponCardDO> {
@@ -24,11 +30,80 @@ public interface CouponCardMapper extends BaseMapper<CouponCardDO> {
                 .eq("template_id", templateId));
     }
 
+    default int selectCountByTemplateId(Integer templateId) {
+        return selectCount(new QueryWrapper<CouponCardDO>().eq("template_id", templateId));
+    }
+
+    /**
+     * 获得优惠劵模板的用户已领取数量
+     *
+     * @param templateId 优惠劵模板编号
+     * @return 用户编号与已领取数量的映射
+     */
+    default Map<Integer, Integer> selectFetchNumMapByTemplateId(Integer templateId) {
+        List<Map<String, Object>> rows = selectMaps(new QueryWrapper<CouponCardDO>().select("user_id", "COUNT(*) AS fetch_num")
+                .eq("template_id", templateId).groupBy("user_id"));
+        Map<Integer, Integer> fetchNumMap = new HashMap<>(rows.size());
+        rows.forEach(row -> fetchNumMap.put(((Number) row.get("user_id")).intValue(),
+                ((Number) row.get("fetch_num")).intValue()));
+        return fetchNumMap;
+    }
+
+    default Integer selectMaxId() {
+        CouponCardDO card = selectOne(new QueryWrapper<CouponCardDO>().select("MAX(id) AS id"));
+        return card != null && card.getId() != null ? card.getId() : 0;
+    }
+
+    /**
+     * 批量插入优惠劵，使用指定的编号。编号已经存在的优惠劵，忽略插入，从而重复插入时是幂等的
+     *
+     * @param couponCardDOs 优惠劵数组
+     * @return 实际插入的数量
+     */
+    int insertList(@Param("couponCardDOs") List<CouponCardDO> couponCardDOs);
+
     default int updateByIdAndStatus(Integer id, Integer status, CouponCardDO updateObj) {
         return update(updateObj, new QueryWrapper<CouponCardDO>().eq("id", id)
                 .eq("status", status));
     }
 
+    /**
+     * 获得已过期、但仍未使用的 CouponCardDO 记录，按 (validEndTime, id) 进行 keyset 分页
+     *
+     * 只查询 id、valid_end_time 字段，减少内存占用。
+     * 依赖 idx_status_valid_end_time 索引，见 sql/migration/20261018_03_coupon_card_expire_index.sql
+     *
+     * @param maxValidEndTime 最大的生效结束时间（不包含）
+     * @param lastValidEndTime 上一页最后一条的生效结束时间，首页传 null
+     * @param lastId 上一页最后一条的编号，首页传 null
+     * @param limit 数量上限
+     * @return CouponCardDO 数组
+     */
+    default List<CouponCardDO> selectListByExpire(Date maxValidEndTime, Date lastValidEndTime, Integer lastId, int limit) {
+        QueryWrapper<CouponCardDO> query = new QueryWrapper<CouponCardDO>()
+                .select("id", "valid_end_time")
+                .eq("status", CouponCardStatusEnum.UNUSED.getValue())
+                .lt("valid_end_time", maxValidEndTime);
+        if (lastId != null) {
+            query.and(wrapper -> wrapper.gt("valid_end_time", lastValidEndTime)
+                    .or().eq("valid_end_time", lastValidEndTime).gt("id", lastId));
+        }
+        return selectList(query.orderByAsc("valid_end_time", "id").last("LIMIT " + limit));
+    }
+
+    /**
+     * 批量更新 status 字段
+     *
+     * @param ids 编号数组
+     * @param whereStatus 更新前的 status 值
+     * @param status 更新后的 status 值
+     * @return 更新数量
+     */
+    default int updateStatusBatch(Collection<Integer> ids, Integer whereStatus, Integer status) {
+        return update(new CouponCardDO().setStatus(status), new QueryWrapper<CouponCardDO>()
+                .in("id", ids).eq("status", whereStatus));
+    }
+
     default IPage<CouponCardDO> selectPage(CouponCardPageReqDTO pageReqDTO) {
         return selectPage(new Page<>(pageReqDTO.getPageNo(), pageReqDTO.getPageSize()),
                 new QueryWrapperX<CouponCardDO>().eqIfPresent("user_id", pageReqDTO.getUserId())
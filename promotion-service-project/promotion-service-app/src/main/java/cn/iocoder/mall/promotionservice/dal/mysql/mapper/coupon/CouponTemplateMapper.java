@@ -30,4 +30,15 @@ public interface CouponTemplateMapper extends BaseMapper<CouponTemplateDO> {
      */
     int updateStatFetchNumIncr(@Param("id") Integer id);
 
+    /**
+     * 增加优惠劵模板已领取的数量
+     *
+     * 和 {@link #updateStatFetchNumIncr(Integer)} 不同，不校验领取上限，由 Redis 保证不超发
+     *
+     * @param id 优惠劵模板编号
+     * @param count 增加的数量
+     * @return 更新数量
+     */
+    int updateStatFetchNumIncrBy(@Param("id") Integer id, @Param("count") Integer count);
+
 }
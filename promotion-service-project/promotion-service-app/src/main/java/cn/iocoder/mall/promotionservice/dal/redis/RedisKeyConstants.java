@@ -0,0 +1,71 @@
+package cn.iocoder.mall.promotionservice.dal.redis;
+
+import cn.iocoder.mall.promotionservice.dal.mysql.dataobject.coupon.CouponCardDO;
+import cn.iocoder.mall.promotionservice.dal.mysql.dataobject.coupon.CouponTemplateDO;
+import cn.iocoder.mall.redis.core.RedisKeyDefine;
+
+import java.time.Duration;
+
+import static cn.iocoder.mall.redis.core.RedisKeyDefine.KeyTypeEnum.*;
+
+/**
+ * Redis Key 枚举类
+ *
+ * 通过将项目中的 Key 枚举在该类中，方便统一管理。
+ *
+ * 同一个优惠劵模板的 Key ，通过 {} 包裹模板编号作为 hash tag ，保证在 Redis Cluster 中位于同一个 slot ，从而可以在一个 Lua 脚本中操作
+ */
+public interface RedisKeyConstants {
+
+    /**
+     * 优惠劵模板的剩余可领取数量
+     *
+     * key 的 format 的参数是 [{@link CouponTemplateDO#getId()}]
+     */
+    RedisKeyDefine COUPON_TEMPLATE_STOCK = new RedisKeyDefine("coupon_template_stock:{%s}", STRING, Integer.class,
+            RedisKeyDefine.TIMEOUT_FOREVER);
+    /**
+     * 优惠劵模板的用户已领取数量。其中，field 为用户编号，value 为已领取数量
+     *
+     * key 的 format 的参数是 [{@link CouponTemplateDO#getId()}]
+     */
+    RedisKeyDefine COUPON_TEMPLATE_FETCH = new RedisKeyDefine("coupon_template_fetch:{%s}", HASH, Integer.class,
+            RedisKeyDefine.TIMEOUT_FOREVER);
+    /**
+     * 已领取、待插入到 MySQL 的优惠劵队列。元素的格式为 优惠劵编号:用户编号:领取时间的毫秒时间戳
+     *
+     * key 的 format 的参数是 [{@link CouponTemplateDO#getId()}]
+     */
+    RedisKeyDefine COUPON_CARD_PENDING = new RedisKeyDefine("coupon_card_pending:{%s}", LIST, String.class,
+            RedisKeyDefine.TIMEOUT_FOREVER);
+    /**
+     * 已从待插入队列取出、插入到 MySQL 的事务尚未确认的优惠劵队列。元素的格式同 {@link #COUPON_CARD_PENDING}
+     *
+     * key 的 format 的参数是 [{@link CouponTemplateDO#getId()}]
+     */
+    RedisKeyDefine COUPON_CARD_PROCESSING = new RedisKeyDefine("coupon_card_processing:{%s}", LIST, String.class,
+            RedisKeyDefine.TIMEOUT_FOREVER);
+    /**
+     * 优惠劵插入锁，保证同一个优惠劵模板同时只有一个节点插入。value 为持有者标识
+     *
+     * key 的 format 的参数是 [{@link CouponTemplateDO#getId()}]
+     */
+    RedisKeyDefine COUPON_CARD_INSERT_LOCK = new RedisKeyDefine("coupon_card_insert_lock:{%s}", STRING, String.class,
+            Duration.ofMinutes(1));
+    /**
+     * 已加载到 Redis 的优惠劵模板编号集合
+     */
+    RedisKeyDefine COUPON_TEMPLATE_LOADED = new RedisKeyDefine("coupon_template_loaded", SET, Integer.class,
+            RedisKeyDefine.TIMEOUT_FOREVER);
+    /**
+     * 已分配的最大 {@link CouponCardDO#getId()}
+     */
+    RedisKeyDefine COUPON_CARD_ID = new RedisKeyDefine("coupon_card_id", STRING, Integer.class,
+            RedisKeyDefine.TIMEOUT_FOREVER);
+    /**
+     * 优惠劵过期 Job 的扫描进度，用于中断后继续扫描。格式为 生效结束时间的毫秒时间戳:{@link CouponCardDO#getId()}
+     */
+    RedisKeyDefine COUPON_CARD_EXPIRE_CURSOR = new RedisKeyDefine("coupon_card_expire_cursor", STRING, String.class,
+            RedisKeyDefine.TIMEOUT_FOREVER);
+
+}
@@ -0,0 +1,269 @@
+package cn.iocoder.mall.promotionservice.dal.redis.dao;
+
+import cn.iocoder.mall.promotionservice.dal.mysql.dataobject.coupon.CouponCardDO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static cn.iocoder.mall.promotionservice.dal.redis.RedisKeyConstants.*;
+
+/**
+ * 优惠劵领取的 Redis DAO
+ *
+ * 通过 Lua 脚本，保证剩余可领取数量、用户已领取数量、待插入队列的修改是原子的，从而避免优惠劵模板在 MySQL 上的行锁竞争
+ *
+ * 待插入队列的元素，先移动到处理中队列，插入到 MySQL 的事务提交后再删除，从而进程崩溃时可以重新插入，不会丢失
+ */
+@Repository
+public class CouponCardRedisDAO {
+
+    private static final DefaultRedisScript<Long> GRAB_SCRIPT = buildScript("lua/coupon_card_grab.lua", Long.class);
+    private static final DefaultRedisScript<List> PENDING_POP_SCRIPT = buildScript("lua/coupon_card_pending_pop.lua", List.class);
+    private static final DefaultRedisScript<Long> PROCESSING_ACK_SCRIPT = buildScript("lua/coupon_card_processing_ack.lua", Long.class);
+    private static final DefaultRedisScript<Long> INSERT_UNLOCK_SCRIPT = buildScript("lua/coupon_card_insert_unlock.lua", Long.class);
+    private static final DefaultRedisScript<Long> UNLOAD_SCRIPT = buildScript("lua/coupon_template_unload.lua", Long.class);
+    private static final DefaultRedisScript<Long> STOCK_INCR_SCRIPT = buildScript("lua/coupon_template_stock_incr.lua", Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    /**
+     * 领取优惠劵
+     *
+     * @return 结果，说明见 coupon_card_grab.lua 脚本
+     */
+    public long grab(Integer templateId, Integer userId, Integer quota, Integer cardId, long grabTime) {
+        return redisTemplate.execute(GRAB_SCRIPT, getTemplateKeys(templateId), String.valueOf(userId),
+                String.valueOf(quota), formatPendingValue(cardId, userId, grabTime));
+    }
+
+    /**
+     * 加载优惠劵模板的用户已领取数量。已经存在的用户，不做覆盖
+     *
+     * @param templateId 优惠劵模板编号
+     * @param fetchNums 用户编号与已领取数量的映射
+     */
+    public void loadFetchNums(Integer templateId, Map<Integer, Integer> fetchNums) {
+        if (fetchNums.isEmpty()) {
+            return;
+        }
+        byte[] key = formatKey(COUPON_TEMPLATE_FETCH.getKeyTemplate(), templateId).getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            fetchNums.forEach((userId, fetchNum) -> connection.hSetNX(key,
+                    String.valueOf(userId).getBytes(StandardCharsets.UTF_8),
+                    String.valueOf(fetchNum).getBytes(StandardCharsets.UTF_8)));
+            return null;
+        });
+    }
+
+    /**
+     * 加载优惠劵模板的剩余可领取数量。已经加载过时，不做覆盖
+     *
+     * @param templateId 优惠劵模板编号
+     * @param stock 剩余可领取数量
+     */
+    public void loadStock(Integer templateId, Integer stock) {
+        redisTemplate.opsForValue().setIfAbsent(formatKey(COUPON_TEMPLATE_STOCK.getKeyTemplate(), templateId),
+                String.valueOf(stock));
+        redisTemplate.opsForSet().add(COUPON_TEMPLATE_LOADED.getKeyTemplate(), String.valueOf(templateId));
+    }
+
+    /**
+     * 卸载优惠劵模板
+     *
+     * @param templateId 优惠劵模板编号
+     * @return 是否卸载成功。失败时，说明存在未插入到 MySQL 的优惠劵
+     */
+    public boolean unload(Integer templateId) {
+        redisTemplate.opsForSet().remove(COUPON_TEMPLATE_LOADED.getKeyTemplate(), String.valueOf(templateId));
+        Long result = redisTemplate.execute(UNLOAD_SCRIPT, Arrays.asList(
+                formatKey(COUPON_TEMPLATE_STOCK.getKeyTemplate(), templateId),
+                formatKey(COUPON_TEMPLATE_FETCH.getKeyTemplate(), templateId),
+                formatKey(COUPON_CARD_PENDING.getKeyTemplate(), templateId),
+                formatKey(COUPON_CARD_PROCESSING.getKeyTemplate(), templateId),
+                formatKey(COUPON_CARD_INSERT_LOCK.getKeyTemplate(), templateId)));
+        if (result == null || result == 0) {
+            redisTemplate.opsForSet().add(COUPON_TEMPLATE_LOADED.getKeyTemplate(), String.valueOf(templateId));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 增加优惠劵模板的剩余可领取数量，例如说管理员增加了发放总量。未加载到 Redis 时，不做处理
+     *
+     * @param templateId 优惠劵模板编号
+     * @param delta 增加的数量
+     */
+    public void incrStockIfPresent(Integer templateId, Integer delta) {
+        redisTemplate.execute(STOCK_INCR_SCRIPT,
+                Collections.singletonList(formatKey(COUPON_TEMPLATE_STOCK.getKeyTemplate(), templateId)), String.valueOf(delta));
+    }
+
+    public Set<Integer> getLoadedTemplateIds() {
+        Set<String> templateIds = redisTemplate.opsForSet().members(COUPON_TEMPLATE_LOADED.getKeyTemplate());
+        if (templateIds == null) {
+            return Collections.emptySet();
+        }
+        return templateIds.stream().map(Integer::valueOf).collect(Collectors.toSet());
+    }
+
+    public Integer getStock(Integer templateId) {
+        String stock = redisTemplate.opsForValue().get(formatKey(COUPON_TEMPLATE_STOCK.getKeyTemplate(), templateId));
+        return stock != null ? Integer.valueOf(stock) : null;
+    }
+
+    /**
+     * 获得未插入到 MySQL 的优惠劵数量，包括待插入队列、处理中队列
+     *
+     * @param templateId 优惠劵模板编号
+     * @return 数量
+     */
+    public long getPendingSize(Integer templateId) {
+        Long pendingSize = redisTemplate.opsForList().size(formatKey(COUPON_CARD_PENDING.getKeyTemplate(), templateId));
+        Long processingSize = redisTemplate.opsForList().size(formatKey(COUPON_CARD_PROCESSING.getKeyTemplate(), templateId));
+        return (pendingSize != null ? pendingSize : 0) + (processingSize != null ? processingSize : 0);
+    }
+
+    /**
+     * 获取优惠劵模板的插入锁
+     *
+     * @param templateId 优惠劵模板编号
+     * @return 持有者标识。获取失败时，返回 null
+     */
+    public String tryLockInsert(Integer templateId) {
+        String owner = UUID.randomUUID().toString();
+        Boolean success = redisTemplate.opsForValue().setIfAbsent(formatKey(COUPON_CARD_INSERT_LOCK.getKeyTemplate(), templateId),
+                owner, COUPON_CARD_INSERT_LOCK.getTimeout());
+        return Boolean.TRUE.equals(success) ? owner : null;
+    }
+
+    /**
+     * 释放优惠劵模板的插入锁
+     *
+     * @param templateId 优惠劵模板编号
+     * @param owner 持有者标识
+     */
+    public void unlockInsert(Integer templateId, String owner) {
+        redisTemplate.execute(INSERT_UNLOCK_SCRIPT,
+                Collections.singletonList(formatKey(COUPON_CARD_INSERT_LOCK.getKeyTemplate(), templateId)), owner);
+    }
+
+    /**
+     * 从待插入队列中，批量取出优惠劵到处理中队列。处理中队列不为空时，返回处理中队列的优惠劵，重新插入
+     *
+     * 需要先通过 {@link #tryLockInsert(Integer)} 获取插入锁。
+     * 注意，返回的 {@link CouponCardDO} 只有 id、templateId、userId 字段，{@link CouponCardDO#getCreateTime()} 为领取时间
+     *
+     * @param templateId 优惠劵模板编号
+     * @param count 最大数量
+     * @return 优惠劵数组
+     */
+    @SuppressWarnings("unchecked")
+    public List<CouponCardDO> popPending(Integer templateId, int count) {
+        List<String> values = redisTemplate.execute(PENDING_POP_SCRIPT, Arrays.asList(
+                formatKey(COUPON_CARD_PENDING.getKeyTemplate(), templateId),
+                formatKey(COUPON_CARD_PROCESSING.getKeyTemplate(), templateId)), String.valueOf(count));
+        if (values == null) {
+            return Collections.emptyList();
+        }
+        return values.stream().map(value -> parsePendingValue(templateId, value)).collect(Collectors.toList());
+    }
+
+    /**
+     * 确认处理中队列的优惠劵已经插入到 MySQL ，删除处理中队列
+     *
+     * @param templateId 优惠劵模板编号
+     * @param owner 插入锁的持有者标识
+     * @return 是否确认成功。失败时，说明插入锁已经过期，处理中队列的优惠劵会被重新插入
+     */
+    public boolean ackProcessing(Integer templateId, String owner) {
+        Long result = redisTemplate.execute(PROCESSING_ACK_SCRIPT, Arrays.asList(
+                formatKey(COUPON_CARD_PROCESSING.getKeyTemplate(), templateId),
+                formatKey(COUPON_CARD_INSERT_LOCK.getKeyTemplate(), templateId)), owner);
+        return result != null && result == 1;
+    }
+
+    /**
+     * 初始化已分配的最大优惠劵编号。已经初始化过时，不做覆盖
+     *
+     * @param maxId MySQL 中的最大优惠劵编号
+     */
+    public void initCardIdIfAbsent(Integer maxId) {
+        redisTemplate.opsForValue().setIfAbsent(COUPON_CARD_ID.getKeyTemplate(), String.valueOf(maxId));
+    }
+
+    /**
+     * 分配一段优惠劵编号
+     *
+     * @param count 数量
+     * @return 分配的最大编号。Redis 中未初始化时，返回 null
+     */
+    public Long allocateCardIds(int count) {
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(COUPON_CARD_ID.getKeyTemplate()))) {
+            return null;
+        }
+        return redisTemplate.opsForValue().increment(COUPON_CARD_ID.getKeyTemplate(), count);
+    }
+
+    /**
+     * 获得优惠劵过期 Job 的扫描进度
+     *
+     * @return 最后扫描的优惠劵，只有 id、validEndTime 字段。未开始扫描时，返回 null
+     */
+    public CouponCardDO getExpireCursor() {
+        String value = redisTemplate.opsForValue().get(COUPON_CARD_EXPIRE_CURSOR.getKeyTemplate());
+        if (value == null) {
+            return null;
+        }
+        String[] parts = value.split(":");
+        return new CouponCardDO().setId(Integer.valueOf(parts[1])).setValidEndTime(new Date(Long.parseLong(parts[0])));
+    }
+
+    public void setExpireCursor(CouponCardDO card) {
+        redisTemplate.opsForValue().set(COUPON_CARD_EXPIRE_CURSOR.getKeyTemplate(),
+                card.getValidEndTime().getTime() + ":" + card.getId());
+    }
+
+    public void deleteExpireCursor() {
+        redisTemplate.delete(COUPON_CARD_EXPIRE_CURSOR.getKeyTemplate());
+    }
+
+    private static List<String> getTemplateKeys(Integer templateId) {
+        return Arrays.asList(formatKey(COUPON_TEMPLATE_STOCK.getKeyTemplate(), templateId),
+                formatKey(COUPON_TEMPLATE_FETCH.getKeyTemplate(), templateId),
+                formatKey(COUPON_CARD_PENDING.getKeyTemplate(), templateId));
+    }
+
+    private static String formatKey(String keyTemplate, Integer templateId) {
+        return String.format(keyTemplate, templateId);
+    }
+
+    private static String formatPendingValue(Integer cardId, Integer userId, long grabTime) {
+        return cardId + ":" + userId + ":" + grabTime;
+    }
+
+    private static CouponCardDO parsePendingValue(Integer templateId, String value) {
+        String[] parts = value.split(":");
+        CouponCardDO card = new CouponCardDO().setId(Integer.valueOf(parts[0])).setTemplateId(templateId)
+                .setUserId(Integer.valueOf(parts[1]));
+        card.setCreateTime(new Date(Long.parseLong(parts[2])));
+        return card;
+    }
+
+    private static <T> DefaultRedisScript<T> buildScript(String path, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(resultType);
+        return script;
+    }
+
+}
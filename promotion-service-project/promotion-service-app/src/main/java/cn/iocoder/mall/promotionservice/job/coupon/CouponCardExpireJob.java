@@ -0,0 +1,117 @@
+package cn.iocoder.mall.promotionservice.job.coupon;
+
+import cn.iocoder.common.framework.util.CollectionUtils;
+import cn.iocoder.mall.promotion.api.enums.coupon.card.CouponCardStatusEnum;
+import cn.iocoder.mall.promotionservice.dal.mysql.dataobject.coupon.CouponCardDO;
+import cn.iocoder.mall.promotionservice.dal.mysql.mapper.coupon.CouponCardMapper;
+import cn.iocoder.mall.promotionservice.dal.redis.dao.CouponCardRedisDAO;
+import com.xxl.job.core.biz.model.ReturnT;
+import com.xxl.job.core.handler.IJobHandler;
+import com.xxl.job.core.handler.annotation.XxlJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 优惠劵过期 Job
+ *
+ * 将已过期、但仍未使用的优惠劵，更新为已过期，从而减少用户未使用的优惠劵数量。
+ *
+ * 1. 扫描按 (validEndTime, id) keyset 分页，每页只加载编号，并按编号批量更新
+ * 2. 按照每秒扫描的数量限流，可通过 Job 参数设置，避免大量优惠劵同时过期时，影响 MySQL
+ * 3. 每次执行最多 {@link #MAX_DURATION} 毫秒，每页完成后记录扫描进度到 Redis ，下次执行时继续扫描；全部扫描完成后，清空进度
+ */
+@Component
+@Slf4j
+public class CouponCardExpireJob extends IJobHandler {
+
+    /**
+     * 每页扫描的数量
+     */
+    private static final int PAGE_SIZE = 500;
+    /**
+     * 默认每秒扫描的数量
+     */
+    private static final int DEFAULT_RATE_LIMIT = 2000;
+    /**
+     * 每次执行的最大时长，单位：毫秒
+     */
+    private static final long MAX_DURATION = 60 * 1000L;
+
+    @Autowired
+    private CouponCardMapper couponCardMapper;
+    @Autowired
+    private CouponCardRedisDAO couponCardRedisDAO;
+
+    @Override
+    @XxlJob("couponCardExpireJob")
+    public ReturnT<String> execute(String param) throws Exception {
+        int rateLimit = parseRateLimit(param);
+        Date maxValidEndTime = new Date();
+        // 从上次的扫描进度继续
+        CouponCardDO cursor = couponCardRedisDAO.getExpireCursor();
+        Date lastValidEndTime = cursor != null ? cursor.getValidEndTime() : null;
+        Integer lastId = cursor != null ? cursor.getId() : null;
+        // 逐页扫描
+        long startTime = System.currentTimeMillis();
+        int scanCount = 0;
+        int expireCount = 0;
+        boolean finished = false;
+        while (System.currentTimeMillis() - startTime < MAX_DURATION) {
+            List<CouponCardDO> cards = couponCardMapper.selectListByExpire(maxValidEndTime, lastValidEndTime, lastId, PAGE_SIZE);
+            if (!cards.isEmpty()) {
+                expireCount += couponCardMapper.updateStatusBatch(CollectionUtils.convertList(cards, CouponCardDO::getId),
+                        CouponCardStatusEnum.UNUSED.getValue(), CouponCardStatusEnum.EXPIRE.getValue());
+                scanCount += cards.size();
+                CouponCardDO lastCard = cards.get(cards.size() - 1);
+                lastValidEndTime = lastCard.getValidEndTime();
+                lastId = lastCard.getId();
+            }
+            if (cards.size() < PAGE_SIZE) {
+                finished = true;
+                break;
+            }
+            couponCardRedisDAO.setExpireCursor(new CouponCardDO().setId(lastId).setValidEndTime(lastValidEndTime));
+            // 限流，保证平均每秒扫描的数量不超过 rateLimit
+            long sleepTime = startTime + scanCount * 1000L / rateLimit - System.currentTimeMillis();
+            if (sleepTime > 0) {
+                Thread.sleep(sleepTime);
+            }
+        }
+        if (finished) {
+            couponCardRedisDAO.deleteExpireCursor();
+        }
+        // 返回吞吐
+        long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+        String result = String.format("扫描优惠劵数：%d，过期优惠劵数：%d，耗时：%d 毫秒，吞吐：%d 张/秒，%s", scanCount,
+                expireCount, duration, scanCount * 1000L / duration, finished ? "已扫描完成" : "未扫描完成，下次继续");
+        log.info("[execute][{}]", result);
+        return new ReturnT<>(result);
+    }
+
+    /**
+     * 解析 Job 参数为每秒扫描的数量。参数为空、非数字、或者小于等于 0 时，使用 {@link #DEFAULT_RATE_LIMIT}
+     *
+     * @param param Job 参数
+     * @return 每秒扫描的数量
+     */
+    private static int parseRateLimit(String param) {
+        if (!StringUtils.hasText(param)) {
+            return DEFAULT_RATE_LIMIT;
+        }
+        try {
+            int rateLimit = Integer.parseInt(param.trim());
+            if (rateLimit > 0) {
+                return rateLimit;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        log.warn("[parseRateLimit][参数({}) 不是正整数，使用默认限流 {}]", param, DEFAULT_RATE_LIMIT);
+        return DEFAULT_RATE_LIMIT;
+    }
+
+}
@@ -0,0 +1,50 @@
+package cn.iocoder.mall.promotionservice.job.coupon;
+
+import cn.iocoder.mall.promotionservice.service.coupon.CouponCardService;
+import com.xxl.job.core.biz.model.ReturnT;
+import com.xxl.job.core.handler.IJobHandler;
+import com.xxl.job.core.handler.annotation.XxlJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 优惠劵插入 Job
+ *
+ * 将 Redis 中已领取、待插入的优惠劵，批量插入到 MySQL 的 coupon_card 表。
+ * 建议每隔 1 秒执行一次，插入的间隔，即 MySQL 中优惠劵的延迟。
+ * 插入失败或者节点崩溃时，未确认的优惠劵保留在 Redis 的处理中队列，下次执行时重新插入
+ */
+@Component
+@Slf4j
+public class CouponCardInsertJob extends IJobHandler {
+
+    /**
+     * 每批插入的优惠劵数量
+     */
+    private static final int BATCH_SIZE = 500;
+    /**
+     * 每个优惠劵模板每次执行的最大批次，避免单次执行时间过长
+     */
+    private static final int MAX_BATCH = 10;
+
+    @Autowired
+    private CouponCardService couponCardService;
+
+    @Override
+    @XxlJob("couponCardInsertJob")
+    public ReturnT<String> execute(String param) {
+        int count = 0;
+        for (Integer templateId : couponCardService.getLoadedCouponTemplateIds()) {
+            for (int i = 0; i < MAX_BATCH; i++) {
+                int batchCount = couponCardService.insertPendingCouponCards(templateId, BATCH_SIZE);
+                count += batchCount;
+                if (batchCount < BATCH_SIZE) {
+                    break;
+                }
+            }
+        }
+        return new ReturnT<>("插入优惠劵数：" + count);
+    }
+
+}
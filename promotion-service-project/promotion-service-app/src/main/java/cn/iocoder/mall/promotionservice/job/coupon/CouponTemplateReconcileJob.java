@@ -0,0 +1,40 @@
+package cn.iocoder.mall.promotionservice.job.coupon;
+
+import cn.iocoder.mall.promotionservice.service.coupon.CouponCardService;
+import com.xxl.job.core.biz.model.ReturnT;
+import com.xxl.job.core.handler.IJobHandler;
+import com.xxl.job.core.handler.annotation.XxlJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * 优惠劵模板对账 Job
+ *
+ * 修正已加载到 Redis 的优惠劵模板的已领取数量，并卸载不可领取的优惠劵模板。
+ * 建议每隔几分钟执行一次
+ */
+@Component
+@Slf4j
+public class CouponTemplateReconcileJob extends IJobHandler {
+
+    @Autowired
+    private CouponCardService couponCardService;
+
+    @Override
+    @XxlJob("couponTemplateReconcileJob")
+    public ReturnT<String> execute(String param) {
+        Set<Integer> templateIds = couponCardService.getLoadedCouponTemplateIds();
+        for (Integer templateId : templateIds) {
+            try {
+                couponCardService.reconcileCouponTemplate(templateId);
+            } catch (Throwable th) {
+                log.error("[execute][优惠劵模板({}) 对账发生异常]", templateId, th);
+            }
+        }
+        return new ReturnT<>("对账优惠劵模板数：" + templateIds.size());
+    }
+
+}
@@ -9,13 +9,13 @@ import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuRespDTO;
 import cn.iocoder.mall.productservice.rpc.spu.ProductSpuRpc;
 import cn.iocoder.mall.productservice.rpc.spu.dto.ProductSpuRespDTO;
 import cn.iocoder.mall.promotion.api.enums.*;
-import cn.iocoder.mall.promotion.api.enums.activity.PromotionActivityStatusEnum;
 import cn.iocoder.mall.promotion.api.enums.activity.PromotionActivityTypeEnum;
 import cn.iocoder.mall.promotion.api.rpc.activity.dto.PromotionActivityRespDTO;
 import cn.iocoder.mall.promotion.api.rpc.coupon.dto.card.CouponCardRespDTO;
 import cn.iocoder.mall.promotion.api.rpc.coupon.dto.template.CouponTemplateRespDTO;
 import cn.iocoder.mall.promotion.api.rpc.price.dto.PriceProductCalcReqDTO;
 import cn.iocoder.mall.promotion.api.rpc.price.dto.PriceProductCalcRespDTO;
+import cn.iocoder.mall.promotionservice.service.activity.PromotionActivityRuleIndex;
 import cn.iocoder.mall.promotionservice.service.activity.PromotionActivityService;
 import cn.iocoder.mall.promotionservice.service.coupon.CouponCardService;
 import cn.iocoder.mall.promotionservice.service.coupon.CouponTemplateService;
@@ -47,30 +47,58 @@ public class PriceManager {
     private CouponTemplateService couponTemplateService;
 
     public PriceProductCalcRespDTO calcProductPrice(PriceProductCalcReqDTO calcReqDTO) {
+        return calcProductPrices(Collections.singletonList(calcReqDTO)).get(0);
+    }
+
+    /**
+     * 批量计算商品价格
+     *
+     * 所有请求共用一次 SKU、SPU 的查询，以及同一个版本的促销活动规则索引，适合列表页等需要一次计算大量商品价格的场景
+     *
+     * @param calcReqDTOs 价格计算请求数组，每个请求可以是不同用户的，也可以是不传用户编号的匿名请求
+     * @return 价格计算结果数组，和请求的顺序一一对应
+     */
+    public List<PriceProductCalcRespDTO> calcProductPrices(List<PriceProductCalcReqDTO> calcReqDTOs) {
         // TODO 芋艿，补充一些表单校验。例如说，需要传入用户编号。
+        if (calcReqDTOs.isEmpty()) {
+            return Collections.emptyList();
+        }
         // 校验商品都存在
-        Map<Integer, PriceProductCalcReqDTO.Item> calcProductItemDTOMap = CollectionUtils.convertMap(
-                calcReqDTO.getItems(), PriceProductCalcReqDTO.Item::getSkuId);
+        Set<Integer> skuIds = new HashSet<>();
+        calcReqDTOs.forEach(calcReqDTO -> calcReqDTO.getItems().forEach(item -> skuIds.add(item.getSkuId())));
         CommonResult<List<ProductSkuRespDTO>> listProductSkusResult = productSkuRpc.listProductSkus(
-                new ProductSkuListQueryReqDTO().setProductSkuIds(calcProductItemDTOMap.keySet()));
+                new ProductSkuListQueryReqDTO().setProductSkuIds(skuIds));
         listProductSkusResult.checkError();
-        if (calcReqDTO.getItems().size() != listProductSkusResult.getData().size()) {
+        if (skuIds.size() != listProductSkusResult.getData().size()) {
             throw ServiceExceptionUtil.exception(PRICE_PRODUCT_SKU_NOT_EXISTS);
         }
+        Map<Integer, ProductSkuRespDTO> skuMap = CollectionUtils.convertMap(listProductSkusResult.getData(), ProductSkuRespDTO::getId);
+        // 获得商品分类 Map
+        CommonResult<List<ProductSpuRespDTO>> listProductSpusResult = productSpuRpc.listProductSpus(
+                CollectionUtils.convertSet(listProductSkusResult.getData(), ProductSkuRespDTO::getSpuId));
+        listProductSpusResult.checkError();
+        Map<Integer, Integer> spuIdCategoryIdMap = CollectionUtils.convertMap(listProductSpusResult.getData(), // SPU 编号与 Category 编号的映射
+                ProductSpuRespDTO::getId, ProductSpuRespDTO::getCid);
         // TODO 库存相关
-        // 查询促销活动
-        List<PromotionActivityRespDTO> activityRespDTOs = promotionActivityService.listPromotionActivitiesBySpuIds(
-                CollectionUtils.convertSet(listProductSkusResult.getData(), ProductSkuRespDTO::getSpuId),
-                Collections.singleton(PromotionActivityStatusEnum.RUN.getValue()));
+        // 获得促销活动规则索引。基于本地缓存，无需访问数据库
+        PromotionActivityRuleIndex ruleIndex = promotionActivityService.getRuleIndex();
+        // 逐个计算价格
+        List<PriceProductCalcRespDTO> calcRespDTOs = new ArrayList<>(calcReqDTOs.size());
+        calcReqDTOs.forEach(calcReqDTO -> calcRespDTOs.add(calcProductPrice0(calcReqDTO, skuMap, spuIdCategoryIdMap, ruleIndex)));
+        return calcRespDTOs;
+    }
+
+    private PriceProductCalcRespDTO calcProductPrice0(PriceProductCalcReqDTO calcReqDTO, Map<Integer, ProductSkuRespDTO> skuMap,
+                                                      Map<Integer, Integer> spuIdCategoryIdMap, PromotionActivityRuleIndex ruleIndex) {
         // 拼装结果（主要是计算价格）
         PriceProductCalcRespDTO calcRespDTO = new PriceProductCalcRespDTO();
         // 1. 创建初始的每一项的数组
         List<PriceProductCalcRespDTO.Item> calcItemRespDTOs = this.initCalcOrderPriceItems(
-                listProductSkusResult.getData(), calcProductItemDTOMap);
+                calcReqDTO.getItems(), skuMap, spuIdCategoryIdMap);
         // 2. 计算【限时折扣】促销
-        this.modifyPriceByTimeLimitDiscount(calcItemRespDTOs, activityRespDTOs);
+        this.modifyPriceByTimeLimitDiscount(calcItemRespDTOs, ruleIndex);
         // 3. 计算【满减送】促销
-        List<PriceProductCalcRespDTO.ItemGroup> itemGroups = this.groupByFullPrivilege(calcItemRespDTOs, activityRespDTOs);
+        List<PriceProductCalcRespDTO.ItemGroup> itemGroups = this.groupByFullPrivilege(calcItemRespDTOs, ruleIndex);
         calcRespDTO.setItemGroups(itemGroups);
         // 4. 计算优惠劵 TODO 芋艿：未详细测试；
         if (calcReqDTO.getCouponCardId() != null) {
@@ -92,20 +120,16 @@ public class PriceManager {
         return calcRespDTO;
     }
 
-    private List<PriceProductCalcRespDTO.Item> initCalcOrderPriceItems(List<ProductSkuRespDTO> skus,
-                                                                       Map<Integer, PriceProductCalcReqDTO.Item> calcProductItemDTOMap) {
-        // 获得商品分类 Map
-        CommonResult<List<ProductSpuRespDTO>> listProductSpusResult = productSpuRpc.listProductSpus(CollectionUtils.convertSet(skus, ProductSkuRespDTO::getSpuId));
-        listProductSpusResult.checkError();
-        Map<Integer, Integer> spuIdCategoryIdMap = CollectionUtils.convertMap(listProductSpusResult.getData(), // SPU 编号与 Category 编号的映射
-                ProductSpuRespDTO::getId, ProductSpuRespDTO::getCid);
+    private List<PriceProductCalcRespDTO.Item> initCalcOrderPriceItems(List<PriceProductCalcReqDTO.Item> calcOrderItems,
+                                                                       Map<Integer, ProductSkuRespDTO> skuMap,
+                                                                       Map<Integer, Integer> spuIdCategoryIdMap) {
         // 生成商品列表
-        List<PriceProductCalcRespDTO.Item> items = new ArrayList<>();
-        for (ProductSkuRespDTO sku : skus) {
+        List<PriceProductCalcRespDTO.Item> items = new ArrayList<>(calcOrderItems.size());
+        for (PriceProductCalcReqDTO.Item calcOrderItem : calcOrderItems) {
+            ProductSkuRespDTO sku = skuMap.get(calcOrderItem.getSkuId());
             PriceProductCalcRespDTO.Item item = new PriceProductCalcRespDTO.Item();
             items.add(item);
             // 将基本信息，复制到 item 中
-            PriceProductCalcReqDTO.Item calcOrderItem = calcProductItemDTOMap.get(sku.getId());
             item.setSpuId(sku.getSpuId()).setSkuId(sku.getId());
             item.setCid(spuIdCategoryIdMap.get(sku.getSpuId()));
             item.setSelected(calcOrderItem.getSelected());
@@ -121,13 +145,10 @@ public class PriceManager {
         return items;
     }
 
-    private void modifyPriceByTimeLimitDiscount(List<PriceProductCalcRespDTO.Item> items, List<PromotionActivityRespDTO> activityList) {
+    private void modifyPriceByTimeLimitDiscount(List<PriceProductCalcRespDTO.Item> items, PromotionActivityRuleIndex ruleIndex) {
         for (PriceProductCalcRespDTO.Item item : items) {
             // 获得符合条件的限时折扣
-            PromotionActivityRespDTO timeLimitedDiscount = activityList.stream()
-                    .filter(activity -> PromotionActivityTypeEnum.TIME_LIMITED_DISCOUNT.getValue().equals(activity.getActivityType())
-                            && activity.getTimeLimitedDiscount().getItems().stream().anyMatch(item0 -> item0.getSpuId().equals(item.getSpuId())))
-                    .findFirst().orElse(null);
+            PromotionActivityRuleIndex.TimeLimitedDiscountRule timeLimitedDiscount = ruleIndex.getTimeLimitedDiscount(item.getSpuId());
             if (timeLimitedDiscount == null) {
                 continue;
             }
@@ -137,7 +158,7 @@ public class PriceManager {
                 continue;
             }
             // 设置优惠
-            item.setActivityId(timeLimitedDiscount.getId());
+            item.setActivityId(timeLimitedDiscount.getActivityId());
             // 设置价格
             item.setBuyPrice(newBuyPrice);
             item.setBuyTotal(newBuyPrice * item.getBuyQuantity());
@@ -150,22 +171,12 @@ public class PriceManager {
      * 计算指定 SKU 在限时折扣下的价格
      *
      * @param sku                 SKU
-     * @param timeLimitedDiscount 限时折扣促销。
-     *                            传入的该活动，要保证该 SKU 在该促销下一定有优惠。
+     * @param timeLimitedDiscount 限时折扣规则
      * @return 计算后的价格
      */
-    private Integer calcSkuPriceByTimeLimitDiscount(PriceProductCalcRespDTO.Item sku, PromotionActivityRespDTO timeLimitedDiscount) {
-        if (timeLimitedDiscount == null) {
-            return sku.getBuyPrice();
-        }
-        // 获得对应的优惠项
-        PromotionActivityRespDTO.TimeLimitedDiscount.Item item = timeLimitedDiscount.getTimeLimitedDiscount().getItems().stream()
-                .filter(item0 -> item0.getSpuId().equals(sku.getSpuId()))
-                .findFirst().orElse(null);
-        if (item == null) {
-            throw new IllegalArgumentException(String.format("折扣活动(%s) 不存在商品(%s) 的优惠配置",
-                    timeLimitedDiscount.toString(), sku.toString()));
-        }
+    private Integer calcSkuPriceByTimeLimitDiscount(PriceProductCalcRespDTO.Item sku,
+                                                    PromotionActivityRuleIndex.TimeLimitedDiscountRule timeLimitedDiscount) {
+        PromotionActivityRespDTO.TimeLimitedDiscount.Item item = timeLimitedDiscount.getItem();
         // 计算价格
         if (PreferentialTypeEnum.PRICE.getValue().equals(item.getPreferentialType())) { // 减价
             int presentPrice = sku.getBuyPrice() - item.getPreferentialValue();
@@ -174,63 +185,35 @@ public class PriceManager {
         if (PreferentialTypeEnum.DISCOUNT.getValue().equals(item.getPreferentialType())) { // 打折
             return sku.getBuyPrice() * item.getPreferentialValue() / 100;
         }
-        throw new IllegalArgumentException(String.format("折扣活动(%s) 的优惠类型不正确", timeLimitedDiscount.toString()));
+        throw new IllegalArgumentException(String.format("折扣活动(%d) 的优惠类型不正确", timeLimitedDiscount.getActivityId()));
     }
 
-    private List<PriceProductCalcRespDTO.ItemGroup> groupByFullPrivilege(List<PriceProductCalcRespDTO.Item> items, List<PromotionActivityRespDTO> activityList) {
-        List<PriceProductCalcRespDTO.ItemGroup> itemGroups = new ArrayList<>();
-        // 获得所有满减送促销
-        List<PromotionActivityRespDTO> fullPrivileges = activityList.stream()
-                .filter(activity -> PromotionActivityTypeEnum.FULL_PRIVILEGE.getValue().equals(activity.getActivityType()))
-                .collect(Collectors.toList());
-        // 基于满减送促销，进行分组
-        if (!fullPrivileges.isEmpty()) {
-            items = new ArrayList<>(items); // 因为下面会修改数组，进行浅拷贝，避免影响传入的 items 。
-            for (PromotionActivityRespDTO fullPrivilege : fullPrivileges) {
-                // 创建 fullPrivilege 对应的分组
-                PriceProductCalcRespDTO.ItemGroup itemGroup = new PriceProductCalcRespDTO.ItemGroup()
-                        .setActivityId(fullPrivilege.getId())
-                        .setItems(new ArrayList<>());
-                // 筛选商品到分组中
-                for (Iterator<PriceProductCalcRespDTO.Item> iterator = items.iterator(); iterator.hasNext(); ) {
-                    PriceProductCalcRespDTO.Item item = iterator.next();
-                    if (!isSpuMatchFullPrivilege(item.getSpuId(), fullPrivilege)) {
-                        continue;
-                    }
-                    itemGroup.getItems().add(item);
-                    iterator.remove();
-                }
-                // 如果匹配到，则添加到 itemGroups 中
-                if (!itemGroup.getItems().isEmpty()) {
-                    itemGroups.add(itemGroup);
-                }
+    private List<PriceProductCalcRespDTO.ItemGroup> groupByFullPrivilege(List<PriceProductCalcRespDTO.Item> items, PromotionActivityRuleIndex ruleIndex) {
+        // 基于满减送促销，进行分组。按照活动编号排序，未参加活动的商品，形成最后一个分组
+        Map<Integer, PriceProductCalcRespDTO.ItemGroup> fullPrivilegeItemGroups = new TreeMap<>();
+        List<PriceProductCalcRespDTO.Item> noActivityItems = new ArrayList<>();
+        for (PriceProductCalcRespDTO.Item item : items) {
+            Integer activityId = ruleIndex.getFullPrivilegeId(item.getSpuId(), item.getCid());
+            if (activityId == null) {
+                noActivityItems.add(item);
+                continue;
             }
+            fullPrivilegeItemGroups.computeIfAbsent(activityId, key -> new PriceProductCalcRespDTO.ItemGroup()
+                    .setActivityId(key).setItems(new ArrayList<>())).getItems().add(item);
         }
-        // 处理未参加活动的商品，形成一个分组
-        if (!items.isEmpty()) {
-            itemGroups.add(new PriceProductCalcRespDTO.ItemGroup().setItems(items));
+        List<PriceProductCalcRespDTO.ItemGroup> itemGroups = new ArrayList<>(fullPrivilegeItemGroups.values());
+        if (!noActivityItems.isEmpty()) {
+            itemGroups.add(new PriceProductCalcRespDTO.ItemGroup().setItems(noActivityItems));
         }
         // 计算每个分组的价格
-        Map<Integer, PromotionActivityRespDTO> activityMap = CollectionUtils.convertMap(activityList, PromotionActivityRespDTO::getId);
         for (PriceProductCalcRespDTO.ItemGroup itemGroup : itemGroups) {
-            itemGroup.setActivityDiscountTotal(calcSkuPriceByFullPrivilege(itemGroup, activityMap.get(itemGroup.getActivityId())));
+            itemGroup.setActivityDiscountTotal(calcSkuPriceByFullPrivilege(itemGroup,
+                    itemGroup.getActivityId() != null ? ruleIndex.getActivity(itemGroup.getActivityId()) : null));
         }
         // 返回结果
         return itemGroups;
     }
 
-    private boolean isSpuMatchFullPrivilege(Integer spuId, PromotionActivityRespDTO activity) {
-        Assert.isTrue(PromotionActivityTypeEnum.FULL_PRIVILEGE.getValue().equals(activity.getActivityType()),
-                "传入的必须的促销活动必须是满减送");
-        PromotionActivityRespDTO.FullPrivilege fullPrivilege = activity.getFullPrivilege();
-        if (RangeTypeEnum.ALL.getValue().equals(fullPrivilege.getRangeType())) {
-            return true;
-        } else if (RangeTypeEnum.PRODUCT_INCLUDE_PART.getValue().equals(fullPrivilege.getRangeType())) {
-            return fullPrivilege.getRangeValues().contains(spuId);
-        }
-        throw new IllegalArgumentException(String.format("促销活动(%s) 可用范围的类型是不正确", activity.toString()));
-    }
-
     private Integer calcSkuPriceByFullPrivilege(PriceProductCalcRespDTO.ItemGroup itemGroup, PromotionActivityRespDTO activity) {
         if (itemGroup.getActivityId() == null) {
             return null;
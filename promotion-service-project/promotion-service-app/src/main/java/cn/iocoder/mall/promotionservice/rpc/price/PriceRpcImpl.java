@@ -8,6 +8,8 @@ import cn.iocoder.mall.promotionservice.manager.price.PriceManager;
 import org.apache.dubbo.config.annotation.DubboService;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.List;
+
 import static cn.iocoder.common.framework.vo.CommonResult.success;
 
 @DubboService
@@ -21,4 +23,9 @@ public class PriceRpcImpl implements PriceRpc {
         return success(priceManager.calcProductPrice(calcReqDTO));
     }
 
+    @Override
+    public CommonResult<List<PriceProductCalcRespDTO>> calcProductPrices(List<PriceProductCalcReqDTO> calcReqDTOs) {
+        return success(priceManager.calcProductPrices(calcReqDTOs));
+    }
+
 }
@@ -0,0 +1,170 @@
+package cn.iocoder.mall.promotionservice.service.activity;
+
+import cn.iocoder.mall.promotion.api.enums.RangeTypeEnum;
+import cn.iocoder.mall.promotion.api.enums.activity.PromotionActivityTypeEnum;
+import cn.iocoder.mall.promotion.api.rpc.activity.dto.PromotionActivityRespDTO;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+
+/**
+ * 促销活动的规则索引
+ *
+ * 基于进行中的促销活动预先编译，使价格计算时只需按 SPU / 分类做 Map 查找，无需访问数据库，也无需遍历所有活动。
+ * 索引构建完成后不可变，更新时整体替换，因此可以被多线程无锁读取。
+ */
+@Slf4j
+public class PromotionActivityRuleIndex {
+
+    /**
+     * 空索引
+     */
+    public static final PromotionActivityRuleIndex EMPTY = new PromotionActivityRuleIndex(0L, Collections.emptyList());
+
+    /**
+     * 版本号，每次重建 +1
+     */
+    private final long version;
+    /**
+     * 促销活动 Map
+     *
+     * key：活动编号
+     */
+    private final Map<Integer, PromotionActivityRespDTO> activities = new HashMap<>();
+    /**
+     * 限时折扣 Map
+     *
+     * key：SPU 编号
+     * value：该 SPU 参与的限时折扣。多个活动时，取编号最小的，和原先按数据库顺序取第一个保持一致
+     */
+    private final Map<Integer, TimeLimitedDiscountRule> timeLimitedDiscounts = new HashMap<>();
+    /**
+     * 全部商品可用的满减送编号数组，按编号排序
+     */
+    private final List<Integer> allFullPrivilegeIds = new ArrayList<>();
+    /**
+     * 指定商品可用的满减送 Map
+     *
+     * key：SPU 编号
+     * value：满减送编号数组，按编号排序
+     */
+    private final Map<Integer, List<Integer>> spuFullPrivilegeIds = new HashMap<>();
+    /**
+     * 指定分类可用的满减送 Map
+     *
+     * key：分类编号
+     * value：满减送编号数组，按编号排序
+     */
+    private final Map<Integer, List<Integer>> categoryFullPrivilegeIds = new HashMap<>();
+
+    public PromotionActivityRuleIndex(long version, Collection<PromotionActivityRespDTO> activityList) {
+        this.version = version;
+        // 按照编号排序后构建，保证各个数组有序
+        List<PromotionActivityRespDTO> sortedActivities = new ArrayList<>(activityList);
+        sortedActivities.sort(Comparator.comparing(PromotionActivityRespDTO::getId));
+        sortedActivities.forEach(this::index);
+    }
+
+    private void index(PromotionActivityRespDTO activity) {
+        if (PromotionActivityTypeEnum.TIME_LIMITED_DISCOUNT.getValue().equals(activity.getActivityType())) {
+            activities.put(activity.getId(), activity);
+            for (PromotionActivityRespDTO.TimeLimitedDiscount.Item item : activity.getTimeLimitedDiscount().getItems()) {
+                timeLimitedDiscounts.putIfAbsent(item.getSpuId(), new TimeLimitedDiscountRule(activity.getId(), item));
+            }
+        } else if (PromotionActivityTypeEnum.FULL_PRIVILEGE.getValue().equals(activity.getActivityType())) {
+            PromotionActivityRespDTO.FullPrivilege fullPrivilege = activity.getFullPrivilege();
+            if (RangeTypeEnum.ALL.getValue().equals(fullPrivilege.getRangeType())) {
+                allFullPrivilegeIds.add(activity.getId());
+            } else if (RangeTypeEnum.PRODUCT_INCLUDE_PART.getValue().equals(fullPrivilege.getRangeType())) {
+                fullPrivilege.getRangeValues().forEach(spuId -> spuFullPrivilegeIds.computeIfAbsent(spuId, k -> new ArrayList<>(1))
+                        .add(activity.getId()));
+            } else if (RangeTypeEnum.CATEGORY_INCLUDE_PART.getValue().equals(fullPrivilege.getRangeType())) {
+                fullPrivilege.getRangeValues().forEach(cid -> categoryFullPrivilegeIds.computeIfAbsent(cid, k -> new ArrayList<>(1))
+                        .add(activity.getId()));
+            } else {
+                log.error("[index][促销活动({}) 可用范围的类型是不正确，忽略该活动]", activity);
+                return;
+            }
+            activities.put(activity.getId(), activity);
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return activities.size();
+    }
+
+    /**
+     * 获得促销活动
+     *
+     * @param activityId 活动编号
+     * @return 促销活动
+     */
+    public PromotionActivityRespDTO getActivity(Integer activityId) {
+        return activities.get(activityId);
+    }
+
+    /**
+     * 获得 SPU 参与的限时折扣
+     *
+     * @param spuId SPU 编号
+     * @return 限时折扣规则，不存在时返回 null
+     */
+    public TimeLimitedDiscountRule getTimeLimitedDiscount(Integer spuId) {
+        return timeLimitedDiscounts.get(spuId);
+    }
+
+    /**
+     * 获得商品参与的满减送活动编号。多个活动时，取编号最小的，和原先按数据库顺序匹配第一个保持一致
+     *
+     * @param spuId SPU 编号
+     * @param cid 分类编号
+     * @return 满减送活动编号，不存在时返回 null
+     */
+    public Integer getFullPrivilegeId(Integer spuId, Integer cid) {
+        Integer activityId = allFullPrivilegeIds.isEmpty() ? null : allFullPrivilegeIds.get(0);
+        activityId = min(activityId, spuFullPrivilegeIds.get(spuId));
+        activityId = min(activityId, categoryFullPrivilegeIds.get(cid));
+        return activityId;
+    }
+
+    private static Integer min(Integer activityId, List<Integer> activityIds) {
+        if (activityIds == null) {
+            return activityId;
+        }
+        return activityId == null ? activityIds.get(0) : Math.min(activityId, activityIds.get(0));
+    }
+
+    /**
+     * 限时折扣规则
+     */
+    public static class TimeLimitedDiscountRule {
+
+        /**
+         * 活动编号
+         */
+        private final Integer activityId;
+        /**
+         * 商品折扣
+         */
+        private final PromotionActivityRespDTO.TimeLimitedDiscount.Item item;
+
+        public TimeLimitedDiscountRule(Integer activityId, PromotionActivityRespDTO.TimeLimitedDiscount.Item item) {
+            this.activityId = activityId;
+            this.item = item;
+        }
+
+        public Integer getActivityId() {
+            return activityId;
+        }
+
+        public PromotionActivityRespDTO.TimeLimitedDiscount.Item getItem() {
+            return item;
+        }
+
+    }
+
+}
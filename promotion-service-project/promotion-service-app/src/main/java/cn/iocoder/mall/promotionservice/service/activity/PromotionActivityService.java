@@ -1,8 +1,8 @@
 package cn.iocoder.mall.promotionservice.service.activity;
 
+import cn.iocoder.common.framework.util.DateUtil;
 import cn.iocoder.common.framework.vo.PageResult;
-import cn.iocoder.mall.promotion.api.enums.RangeTypeEnum;
-import cn.iocoder.mall.promotion.api.enums.activity.PromotionActivityTypeEnum;
+import cn.iocoder.mall.promotion.api.enums.activity.PromotionActivityStatusEnum;
 import cn.iocoder.mall.promotion.api.rpc.activity.dto.PromotionActivityListReqDTO;
 import cn.iocoder.mall.promotion.api.rpc.activity.dto.PromotionActivityPageReqDTO;
 import cn.iocoder.mall.promotion.api.rpc.activity.dto.PromotionActivityRespDTO;
@@ -10,89 +10,132 @@ import cn.iocoder.mall.promotionservice.convert.activity.PromotionActivityConver
 import cn.iocoder.mall.promotionservice.dal.mysql.dataobject.activity.PromotionActivityDO;
 import cn.iocoder.mall.promotionservice.dal.mysql.mapper.activity.PromotionActivityMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.util.Assert;
 import org.springframework.validation.annotation.Validated;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.List;
+import javax.annotation.PostConstruct;
+import java.util.*;
 
 
 @Service
 @Validated
+@Slf4j
 public class PromotionActivityService {
 
+    /**
+     * 刷新促销活动规则索引的频率，单位：毫秒
+     */
+    private static final int REFRESH_RULE_INDEX_PERIOD = 10 * 1000;
+    /**
+     * 增量加载的重叠窗口，单位：毫秒
+     *
+     * update_time 只精确到秒，并且在语句执行时生成、事务提交后才可见，所以每次从 maxUpdateTime 往前重叠一段时间加载，
+     * 避免遗漏同一秒内、或者提交较慢的事务修改的促销活动。重复加载的促销活动，内容不变时不会重建索引
+     */
+    private static final long REFRESH_RULE_INDEX_OVERLAP = 60 * 1000L;
+    /**
+     * 全量重建促销活动规则索引的频率，单位：毫秒。用于移除物理删除的促销活动，以及修正增量加载可能存在的遗漏
+     */
+    private static final int RELOAD_RULE_INDEX_PERIOD = 10 * 60 * 1000;
+
     @Autowired
     private PromotionActivityMapper promotionActivityMapper;
 
+    /**
+     * 进行中的促销活动的缓存
+     *
+     * key：活动编号
+     *
+     * 只在 {@link #initRuleIndex()} 和 {@link #refreshRuleIndex()} 中修改，两者由 synchronized 保证串行
+     */
+    private final Map<Integer, PromotionActivityRespDTO> runActivityCache = new HashMap<>();
+    /**
+     * 缓存中，促销活动的最大更新时间，用于增量加载
+     */
+    private Date maxUpdateTime;
+    /**
+     * 促销活动规则索引，每次刷新时整体替换
+     */
+    private volatile PromotionActivityRuleIndex ruleIndex = PromotionActivityRuleIndex.EMPTY;
+
     public List<PromotionActivityRespDTO> listPromotionActivities(PromotionActivityListReqDTO listReqDTO) {
         List<PromotionActivityDO> activityList = promotionActivityMapper.selectList(listReqDTO);
         return PromotionActivityConvert.INSTANCE.convertList(activityList);
     }
 
-    public List<PromotionActivityRespDTO> listPromotionActivitiesBySpuIds(Collection<Integer> spuIds, Collection<Integer> activityStatuses) {
-        if (spuIds.isEmpty() || activityStatuses.isEmpty()) {
-            return Collections.emptyList();
-        }
-        // 查询指定状态的促销活动
-        List<PromotionActivityDO> activityList = promotionActivityMapper.selectListByStatus(activityStatuses);
+    public PageResult<PromotionActivityRespDTO> pagePromotionActivity(PromotionActivityPageReqDTO pageReqDTO) {
+        IPage<PromotionActivityDO> promotionActivityPage = promotionActivityMapper.selectPage(pageReqDTO);
+        return PromotionActivityConvert.INSTANCE.convertPage(promotionActivityPage);
+    }
+
+    @PostConstruct
+    public synchronized void initRuleIndex() {
+        // 全量加载进行中的促销活动
+        List<PromotionActivityDO> activityList = promotionActivityMapper.selectListByStatus(
+                Collections.singleton(PromotionActivityStatusEnum.RUN.getValue()));
+        runActivityCache.clear();
+        activityList.forEach(activity -> runActivityCache.put(activity.getId(), PromotionActivityConvert.INSTANCE.convert(activity)));
+        maxUpdateTime = getMaxUpdateTime(activityList);
+        // 构建规则索引
+        ruleIndex = new PromotionActivityRuleIndex(ruleIndex.getVersion() + 1, runActivityCache.values());
+        log.info("[initRuleIndex][全量加载到 {} 个进行中的促销活动，索引版本({})]", runActivityCache.size(), ruleIndex.getVersion());
+    }
+
+    /**
+     * 定时全量重建规则索引，移除物理删除的促销活动
+     */
+    @Scheduled(fixedDelay = RELOAD_RULE_INDEX_PERIOD, initialDelay = RELOAD_RULE_INDEX_PERIOD)
+    public void reloadRuleIndex() {
+        initRuleIndex();
+    }
+
+    @Scheduled(fixedDelay = REFRESH_RULE_INDEX_PERIOD, initialDelay = REFRESH_RULE_INDEX_PERIOD)
+    public synchronized void refreshRuleIndex() {
+        // 增量加载变更的促销活动，包括进行中、以及从进行中变成其它状态的。加载范围和上次重叠，见 REFRESH_RULE_INDEX_OVERLAP
+        Date minUpdateTime = maxUpdateTime != null ? new Date(maxUpdateTime.getTime() - REFRESH_RULE_INDEX_OVERLAP) : null;
+        List<PromotionActivityDO> activityList = promotionActivityMapper.selectListByUpdateTimeGe(minUpdateTime);
         if (activityList.isEmpty()) {
-            return Collections.emptyList();
+            return;
         }
-        // 匹配商品
-        for (Iterator<PromotionActivityDO> iterator = activityList.iterator(); iterator.hasNext();) {
-            PromotionActivityDO activity = iterator.next();
-            boolean matched = false;
-            for (Integer spuId : spuIds) {
-                if (PromotionActivityTypeEnum.TIME_LIMITED_DISCOUNT.getValue().equals(activity.getActivityType())) {
-                    matched = isSpuMatchTimeLimitDiscount(spuId, activity);
-                } else if (PromotionActivityTypeEnum.FULL_PRIVILEGE.getValue().equals(activity.getActivityType())) {
-                    matched = isSpuMatchFullPrivilege(spuId, activity);
-                }
-                if (matched) {
-                    break;
-                }
-            }
-            // 不匹配，则进行移除
-            if (!matched) {
-                iterator.remove();
-            } else { // 匹配，则做一些后续的处理
-                // 如果是限时折扣，移除不在 spuId 数组中的折扣规则
-                if (PromotionActivityTypeEnum.TIME_LIMITED_DISCOUNT.getValue().equals(activity.getActivityType())) {
-                    activity.getTimeLimitedDiscount().getItems().removeIf(item -> !spuIds.contains(item.getSpuId()));
+        maxUpdateTime = DateUtil.max(maxUpdateTime, getMaxUpdateTime(activityList));
+        // 只处理内容发生变化的促销活动，重叠窗口内重复加载的不处理
+        int changeCount = 0;
+        for (PromotionActivityDO activity : activityList) {
+            if (PromotionActivityStatusEnum.RUN.getValue().equals(activity.getStatus())) {
+                PromotionActivityRespDTO activityDTO = PromotionActivityConvert.INSTANCE.convert(activity);
+                if (!activityDTO.equals(runActivityCache.put(activity.getId(), activityDTO))) {
+                    changeCount++;
                 }
+            } else if (runActivityCache.remove(activity.getId()) != null) {
+                changeCount++;
             }
         }
-        // 返回最终结果
-        return PromotionActivityConvert.INSTANCE.convertList(activityList);
-    }
-
-    public PageResult<PromotionActivityRespDTO> pagePromotionActivity(PromotionActivityPageReqDTO pageReqDTO) {
-        IPage<PromotionActivityDO> promotionActivityPage = promotionActivityMapper.selectPage(pageReqDTO);
-        return PromotionActivityConvert.INSTANCE.convertPage(promotionActivityPage);
+        if (changeCount == 0) {
+            return;
+        }
+        // 重建规则索引
+        ruleIndex = new PromotionActivityRuleIndex(ruleIndex.getVersion() + 1, runActivityCache.values());
+        log.info("[refreshRuleIndex][增量加载到 {} 个变更的促销活动，索引版本({})]", changeCount, ruleIndex.getVersion());
     }
 
-    private boolean isSpuMatchTimeLimitDiscount(Integer spuId, PromotionActivityDO activity) {
-        Assert.isTrue(PromotionActivityTypeEnum.TIME_LIMITED_DISCOUNT.getValue().equals(activity.getActivityType()),
-                "传入的必须的促销活动必须是限时折扣");
-        return activity.getTimeLimitedDiscount().getItems().stream()
-                .anyMatch(item -> spuId.equals(item.getSpuId()));
+    /**
+     * 获得进行中的促销活动的规则索引
+     *
+     * @return 规则索引
+     */
+    public PromotionActivityRuleIndex getRuleIndex() {
+        return ruleIndex;
     }
 
-    private boolean isSpuMatchFullPrivilege(Integer spuId, PromotionActivityDO activity) {
-        Assert.isTrue(PromotionActivityTypeEnum.FULL_PRIVILEGE.getValue().equals(activity.getActivityType()),
-                "传入的必须的促销活动必须是满减送");
-        PromotionActivityDO.FullPrivilege fullPrivilege = activity.getFullPrivilege();
-        if (RangeTypeEnum.ALL.getValue().equals(fullPrivilege.getRangeType())) {
-            return true;
-        } else if (RangeTypeEnum.PRODUCT_INCLUDE_PART.getValue().equals(fullPrivilege.getRangeType())) {
-            return fullPrivilege.getRangeValues().contains(spuId);
-        } else {
-            throw new IllegalArgumentException(String.format("促销活动(%s) 可用范围的类型是不正确", activity.toString()));
+    private static Date getMaxUpdateTime(List<PromotionActivityDO> activityList) {
+        Date maxUpdateTime = null;
+        for (PromotionActivityDO activity : activityList) {
+            maxUpdateTime = DateUtil.max(maxUpdateTime, activity.getUpdateTime());
         }
+        return maxUpdateTime;
     }
 
 }
@@ -3,10 +3,8 @@ package cn.iocoder.mall.promotionservice.service.coupon;
 import cn.iocoder.common.framework.exception.util.ServiceExceptionUtil;
 import cn.iocoder.common.framework.util.CollectionUtils;
 import cn.iocoder.common.framework.util.DateUtil;
-import cn.iocoder.common.framework.util.StringUtils;
 import cn.iocoder.common.framework.vo.PageResult;
 import cn.iocoder.mall.promotion.api.enums.PromotionErrorCodeConstants;
-import cn.iocoder.mall.promotion.api.enums.RangeTypeEnum;
 import cn.iocoder.mall.promotion.api.enums.coupon.card.CouponCardStatusEnum;
 import cn.iocoder.mall.promotion.api.enums.coupon.card.CouponCardTakeTypeEnum;
 import cn.iocoder.mall.promotion.api.enums.coupon.template.CouponTemplateDateTypeEnum;
@@ -21,12 +19,18 @@ import cn.iocoder.mall.promotionservice.dal.mysql.dataobject.coupon.CouponCardDO
 import cn.iocoder.mall.promotionservice.dal.mysql.dataobject.coupon.CouponTemplateDO;
 import cn.iocoder.mall.promotionservice.dal.mysql.mapper.coupon.CouponCardMapper;
 import cn.iocoder.mall.promotionservice.dal.mysql.mapper.coupon.CouponTemplateMapper;
+import cn.iocoder.mall.promotionservice.dal.redis.dao.CouponCardRedisDAO;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -35,12 +39,57 @@ import java.util.stream.Collectors;
  */
 @Service
 @Validated
+@Slf4j
 public class CouponCardService {
 
+    /**
+     * 领取结果 - 优惠劵模板未加载到 Redis
+     */
+    private static final long GRAB_RESULT_NOT_LOADED = -1;
+    /**
+     * 领取结果 - 剩余可领取数量不足
+     */
+    private static final long GRAB_RESULT_TOTAL_NOT_ENOUGH = -2;
+    /**
+     * 领取结果 - 到达每人限领数量
+     */
+    private static final long GRAB_RESULT_EXCEED_QUOTA = -3;
+    /**
+     * 每次从 Redis 分配的优惠劵编号数量
+     */
+    private static final int COUPON_CARD_ID_STEP = 1000;
+
     @Autowired
     private CouponCardMapper couponCardMapper;
     @Autowired
     private CouponTemplateMapper couponTemplateMapper;
+    @Autowired
+    private CouponCardRedisDAO couponCardRedisDAO;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 优惠劵模板的本地缓存。领取时，优惠劵模板的状态、每人限领数量等，允许有几秒的延迟
+     */
+    private final LoadingCache<Integer, Optional<CouponTemplateDO>> couponTemplateCache = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofSeconds(5))
+            .build(id -> Optional.ofNullable(couponTemplateMapper.selectById(id)));
+    /**
+     * 优惠劵模板的可用范围匹配器的缓存，通过 {@link CouponRangeMatcher#isCompiledFrom(CouponTemplateDO)} 判断是否过期
+     */
+    private final Cache<Integer, CouponRangeMatcher> couponRangeMatcherCache = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .build();
+
+    /**
+     * 下一个可用的优惠劵编号
+     */
+    private int nextCouponCardId = 1;
+    /**
+     * 已分配的最大优惠劵编号
+     */
+    private int maxCouponCardId = 0;
 
     /**
      * 获得用户的优惠劵
@@ -74,14 +123,17 @@ public class CouponCardService {
     /**
      * 给用户添加优惠劵
      *
+     * 在 Redis 中原子校验并扣减剩余可领取数量、校验并增加用户已领取数量，成功后放入待插入队列，
+     * 由 {@link #insertPendingCouponCards(Integer, int)} 异步批量插入到 MySQL 。
+     * 所以，返回的优惠劵编号，在 MySQL 中存在秒级的延迟
+     *
      * @param userId 用户编号
      * @param couponTemplateId 优惠劵模板编号
      * @return 优惠劵编号
      */
-    @Transactional
     public Integer createCouponCard(Integer userId, Integer couponTemplateId) {
         // 校验 CouponCardTemplate 存在
-        CouponTemplateDO template = couponTemplateMapper.selectById(couponTemplateId);
+        CouponTemplateDO template = couponTemplateCache.get(couponTemplateId).orElse(null);
         if (template == null) {
             throw ServiceExceptionUtil.exception(PromotionErrorCodeConstants.COUPON_TEMPLATE_NOT_EXISTS.getCode());
         }
@@ -93,38 +145,155 @@ public class CouponCardService {
         if (!CouponTemplateStatusEnum.ENABLE.getValue().equals(template.getStatus())) {
             throw ServiceExceptionUtil.exception(PromotionErrorCodeConstants.COUPON_TEMPLATE_STATUS_NOT_ENABLE.getCode());
         }
+        // 领取优惠劵。优惠劵模板未加载到 Redis 时，从 MySQL 加载后重试
+        Integer cardId = nextCouponCardId();
+        long now = System.currentTimeMillis();
+        long result = couponCardRedisDAO.grab(couponTemplateId, userId, template.getQuota(), cardId, now);
+        if (result == GRAB_RESULT_NOT_LOADED) {
+            loadCouponTemplate(couponTemplateId);
+            result = couponCardRedisDAO.grab(couponTemplateId, userId, template.getQuota(), cardId, now);
+        }
+        if (result == GRAB_RESULT_NOT_LOADED) {
+            throw new IllegalStateException(String.format("优惠劵模板(%d) 加载到 Redis 失败", couponTemplateId));
+        }
         // 校验 CouponCardTemplate 是否到达可领取的上限
-        if (template.getStatFetchNum() > template.getTotal()) {
+        if (result == GRAB_RESULT_TOTAL_NOT_ENOUGH) {
             throw ServiceExceptionUtil.exception(PromotionErrorCodeConstants.COUPON_TEMPLATE_TOTAL_NOT_ENOUGH.getCode());
         }
         //  校验单人可领取优惠劵是否到达上限
-        if (couponCardMapper.selectCountByUserIdAndTemplateId(userId, couponTemplateId) > template.getQuota()) {
-            throw ServiceExceptionUtil.exception(PromotionErrorCodeConstants.COUPON_TEMPLATE_CARD_ADD_EXCEED_QUOTA.getCode());
-        }
-        // 增加优惠劵已领取量
-        int updateTemplateCount = couponTemplateMapper.updateStatFetchNumIncr(couponTemplateId);
-        if (updateTemplateCount == 0) { // 超过 CouponCardTemplate 发放量
+        if (result == GRAB_RESULT_EXCEED_QUOTA) {
             throw ServiceExceptionUtil.exception(PromotionErrorCodeConstants.COUPON_TEMPLATE_CARD_ADD_EXCEED_QUOTA.getCode());
         }
-        // 创建优惠劵
-        // 1. 基本信息 + 领取情况
-        CouponCardDO card = new CouponCardDO()
-                .setTemplateId(couponTemplateId)
-                .setTitle(template.getTitle())
-                .setStatus(CouponCardStatusEnum.UNUSED.getValue())
-                .setUserId(userId)
-                .setTakeType(CouponCardTakeTypeEnum.BY_USER.getValue()); // TODO 需要改
-        // 2. 使用规则
-        card.setPriceAvailable(template.getPriceAvailable());
-        setCouponCardValidTime(card, template);
-        // 3. 使用效果
-        card.setPreferentialType(template.getPreferentialType())
-                .setPriceOff(template.getPriceOff())
-                .setPercentOff(template.getPercentOff()).setDiscountPriceLimit(template.getDiscountPriceLimit());
-        // 保存优惠劵模板到数据库
-        couponCardMapper.insert(card);
         // 返回成功
-        return card.getId();
+        return cardId;
+    }
+
+    /**
+     * 将待插入队列中的优惠劵，批量插入到 MySQL ，并增加优惠劵模板的已领取数量
+     *
+     * 1. 获取优惠劵模板的插入锁，保证同一个优惠劵模板同时只有一个节点插入，并且插入期间不会被卸载
+     * 2. 将优惠劵从待插入队列移动到处理中队列，事务提交后再删除处理中队列。
+     *    插入失败或者进程崩溃时，处理中队列的优惠劵，在下次执行（插入锁过期后）时重新插入
+     * 3. 优惠劵使用领取时分配的编号插入，已经存在的忽略，从而重新插入时是幂等的，已领取数量只增加实际插入的数量
+     *
+     * @param couponTemplateId 优惠劵模板编号
+     * @param limit 最大数量
+     * @return 插入的数量
+     */
+    public int insertPendingCouponCards(Integer couponTemplateId, int limit) {
+        String lockOwner = couponCardRedisDAO.tryLockInsert(couponTemplateId);
+        if (lockOwner == null) {
+            return 0;
+        }
+        try {
+            List<CouponCardDO> cards = couponCardRedisDAO.popPending(couponTemplateId, limit);
+            if (cards.isEmpty()) {
+                return 0;
+            }
+            CouponTemplateDO template = couponTemplateMapper.selectById(couponTemplateId);
+            cards.forEach(card -> buildCouponCard(card, template));
+            transactionTemplate.executeWithoutResult(status -> {
+                int insertCount = couponCardMapper.insertList(cards);
+                if (insertCount > 0) {
+                    couponTemplateMapper.updateStatFetchNumIncrBy(couponTemplateId, insertCount);
+                }
+            });
+            if (!couponCardRedisDAO.ackProcessing(couponTemplateId, lockOwner)) {
+                log.warn("[insertPendingCouponCards][优惠劵模板({}) 插入锁已过期，{} 张优惠劵将被重新插入]", couponTemplateId, cards.size());
+            }
+            return cards.size();
+        } catch (Throwable th) {
+            // 插入失败，保留在处理中队列，等待下次重新插入
+            log.error("[insertPendingCouponCards][优惠劵模板({}) 插入优惠劵发生异常]", couponTemplateId, th);
+            return 0;
+        } finally {
+            couponCardRedisDAO.unlockInsert(couponTemplateId, lockOwner);
+        }
+    }
+
+    /**
+     * 获得已加载到 Redis 的优惠劵模板编号
+     *
+     * @return 优惠劵模板编号集合
+     */
+    public Set<Integer> getLoadedCouponTemplateIds() {
+        return couponCardRedisDAO.getLoadedTemplateIds();
+    }
+
+    /**
+     * 对账优惠劵模板的已领取数量
+     *
+     * 1. 使用 MySQL 中的优惠劵数量，修正 coupon_template 的 stat_fetch_num 字段。
+     *    需要持有插入锁，避免读取优惠劵数量之后、修正之前插入的优惠劵，增加的已领取数量被覆盖。获取失败时，跳过修正，等待下次对账
+     * 2. 校验 Redis 中已领取的数量，等于 MySQL 中的优惠劵数量加上待插入、处理中的数量。不相等时，说明存在丢失的优惠劵，打印错误日志
+     * 3. 优惠劵模板已经不可领取，并且没有待插入、处理中的优惠劵时，从 Redis 中卸载
+     *
+     * @param couponTemplateId 优惠劵模板编号
+     */
+    public void reconcileCouponTemplate(Integer couponTemplateId) {
+        // 先读取 Redis ，再读取 MySQL ，从而不会因为对账期间的插入，误判为丢失
+        Integer stock = couponCardRedisDAO.getStock(couponTemplateId);
+        long pendingSize = couponCardRedisDAO.getPendingSize(couponTemplateId);
+        int fetchNum;
+        CouponTemplateDO template;
+        String lockOwner = couponCardRedisDAO.tryLockInsert(couponTemplateId);
+        try {
+            fetchNum = couponCardMapper.selectCountByTemplateId(couponTemplateId);
+            template = couponTemplateMapper.selectById(couponTemplateId);
+            // 修正 stat_fetch_num 字段
+            if (lockOwner != null && template != null && !Objects.equals(template.getStatFetchNum(), fetchNum)) {
+                log.warn("[reconcileCouponTemplate][优惠劵模板({}) 已领取数量({}) 修正为({})]", couponTemplateId,
+                        template.getStatFetchNum(), fetchNum);
+                couponTemplateMapper.updateById(new CouponTemplateDO().setId(couponTemplateId).setStatFetchNum(fetchNum));
+            }
+        } finally {
+            if (lockOwner != null) {
+                couponCardRedisDAO.unlockInsert(couponTemplateId, lockOwner);
+            }
+        }
+        // 校验是否存在丢失的优惠劵
+        if (template != null && stock != null && template.getTotal() - stock > fetchNum + pendingSize) {
+            log.error("[reconcileCouponTemplate][优惠劵模板({}) Redis 已领取数量({}) 大于 MySQL 数量({}) + 未插入数量({})]",
+                    couponTemplateId, template.getTotal() - stock, fetchNum, pendingSize);
+        }
+        // 卸载不可领取的优惠劵模板
+        if (template == null || !CouponTemplateStatusEnum.ENABLE.getValue().equals(template.getStatus())) {
+            couponCardRedisDAO.unload(couponTemplateId);
+        }
+    }
+
+    /**
+     * 加载优惠劵模板到 Redis 。先加载用户已领取数量，再加载剩余可领取数量，保证可以领取时，用户已领取数量是完整的
+     *
+     * @param couponTemplateId 优惠劵模板编号
+     */
+    private void loadCouponTemplate(Integer couponTemplateId) {
+        CouponTemplateDO template = couponTemplateMapper.selectById(couponTemplateId);
+        if (template == null) {
+            return;
+        }
+        Map<Integer, Integer> fetchNums = couponCardMapper.selectFetchNumMapByTemplateId(couponTemplateId);
+        couponCardRedisDAO.loadFetchNums(couponTemplateId, fetchNums);
+        int fetchNum = fetchNums.values().stream().mapToInt(Integer::intValue).sum();
+        couponCardRedisDAO.loadStock(couponTemplateId, Math.max(template.getTotal() - fetchNum, 0));
+    }
+
+    /**
+     * 获得下一个优惠劵编号。每次从 Redis 分配一段编号，在内存中逐个使用
+     *
+     * @return 优惠劵编号
+     */
+    private synchronized Integer nextCouponCardId() {
+        if (nextCouponCardId > maxCouponCardId) {
+            Long maxId = couponCardRedisDAO.allocateCardIds(COUPON_CARD_ID_STEP);
+            if (maxId == null) {
+                couponCardRedisDAO.initCardIdIfAbsent(couponCardMapper.selectMaxId());
+                maxId = couponCardRedisDAO.allocateCardIds(COUPON_CARD_ID_STEP);
+            }
+            maxCouponCardId = maxId.intValue();
+            nextCouponCardId = maxCouponCardId - COUPON_CARD_ID_STEP + 1;
+        }
+        return nextCouponCardId++;
     }
 
     /**
@@ -199,40 +368,53 @@ public class CouponCardService {
         Map<Integer, CouponTemplateDO> templates = CollectionUtils.convertMap(
                 couponTemplateMapper.selectBatchIds(CollectionUtils.convertSet(cards, CouponCardDO::getTemplateId)),
                 CouponTemplateDO::getId);
+        // 将商品数组展开为 int 数组，避免每张优惠劵重复拆箱
+        List<CouponCardAvailableListReqDTO.Item> items = listReqDTO.getItems();
+        int[] spuIds = new int[items.size()];
+        int[] cids = new int[items.size()];
+        int[] prices = new int[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            CouponCardAvailableListReqDTO.Item item = items.get(i);
+            spuIds[i] = item.getSpuId();
+            cids[i] = item.getCid();
+            prices[i] = item.getPrice() * item.getQuantity();
+        }
+        // 计算每个优惠劵模板可以使用的商品总价，同一模板的优惠劵只计算一次
+        Map<Integer, Integer> templateTotalPrices = new HashMap<>(templates.size());
+        templates.values().forEach(template -> templateTotalPrices.put(template.getId(),
+                getCouponRangeMatcher(template).sumMatchedPrice(spuIds, cids, prices)));
         // 逐个判断是否可用
         return cards.stream().map(card -> {
             CouponCardAvailableRespDTO availableCard = CouponCardConvert.INSTANCE.convert01(card);
-            availableCard.setUnavailableReason(isMatch(card, templates.get(card.getTemplateId()), listReqDTO.getItems()));
+            availableCard.setUnavailableReason(isMatch(card, templateTotalPrices.getOrDefault(card.getTemplateId(), 0)));
             availableCard.setAvailable(availableCard.getUnavailableReason() == null);
             return availableCard;
         }).collect(Collectors.toList());
     }
 
+    /**
+     * 获得优惠劵模板的可用范围匹配器。优惠劵模板发生变化时，重新编译
+     *
+     * @param template 优惠劵模板
+     * @return 可用范围匹配器
+     */
+    private CouponRangeMatcher getCouponRangeMatcher(CouponTemplateDO template) {
+        CouponRangeMatcher matcher = couponRangeMatcherCache.getIfPresent(template.getId());
+        if (matcher == null || !matcher.isCompiledFrom(template)) {
+            matcher = new CouponRangeMatcher(template);
+            couponRangeMatcherCache.put(template.getId(), matcher);
+        }
+        return matcher;
+    }
+
     /**
      * 匹配商品是否可以使用指定优惠劵
      *
      * @param card 优惠劵
-     * @param template 优惠劵模板
-     * @param items 商品 SKU 数组
+     * @param totalPrice 可以使用优惠劵的商品总价
      * @return 如果不匹配，返回原因
      */
-    private String isMatch(CouponCardDO card, CouponTemplateDO template, List<CouponCardAvailableListReqDTO.Item> items) {
-        int totalPrice = 0;
-        if (RangeTypeEnum.ALL.getValue().equals(template.getRangeType())) {
-            totalPrice = items.stream().mapToInt(spu -> spu.getPrice() * spu.getQuantity()).sum();
-        } else if (RangeTypeEnum.PRODUCT_INCLUDE_PART.getValue().equals(template.getRangeType())) {
-            List<Integer> spuIds = StringUtils.splitToInt(template.getRangeValues(), ",");
-            totalPrice = items.stream().mapToInt(spu -> spuIds.contains(spu.getSpuId()) ? spu.getPrice() * spu.getQuantity() : 0).sum();
-        } else if (RangeTypeEnum.PRODUCT_EXCLUDE_PART.getValue().equals(template.getRangeType())) {
-            List<Integer> spuIds = StringUtils.splitToInt(template.getRangeValues(), ",");
-            totalPrice = items.stream().mapToInt(spu -> !spuIds.contains(spu.getSpuId()) ? spu.getPrice() * spu.getQuantity() : 0).sum();
-        } else if (RangeTypeEnum.CATEGORY_INCLUDE_PART.getValue().equals(template.getRangeType())) {
-            List<Integer> spuIds = StringUtils.splitToInt(template.getRangeValues(), ",");
-            totalPrice = items.stream().mapToInt(spu -> spuIds.contains(spu.getCid()) ? spu.getPrice() * spu.getQuantity() : 0).sum();
-        } else if (RangeTypeEnum.CATEGORY_EXCLUDE_PART.getValue().equals(template.getRangeType())) {
-            List<Integer> spuIds = StringUtils.splitToInt(template.getRangeValues(), ",");
-            totalPrice = items.stream().mapToInt(spu -> !spuIds.contains(spu.getCid()) ? spu.getPrice() * spu.getQuantity() : 0).sum();
-        }
+    private String isMatch(CouponCardDO card, int totalPrice) {
         // 总价为 0 时，说明优惠劵丫根不匹配
         if (totalPrice == 0) {
             return "优惠劵不匹配";
@@ -244,11 +426,31 @@ public class CouponCardService {
         return null;
     }
 
+    /**
+     * 根据优惠劵模板，补全待插入的优惠劵
+     *
+     * @param card 待插入的优惠劵，{@link CouponCardDO#getCreateTime()} 为领取时间
+     * @param template 优惠劵模板
+     */
+    private void buildCouponCard(CouponCardDO card, CouponTemplateDO template) {
+        // 1. 基本信息 + 领取情况
+        card.setTitle(template.getTitle())
+                .setStatus(CouponCardStatusEnum.UNUSED.getValue())
+                .setTakeType(CouponCardTakeTypeEnum.BY_USER.getValue()); // TODO 需要改
+        // 2. 使用规则
+        card.setPriceAvailable(template.getPriceAvailable());
+        setCouponCardValidTime(card, template);
+        // 3. 使用效果
+        card.setPreferentialType(template.getPreferentialType())
+                .setPriceOff(template.getPriceOff())
+                .setPercentOff(template.getPercentOff()).setDiscountPriceLimit(template.getDiscountPriceLimit());
+    }
+
     private void setCouponCardValidTime(CouponCardDO card, CouponTemplateDO template) {
         if (CouponTemplateDateTypeEnum.FIXED_DATE.getValue().equals(template.getDateType())) {
             card.setValidStartTime(template.getValidStartTime()).setValidEndTime(template.getValidEndTime());
         } else if (CouponTemplateDateTypeEnum.FIXED_TERM.getValue().equals(template.getDateType())) {
-            Date validStartTime = DateUtil.getDayBegin(new Date());
+            Date validStartTime = DateUtil.getDayBegin(card.getCreateTime()); // 按照领取时间计算
             card.setValidStartTime(DateUtil.addDate(validStartTime, Calendar.DAY_OF_YEAR, template.getFixedStartTerm()));
             Date validEndTime = DateUtil.getDayEnd(card.getValidStartTime());
             card.setValidEndTime(DateUtil.addDate(validEndTime, Calendar.DAY_OF_YEAR, template.getFixedEndTerm() - 1));
@@ -0,0 +1,133 @@
+package cn.iocoder.mall.promotionservice.service.coupon;
+
+import cn.iocoder.common.framework.util.StringUtils;
+import cn.iocoder.mall.promotion.api.enums.RangeTypeEnum;
+import cn.iocoder.mall.promotionservice.dal.mysql.dataobject.coupon.CouponTemplateDO;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * 优惠劵模板的可用范围匹配器
+ *
+ * 由优惠劵模板的 rangeType、rangeValues 编译而成，构建后不再修改，可以被多个线程共享。
+ * 编号较小时，使用 {@link BitSet} 匹配，否则使用有序的 int 数组二分查找，都不需要拆箱
+ */
+public class CouponRangeMatcher {
+
+    /**
+     * 使用 BitSet 的最大编号，即每个优惠劵模板最多占用 128 KB
+     */
+    private static final int BITSET_MAX_VALUE = 1 << 20;
+
+    /**
+     * 优惠劵模板的最后更新时间，用于判断优惠劵模板是否发生变化
+     */
+    private final long version;
+    /**
+     * 可用范围的类型
+     */
+    private final Integer rangeType;
+    /**
+     * 可用范围的值的原始字符串，用于在最后更新时间相同时，进一步判断是否发生变化
+     */
+    private final String rangeValuesSource;
+    /**
+     * 可用范围的值，编号较小时使用
+     */
+    private final BitSet rangeBits;
+    /**
+     * 可用范围的值，有序，编号较大时使用
+     */
+    private final int[] rangeValues;
+
+    public CouponRangeMatcher(CouponTemplateDO template) {
+        this.version = getVersion(template);
+        this.rangeType = template.getRangeType();
+        this.rangeValuesSource = template.getRangeValues();
+        // 只有指定商品、分类的可用范围，才需要解析可用范围的值
+        int[] values = isPartRangeType(rangeType) ? parseRangeValues(template.getRangeValues()) : new int[0];
+        if (values.length == 0 || (values[0] >= 0 && values[values.length - 1] < BITSET_MAX_VALUE)) {
+            this.rangeBits = new BitSet(values.length > 0 ? values[values.length - 1] + 1 : 0);
+            for (int value : values) {
+                rangeBits.set(value);
+            }
+            this.rangeValues = null;
+        } else {
+            this.rangeBits = null;
+            this.rangeValues = values;
+        }
+    }
+
+    /**
+     * @param template 优惠劵模板
+     * @return 是否为该优惠劵模板当前版本编译的匹配器
+     */
+    public boolean isCompiledFrom(CouponTemplateDO template) {
+        return version == getVersion(template)
+                && Objects.equals(rangeType, template.getRangeType())
+                && Objects.equals(rangeValuesSource, template.getRangeValues());
+    }
+
+    /**
+     * 计算可以使用优惠劵的商品总价
+     *
+     * @param spuIds 商品 SPU 编号数组
+     * @param cids 商品分类编号数组
+     * @param prices 商品总价数组，即单价乘以数量
+     * @return 可以使用优惠劵的商品总价
+     */
+    public int sumMatchedPrice(int[] spuIds, int[] cids, int[] prices) {
+        int totalPrice = 0;
+        if (RangeTypeEnum.ALL.getValue().equals(rangeType)) {
+            for (int price : prices) {
+                totalPrice += price;
+            }
+        } else if (RangeTypeEnum.PRODUCT_INCLUDE_PART.getValue().equals(rangeType)) {
+            totalPrice = sumMatchedPrice(spuIds, prices, true);
+        } else if (RangeTypeEnum.PRODUCT_EXCLUDE_PART.getValue().equals(rangeType)) {
+            totalPrice = sumMatchedPrice(spuIds, prices, false);
+        } else if (RangeTypeEnum.CATEGORY_INCLUDE_PART.getValue().equals(rangeType)) {
+            totalPrice = sumMatchedPrice(cids, prices, true);
+        } else if (RangeTypeEnum.CATEGORY_EXCLUDE_PART.getValue().equals(rangeType)) {
+            totalPrice = sumMatchedPrice(cids, prices, false);
+        }
+        return totalPrice;
+    }
+
+    private int sumMatchedPrice(int[] ids, int[] prices, boolean include) {
+        int totalPrice = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (contains(ids[i]) == include) {
+                totalPrice += prices[i];
+            }
+        }
+        return totalPrice;
+    }
+
+    private boolean contains(int value) {
+        if (rangeBits != null) {
+            return value >= 0 && rangeBits.get(value);
+        }
+        return Arrays.binarySearch(rangeValues, value) >= 0;
+    }
+
+    private static long getVersion(CouponTemplateDO template) {
+        Date updateTime = template.getUpdateTime();
+        return updateTime != null ? updateTime.getTime() : 0L;
+    }
+
+    private static boolean isPartRangeType(Integer rangeType) {
+        return RangeTypeEnum.PRODUCT_INCLUDE_PART.getValue().equals(rangeType)
+                || RangeTypeEnum.PRODUCT_EXCLUDE_PART.getValue().equals(rangeType)
+                || RangeTypeEnum.CATEGORY_INCLUDE_PART.getValue().equals(rangeType)
+                || RangeTypeEnum.CATEGORY_EXCLUDE_PART.getValue().equals(rangeType);
+    }
+
+    private static int[] parseRangeValues(String rangeValues) {
+        return StringUtils.splitToInt(rangeValues, ",").stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+    }
+
+}
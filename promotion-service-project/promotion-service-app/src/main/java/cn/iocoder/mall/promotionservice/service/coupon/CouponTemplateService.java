@@ -14,6 +14,7 @@ import cn.iocoder.mall.promotion.api.rpc.coupon.dto.template.CouponTemplateRespD
 import cn.iocoder.mall.promotionservice.convert.coupon.CouponTemplateConvert;
 import cn.iocoder.mall.promotionservice.dal.mysql.dataobject.coupon.CouponTemplateDO;
 import cn.iocoder.mall.promotionservice.dal.mysql.mapper.coupon.CouponTemplateMapper;
+import cn.iocoder.mall.promotionservice.dal.redis.dao.CouponCardRedisDAO;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -32,6 +33,8 @@ public class CouponTemplateService {
 
     @Autowired
     private CouponTemplateMapper couponTemplateMapper;
+    @Autowired
+    private CouponCardRedisDAO couponCardRedisDAO;
 
     // ========== 通用逻辑 =========
 
@@ -165,6 +168,8 @@ public class CouponTemplateService {
         // 更新优惠劵模板到数据库
         CouponTemplateDO updateTemplateDO = CouponTemplateConvert.INSTANCE.convert(updateReqDTO);
         couponTemplateMapper.updateById(updateTemplateDO);
+        // 增加 Redis 中的剩余可领取数量
+        couponCardRedisDAO.incrStockIfPresent(template.getId(), updateReqDTO.getTotal() - template.getTotal());
     }
 
     // ========== 优惠码模板 TODO 芋艿：以后开发 ==========
@@ -0,0 +1,25 @@
+-- 领取优惠劵：校验并扣减剩余可领取数量，校验并增加用户已领取数量，记录到待插入队列
+-- 从左侧插入待插入队列，插入 Job 从右侧取出，从而先领取的先插入
+--
+-- KEYS[1] 剩余可领取数量；KEYS[2] 用户已领取数量；KEYS[3] 待插入队列
+-- ARGV[1] 用户编号；ARGV[2] 每人限领数量；ARGV[3] 待插入队列的元素
+--
+-- 返回 1 领取成功；-1 优惠劵模板未加载到 Redis；-2 剩余可领取数量不足；-3 到达每人限领数量
+
+local stock = redis.call('GET', KEYS[1])
+if not stock then
+    return -1
+end
+if tonumber(stock) <= 0 then
+    return -2
+end
+
+local fetchNum = tonumber(redis.call('HGET', KEYS[2], ARGV[1]) or '0')
+if fetchNum >= tonumber(ARGV[2]) then
+    return -3
+end
+
+redis.call('DECR', KEYS[1])
+redis.call('HINCRBY', KEYS[2], ARGV[1], 1)
+redis.call('LPUSH', KEYS[3], ARGV[3])
+return 1
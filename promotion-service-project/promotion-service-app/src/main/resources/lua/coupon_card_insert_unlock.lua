@@ -0,0 +1,12 @@
+-- 释放插入锁。仅当插入锁仍被当前持有者持有时释放，避免释放其它持有者的锁
+--
+-- KEYS[1] 插入锁
+-- ARGV[1] 插入锁的持有者标识
+--
+-- 返回 1 释放成功；0 插入锁已经过期
+
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+    return 0
+end
+redis.call('DEL', KEYS[1])
+return 1
@@ -0,0 +1,23 @@
+-- 从待插入队列中，批量取出元素到处理中队列。元素在插入到 MySQL 的事务提交后，才从处理中队列删除，从而进程崩溃时不会丢失
+--
+-- 处理中队列不为空时，说明上一批插入未确认（例如说进程崩溃、事务失败），直接返回该批元素，重新插入
+--
+-- KEYS[1] 待插入队列；KEYS[2] 处理中队列
+-- ARGV[1] 最大数量
+--
+-- 返回待插入到 MySQL 的元素数组
+
+local items = redis.call('LRANGE', KEYS[2], 0, -1)
+if #items > 0 then
+    return items
+end
+
+local count = tonumber(ARGV[1])
+for i = 1, count do
+    local item = redis.call('RPOPLPUSH', KEYS[1], KEYS[2])
+    if not item then
+        break
+    end
+    items[#items + 1] = item
+end
+return items
@@ -0,0 +1,12 @@
+-- 确认处理中队列的元素已经插入到 MySQL ，删除处理中队列。仅当插入锁仍被当前持有者持有时删除，否则交给新的持有者重新插入
+--
+-- KEYS[1] 处理中队列；KEYS[2] 插入锁
+-- ARGV[1] 插入锁的持有者标识
+--
+-- 返回 1 确认成功；0 插入锁已经过期
+
+if redis.call('GET', KEYS[2]) ~= ARGV[1] then
+    return 0
+end
+redis.call('DEL', KEYS[1])
+return 1
@@ -0,0 +1,11 @@
+-- 增加优惠劵模板的剩余可领取数量。未加载到 Redis 时，不做处理，避免创建出没有用户已领取数量的剩余可领取数量
+--
+-- KEYS[1] 剩余可领取数量
+-- ARGV[1] 增加的数量
+--
+-- 返回增加后的剩余可领取数量；未加载到 Redis 时，返回 nil
+
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return nil
+end
+return redis.call('INCRBY', KEYS[1], ARGV[1])
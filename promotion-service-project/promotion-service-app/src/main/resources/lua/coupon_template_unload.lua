@@ -0,0 +1,12 @@
+-- 卸载优惠劵模板。待插入队列、处理中队列不为空，或者插入锁被持有时，不允许卸载，
+-- 避免重新加载时 MySQL 中的已领取数量偏小，导致发放总量、每人限领数量超发
+--
+-- KEYS[1] 剩余可领取数量；KEYS[2] 用户已领取数量；KEYS[3] 待插入队列；KEYS[4] 处理中队列；KEYS[5] 插入锁
+--
+-- 返回 1 卸载成功；0 存在未插入到 MySQL 的优惠劵
+
+if redis.call('LLEN', KEYS[3]) > 0 or redis.call('LLEN', KEYS[4]) > 0 or redis.call('EXISTS', KEYS[5]) == 1 then
+    return 0
+end
+redis.call('DEL', KEYS[1], KEYS[2])
+return 1
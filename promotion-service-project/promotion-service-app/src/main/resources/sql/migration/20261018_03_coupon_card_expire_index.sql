@@ -0,0 +1,12 @@
+-- ----------------------------
+-- 优惠劵过期：coupon_card 增加 (status, valid_end_time, id) 索引
+--
+-- CouponCardExpireJob 通过 CouponCardMapper#selectListByExpire 按 (valid_end_time, id) 进行 keyset 分页，
+-- 没有该索引时每一页都需要全表扫描并排序。
+-- status 为等值条件，索引的顺序即 (valid_end_time, id) 的顺序，每一页只需要扫描 LIMIT 条记录，无需排序；
+-- 查询的 id、valid_end_time 都在索引中，无需回表。
+-- 需要在部署 CouponCardExpireJob 之前执行。InnoDB 支持 Online DDL 添加二级索引，不阻塞读写
+-- ----------------------------
+ALTER TABLE `coupon_card`
+    ADD INDEX `idx_status_valid_end_time` (`status`, `valid_end_time`, `id`) USING BTREE COMMENT '过期优惠劵的 keyset 扫描',
+    ALGORITHM = INPLACE, LOCK = NONE;
@@ -0,0 +1,100 @@
+package cn.iocoder.mall.promotionservice.service.activity;
+
+import cn.iocoder.mall.promotion.api.enums.RangeTypeEnum;
+import cn.iocoder.mall.promotion.api.enums.activity.PromotionActivityTypeEnum;
+import cn.iocoder.mall.promotion.api.rpc.activity.dto.PromotionActivityRespDTO;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * {@link PromotionActivityRuleIndex} 的单元测试
+ */
+public class PromotionActivityRuleIndexTest {
+
+    @Test
+    public void testEmpty() {
+        Assert.assertEquals(0, PromotionActivityRuleIndex.EMPTY.size());
+        Assert.assertNull(PromotionActivityRuleIndex.EMPTY.getTimeLimitedDiscount(1));
+        Assert.assertNull(PromotionActivityRuleIndex.EMPTY.getFullPrivilegeId(1, 1));
+    }
+
+    @Test
+    public void testTimeLimitedDiscount() {
+        // 乱序传入，多个活动包含同一个 SPU 时，取编号最小的
+        PromotionActivityRuleIndex index = new PromotionActivityRuleIndex(1, Arrays.asList(
+                timeLimitedDiscount(20, 100, 101), timeLimitedDiscount(10, 100)));
+        Assert.assertEquals(1, index.getVersion());
+        Assert.assertEquals(2, index.size());
+        Assert.assertEquals(Integer.valueOf(10), index.getTimeLimitedDiscount(100).getActivityId());
+        Assert.assertEquals(Integer.valueOf(100), index.getTimeLimitedDiscount(100).getItem().getSpuId());
+        Assert.assertEquals(Integer.valueOf(20), index.getTimeLimitedDiscount(101).getActivityId());
+        Assert.assertNull(index.getTimeLimitedDiscount(102));
+        Assert.assertNotNull(index.getActivity(20));
+    }
+
+    @Test
+    public void testFullPrivilegeByRange() {
+        PromotionActivityRuleIndex index = new PromotionActivityRuleIndex(1, Arrays.asList(
+                fullPrivilege(30, RangeTypeEnum.CATEGORY_INCLUDE_PART, 7),
+                fullPrivilege(20, RangeTypeEnum.PRODUCT_INCLUDE_PART, 100, 101)));
+        // 指定商品
+        Assert.assertEquals(Integer.valueOf(20), index.getFullPrivilegeId(100, 8));
+        // 指定分类
+        Assert.assertEquals(Integer.valueOf(30), index.getFullPrivilegeId(102, 7));
+        // 同时匹配时，取编号最小的
+        Assert.assertEquals(Integer.valueOf(20), index.getFullPrivilegeId(101, 7));
+        // 都不匹配
+        Assert.assertNull(index.getFullPrivilegeId(102, 8));
+    }
+
+    @Test
+    public void testFullPrivilegeAll() {
+        PromotionActivityRuleIndex index = new PromotionActivityRuleIndex(1, Arrays.asList(
+                fullPrivilege(20, RangeTypeEnum.PRODUCT_INCLUDE_PART, 100),
+                fullPrivilege(15, RangeTypeEnum.ALL), fullPrivilege(12, RangeTypeEnum.ALL)));
+        Assert.assertEquals(Integer.valueOf(12), index.getFullPrivilegeId(100, 1));
+        Assert.assertEquals(Integer.valueOf(12), index.getFullPrivilegeId(999, 999));
+    }
+
+    @Test
+    public void testFullPrivilegeUnsupportedRangeType() {
+        // 不支持的可用范围，忽略该活动
+        PromotionActivityRuleIndex index = new PromotionActivityRuleIndex(1, Collections.singletonList(
+                fullPrivilege(10, RangeTypeEnum.PRODUCT_EXCLUDE_PART, 100)));
+        Assert.assertEquals(0, index.size());
+        Assert.assertNull(index.getActivity(10));
+        Assert.assertNull(index.getFullPrivilegeId(100, 1));
+        Assert.assertNull(index.getFullPrivilegeId(101, 1));
+    }
+
+    @Test
+    public void testMixed() {
+        PromotionActivityRuleIndex index = new PromotionActivityRuleIndex(2, Arrays.asList(
+                timeLimitedDiscount(1, 100), fullPrivilege(2, RangeTypeEnum.ALL)));
+        Assert.assertEquals(2, index.size());
+        Assert.assertEquals(Integer.valueOf(1), index.getTimeLimitedDiscount(100).getActivityId());
+        Assert.assertEquals(Integer.valueOf(2), index.getFullPrivilegeId(100, 1));
+    }
+
+    private static PromotionActivityRespDTO timeLimitedDiscount(Integer id, Integer... spuIds) {
+        PromotionActivityRespDTO.TimeLimitedDiscount timeLimitedDiscount = new PromotionActivityRespDTO.TimeLimitedDiscount()
+                .setItems(new ArrayList<>());
+        for (Integer spuId : spuIds) {
+            timeLimitedDiscount.getItems().add(new PromotionActivityRespDTO.TimeLimitedDiscount.Item().setSpuId(spuId)
+                    .setPreferentialType(1).setPreferentialValue(80));
+        }
+        return new PromotionActivityRespDTO().setId(id).setActivityType(PromotionActivityTypeEnum.TIME_LIMITED_DISCOUNT.getValue())
+                .setTimeLimitedDiscount(timeLimitedDiscount);
+    }
+
+    private static PromotionActivityRespDTO fullPrivilege(Integer id, RangeTypeEnum rangeType, Integer... rangeValues) {
+        return new PromotionActivityRespDTO().setId(id).setActivityType(PromotionActivityTypeEnum.FULL_PRIVILEGE.getValue())
+                .setFullPrivilege(new PromotionActivityRespDTO.FullPrivilege().setRangeType(rangeType.getValue())
+                        .setRangeValues(Arrays.asList(rangeValues)));
+    }
+
+}
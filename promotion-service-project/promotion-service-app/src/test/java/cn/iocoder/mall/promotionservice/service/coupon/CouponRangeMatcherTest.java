@@ -0,0 +1,113 @@
+package cn.iocoder.mall.promotionservice.service.coupon;
+
+import cn.iocoder.common.framework.util.StringUtils;
+import cn.iocoder.mall.promotion.api.enums.RangeTypeEnum;
+import cn.iocoder.mall.promotionservice.dal.mysql.dataobject.coupon.CouponTemplateDO;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * {@link CouponRangeMatcher} 的单元测试
+ *
+ * 匹配结果需要和原先 CouponCardService#isMatch 中，基于 {@link StringUtils#splitToInt(String, String)} 和
+ * {@link List#contains(Object)} 的实现保持一致
+ */
+public class CouponRangeMatcherTest {
+
+    /**
+     * 使用 BitSet 的编号范围
+     */
+    private static final String RANGE_VALUES_SMALL = "7,3,100,3,1048575";
+    /**
+     * 包含大于 2^20 的编号，使用二分查找
+     */
+    private static final String RANGE_VALUES_LARGE = "7,3,1048576,2147483647,3";
+    /**
+     * 包含负数的编号，使用二分查找
+     */
+    private static final String RANGE_VALUES_NEGATIVE = "-5,7,0";
+
+    private static final int[] IDS = {0, 3, 4, 7, 100, 1048575, 1048576, 1048577, 2147483647, -1, -5, Integer.MIN_VALUE};
+
+    @Test
+    public void testAll() {
+        // 可用范围的值不合法时，也不解析
+        CouponRangeMatcher matcher = new CouponRangeMatcher(template(RangeTypeEnum.ALL, "not,a,number"));
+        Assert.assertEquals(6, matcher.sumMatchedPrice(new int[]{1, 2, 3}, new int[]{4, 5, 6}, new int[]{1, 2, 3}));
+        Assert.assertEquals(0, matcher.sumMatchedPrice(new int[0], new int[0], new int[0]));
+    }
+
+    @Test
+    public void testParity() {
+        for (RangeTypeEnum rangeType : RangeTypeEnum.values()) {
+            for (String rangeValues : new String[]{"", RANGE_VALUES_SMALL, RANGE_VALUES_LARGE, RANGE_VALUES_NEGATIVE}) {
+                CouponRangeMatcher matcher = new CouponRangeMatcher(template(rangeType, rangeValues));
+                // 逐个编号校验，再整体校验
+                for (int i = 0; i < IDS.length; i++) {
+                    int[] ids = {IDS[i]};
+                    int[] prices = {1 << i};
+                    assertParity(matcher, rangeType, rangeValues, ids, prices);
+                }
+                int[] prices = new int[IDS.length];
+                for (int i = 0; i < IDS.length; i++) {
+                    prices[i] = 1 << i;
+                }
+                assertParity(matcher, rangeType, rangeValues, IDS, prices);
+            }
+        }
+    }
+
+    @Test
+    public void testIsCompiledFrom() {
+        CouponTemplateDO template = template(RangeTypeEnum.PRODUCT_INCLUDE_PART, RANGE_VALUES_SMALL);
+        CouponRangeMatcher matcher = new CouponRangeMatcher(template);
+        Assert.assertTrue(matcher.isCompiledFrom(template));
+        Assert.assertFalse(matcher.isCompiledFrom(template(RangeTypeEnum.PRODUCT_INCLUDE_PART, RANGE_VALUES_LARGE)));
+        Assert.assertFalse(matcher.isCompiledFrom(template(RangeTypeEnum.PRODUCT_EXCLUDE_PART, RANGE_VALUES_SMALL)));
+        CouponTemplateDO updatedTemplate = template(RangeTypeEnum.PRODUCT_INCLUDE_PART, RANGE_VALUES_SMALL);
+        updatedTemplate.setUpdateTime(new Date(2L));
+        Assert.assertFalse(matcher.isCompiledFrom(updatedTemplate));
+    }
+
+    private static void assertParity(CouponRangeMatcher matcher, RangeTypeEnum rangeType, String rangeValues,
+                                     int[] ids, int[] prices) {
+        // 商品编号、分类编号，使用相同的编号，分别校验
+        String message = String.format("范围类型(%s) 范围值(%s) 编号(%s)", rangeType, rangeValues, Arrays.toString(ids));
+        Assert.assertEquals(message, sumMatchedPrice(rangeType, rangeValues, ids, new int[ids.length], prices),
+                matcher.sumMatchedPrice(ids, new int[ids.length], prices));
+        Assert.assertEquals(message, sumMatchedPrice(rangeType, rangeValues, new int[ids.length], ids, prices),
+                matcher.sumMatchedPrice(new int[ids.length], ids, prices));
+    }
+
+    /**
+     * 原先 CouponCardService#isMatch 的实现
+     */
+    private static int sumMatchedPrice(RangeTypeEnum rangeType, String rangeValues, int[] spuIds, int[] cids, int[] prices) {
+        int totalPrice = 0;
+        for (int i = 0; i < prices.length; i++) {
+            if (rangeType == RangeTypeEnum.ALL) {
+                totalPrice += prices[i];
+                continue;
+            }
+            List<Integer> values = StringUtils.splitToInt(rangeValues, ",");
+            if ((rangeType == RangeTypeEnum.PRODUCT_INCLUDE_PART && values.contains(spuIds[i]))
+                    || (rangeType == RangeTypeEnum.PRODUCT_EXCLUDE_PART && !values.contains(spuIds[i]))
+                    || (rangeType == RangeTypeEnum.CATEGORY_INCLUDE_PART && values.contains(cids[i]))
+                    || (rangeType == RangeTypeEnum.CATEGORY_EXCLUDE_PART && !values.contains(cids[i]))) {
+                totalPrice += prices[i];
+            }
+        }
+        return totalPrice;
+    }
+
+    private static CouponTemplateDO template(RangeTypeEnum rangeType, String rangeValues) {
+        CouponTemplateDO template = new CouponTemplateDO().setId(1).setRangeType(rangeType.getValue()).setRangeValues(rangeValues);
+        template.setUpdateTime(new Date(1L));
+        return template;
+    }
+
+}
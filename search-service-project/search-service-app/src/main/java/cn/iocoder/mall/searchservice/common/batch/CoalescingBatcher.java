@@ -0,0 +1,173 @@
+package cn.iocoder.mall.searchservice.common.batch;
+
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * 合并批处理器
+ *
+ * 将短时间内提交的 key 缓冲到窗口中并去重，窗口达到 {@link #maxSize} 个不同的 key、或者距窗口创建超过 {@link #maxDelayMillis} 毫秒时，
+ * 对窗口内的 key 执行一次批处理。提交方阻塞等待所在窗口的批处理完成，因此：
+ * 1. 批处理失败时，提交方可以感知到并重试，不会丢失；
+ * 2. 进行中的提交数量受限于提交方的线程数，批处理变慢时，自然形成背压。
+ *
+ * 批处理在单线程中串行执行，同一个 key 不会被并发处理。
+ *
+ * 上报的 Micrometer 指标：
+ * 1. {name}.window.size：窗口中不同 key 的数量
+ * 2. {name}.window.submits：窗口中的提交次数，与 window.size 的差值即为合并掉的次数
+ * 3. {name}.lag：从最早提交（或者由调用方传入的产生时间）到批处理完成的延迟
+ */
+@Slf4j
+public class CoalescingBatcher<K> {
+
+    /**
+     * 名字，用作指标名的前缀
+     */
+    private final String name;
+    /**
+     * 窗口的最大 key 数量
+     */
+    private final int maxSize;
+    /**
+     * 窗口的最大延迟，单位：毫秒
+     */
+    private final long maxDelayMillis;
+    /**
+     * 批处理逻辑
+     */
+    private final Consumer<Set<K>> processor;
+
+    /**
+     * 触发窗口超时的调度器
+     */
+    private final ScheduledExecutorService scheduler;
+    /**
+     * 执行批处理的线程池，单线程
+     */
+    private final ExecutorService flusher;
+
+    /**
+     * 当前正在缓冲的窗口
+     */
+    private Window<K> current;
+
+    public CoalescingBatcher(String name, int maxSize, long maxDelayMillis, Consumer<Set<K>> processor) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.maxDelayMillis = maxDelayMillis;
+        this.processor = processor;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> newThread(runnable, name + "-scheduler"));
+        this.flusher = Executors.newSingleThreadExecutor(runnable -> newThread(runnable, name + "-flusher"));
+    }
+
+    /**
+     * 提交 key，并阻塞等待所在窗口的批处理完成
+     *
+     * @param key key
+     * @param bornTimestamp key 的产生时间，用于计算延迟，单位：毫秒
+     * @param timeoutMillis 等待超时时间，单位：毫秒
+     */
+    public void submit(K key, long bornTimestamp, long timeoutMillis) {
+        CompletableFuture<Void> future;
+        synchronized (this) {
+            if (current == null) {
+                Window<K> window = new Window<>(bornTimestamp);
+                current = window;
+                scheduler.schedule(() -> close(window), maxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+            Window<K> window = current;
+            window.keys.add(key);
+            window.submits++;
+            window.bornTimestamp = Math.min(window.bornTimestamp, bornTimestamp);
+            future = window.future;
+            if (window.keys.size() >= maxSize) {
+                current = null;
+                flusher.execute(() -> flush(window));
+            }
+        }
+        try {
+            future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        } catch (TimeoutException ex) {
+            throw new IllegalStateException(String.format("[%s][等待 key(%s) 的批处理超时(%d ms)]", name, key, timeoutMillis), ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("[%s][等待 key(%s) 的批处理被中断]", name, key), ex);
+        }
+    }
+
+    /**
+     * 关闭，不再接收新的窗口
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        flusher.shutdown();
+    }
+
+    private void close(Window<K> window) {
+        synchronized (this) {
+            if (current != window) { // 已经因为达到 maxSize 关闭
+                return;
+            }
+            current = null;
+        }
+        flusher.execute(() -> flush(window));
+    }
+
+    private void flush(Window<K> window) {
+        try {
+            processor.accept(window.keys);
+            window.future.complete(null);
+        } catch (Throwable ex) {
+            log.error("[flush][{} 批处理({}) 失败]", name, window.keys, ex);
+            window.future.completeExceptionally(ex);
+        } finally {
+            Metrics.summary(name + ".window.size").record(window.keys.size());
+            Metrics.summary(name + ".window.submits").record(window.submits);
+            Metrics.timer(name + ".lag").record(System.currentTimeMillis() - window.bornTimestamp, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Thread newThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * 窗口
+     */
+    private static class Window<K> {
+
+        /**
+         * 去重后的 key
+         */
+        private final Set<K> keys = new LinkedHashSet<>();
+        /**
+         * 批处理结果
+         */
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        /**
+         * 提交次数
+         */
+        private int submits;
+        /**
+         * 最早的产生时间
+         */
+        private long bornTimestamp;
+
+        private Window(long bornTimestamp) {
+            this.bornTimestamp = bornTimestamp;
+        }
+
+    }
+
+}
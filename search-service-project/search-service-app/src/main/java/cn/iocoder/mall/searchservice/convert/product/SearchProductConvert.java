@@ -4,12 +4,14 @@ import cn.iocoder.common.framework.vo.PageResult;
 import cn.iocoder.mall.productservice.rpc.category.dto.ProductCategoryRespDTO;
 import cn.iocoder.mall.productservice.rpc.spu.dto.ProductSpuRespDTO;
 import cn.iocoder.mall.searchservice.dal.es.dataobject.ESProductDO;
+import cn.iocoder.mall.searchservice.dal.es.dataobject.ESProductRebuildCheckpointDO;
 import cn.iocoder.mall.searchservice.rpc.product.dto.SearchProductConditionRespDTO;
 import cn.iocoder.mall.searchservice.rpc.product.dto.SearchProductPageReqDTO;
 import cn.iocoder.mall.searchservice.rpc.product.dto.SearchProductRespDTO;
 import cn.iocoder.mall.searchservice.service.product.bo.SearchProductBO;
 import cn.iocoder.mall.searchservice.service.product.bo.SearchProductConditionBO;
 import cn.iocoder.mall.searchservice.service.product.bo.SearchProductPageQueryBO;
+import cn.iocoder.mall.searchservice.service.product.bo.SearchProductRebuildBO;
 import cn.iocoder.mall.searchservice.service.product.bo.SearchProductSaveBO;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -33,10 +35,18 @@ public interface SearchProductConvert {
     @Mapping(source = "spu.picUrls", target = "picUrls")
     @Mapping(source = "spu.visible", target = "visible")
     @Mapping(source = "spu.sort", target = "sort")
+    @Mapping(target = "updateTime", ignore = true)
     SearchProductSaveBO convert(ProductSpuRespDTO spu, ProductCategoryRespDTO category);
 
     ESProductDO convert(SearchProductSaveBO bean);
 
+    List<ESProductDO> convertList02(List<SearchProductSaveBO> list);
+
+    SearchProductRebuildBO convert(ESProductRebuildCheckpointDO bean);
+
+    @Mapping(target = "id", ignore = true)
+    ESProductRebuildCheckpointDO convert(SearchProductRebuildBO bean);
+
     List<SearchProductBO> convertList(List<ESProductDO> list);
 
     default PageResult<SearchProductBO> convertPage(Page<ESProductDO> page) {
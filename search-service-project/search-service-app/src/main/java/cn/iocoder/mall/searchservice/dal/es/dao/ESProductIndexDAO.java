@@ -0,0 +1,158 @@
+package cn.iocoder.mall.searchservice.dal.es.dao;
+
+import cn.iocoder.mall.searchservice.dal.es.dataobject.ESProductDO;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.elasticsearch.ElasticsearchException;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.Assert;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 商品 ES 索引的 DAO
+ *
+ * {@link ESProductDO} 的 indexName 作为别名使用，实际数据写入带时间后缀的索引。
+ * 重建时，先写入新的索引，完成后再原子切换别名，期间搜索不受影响。
+ */
+@Repository
+public class ESProductIndexDAO {
+
+    /**
+     * 别名，即 {@link ESProductDO} 的 indexName
+     */
+    private static final Document DOCUMENT = ESProductDO.class.getAnnotation(Document.class);
+    public static final String ALIAS = DOCUMENT.indexName();
+    public static final String TYPE = DOCUMENT.type();
+
+    @Autowired
+    private ElasticsearchTemplate elasticsearchTemplate;
+
+    /**
+     * 获得别名当前指向的索引名
+     *
+     * @return 索引名。如果是早期直接以 {@link #ALIAS} 创建的索引，返回 {@link #ALIAS}；不存在时，返回 null
+     */
+    public String getIndexName() {
+        ImmutableOpenMap<String, List<AliasMetaData>> aliases = elasticsearchTemplate.getClient().admin().indices()
+                .prepareGetAliases(ALIAS).get().getAliases();
+        for (Iterator<String> iterator = aliases.keysIt(); iterator.hasNext(); ) {
+            String indexName = iterator.next();
+            if (!aliases.get(indexName).isEmpty()) {
+                return indexName;
+            }
+        }
+        return elasticsearchTemplate.indexExists(ALIAS) ? ALIAS : null;
+    }
+
+    /**
+     * 创建用于批量写入的新索引
+     *
+     * 映射复制自别名当前指向的索引；写入期间关闭刷新、不设置副本，在 {@link #switchAlias(String)} 时恢复
+     *
+     * @param indexName 索引名
+     */
+    public void createIndex(String indexName) {
+        String currentIndexName = getIndexName();
+        Assert.notNull(currentIndexName, String.format("索引(%s) 不存在，无法复制映射", ALIAS));
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("index.number_of_shards", DOCUMENT.shards());
+        settings.put("index.number_of_replicas", 0);
+        settings.put("index.refresh_interval", "-1");
+        elasticsearchTemplate.createIndex(indexName, settings);
+        elasticsearchTemplate.putMapping(indexName, TYPE, elasticsearchTemplate.getMapping(currentIndexName, TYPE));
+    }
+
+    /**
+     * 判断索引是否存在
+     *
+     * @param indexName 索引名
+     * @return 是否存在
+     */
+    public boolean existsIndex(String indexName) {
+        return elasticsearchTemplate.indexExists(indexName);
+    }
+
+    /**
+     * 批量写入商品，对应 ES 的 _bulk 接口
+     *
+     * 以 {@link ESProductDO#getUpdateTime()} 作为外部版本号，版本号更小（即更旧）的商品会写入失败，直接忽略
+     *
+     * @param indexName 索引名
+     * @param productDOs 商品数组
+     * @return 因为版本号更小而忽略的商品编号
+     */
+    public Set<String> bulkSave(String indexName, List<ESProductDO> productDOs) {
+        if (productDOs.isEmpty()) {
+            return Collections.emptySet();
+        }
+        List<IndexQuery> indexQueries = productDOs.stream().map(productDO -> buildIndexQuery(indexName, productDO))
+                .collect(Collectors.toList());
+        try {
+            elasticsearchTemplate.bulkIndex(indexQueries);
+            return Collections.emptySet();
+        } catch (ElasticsearchException e) {
+            // 只有版本冲突时忽略，其它失败继续抛出
+            Map<String, String> failedDocuments = e.getFailedDocuments();
+            if (failedDocuments == null || failedDocuments.isEmpty()
+                    || !failedDocuments.values().stream().allMatch(ESProductIndexDAO::isVersionConflict)) {
+                throw e;
+            }
+            return failedDocuments.keySet();
+        }
+    }
+
+    /**
+     * 将别名切换到新的索引，并删除旧的索引
+     *
+     * @param indexName 新的索引名
+     */
+    public void switchAlias(String indexName) {
+        // 恢复刷新与副本
+        elasticsearchTemplate.getClient().admin().indices().prepareUpdateSettings(indexName)
+                .setSettings(Settings.builder().put("index.refresh_interval", TimeValue.timeValueSeconds(1))
+                        .put("index.number_of_replicas", DOCUMENT.replicas()))
+                .get();
+        elasticsearchTemplate.refresh(indexName);
+        // 原子切换别名
+        String oldIndexName = getIndexName();
+        IndicesAliasesRequestBuilder builder = elasticsearchTemplate.getClient().admin().indices().prepareAliases()
+                .addAliasAction(IndicesAliasesRequest.AliasActions.add().index(indexName).alias(ALIAS));
+        if (ALIAS.equals(oldIndexName)) { // 早期直接以别名创建的索引，需要在同一请求中删除，别名才能生效
+            builder.addAliasAction(IndicesAliasesRequest.AliasActions.removeIndex().index(ALIAS));
+        } else if (oldIndexName != null) {
+            builder.addAliasAction(IndicesAliasesRequest.AliasActions.remove().index(oldIndexName).alias(ALIAS));
+        }
+        builder.get();
+        // 删除旧的索引
+        if (oldIndexName != null && !ALIAS.equals(oldIndexName) && !oldIndexName.equals(indexName)) {
+            elasticsearchTemplate.deleteIndex(oldIndexName);
+        }
+    }
+
+    private static IndexQuery buildIndexQuery(String indexName, ESProductDO productDO) {
+        IndexQueryBuilder builder = new IndexQueryBuilder().withIndexName(indexName).withType(TYPE)
+                .withId(String.valueOf(productDO.getId())).withObject(productDO);
+        // 版本类型为 ESProductDO 上 @Document 注解的 versionType 。兼容未返回更新时间的旧版本商品服务，此时不设置版本号
+        if (productDO.getUpdateTime() != null) {
+            builder.withVersion(productDO.getUpdateTime().getTime());
+        }
+        return builder.build();
+    }
+
+    private static boolean isVersionConflict(String failureMessage) {
+        return failureMessage != null && (failureMessage.contains("version_conflict_engine_exception")
+                || failureMessage.contains("VersionConflictEngineException"));
+    }
+
+}
@@ -3,17 +3,22 @@ package cn.iocoder.mall.searchservice.dal.es.dataobject;
 import cn.iocoder.mall.searchservice.dal.es.FieldAnalyzer;
 import lombok.Data;
 import lombok.experimental.Accessors;
+import org.elasticsearch.index.VersionType;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
 
+import java.util.Date;
 import java.util.List;
 
 /**
  * 商品 ES DO
+ *
+ * 以 {@link #updateTime} 作为外部版本号写入，版本类型为 {@link VersionType#EXTERNAL_GTE} ：
+ * 版本号相同时允许覆盖，从而促销活动等不影响商品更新时间的变化，也可以写入
  */
-@Document(indexName = "product", type = "product", shards = 1, replicas = 0)
+@Document(indexName = "product", type = "product", shards = 1, replicas = 0, versionType = VersionType.EXTERNAL_GTE)
 @Data
 @Accessors(chain = true)
 public class ESProductDO {
@@ -93,4 +98,11 @@ public class ESProductDO {
      */
     private Integer promotionActivityType;
 
+    /**
+     * 最后更新时间，取商品 SPU、SKU 中最大的更新时间
+     *
+     * 写入 ES 时作为外部版本号，避免旧的数据覆盖新的数据
+     */
+    private Date updateTime;
+
 }
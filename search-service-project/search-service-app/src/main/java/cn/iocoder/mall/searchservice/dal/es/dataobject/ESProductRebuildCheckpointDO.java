@@ -0,0 +1,45 @@
+package cn.iocoder.mall.searchservice.dal.es.dataobject;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+/**
+ * 商品索引重建的检查点 ES DO
+ *
+ * 重建过程中，每完成一批商品就更新一次。重建中断后，从检查点继续重建，而不是从头开始
+ */
+@Document(indexName = "product_rebuild_checkpoint", type = "checkpoint", shards = 1, replicas = 0)
+@Data
+@Accessors(chain = true)
+public class ESProductRebuildCheckpointDO {
+
+    /**
+     * 编号，固定为 {@link #ID}，即同一时刻只有一个重建任务
+     */
+    @Id
+    private String id;
+    /**
+     * 重建的目标索引名
+     */
+    @Field(type = FieldType.Keyword)
+    private String indexName;
+    /**
+     * 已完成的最大商品 SPU 编号
+     */
+    private Integer lastSpuId;
+    /**
+     * 已重建的商品数量
+     */
+    private Integer count;
+    /**
+     * 开始时间，单位：毫秒
+     */
+    private Long startTime;
+
+    public static final String ID = "product";
+
+}
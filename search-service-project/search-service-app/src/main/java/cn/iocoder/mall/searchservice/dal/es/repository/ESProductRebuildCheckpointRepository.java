@@ -0,0 +1,9 @@
+package cn.iocoder.mall.searchservice.dal.es.repository;
+
+import cn.iocoder.mall.searchservice.dal.es.dataobject.ESProductRebuildCheckpointDO;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ESProductRebuildCheckpointRepository extends ElasticsearchRepository<ESProductRebuildCheckpointDO, String> {
+}
@@ -10,6 +10,9 @@ import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuListQueryReqDTO;
 import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuRespDTO;
 import cn.iocoder.mall.productservice.rpc.spu.ProductSpuRpc;
 import cn.iocoder.mall.productservice.rpc.spu.dto.ProductSpuRespDTO;
+import cn.iocoder.mall.promotion.api.rpc.price.PriceRpc;
+import cn.iocoder.mall.promotion.api.rpc.price.dto.PriceProductCalcReqDTO;
+import cn.iocoder.mall.promotion.api.rpc.price.dto.PriceProductCalcRespDTO;
 import cn.iocoder.mall.searchservice.convert.product.SearchProductConvert;
 import cn.iocoder.mall.searchservice.rpc.product.dto.SearchProductConditionReqDTO;
 import cn.iocoder.mall.searchservice.rpc.product.dto.SearchProductConditionRespDTO;
@@ -18,20 +21,34 @@ import cn.iocoder.mall.searchservice.rpc.product.dto.SearchProductRespDTO;
 import cn.iocoder.mall.searchservice.service.product.SearchProductService;
 import cn.iocoder.mall.searchservice.service.product.bo.SearchProductBO;
 import cn.iocoder.mall.searchservice.service.product.bo.SearchProductConditionBO;
+import cn.iocoder.mall.searchservice.service.product.bo.SearchProductRebuildBO;
 import cn.iocoder.mall.searchservice.service.product.bo.SearchProductSaveBO;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.dubbo.config.annotation.DubboReference;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Comparator;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class SearchProductManager {
 
     private static final Integer REBUILD_FETCH_PER_SIZE = 100;
+    /**
+     * 重建索引的并行数
+     */
+    private static final int REBUILD_PARALLELISM = 4;
+    /**
+     * 重建索引时，最多进行中的批次数量
+     */
+    private static final int REBUILD_MAX_BATCHES = REBUILD_PARALLELISM * 2;
 
     @DubboReference(version = "${dubbo.consumer.ProductSpuRpc.version}")
     private ProductSpuRpc productSpuRpc;
@@ -40,8 +57,8 @@ public class SearchProductManager {
     @DubboReference(version = "${dubbo.consumer.ProductCategoryRpc.version}")
     private ProductCategoryRpc productCategoryRpc;
 
-//    @DubboReference( version = "${dubbo.consumer.CartService.version}")
-//    private CartService cartService;
+    @DubboReference(version = "${dubbo.consumer.PriceRpc.version}")
+    private PriceRpc priceRpc;
 
     @Autowired
     private SearchProductService searchProductService;
@@ -60,29 +77,85 @@ public class SearchProductManager {
     /**
      * 重建所有商品的 ES 索引
      *
+     * 分阶段流水线：
+     * 1. 当前线程按编号顺序，分批获取商品 SPU 编号；
+     * 2. 每批商品提交到有界的线程池，批量获取 SPU、SKU、分类、价格，转换后通过 _bulk 写入新的索引；
+     * 3. 按批次顺序推进检查点，全部完成后将别名切换到新的索引。
+     *
+     * 中途失败时，再次调用会从检查点继续重建
+     *
      * @return 重建数量
      */
     public Integer rebuild() {
-        // TODO 芋艿，因为目前商品比较少，所以写的很粗暴。等未来重构
-        Integer lastId = null;
+        SearchProductRebuildBO rebuildBO = searchProductService.startRebuild();
+        log.info("[rebuild][开始重建索引({})，从商品 SPU({}) 之后继续，已重建 {} 个]", rebuildBO.getIndexName(),
+                rebuildBO.getLastSpuId(), rebuildBO.getCount());
+        long startTime = System.currentTimeMillis();
         int rebuildCounts = 0;
-        while (true) {
-            // 从商品服务，增量获取商品列表编号
-            CommonResult<List<Integer>> listProductSpuIdsResult = productSpuRpc.listProductSpuIds(lastId, REBUILD_FETCH_PER_SIZE);
-            listProductSpuIdsResult.checkError();
-            List<Integer> spuIds = listProductSpuIdsResult.getData();
-            // 逐个重建索引到 ES 中
-            spuIds.forEach(this::saveProduct);
-            // 设置新的 lastId ，或者结束
-            rebuildCounts += listProductSpuIdsResult.getData().size();
-            if (spuIds.size() < REBUILD_FETCH_PER_SIZE) {
-                break;
-            } else {
-                lastId = spuIds.get(spuIds.size() - 1);
+        ExecutorService executor = Executors.newFixedThreadPool(REBUILD_PARALLELISM);
+        Deque<RebuildBatch> batches = new ArrayDeque<>();
+        try {
+            Integer lastId = rebuildBO.getLastSpuId();
+            while (true) {
+                // 从商品服务，增量获取商品列表编号
+                CommonResult<List<Integer>> listProductSpuIdsResult = productSpuRpc.listProductSpuIds(lastId, REBUILD_FETCH_PER_SIZE);
+                listProductSpuIdsResult.checkError();
+                List<Integer> spuIds = listProductSpuIdsResult.getData();
+                // 提交到线程池，批量重建索引
+                if (!spuIds.isEmpty()) {
+                    lastId = spuIds.get(spuIds.size() - 1);
+                    batches.addLast(new RebuildBatch(lastId,
+                            executor.submit(() -> rebuildProducts(rebuildBO.getIndexName(), spuIds))));
+                }
+                // 按批次顺序，收集已完成的批次。同时，限制进行中的批次数量，避免商品服务与 ES 压力过大
+                while (!batches.isEmpty() && (batches.size() >= REBUILD_MAX_BATCHES || batches.peekFirst().future.isDone())) {
+                    rebuildCounts += completeRebuildBatch(rebuildBO, batches.pollFirst(), startTime, rebuildCounts);
+                }
+                // 结束
+                if (spuIds.size() < REBUILD_FETCH_PER_SIZE) {
+                    break;
+                }
             }
+            while (!batches.isEmpty()) {
+                rebuildCounts += completeRebuildBatch(rebuildBO, batches.pollFirst(), startTime, rebuildCounts);
+            }
+        } finally {
+            executor.shutdownNow();
         }
+        // 切换别名
+        searchProductService.finishRebuild(rebuildBO);
+        long costTime = System.currentTimeMillis() - startTime;
+        log.info("[rebuild][重建索引({}) 完成，本次重建 {} 个，共 {} 个，耗时 {} ms，速度 {} 个/秒]", rebuildBO.getIndexName(),
+                rebuildCounts, rebuildBO.getCount(), costTime, rebuildCounts * 1000L / Math.max(costTime, 1));
         // 返回成功
-        return rebuildCounts;
+        return rebuildBO.getCount();
+    }
+
+    private int completeRebuildBatch(SearchProductRebuildBO rebuildBO, RebuildBatch batch, long startTime, int rebuildCounts) {
+        int counts;
+        try {
+            counts = batch.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[rebuild][重建索引被中断]", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(String.format("[rebuild][重建商品 SPU(%d) 之前的批次失败，可再次调用从检查点继续]",
+                    batch.lastSpuId), e.getCause());
+        }
+        // 推进检查点
+        rebuildBO.setLastSpuId(batch.lastSpuId).setCount(rebuildBO.getCount() + counts);
+        searchProductService.updateRebuildCheckpoint(rebuildBO);
+        // 打印进度
+        long costTime = System.currentTimeMillis() - startTime;
+        log.info("[rebuild][重建至商品 SPU({})，本次已重建 {} 个，速度 {} 个/秒]", batch.lastSpuId, rebuildCounts + counts,
+                (rebuildCounts + counts) * 1000L / Math.max(costTime, 1));
+        return counts;
+    }
+
+    private int rebuildProducts(String indexName, List<Integer> spuIds) {
+        List<SearchProductSaveBO> saveBOs = buildSearchProducts(spuIds);
+        searchProductService.bulkSaveSearchProducts(indexName, saveBOs);
+        return saveBOs.size();
     }
 
     /**
@@ -92,42 +165,157 @@ public class SearchProductManager {
      * @return 是否重建成功
      */
     public Boolean saveProduct(Integer id) {
-        // 获得商品 SPU
-        CommonResult<ProductSpuRespDTO> productSpuResult = productSpuRpc.getProductSpu(id);
-        productSpuResult.checkError();
-        if (productSpuResult.getData() == null) {
-            log.error("[saveProduct][商品 SPU({}) 不存在]", id);
+        List<SearchProductSaveBO> saveBOs = buildSearchProducts(Collections.singletonList(id));
+        if (saveBOs.isEmpty()) {
             return false;
         }
+        // 保存商品到 ES 中
+        searchProductService.saveSearchProduct(saveBOs.get(0));
+        return true;
+    }
+
+    /**
+     * 批量重建指定商品的 ES 索引
+     *
+     * 商品 SPU、SKU、分类不存在的商品会被跳过，跳过的编号记录到日志和 search.product.save.dropped 指标中
+     *
+     * @param ids 商品 SPU 编号数组
+     * @return 重建成功的数量
+     */
+    public Integer saveProducts(Collection<Integer> ids) {
+        List<SearchProductSaveBO> saveBOs = buildSearchProducts(new ArrayList<>(ids));
+        Set<Integer> savedIds = CollectionUtils.convertSet(saveBOs, SearchProductSaveBO::getId);
+        Set<Integer> droppedIds = ids.stream().filter(id -> !savedIds.contains(id)).collect(Collectors.toSet());
+        if (!droppedIds.isEmpty()) {
+            log.warn("[saveProducts][商品 SPU({}) 无法构建 ES 数据，跳过保存]", droppedIds);
+            Metrics.counter("search.product.save.dropped").increment(droppedIds.size());
+        }
+        // 批量保存商品到 ES 中
+        searchProductService.saveSearchProducts(saveBOs);
+        return saveBOs.size();
+    }
+
+    /**
+     * 批量构建商品的 ES 数据
+     *
+     * 每种数据只调用一次对应的批量 RPC 接口。商品 SPU、SKU、分类不存在时，跳过该商品
+     *
+     * @param spuIds 商品 SPU 编号数组
+     * @return 商品的 ES 数据
+     */
+    private List<SearchProductSaveBO> buildSearchProducts(List<Integer> spuIds) {
+        // 获得商品 SPU
+        CommonResult<List<ProductSpuRespDTO>> listProductSpusResult = productSpuRpc.listProductSpus(spuIds);
+        listProductSpusResult.checkError();
+        List<ProductSpuRespDTO> spus = listProductSpusResult.getData();
+        if (spus.size() < spuIds.size()) {
+            Set<Integer> existsSpuIds = CollectionUtils.convertSet(spus, ProductSpuRespDTO::getId);
+            spuIds.stream().filter(id -> !existsSpuIds.contains(id))
+                    .forEach(id -> log.error("[buildSearchProducts][商品 SPU({}) 不存在]", id));
+        }
+        if (spus.isEmpty()) {
+            return Collections.emptyList();
+        }
         // 获得商品 SKU
-        CommonResult<List<ProductSkuRespDTO>> listProductSkusResult =
-                productSkuRpc.listProductSkus(new ProductSkuListQueryReqDTO().setProductSpuId(id));
+        CommonResult<List<ProductSkuRespDTO>> listProductSkusResult = productSkuRpc.listProductSkus(
+                new ProductSkuListQueryReqDTO().setProductSpuIds(CollectionUtils.convertSet(spus, ProductSpuRespDTO::getId)));
         listProductSkusResult.checkError();
-        if (CollectionUtils.isEmpty(listProductSkusResult.getData())) {
-            log.error("[saveProduct][商品 SPU({}) 的 SKU 不存在]", id);
-            return false;
-        }
+        Map<Integer, List<ProductSkuRespDTO>> spuSkusMap = CollectionUtils.convertMultiMap(listProductSkusResult.getData(),
+                ProductSkuRespDTO::getSpuId);
         // 获得商品分类
-        CommonResult<ProductCategoryRespDTO> getProductCategoryResult =
-                productCategoryRpc.getProductCategory(productSpuResult.getData().getCid());
-        getProductCategoryResult.checkError();
-        if (getProductCategoryResult.getData() == null) {
-            log.error("[saveProduct][商品 SPU({}) 的分类({}) 不存在]", id, productSpuResult.getData().getCid());
-            return false;
+        CommonResult<List<ProductCategoryRespDTO>> listProductCategoriesResult = productCategoryRpc.listProductCategories(
+                CollectionUtils.convertSet(spus, ProductSpuRespDTO::getCid));
+        listProductCategoriesResult.checkError();
+        Map<Integer, ProductCategoryRespDTO> categoryMap = CollectionUtils.convertMap(listProductCategoriesResult.getData(),
+                ProductCategoryRespDTO::getId);
+        // 计算购买价格
+        Map<Integer, Integer> skuBuyPriceMap = calcBuyPrices(listProductSkusResult.getData());
+        // 拼接结果
+        List<SearchProductSaveBO> saveBOs = new ArrayList<>(spus.size());
+        for (ProductSpuRespDTO spu : spus) {
+            List<ProductSkuRespDTO> skus = spuSkusMap.get(spu.getId());
+            if (CollectionUtils.isEmpty(skus)) {
+                log.error("[buildSearchProducts][商品 SPU({}) 的 SKU 不存在]", spu.getId());
+                continue;
+            }
+            ProductCategoryRespDTO category = categoryMap.get(spu.getCid());
+            if (category == null) {
+                log.error("[buildSearchProducts][商品 SPU({}) 的分类({}) 不存在]", spu.getId(), spu.getCid());
+                continue;
+            }
+            SearchProductSaveBO saveBO = SearchProductConvert.INSTANCE.convert(spu, category);
+            ProductSkuRespDTO productSku = skus.stream().min(Comparator.comparing(ProductSkuRespDTO::getPrice)).orElse(null);
+            assert productSku != null;
+            saveBO.setOriginalPrice(productSku.getPrice());
+            saveBO.setBuyPrice(skus.stream().mapToInt(sku -> skuBuyPriceMap.getOrDefault(sku.getId(), sku.getPrice()))
+                    .min().orElse(0));
+            saveBO.setQuantity(productSku.getQuantity());
+            saveBO.setUpdateTime(getUpdateTime(spu, skus));
+            saveBOs.add(saveBO);
         }
-        // 保存商品到 ES 中
-        SearchProductSaveBO searchProductCreateBO = SearchProductConvert.INSTANCE.convert(
-                productSpuResult.getData(), getProductCategoryResult.getData());
-        ProductSkuRespDTO productSku = listProductSkusResult.getData().stream()
-                .min(Comparator.comparing(ProductSkuRespDTO::getPrice)).orElse(null);
-        assert productSku != null;
-//        // 价格计算 TODO 芋艿：需要补充，暂时使用这个逻辑
-//        CalcSkuPriceBO calSkuPriceResult  = cartService.calcSkuPrice(sku.getId());
-        searchProductCreateBO.setOriginalPrice(productSku.getPrice());
-        searchProductCreateBO.setBuyPrice(productSku.getPrice());
-        searchProductCreateBO.setQuantity(productSku.getQuantity());
-        searchProductService.saveSearchProduct(searchProductCreateBO);
-        return true;
+        return saveBOs;
+    }
+
+    /**
+     * 获得商品 SPU、SKU 中最大的更新时间，作为 ES 的外部版本号
+     *
+     * @param spu 商品 SPU
+     * @param skus 商品 SKU 数组
+     * @return 更新时间
+     */
+    private static Date getUpdateTime(ProductSpuRespDTO spu, List<ProductSkuRespDTO> skus) {
+        Date updateTime = spu.getUpdateTime();
+        for (ProductSkuRespDTO sku : skus) {
+            if (updateTime == null || (sku.getUpdateTime() != null && sku.getUpdateTime().after(updateTime))) {
+                updateTime = sku.getUpdateTime();
+            }
+        }
+        return updateTime;
+    }
+
+    /**
+     * 计算每个 SKU 参与促销活动后的购买价格
+     *
+     * 每个 SKU 作为一个匿名的价格计算请求，通过一次批量调用完成
+     *
+     * @param skus SKU 数组
+     * @return 购买价格。key 为 SKU 编号
+     */
+    private Map<Integer, Integer> calcBuyPrices(List<ProductSkuRespDTO> skus) {
+        if (skus.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<PriceProductCalcReqDTO> calcReqDTOs = skus.stream().map(sku -> new PriceProductCalcReqDTO()
+                .setItems(Collections.singletonList(new PriceProductCalcReqDTO.Item(sku.getId(), 1, true))))
+                .collect(Collectors.toList());
+        CommonResult<List<PriceProductCalcRespDTO>> calcProductPricesResult = priceRpc.calcProductPrices(calcReqDTOs);
+        calcProductPricesResult.checkError();
+        return calcProductPricesResult.getData().stream()
+                .flatMap(calcRespDTO -> calcRespDTO.getItemGroups().stream())
+                .flatMap(itemGroup -> itemGroup.getItems().stream())
+                .collect(Collectors.toMap(PriceProductCalcRespDTO.Item::getSkuId, PriceProductCalcRespDTO.Item::getBuyPrice,
+                        Math::min));
+    }
+
+    /**
+     * 重建索引的批次
+     */
+    private static class RebuildBatch {
+
+        /**
+         * 批次中最大的商品 SPU 编号
+         */
+        private final Integer lastSpuId;
+        /**
+         * 批次的执行结果，为重建数量
+         */
+        private final Future<Integer> future;
+
+        private RebuildBatch(Integer lastSpuId, Future<Integer> future) {
+            this.lastSpuId = lastSpuId;
+            this.future = future;
+        }
+
     }
 
 }
@@ -1,30 +1,75 @@
 package cn.iocoder.mall.searchservice.mq.consumer;
 
+import cn.iocoder.mall.searchservice.common.batch.CoalescingBatcher;
 import cn.iocoder.mall.searchservice.manager.product.SearchProductManager;
 import cn.iocoder.mall.searchservice.mq.consumer.message.ProductUpdateMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.util.Assert;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 /**
  * 商品更新 Topic 的消费者，重建对应的商品的 ES 索引
+ *
+ * 同一个商品可能在短时间内被频繁更新（例如说，批量编辑、秒杀扣减库存），所以通过 {@link CoalescingBatcher} 将消息合并到时间窗口中，
+ * 按商品编号去重后，批量获取商品信息，并一次 _bulk 写入 ES。
+ * 消费线程会阻塞到所在窗口写入完成才返回，写入失败时抛出异常，由 RocketMQ 重新投递。
  */
 @Service
 @RocketMQMessageListener(
         topic = ProductUpdateMessage.TOPIC,
         consumerGroup = "${spring.application.name}-consumer-group-" + ProductUpdateMessage.TOPIC
 )
-public class ProductUpdateConsumer implements RocketMQListener<ProductUpdateMessage> {
+public class ProductUpdateConsumer implements RocketMQListener<MessageExt> {
+
+    /**
+     * 窗口的最大商品数量。需要小于消费线程数，否则窗口只能依靠超时关闭
+     */
+    private static final int WINDOW_MAX_SIZE = 50;
+    /**
+     * 窗口的最大延迟，单位：毫秒
+     */
+    private static final long WINDOW_MAX_DELAY_MILLIS = 200L;
+    /**
+     * 等待窗口写入完成的超时时间，单位：毫秒
+     */
+    private static final long WINDOW_FLUSH_TIMEOUT_MILLIS = 30 * 1000L;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
     @Autowired
     private SearchProductManager productSearchManager;
 
+    private CoalescingBatcher<Integer> productUpdateBatcher;
+
+    @PostConstruct
+    public void init() {
+        productUpdateBatcher = new CoalescingBatcher<>("search.product.update", WINDOW_MAX_SIZE, WINDOW_MAX_DELAY_MILLIS,
+                productSearchManager::saveProducts);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        productUpdateBatcher.shutdown();
+    }
+
     @Override
-    public void onMessage(ProductUpdateMessage message) {
-        Boolean result = productSearchManager.saveProduct(message.getId());
-        Assert.isTrue(result, String.format("重构商品(%d)的 ES 索引，必然成功。实际结果是 %s", message.getId(), result));
+    public void onMessage(MessageExt messageExt) {
+        // 直接接收 MessageExt，从而获得消息的产生时间，用于统计延迟
+        ProductUpdateMessage message;
+        try {
+            message = OBJECT_MAPPER.readValue(messageExt.getBody(), ProductUpdateMessage.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        productUpdateBatcher.submit(message.getId(), messageExt.getBornTimestamp(), WINDOW_FLUSH_TIMEOUT_MILLIS);
     }
 
 }
@@ -1,17 +1,22 @@
 package cn.iocoder.mall.searchservice.service.product;
 
 import cn.iocoder.common.framework.util.CollectionUtils;
+import cn.iocoder.common.framework.util.DateUtil;
 import cn.iocoder.common.framework.util.StringUtils;
 import cn.iocoder.common.framework.vo.PageResult;
 import cn.iocoder.common.framework.vo.SortingField;
 import cn.iocoder.mall.searchservice.convert.product.SearchProductConvert;
+import cn.iocoder.mall.searchservice.dal.es.dao.ESProductIndexDAO;
 import cn.iocoder.mall.searchservice.dal.es.dataobject.ESProductDO;
+import cn.iocoder.mall.searchservice.dal.es.dataobject.ESProductRebuildCheckpointDO;
+import cn.iocoder.mall.searchservice.dal.es.repository.ESProductRebuildCheckpointRepository;
 import cn.iocoder.mall.searchservice.dal.es.repository.ESProductRepository;
 import cn.iocoder.mall.searchservice.enums.product.SearchProductConditionFieldEnum;
 import cn.iocoder.mall.searchservice.enums.product.SearchProductPageQuerySortFieldEnum;
 import cn.iocoder.mall.searchservice.service.product.bo.SearchProductBO;
 import cn.iocoder.mall.searchservice.service.product.bo.SearchProductConditionBO;
 import cn.iocoder.mall.searchservice.service.product.bo.SearchProductPageQueryBO;
+import cn.iocoder.mall.searchservice.service.product.bo.SearchProductRebuildBO;
 import cn.iocoder.mall.searchservice.service.product.bo.SearchProductSaveBO;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.aggregations.Aggregation;
@@ -26,6 +31,8 @@ import org.springframework.util.Assert;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 @Service
@@ -34,6 +41,10 @@ public class SearchProductService {
     @Autowired
     private ESProductRepository productRepository;
     @Autowired
+    private ESProductRebuildCheckpointRepository productRebuildCheckpointRepository;
+    @Autowired
+    private ESProductIndexDAO productIndexDAO;
+    @Autowired
     private ElasticsearchTemplate elasticsearchTemplate; // 因为需要使用到聚合操作，只好引入 ElasticsearchTemplate 。
 
     /**
@@ -65,8 +76,92 @@ public class SearchProductService {
      * @param saveBO 商品信息
      */
     public void saveSearchProduct(SearchProductSaveBO saveBO) {
-        ESProductDO productDO = SearchProductConvert.INSTANCE.convert(saveBO);
-        productRepository.save(productDO);
+        saveSearchProducts(Collections.singletonList(saveBO));
+    }
+
+    /**
+     * 批量保存商品信息到 ES 中
+     *
+     * 以商品的更新时间作为外部版本号，所以和重建的批量写入并发时，旧的数据不会覆盖新的数据
+     *
+     * 重建过程中，同时写入重建中的索引，避免已经重建过的商品丢失本次修改。重建中的索引在写入别名之前获取：
+     * 1. 获取时未在重建：之后开始的重建，读取商品时本次修改已经可见
+     * 2. 获取时正在重建：即使写入别名之后，重建完成并删除了旧的索引，本次修改也已经写入新的索引
+     *
+     * @param saveBOs 商品信息数组
+     */
+    public void saveSearchProducts(List<SearchProductSaveBO> saveBOs) {
+        List<ESProductDO> productDOs = SearchProductConvert.INSTANCE.convertList02(saveBOs);
+        String rebuildIndexName = getRebuildIndexName();
+        productIndexDAO.bulkSave(ESProductIndexDAO.ALIAS, productDOs);
+        // 检查点可能残留自已经放弃的重建，此时索引已经被删除。_bulk 写入不存在的索引会以动态映射自动创建，所以需要先判断
+        if (rebuildIndexName != null && productIndexDAO.existsIndex(rebuildIndexName)) {
+            productIndexDAO.bulkSave(rebuildIndexName, productDOs);
+        }
+    }
+
+    /**
+     * 批量保存商品信息到指定索引中
+     *
+     * @param indexName 索引名
+     * @param saveBOs 商品信息数组
+     */
+    public void bulkSaveSearchProducts(String indexName, List<SearchProductSaveBO> saveBOs) {
+        productIndexDAO.bulkSave(indexName, SearchProductConvert.INSTANCE.convertList02(saveBOs));
+    }
+
+    /**
+     * 开始重建商品索引
+     *
+     * 如果存在未完成的重建，则从它的检查点继续；否则，创建新的索引
+     *
+     * @return 重建信息
+     */
+    public SearchProductRebuildBO startRebuild() {
+        ESProductRebuildCheckpointDO checkpointDO = productRebuildCheckpointRepository.findById(ESProductRebuildCheckpointDO.ID)
+                .orElse(null);
+        if (checkpointDO == null || !productIndexDAO.existsIndex(checkpointDO.getIndexName())) {
+            String indexName = ESProductIndexDAO.ALIAS + "_" + DateUtil.format(new Date(), "yyyyMMddHHmmss");
+            productIndexDAO.createIndex(indexName);
+            checkpointDO = new ESProductRebuildCheckpointDO().setId(ESProductRebuildCheckpointDO.ID).setIndexName(indexName)
+                    .setCount(0).setStartTime(System.currentTimeMillis());
+            productRebuildCheckpointRepository.save(checkpointDO);
+        }
+        return SearchProductConvert.INSTANCE.convert(checkpointDO);
+    }
+
+    /**
+     * 更新重建商品索引的检查点
+     *
+     * @param rebuildBO 重建信息
+     */
+    public void updateRebuildCheckpoint(SearchProductRebuildBO rebuildBO) {
+        productRebuildCheckpointRepository.save(SearchProductConvert.INSTANCE.convert(rebuildBO)
+                .setId(ESProductRebuildCheckpointDO.ID));
+    }
+
+    /**
+     * 完成重建商品索引，将别名切换到新的索引
+     *
+     * @param rebuildBO 重建信息
+     */
+    public void finishRebuild(SearchProductRebuildBO rebuildBO) {
+        productIndexDAO.switchAlias(rebuildBO.getIndexName());
+        productRebuildCheckpointRepository.deleteById(ESProductRebuildCheckpointDO.ID);
+    }
+
+    /**
+     * 获得重建中的索引名
+     *
+     * 重建可能发生在其它节点，所以每次都从检查点读取，不做缓存。
+     * ES 的 GET 是实时的，检查点保存后立即可见，避免其它节点在缓存期间遗漏写入重建中的索引。
+     * 保存商品已经通过 CoalescingBatcher 合并为批量，每批只读取一次，开销可以忽略
+     *
+     * @return 索引名。未在重建时，返回 null
+     */
+    private String getRebuildIndexName() {
+        return productRebuildCheckpointRepository.findById(ESProductRebuildCheckpointDO.ID)
+                .map(ESProductRebuildCheckpointDO::getIndexName).orElse(null);
     }
 
     /**
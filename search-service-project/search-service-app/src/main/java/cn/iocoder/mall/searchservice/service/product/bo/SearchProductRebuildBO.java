@@ -0,0 +1,30 @@
+package cn.iocoder.mall.searchservice.service.product.bo;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 商品索引重建 BO
+ */
+@Data
+@Accessors(chain = true)
+public class SearchProductRebuildBO {
+
+    /**
+     * 重建的目标索引名
+     */
+    private String indexName;
+    /**
+     * 已完成的最大商品 SPU 编号
+     */
+    private Integer lastSpuId;
+    /**
+     * 已重建的商品数量
+     */
+    private Integer count;
+    /**
+     * 开始时间，单位：毫秒
+     */
+    private Long startTime;
+
+}
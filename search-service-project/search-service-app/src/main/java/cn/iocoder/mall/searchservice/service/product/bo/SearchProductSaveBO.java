@@ -3,6 +3,7 @@ package cn.iocoder.mall.searchservice.service.product.bo;
 import lombok.Data;
 import lombok.experimental.Accessors;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -82,4 +83,11 @@ public class SearchProductSaveBO {
      */
     private Integer promotionActivityType;
 
+    /**
+     * 最后更新时间，取商品 SPU、SKU 中最大的更新时间
+     *
+     * 写入 ES 时作为外部版本号，避免旧的数据覆盖新的数据
+     */
+    private Date updateTime;
+
 }
@@ -0,0 +1,146 @@
+package cn.iocoder.mall.searchservice.common.batch;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * {@link CoalescingBatcher} 的单元测试
+ */
+public class CoalescingBatcherTest {
+
+    private final List<Set<Integer>> batches = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private CoalescingBatcher<Integer> batcher;
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testFlushBySize() throws Exception {
+        // 窗口的最大延迟很长，只能因为达到 maxSize 而触发批处理
+        batcher = new CoalescingBatcher<>("test", 3, 60_000, batches::add);
+        List<Future<?>> futures = submitAsync(1, 2, 3);
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals(Collections.singletonList(new HashSet<>(Arrays.asList(1, 2, 3))), batches);
+    }
+
+    @Test
+    public void testFlushByDelay() throws Exception {
+        batcher = new CoalescingBatcher<>("test", 100, 200, batches::add);
+        long startTime = System.currentTimeMillis();
+        List<Future<?>> futures = submitAsync(1, 2, 1, 2, 1);
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.SECONDS);
+        }
+        Assert.assertTrue(System.currentTimeMillis() - startTime >= 200);
+        // 窗口内重复的 key 被合并
+        Assert.assertEquals(Collections.singletonList(new HashSet<>(Arrays.asList(1, 2))), batches);
+    }
+
+    @Test
+    public void testFlushBySizeCountsDistinctKeys() throws Exception {
+        // 重复的 key 不计入窗口大小，所以窗口最终因为超时而触发批处理
+        batcher = new CoalescingBatcher<>("test", 2, 200, batches::add);
+        long startTime = System.currentTimeMillis();
+        List<Future<?>> futures = submitAsync(1, 1, 1);
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.SECONDS);
+        }
+        Assert.assertTrue(System.currentTimeMillis() - startTime >= 200);
+        Assert.assertEquals(Collections.singletonList(Collections.singleton(1)), batches);
+    }
+
+    @Test
+    public void testNewWindowAfterFlush() {
+        batcher = new CoalescingBatcher<>("test", 1, 60_000, batches::add);
+        batcher.submit(1, System.currentTimeMillis(), 1000);
+        batcher.submit(1, System.currentTimeMillis(), 1000);
+        // 批处理完成后提交的 key ，进入新的窗口
+        Assert.assertEquals(Arrays.asList(Collections.singleton(1), Collections.singleton(1)), batches);
+    }
+
+    @Test
+    public void testSubmitTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        batcher = new CoalescingBatcher<>("test", 1, 60_000, keys -> await(release));
+        try {
+            batcher.submit(1, System.currentTimeMillis(), 100);
+            Assert.fail("未抛出异常");
+        } catch (IllegalStateException ex) {
+            Assert.assertTrue(ex.getCause() instanceof TimeoutException);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testProcessorFailure() throws Exception {
+        IllegalArgumentException failure = new IllegalArgumentException("批处理失败");
+        batcher = new CoalescingBatcher<>("test", 2, 60_000, keys -> {
+            throw failure;
+        });
+        // 同一个窗口的提交方，都能感知到批处理失败
+        List<Future<?>> futures = submitAsync(1, 2);
+        for (Future<?> future : futures) {
+            try {
+                future.get(1, TimeUnit.SECONDS);
+                Assert.fail("未抛出异常");
+            } catch (ExecutionException ex) {
+                Assert.assertSame(failure, ex.getCause());
+            }
+        }
+    }
+
+    @Test
+    public void testProcessSerially() throws Exception {
+        // 前一个窗口的批处理未完成时，后一个窗口等待，不会并发执行
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> concurrency = new CopyOnWriteArrayList<>();
+        Semaphore running = new Semaphore(1);
+        Consumer<Set<Integer>> processor = keys -> {
+            concurrency.add(running.tryAcquire() ? 1 : 2);
+            await(release);
+            running.release();
+            batches.add(keys);
+        };
+        batcher = new CoalescingBatcher<>("test", 1, 60_000, processor);
+        List<Future<?>> futures = submitAsync(1, 2);
+        Thread.sleep(100);
+        release.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals(Arrays.asList(1, 1), concurrency);
+        Assert.assertEquals(2, batches.size());
+    }
+
+    private List<Future<?>> submitAsync(Integer... keys) {
+        List<Future<?>> futures = new ArrayList<>(keys.length);
+        for (Integer key : keys) {
+            futures.add(executor.submit(() -> batcher.submit(key, System.currentTimeMillis(), 1000)));
+        }
+        return futures;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package cn.iocoder.mall.searchservice.dal.es.dao;
+
+import cn.iocoder.mall.searchservice.dal.es.dataobject.ESProductDO;
+import org.elasticsearch.action.get.GetResponse;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * {@link ESProductIndexDAO} 的测试类，目前是集成测试类
+ *
+ * 在单独创建的索引中测试，测试结束后删除
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public class ESProductIndexDAOTest {
+
+    static {
+        System.setProperty("es.set.netty.runtime.available.processors", "false");
+    }
+
+    private static final String INDEX_NAME = ESProductIndexDAO.ALIAS + "_test";
+    private static final Integer PRODUCT_ID = 900_000_001;
+
+    @Autowired
+    private ESProductIndexDAO productIndexDAO;
+    @Autowired
+    private ElasticsearchTemplate elasticsearchTemplate;
+
+    @Before
+    public void setUp() {
+        if (productIndexDAO.existsIndex(INDEX_NAME)) {
+            elasticsearchTemplate.deleteIndex(INDEX_NAME);
+        }
+        productIndexDAO.createIndex(INDEX_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        elasticsearchTemplate.deleteIndex(INDEX_NAME);
+    }
+
+    @Test
+    public void testBulkSaveIgnoreOlderVersion() {
+        productIndexDAO.bulkSave(INDEX_NAME, Collections.singletonList(buildProduct("新", 2000L)));
+        // 版本号更小的数据，不会覆盖
+        Set<String> ignoredIds = productIndexDAO.bulkSave(INDEX_NAME, Collections.singletonList(buildProduct("旧", 1000L)));
+        Assert.assertEquals(Collections.singleton(String.valueOf(PRODUCT_ID)), ignoredIds);
+        assertProduct("新", 2000L);
+    }
+
+    @Test
+    public void testBulkSaveSameVersion() {
+        productIndexDAO.bulkSave(INDEX_NAME, Collections.singletonList(buildProduct("新", 2000L)));
+        // 版本号相同的数据，允许覆盖。例如说，促销活动变化时，商品的更新时间不变
+        Set<String> ignoredIds = productIndexDAO.bulkSave(INDEX_NAME, Collections.singletonList(buildProduct("促销", 2000L)));
+        Assert.assertTrue(ignoredIds.isEmpty());
+        assertProduct("促销", 2000L);
+    }
+
+    @Test
+    public void testBulkSaveNewerVersion() {
+        productIndexDAO.bulkSave(INDEX_NAME, Collections.singletonList(buildProduct("旧", 1000L)));
+        Set<String> ignoredIds = productIndexDAO.bulkSave(INDEX_NAME, Collections.singletonList(buildProduct("新", 2000L)));
+        Assert.assertTrue(ignoredIds.isEmpty());
+        assertProduct("新", 2000L);
+    }
+
+    private static ESProductDO buildProduct(String name, long updateTime) {
+        return new ESProductDO().setId(PRODUCT_ID).setName(name).setUpdateTime(new Date(updateTime));
+    }
+
+    private void assertProduct(String name, long version) {
+        // GET 是实时的，无需刷新
+        GetResponse response = elasticsearchTemplate.getClient().prepareGet(INDEX_NAME, ESProductIndexDAO.TYPE,
+                String.valueOf(PRODUCT_ID)).get();
+        Assert.assertTrue(response.isExists());
+        Assert.assertEquals(version, response.getVersion());
+        Assert.assertEquals(name, response.getSourceAsMap().get("name"));
+    }
+
+}
@@ -1,13 +1,22 @@
 package cn.iocoder.mall.searchservice.service.product;
 
+import cn.iocoder.mall.searchservice.dal.es.dao.ESProductIndexDAO;
+import cn.iocoder.mall.searchservice.dal.es.dataobject.ESProductRebuildCheckpointDO;
+import cn.iocoder.mall.searchservice.dal.es.repository.ESProductRebuildCheckpointRepository;
 import cn.iocoder.mall.searchservice.service.product.bo.SearchProductConditionBO;
+import cn.iocoder.mall.searchservice.service.product.bo.SearchProductSaveBO;
+import org.elasticsearch.action.get.GetResponse;
+import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import java.util.Collections;
+import java.util.Date;
 
 /**
  * {@link SearchProductService} 的测试类，目前是集成测试类
@@ -22,6 +31,12 @@ public class SearchProductServiceTest {
 
     @Autowired
     private SearchProductService searchProductService;
+    @Autowired
+    private ESProductRebuildCheckpointRepository productRebuildCheckpointRepository;
+    @Autowired
+    private ESProductIndexDAO productIndexDAO;
+    @Autowired
+    private ElasticsearchTemplate elasticsearchTemplate;
 
     @Test
     public void testGetSearchCondition() {
@@ -29,4 +44,55 @@ public class SearchProductServiceTest {
         System.out.println(conditionBO);
     }
 
+    @Test
+    public void testSaveSearchProductDuringRebuild() {
+        // 已经存在重建时跳过，避免删除真实的检查点与索引
+        Assume.assumeFalse(productRebuildCheckpointRepository.existsById(ESProductRebuildCheckpointDO.ID));
+        String indexName = ESProductIndexDAO.ALIAS + "_test_" + System.currentTimeMillis();
+        String id = "900000001";
+        productIndexDAO.createIndex(indexName);
+        try {
+            productRebuildCheckpointRepository.save(new ESProductRebuildCheckpointDO().setId(ESProductRebuildCheckpointDO.ID)
+                    .setIndexName(indexName).setCount(0).setStartTime(System.currentTimeMillis()));
+            // 重建过程中保存，需要同时写入重建中的索引
+            searchProductService.saveSearchProduct(new SearchProductSaveBO().setId(Integer.valueOf(id)).setName("测试")
+                    .setUpdateTime(new Date()));
+            Assert.assertTrue(getProduct(indexName, id).isExists());
+            Assert.assertTrue(getProduct(ESProductIndexDAO.ALIAS, id).isExists());
+        } finally {
+            // 放弃本次重建，不切换别名
+            productRebuildCheckpointRepository.deleteById(ESProductRebuildCheckpointDO.ID);
+            elasticsearchTemplate.deleteIndex(indexName);
+            elasticsearchTemplate.getClient().prepareDelete(ESProductIndexDAO.ALIAS, ESProductIndexDAO.TYPE, id).get();
+        }
+    }
+
+    @Test
+    public void testSaveSearchProductWithStaleCheckpoint() {
+        // 已经存在重建时跳过，避免删除真实的检查点
+        Assume.assumeFalse(productRebuildCheckpointRepository.existsById(ESProductRebuildCheckpointDO.ID));
+        String indexName = ESProductIndexDAO.ALIAS + "_test_" + System.currentTimeMillis();
+        String id = "900000002";
+        try {
+            // 检查点指向的索引不存在，例如放弃的重建
+            productRebuildCheckpointRepository.save(new ESProductRebuildCheckpointDO().setId(ESProductRebuildCheckpointDO.ID)
+                    .setIndexName(indexName).setCount(0).setStartTime(System.currentTimeMillis()));
+            searchProductService.saveSearchProduct(new SearchProductSaveBO().setId(Integer.valueOf(id)).setName("测试")
+                    .setUpdateTime(new Date()));
+            // 只写入别名，不会自动创建检查点指向的索引
+            Assert.assertTrue(getProduct(ESProductIndexDAO.ALIAS, id).isExists());
+            Assert.assertFalse(elasticsearchTemplate.indexExists(indexName));
+        } finally {
+            productRebuildCheckpointRepository.deleteById(ESProductRebuildCheckpointDO.ID);
+            if (elasticsearchTemplate.indexExists(indexName)) {
+                elasticsearchTemplate.deleteIndex(indexName);
+            }
+            elasticsearchTemplate.getClient().prepareDelete(ESProductIndexDAO.ALIAS, ESProductIndexDAO.TYPE, id).get();
+        }
+    }
+
+    private GetResponse getProduct(String indexName, String id) {
+        return elasticsearchTemplate.getClient().prepareGet(indexName, ESProductIndexDAO.TYPE, id).get();
+    }
+
 }
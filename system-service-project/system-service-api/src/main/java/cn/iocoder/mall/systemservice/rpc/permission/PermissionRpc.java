@@ -4,6 +4,7 @@ import cn.iocoder.common.framework.vo.CommonResult;
 import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionAssignAdminRoleDTO;
 import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionAssignRoleResourceDTO;
 import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionCheckDTO;
+import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionMatrixRespDTO;
 
 import java.util.Collection;
 import java.util.Map;
@@ -65,4 +66,13 @@ public interface PermissionRpc {
      */
     CommonResult<Boolean> checkPermission(PermissionCheckDTO checkDTO);
 
+    /**
+     * 获得权限矩阵
+     *
+     * Web 应用使用它在本地校验权限，避免每次请求都调用 {@link #checkPermission(PermissionCheckDTO)}
+     *
+     * @return 权限矩阵
+     */
+    CommonResult<PermissionMatrixRespDTO> getPermissionMatrix();
+
 }
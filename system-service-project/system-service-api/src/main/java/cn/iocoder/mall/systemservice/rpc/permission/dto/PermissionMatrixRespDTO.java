@@ -0,0 +1,47 @@
+package cn.iocoder.mall.systemservice.rpc.permission.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 权限矩阵 Response DTO
+ *
+ * 用于 Web 应用在本地构建 {@link cn.iocoder.mall.systemservice.rpc.permission.matrix.PermissionMatrix}，从而在本地校验权限
+ */
+@Data
+@Accessors(chain = true)
+public class PermissionMatrixRespDTO implements Serializable {
+
+    /**
+     * 版本号
+     */
+    private Long version;
+    /**
+     * 资源的权限标识
+     *
+     * key：资源编号
+     * value：权限标识。只包含配置了权限标识的资源
+     */
+    private Map<Integer, String> resourcePermissions;
+    /**
+     * 角色拥有的资源编号
+     *
+     * key：角色编号
+     */
+    private Map<Integer, Set<Integer>> roleResourceIds;
+    /**
+     * 超级管理员的角色编号
+     */
+    private Set<Integer> superAdminRoleIds;
+    /**
+     * 管理员拥有的角色编号
+     *
+     * key：管理员编号
+     */
+    private Map<Integer, Set<Integer>> adminRoleIds;
+
+}
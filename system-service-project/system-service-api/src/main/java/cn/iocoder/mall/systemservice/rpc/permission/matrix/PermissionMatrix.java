@@ -0,0 +1,232 @@
+package cn.iocoder.mall.systemservice.rpc.permission.matrix;
+
+import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionMatrixRespDTO;
+
+import java.util.*;
+
+/**
+ * 权限矩阵
+ *
+ * 将资源编号映射为连续的下标，每个角色拥有的资源编译为一个 {@link BitSet}，从而将权限校验转换为本地的位运算，无需查询数据库。
+ *
+ * 不可变对象，修改时返回新的权限矩阵，未修改的部分与原权限矩阵共享。
+ * 由 system-service 构建，通过 {@link PermissionMatrixRespDTO} 下发给 Web 应用。
+ */
+public final class PermissionMatrix {
+
+    private static final int[] EMPTY_INDEXES = new int[0];
+
+    /**
+     * 版本号，由 system-service 分配，各节点之间唯一
+     */
+    private final long version;
+    /**
+     * 下标对应的资源编号
+     */
+    private final int[] resourceIds;
+    /**
+     * 资源编号对应的下标
+     */
+    private final Map<Integer, Integer> resourceIndexes;
+    /**
+     * 权限标识对应的资源下标
+     */
+    private final Map<String, int[]> permissionIndexes;
+    /**
+     * 角色拥有的资源下标
+     */
+    private final Map<Integer, BitSet> roleResources;
+    /**
+     * 已授予任一角色的资源下标，即 {@link #roleResources} 的并集
+     */
+    private final BitSet grantedResources;
+    /**
+     * 超级管理员的角色编号
+     */
+    private final Set<Integer> superAdminRoleIds;
+    /**
+     * 管理员拥有的角色编号
+     */
+    private final Map<Integer, Set<Integer>> adminRoleIds;
+
+    private PermissionMatrix(long version, int[] resourceIds, Map<Integer, Integer> resourceIndexes,
+                             Map<String, int[]> permissionIndexes, Map<Integer, BitSet> roleResources, BitSet grantedResources,
+                             Set<Integer> superAdminRoleIds, Map<Integer, Set<Integer>> adminRoleIds) {
+        this.version = version;
+        this.resourceIds = resourceIds;
+        this.resourceIndexes = resourceIndexes;
+        this.permissionIndexes = permissionIndexes;
+        this.roleResources = roleResources;
+        this.grantedResources = grantedResources;
+        this.superAdminRoleIds = superAdminRoleIds;
+        this.adminRoleIds = adminRoleIds;
+    }
+
+    /**
+     * 构建权限矩阵
+     *
+     * @param version 版本号
+     * @param resourcePermissions 资源的权限标识。key 为资源编号
+     * @param roleResourceIds 角色拥有的资源编号。key 为角色编号
+     * @param superAdminRoleIds 超级管理员的角色编号
+     * @param adminRoleIds 管理员拥有的角色编号。key 为管理员编号
+     * @return 权限矩阵
+     */
+    public static PermissionMatrix build(long version, Map<Integer, String> resourcePermissions,
+                                         Map<Integer, Set<Integer>> roleResourceIds, Set<Integer> superAdminRoleIds,
+                                         Map<Integer, Set<Integer>> adminRoleIds) {
+        // 资源编号映射为连续的下标。只需要映射配置了权限标识的资源
+        int[] resourceIds = new int[resourcePermissions.size()];
+        Map<Integer, Integer> resourceIndexes = new HashMap<>(resourcePermissions.size() * 2);
+        Map<String, int[]> permissionIndexes = new HashMap<>(resourcePermissions.size() * 2);
+        int index = 0;
+        for (Map.Entry<Integer, String> entry : new TreeMap<>(resourcePermissions).entrySet()) {
+            resourceIds[index] = entry.getKey();
+            resourceIndexes.put(entry.getKey(), index);
+            // 相同权限标识，可能对应多个资源，需要同时拥有（未授予任何角色的资源除外）
+            int[] indexes = permissionIndexes.getOrDefault(entry.getValue(), EMPTY_INDEXES);
+            indexes = Arrays.copyOf(indexes, indexes.length + 1);
+            indexes[indexes.length - 1] = index;
+            permissionIndexes.put(entry.getValue(), indexes);
+            index++;
+        }
+        // 编译角色拥有的资源
+        Map<Integer, BitSet> roleResources = new HashMap<>(roleResourceIds.size() * 2);
+        roleResourceIds.forEach((roleId, roleResourceIdSet) -> roleResources.put(roleId, toBitSet(resourceIndexes, roleResourceIdSet)));
+        return new PermissionMatrix(version, resourceIds, resourceIndexes, permissionIndexes, roleResources,
+                union(roleResources.values()), new HashSet<>(superAdminRoleIds), new HashMap<>(adminRoleIds));
+    }
+
+    /**
+     * 从 {@link PermissionMatrixRespDTO} 构建权限矩阵
+     *
+     * @param respDTO 权限矩阵 DTO
+     * @return 权限矩阵
+     */
+    public static PermissionMatrix build(PermissionMatrixRespDTO respDTO) {
+        return build(respDTO.getVersion(), respDTO.getResourcePermissions(), respDTO.getRoleResourceIds(),
+                respDTO.getSuperAdminRoleIds(), respDTO.getAdminRoleIds());
+    }
+
+    /**
+     * 修改角色拥有的资源
+     *
+     * @param version 新的版本号
+     * @param roleId 角色编号
+     * @param roleResourceIds 资源编号，允许空
+     * @return 新的权限矩阵
+     */
+    public PermissionMatrix withRoleResourceIds(long version, Integer roleId, Collection<Integer> roleResourceIds) {
+        Map<Integer, BitSet> newRoleResources = new HashMap<>(roleResources);
+        newRoleResources.put(roleId, toBitSet(resourceIndexes, roleResourceIds != null ? roleResourceIds : Collections.emptySet()));
+        return new PermissionMatrix(version, resourceIds, resourceIndexes, permissionIndexes, newRoleResources,
+                union(newRoleResources.values()), superAdminRoleIds, adminRoleIds);
+    }
+
+    /**
+     * 修改管理员拥有的角色
+     *
+     * @param version 新的版本号
+     * @param adminId 管理员编号
+     * @param roleIds 角色编号，允许空
+     * @return 新的权限矩阵
+     */
+    public PermissionMatrix withAdminRoleIds(long version, Integer adminId, Collection<Integer> roleIds) {
+        Map<Integer, Set<Integer>> newAdminRoleIds = new HashMap<>(adminRoleIds);
+        newAdminRoleIds.put(adminId, roleIds != null ? new HashSet<>(roleIds) : Collections.emptySet());
+        return new PermissionMatrix(version, resourceIds, resourceIndexes, permissionIndexes, roleResources,
+                grantedResources, superAdminRoleIds, newAdminRoleIds);
+    }
+
+    /**
+     * 判断管理员是否拥有指定权限，和原先基于数据库的校验规则一致：
+     *
+     * 1. 管理员没有角色时，无权限；
+     * 2. 管理员拥有超级管理员角色时，拥有所有权限；
+     * 3. 权限标识都未配置对应资源时，无需校验；
+     * 4. 对应的资源都未授予任何角色时，无权限；
+     * 5. 否则，管理员的角色需要拥有已授予角色的所有对应资源。未授予任何角色的资源，不参与校验。
+     *
+     * @param adminId 管理员编号
+     * @param permissions 权限标识
+     * @return 是否拥有
+     */
+    public boolean hasPermission(Integer adminId, Collection<String> permissions) {
+        Set<Integer> roleIds = adminRoleIds.get(adminId);
+        if (roleIds == null || roleIds.isEmpty()) {
+            return false;
+        }
+        // 合并管理员所有角色拥有的资源
+        BitSet adminResources = new BitSet(resourceIds.length);
+        for (Integer roleId : roleIds) {
+            if (superAdminRoleIds.contains(roleId)) {
+                return true;
+            }
+            BitSet resources = roleResources.get(roleId);
+            if (resources != null) {
+                adminResources.or(resources);
+            }
+        }
+        // 校验权限标识对应的资源
+        boolean configured = false;
+        boolean granted = false;
+        for (String permission : permissions) {
+            for (int index : permissionIndexes.getOrDefault(permission, EMPTY_INDEXES)) {
+                configured = true;
+                if (!grantedResources.get(index)) { // 未授予任何角色的资源，跳过
+                    continue;
+                }
+                granted = true;
+                if (!adminResources.get(index)) {
+                    return false;
+                }
+            }
+        }
+        return !configured || granted;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 转换成 {@link PermissionMatrixRespDTO}
+     *
+     * @return 权限矩阵 DTO
+     */
+    public PermissionMatrixRespDTO toRespDTO() {
+        Map<Integer, String> resourcePermissions = new HashMap<>(resourceIds.length * 2);
+        permissionIndexes.forEach((permission, indexes) -> {
+            for (int index : indexes) {
+                resourcePermissions.put(resourceIds[index], permission);
+            }
+        });
+        Map<Integer, Set<Integer>> roleResourceIds = new HashMap<>(roleResources.size() * 2);
+        roleResources.forEach((roleId, resources) -> {
+            Set<Integer> roleResourceIdSet = new HashSet<>(resources.cardinality() * 2);
+            resources.stream().forEach(index -> roleResourceIdSet.add(resourceIds[index]));
+            roleResourceIds.put(roleId, roleResourceIdSet);
+        });
+        return new PermissionMatrixRespDTO().setVersion(version).setResourcePermissions(resourcePermissions)
+                .setRoleResourceIds(roleResourceIds).setSuperAdminRoleIds(new HashSet<>(superAdminRoleIds))
+                .setAdminRoleIds(new HashMap<>(adminRoleIds));
+    }
+
+    private static BitSet union(Collection<BitSet> bitSets) {
+        BitSet result = new BitSet();
+        bitSets.forEach(result::or);
+        return result;
+    }
+
+    private static BitSet toBitSet(Map<Integer, Integer> resourceIndexes, Collection<Integer> resourceIds) {
+        BitSet bitSet = new BitSet(resourceIndexes.size());
+        for (Integer resourceId : resourceIds) {
+            Integer index = resourceIndexes.get(resourceId);
+            if (index != null) { // 未配置权限标识的资源，无需编译
+                bitSet.set(index);
+            }
+        }
+        return bitSet;
+    }
+
+}
@@ -6,6 +6,8 @@ import cn.iocoder.mall.systemservice.rpc.systemlog.dto.SystemAccessLogCreateDTO;
 import cn.iocoder.mall.systemservice.rpc.systemlog.vo.SystemAccessLogPageDTO;
 import cn.iocoder.mall.systemservice.rpc.systemlog.vo.SystemAccessLogVO;
 
+import java.util.List;
+
 /**
 * 系统访问日志 Rpc 接口
 */
@@ -19,6 +21,14 @@ public interface SystemAccessLogRpc {
     */
     CommonResult<Boolean> createSystemAccessLog(SystemAccessLogCreateDTO createDTO);
 
+    /**
+    * 批量创建系统访问日志
+    *
+    * @param createDTOs 创建系统访问日志 DTO 数组
+    * @return 是否成功
+    */
+    CommonResult<Boolean> createSystemAccessLogs(List<SystemAccessLogCreateDTO> createDTOs);
+
     /**
     * 获得系统访问日志分页
     *
@@ -7,6 +7,8 @@ import cn.iocoder.mall.systemservice.rpc.systemlog.dto.SystemExceptionLogPageDTO
 import cn.iocoder.mall.systemservice.rpc.systemlog.dto.SystemExceptionLogProcessDTO;
 import cn.iocoder.mall.systemservice.rpc.systemlog.vo.SystemExceptionLogVO;
 
+import java.util.Date;
+
 /**
  * 系统异常日志 Rpc 接口
  */
@@ -24,9 +26,10 @@ public interface SystemExceptionLogRpc {
      * 获得系统异常日志
      *
      * @param systemExceptionLogId 系统异常日志编号
+     * @param exceptionTime 异常发生时间，用于定位分区。为空时，需要扫描所有分区
      * @return 系统异常日志
      */
-    CommonResult<SystemExceptionLogVO> getSystemExceptionLog(Integer systemExceptionLogId);
+    CommonResult<SystemExceptionLogVO> getSystemExceptionLog(Integer systemExceptionLogId, Date exceptionTime);
 
     /**
      * 获得系统异常日志分页
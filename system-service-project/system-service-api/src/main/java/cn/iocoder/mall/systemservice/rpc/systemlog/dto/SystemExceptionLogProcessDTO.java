@@ -8,6 +8,7 @@ import lombok.EqualsAndHashCode;
 import lombok.experimental.Accessors;
 
 import javax.validation.constraints.NotNull;
+import java.util.Date;
 
 /**
 * 系统异常日志处理 DTO
@@ -22,6 +23,10 @@ public class SystemExceptionLogProcessDTO extends PageParam {
      */
     @NotNull(message = "系统异常日志编号不能为空")
     private Integer logId;
+    /**
+     * 异常发生时间，用于定位分区。为空时，需要扫描所有分区
+     */
+    private Date exceptionTime;
     /**
      * 处理状态
      */
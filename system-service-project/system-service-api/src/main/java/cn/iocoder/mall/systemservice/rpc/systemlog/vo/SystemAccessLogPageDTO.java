@@ -5,6 +5,8 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.experimental.Accessors;
 
+import java.util.Date;
+
 /**
 * 系统访问日志分页 DTO
 */
@@ -25,5 +27,15 @@ public class SystemAccessLogPageDTO extends PageParam {
     * 应用名
     */
     private String applicationName;
+    /**
+    * 请求时间（开始）
+    *
+    * 日志表按请求时间分区，通过时间范围裁剪分区。和请求时间（结束）都不传时，默认查询最近两个月
+    */
+    private Date startBeginTime;
+    /**
+    * 请求时间（结束）
+    */
+    private Date startEndTime;
 
 }
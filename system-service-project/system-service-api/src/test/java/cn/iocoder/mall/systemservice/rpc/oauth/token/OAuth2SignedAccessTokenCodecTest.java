@@ -0,0 +1,95 @@
+package cn.iocoder.mall.systemservice.rpc.oauth.token;
+
+import cn.iocoder.mall.systemservice.rpc.oauth.dto.OAuth2AccessTokenRespDTO;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Base64;
+import java.util.Date;
+
+public class OAuth2SignedAccessTokenCodecTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private final OAuth2SignedAccessTokenCodec codec = new OAuth2SignedAccessTokenCodec(SECRET);
+
+    @Test
+    public void testEncodeAndDecode() {
+        Date expiresTime = new Date(System.currentTimeMillis() + 60_000);
+        String accessToken = codec.encode(10, 2, expiresTime);
+        Assert.assertTrue(OAuth2SignedAccessTokenCodec.isSigned(accessToken));
+        Assert.assertTrue(accessToken.length() <= 64); // oauth2_access_token.id 为 varchar(64)
+
+        OAuth2AccessTokenRespDTO accessTokenDTO = codec.decode(accessToken);
+        Assert.assertNotNull(accessTokenDTO);
+        Assert.assertEquals(accessToken, accessTokenDTO.getAccessToken());
+        Assert.assertEquals(Integer.valueOf(10), accessTokenDTO.getUserId());
+        Assert.assertEquals(Integer.valueOf(2), accessTokenDTO.getUserType());
+        Assert.assertEquals(expiresTime, accessTokenDTO.getExpiresTime());
+    }
+
+    @Test
+    public void testEncodeUnique() {
+        Date expiresTime = new Date(System.currentTimeMillis() + 60_000);
+        Assert.assertNotEquals(codec.encode(10, 2, expiresTime), codec.encode(10, 2, expiresTime));
+    }
+
+    @Test
+    public void testIsSigned() {
+        Assert.assertFalse(OAuth2SignedAccessTokenCodec.isSigned("0123456789abcdef0123456789abcdef"));
+        Assert.assertFalse(OAuth2SignedAccessTokenCodec.isSigned(".abc"));
+        Assert.assertTrue(OAuth2SignedAccessTokenCodec.isSigned("abc.def"));
+    }
+
+    @Test
+    public void testDecodeTamperedClaims() {
+        String accessToken = codec.encode(10, 2, new Date(System.currentTimeMillis() + 60_000));
+        int index = accessToken.indexOf('.');
+        byte[] claims = Base64.getUrlDecoder().decode(accessToken.substring(0, index));
+        claims[4] ^= 1; // 修改用户编号
+        String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(claims) + accessToken.substring(index);
+        Assert.assertNull(codec.decode(tampered));
+    }
+
+    @Test
+    public void testDecodeTamperedSignature() {
+        String accessToken = codec.encode(10, 2, new Date(System.currentTimeMillis() + 60_000));
+        int index = accessToken.indexOf('.');
+        byte[] signature = Base64.getUrlDecoder().decode(accessToken.substring(index + 1));
+        signature[signature.length - 1] ^= 1;
+        String tampered = accessToken.substring(0, index + 1) + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        Assert.assertNull(codec.decode(tampered));
+        // 截断签名
+        Assert.assertNull(codec.decode(accessToken.substring(0, accessToken.length() - 2)));
+    }
+
+    @Test
+    public void testDecodeMalformed() {
+        Assert.assertNull(codec.decode("0123456789abcdef0123456789abcdef"));
+        Assert.assertNull(codec.decode("!!!.???"));
+        Assert.assertNull(codec.decode("YWJj.ZGVm")); // claims 长度不正确
+    }
+
+    @Test
+    public void testDecodeWrongKey() {
+        String accessToken = codec.encode(10, 2, new Date(System.currentTimeMillis() + 60_000));
+        OAuth2SignedAccessTokenCodec otherCodec = new OAuth2SignedAccessTokenCodec("fedcba9876543210fedcba9876543210");
+        Assert.assertNull(otherCodec.decode(accessToken));
+    }
+
+    @Test
+    public void testDecodeExpired() {
+        // decode 只校验签名，不校验是否过期，由调用方比较过期时间
+        Date expiresTime = new Date(System.currentTimeMillis() - 1000);
+        OAuth2AccessTokenRespDTO accessTokenDTO = codec.decode(codec.encode(10, 2, expiresTime));
+        Assert.assertNotNull(accessTokenDTO);
+        Assert.assertEquals(expiresTime, accessTokenDTO.getExpiresTime());
+        Assert.assertTrue(accessTokenDTO.getExpiresTime().getTime() < System.currentTimeMillis());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShortSecret() {
+        new OAuth2SignedAccessTokenCodec("short");
+    }
+
+}
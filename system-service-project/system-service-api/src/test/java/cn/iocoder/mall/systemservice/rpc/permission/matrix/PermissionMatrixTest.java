@@ -0,0 +1,164 @@
+package cn.iocoder.mall.systemservice.rpc.permission.matrix;
+
+import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionMatrixRespDTO;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * {@link PermissionMatrix} 的单元测试
+ *
+ * 校验规则需要和原先基于数据库的 PermissionManager#checkPermission 保持一致
+ */
+public class PermissionMatrixTest {
+
+    private static final int SUPER_ADMIN_ROLE_ID = 1;
+    private static final int ROLE_ID_01 = 10;
+    private static final int ROLE_ID_02 = 11;
+
+    private static final int SUPER_ADMIN_ID = 100;
+    private static final int ADMIN_ID_01 = 101; // 拥有 ROLE_ID_01
+    private static final int ADMIN_ID_02 = 102; // 拥有 ROLE_ID_02
+    private static final int ADMIN_ID_NO_ROLE = 103;
+    private static final int ADMIN_ID_03 = 104; // 拥有 ROLE_ID_01、ROLE_ID_02
+
+    /**
+     * 权限矩阵：
+     *
+     * 1. admin:page 对应资源 1
+     * 2. admin:create 对应资源 2、3
+     * 3. role:page 对应资源 4 ，未授予任何角色
+     * 4. role:create 对应资源 5、6 ，其中资源 6 未授予任何角色
+     * 5. 资源 7 未配置权限标识
+     */
+    private final PermissionMatrix matrix = PermissionMatrix.build(1L,
+            map(1, "admin:page", 2, "admin:create", 3, "admin:create", 4, "role:page", 5, "role:create", 6, "role:create"),
+            map(SUPER_ADMIN_ROLE_ID, set(), ROLE_ID_01, set(1, 2, 3, 7), ROLE_ID_02, set(2, 5)),
+            set(SUPER_ADMIN_ROLE_ID),
+            map(SUPER_ADMIN_ID, set(SUPER_ADMIN_ROLE_ID), ADMIN_ID_01, set(ROLE_ID_01), ADMIN_ID_02, set(ROLE_ID_02),
+                    ADMIN_ID_NO_ROLE, set(), ADMIN_ID_03, set(ROLE_ID_01, ROLE_ID_02)));
+
+    @Test
+    public void testSuperAdmin() {
+        // 超级管理员拥有所有权限，包括对应资源未授予任何角色的
+        Assert.assertTrue(matrix.hasPermission(SUPER_ADMIN_ID, list("admin:create", "role:page", "not:configured")));
+    }
+
+    @Test
+    public void testNoRole() {
+        // 没有角色时，即使是未配置资源的权限标识，也无权限
+        Assert.assertFalse(matrix.hasPermission(ADMIN_ID_NO_ROLE, list("not:configured")));
+        Assert.assertFalse(matrix.hasPermission(999, list("not:configured")));
+        Assert.assertFalse(matrix.hasPermission(999, Collections.emptyList()));
+    }
+
+    @Test
+    public void testUnconfiguredPermission() {
+        Assert.assertTrue(matrix.hasPermission(ADMIN_ID_02, list("not:configured")));
+        Assert.assertTrue(matrix.hasPermission(ADMIN_ID_02, Collections.emptyList()));
+        // 部分权限标识未配置资源时，只校验已配置的
+        Assert.assertFalse(matrix.hasPermission(ADMIN_ID_02, list("not:configured", "admin:page")));
+    }
+
+    @Test
+    public void testMultiResource() {
+        // admin:create 对应资源 2、3 ，需要同时拥有
+        Assert.assertTrue(matrix.hasPermission(ADMIN_ID_01, list("admin:create")));
+        Assert.assertFalse(matrix.hasPermission(ADMIN_ID_02, list("admin:create")));
+        Assert.assertTrue(matrix.hasPermission(ADMIN_ID_03, list("admin:create")));
+        // 多个权限标识，需要同时拥有
+        Assert.assertTrue(matrix.hasPermission(ADMIN_ID_01, list("admin:page", "admin:create")));
+        Assert.assertFalse(matrix.hasPermission(ADMIN_ID_02, list("admin:page", "role:create")));
+        Assert.assertTrue(matrix.hasPermission(ADMIN_ID_03, list("admin:page", "role:create")));
+    }
+
+    @Test
+    public void testResourceGrantedToNoRole() {
+        // 对应资源都未授予任何角色时，无权限
+        Assert.assertFalse(matrix.hasPermission(ADMIN_ID_01, list("role:page")));
+        Assert.assertFalse(matrix.hasPermission(ADMIN_ID_03, list("role:page")));
+        // 未授予任何角色的资源 6 不参与校验，只校验资源 5
+        Assert.assertTrue(matrix.hasPermission(ADMIN_ID_02, list("role:create")));
+        Assert.assertFalse(matrix.hasPermission(ADMIN_ID_01, list("role:create")));
+        // 和其它已授予角色的资源一起校验时，同样跳过
+        Assert.assertTrue(matrix.hasPermission(ADMIN_ID_01, list("admin:page", "role:page")));
+    }
+
+    @Test
+    public void testWithRoleResourceIds() {
+        // 收回资源 2 后，资源 2 仍授予 ROLE_ID_02 ，所以需要校验
+        PermissionMatrix newMatrix = matrix.withRoleResourceIds(2L, ROLE_ID_01, set(1, 3));
+        Assert.assertEquals(2L, newMatrix.getVersion());
+        Assert.assertFalse(newMatrix.hasPermission(ADMIN_ID_01, list("admin:create")));
+        // 收回资源 3 后，资源 3 不再授予任何角色，不参与校验
+        Assert.assertTrue(matrix.withRoleResourceIds(2L, ROLE_ID_01, set(1, 2))
+                .hasPermission(ADMIN_ID_01, list("admin:create")));
+        // 原权限矩阵不变
+        Assert.assertEquals(1L, matrix.getVersion());
+        Assert.assertTrue(matrix.hasPermission(ADMIN_ID_01, list("admin:create")));
+        // 资源 4 授予角色后，参与校验
+        newMatrix = matrix.withRoleResourceIds(3L, ROLE_ID_02, set(2, 4, 5));
+        Assert.assertTrue(newMatrix.hasPermission(ADMIN_ID_02, list("role:page")));
+        Assert.assertFalse(newMatrix.hasPermission(ADMIN_ID_01, list("role:page")));
+        Assert.assertFalse(newMatrix.hasPermission(ADMIN_ID_01, list("admin:page", "role:page")));
+        // 收回角色的所有资源后，资源 5 不再授予任何角色
+        newMatrix = matrix.withRoleResourceIds(4L, ROLE_ID_02, null);
+        Assert.assertFalse(newMatrix.hasPermission(ADMIN_ID_02, list("role:create")));
+        Assert.assertTrue(newMatrix.hasPermission(ADMIN_ID_01, list("admin:page", "role:create")));
+    }
+
+    @Test
+    public void testWithAdminRoleIds() {
+        PermissionMatrix newMatrix = matrix.withAdminRoleIds(2L, ADMIN_ID_NO_ROLE, set(ROLE_ID_01));
+        Assert.assertEquals(2L, newMatrix.getVersion());
+        Assert.assertTrue(newMatrix.hasPermission(ADMIN_ID_NO_ROLE, list("admin:create")));
+        Assert.assertFalse(matrix.hasPermission(ADMIN_ID_NO_ROLE, list("admin:create")));
+        // 收回所有角色后，无权限
+        newMatrix = matrix.withAdminRoleIds(3L, ADMIN_ID_01, null);
+        Assert.assertFalse(newMatrix.hasPermission(ADMIN_ID_01, list("admin:page")));
+        // 授予超级管理员角色后，拥有所有权限
+        newMatrix = matrix.withAdminRoleIds(4L, ADMIN_ID_02, set(ROLE_ID_02, SUPER_ADMIN_ROLE_ID));
+        Assert.assertTrue(newMatrix.hasPermission(ADMIN_ID_02, list("admin:create", "role:page")));
+    }
+
+    @Test
+    public void testToRespDTO() {
+        PermissionMatrixRespDTO respDTO = matrix.toRespDTO();
+        Assert.assertEquals(Long.valueOf(1L), respDTO.getVersion());
+        Assert.assertEquals(6, respDTO.getResourcePermissions().size());
+        // 未配置权限标识的资源 7 ，不会下发
+        Assert.assertEquals(set(1, 2, 3), respDTO.getRoleResourceIds().get(ROLE_ID_01));
+        Assert.assertEquals(set(), respDTO.getRoleResourceIds().get(SUPER_ADMIN_ROLE_ID));
+        Assert.assertEquals(set(SUPER_ADMIN_ROLE_ID), respDTO.getSuperAdminRoleIds());
+        // 从 DTO 构建的权限矩阵，和原权限矩阵一致
+        PermissionMatrix newMatrix = PermissionMatrix.build(respDTO);
+        Assert.assertEquals(respDTO, newMatrix.toRespDTO());
+        List<Collection<String>> permissionsList = Arrays.asList(list("admin:page"), list("admin:create"), list("role:page"),
+                list("role:create"), list("admin:page", "role:page"), list("not:configured"));
+        for (int adminId : new int[]{SUPER_ADMIN_ID, ADMIN_ID_01, ADMIN_ID_02, ADMIN_ID_NO_ROLE, ADMIN_ID_03}) {
+            for (Collection<String> permissions : permissionsList) {
+                Assert.assertEquals(String.format("管理员(%d) 权限(%s)", adminId, permissions),
+                        matrix.hasPermission(adminId, permissions), newMatrix.hasPermission(adminId, permissions));
+            }
+        }
+    }
+
+    private static List<String> list(String... permissions) {
+        return Arrays.asList(permissions);
+    }
+
+    private static Set<Integer> set(Integer... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Map<Integer, V> map(Object... keyValues) {
+        Map<Integer, V> map = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            map.put((Integer) keyValues[i], (V) keyValues[i + 1]);
+        }
+        return map;
+    }
+
+}
@@ -0,0 +1,29 @@
+package cn.iocoder.mall.systemservice.config;
+
+import cn.iocoder.mall.systemservice.service.permission.PermissionMatrixService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+import static cn.iocoder.mall.systemservice.dal.redis.RedisKeyConstants.PERMISSION_MATRIX_CHANGE;
+
+@Configuration
+public class RedisConfiguration {
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       PermissionMatrixService permissionMatrixService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        // 其它 system-service 节点变更权限矩阵后，全量重建本节点的权限矩阵
+        container.addMessageListener((message, pattern) -> permissionMatrixService.onPermissionMatrixChange(
+                Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8))),
+                new ChannelTopic(PERMISSION_MATRIX_CHANGE.getKeyTemplate()));
+        return container;
+    }
+
+}
@@ -0,0 +1,9 @@
+package cn.iocoder.mall.systemservice.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling // 开启调度任务的功能，因为 PermissionMatrixService 通过定时全量重建权限矩阵
+public class ScheduleConfiguration {
+}
@@ -27,4 +27,32 @@ public class SystemBizProperties {
     @NotNull(message = "刷新令牌过期时间不能为空")
     private int refreshTokenExpireTimeMillis;
 
+    /**
+     * 是否签发签名访问令牌
+     *
+     * 开启后，访问令牌由 {@link #accessTokenSignSecret} 签名，Web 应用可在本地校验，无需调用 system-service
+     */
+    private boolean accessTokenSignEnable = false;
+    /**
+     * 签名访问令牌的密钥，需要和 Web 应用的 mall.security.token-cache.sign-secret 保持一致
+     */
+    private String accessTokenSignSecret;
+
+    /**
+     * 系统日志提前创建的分区月数
+     */
+    private int systemLogPartitionAheadMonths = 2;
+    /**
+     * 系统日志保留的月数，超过的分区会被归档后删除
+     */
+    private int systemLogRetainMonths = 6;
+    /**
+     * 删除分区前，是否将分区数据归档到本地压缩文件
+     */
+    private boolean systemLogArchiveEnable = true;
+    /**
+     * 系统日志的归档目录，每个分区归档为 {目录}/{表名}/{分区名}.json.gz
+     */
+    private String systemLogArchiveDir = "archive/system-log";
+
 }
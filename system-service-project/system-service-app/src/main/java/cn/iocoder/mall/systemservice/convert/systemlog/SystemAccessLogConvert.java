@@ -13,6 +13,8 @@ import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
+import java.util.List;
+
 @Mapper
 public interface SystemAccessLogConvert {
 
@@ -22,6 +24,10 @@ public interface SystemAccessLogConvert {
 
     SystemAccessLogCreateBO convert(SystemAccessLogCreateDTO bean);
 
+    List<SystemAccessLogDO> convertList(List<SystemAccessLogCreateBO> list);
+
+    List<SystemAccessLogCreateBO> convertList02(List<SystemAccessLogCreateDTO> list);
+
     @Mapping(source = "records", target = "list")
     PageResult<SystemAccessLogBO> convertPage(IPage<SystemAccessLogDO> page);
 
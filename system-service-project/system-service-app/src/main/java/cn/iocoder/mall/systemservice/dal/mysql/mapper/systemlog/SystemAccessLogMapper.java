@@ -1,9 +1,9 @@
 package cn.iocoder.mall.systemservice.dal.mysql.mapper.systemlog;
 
+import cn.iocoder.mall.mybatis.core.mapper.CommonMapper;
 import cn.iocoder.mall.mybatis.core.query.QueryWrapperX;
 import cn.iocoder.mall.systemservice.dal.mysql.dataobject.systemlog.SystemAccessLogDO;
 import cn.iocoder.mall.systemservice.service.systemlog.bo.SystemAccessLogPageBO;
-import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.springframework.stereotype.Repository;
@@ -12,7 +12,7 @@ import org.springframework.stereotype.Repository;
  * 系统访问日志 Mapper
  */
 @Repository
-public interface SystemAccessLogMapper extends BaseMapper<SystemAccessLogDO> {
+public interface SystemAccessLogMapper extends CommonMapper<SystemAccessLogDO> {
 
     default IPage<SystemAccessLogDO> selectPage(SystemAccessLogPageBO pageBO) {
         return selectPage(new Page<>(pageBO.getPageNo(), pageBO.getPageSize()),
@@ -20,6 +20,7 @@ public interface SystemAccessLogMapper extends BaseMapper<SystemAccessLogDO> {
                         .eqIfPresent("user_id", pageBO.getUserId())
                         .eqIfPresent("user_type", pageBO.getUserType())
                         .eqIfPresent("application_name", pageBO.getApplicationName())
+                        .betweenIfPresent("start_time", pageBO.getStartBeginTime(), pageBO.getStartEndTime())
                 .orderByDesc("start_time"));
     }
 
@@ -3,14 +3,43 @@ package cn.iocoder.mall.systemservice.dal.mysql.mapper.systemlog;
 import cn.iocoder.mall.mybatis.core.query.QueryWrapperX;
 import cn.iocoder.mall.systemservice.dal.mysql.dataobject.systemlog.SystemExceptionLogDO;
 import cn.iocoder.mall.systemservice.service.systemlog.bo.SystemExceptionLogPageBO;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
+
 @Repository
 public interface SystemExceptionLogMapper extends BaseMapper<SystemExceptionLogDO> {
 
+    /**
+     * 获得系统异常日志
+     *
+     * 表按 exception_time 分区，主键为 (id, exception_time) ，只按 id 查询时需要扫描所有分区
+     *
+     * @param id 编号
+     * @param exceptionTime 异常发生时间。为空时，扫描所有分区
+     * @return 系统异常日志
+     */
+    default SystemExceptionLogDO selectByIdAndExceptionTime(Integer id, Date exceptionTime) {
+        return selectOne(new QueryWrapperX<SystemExceptionLogDO>().eq("id", id)
+                .eqIfPresent("exception_time", exceptionTime));
+    }
+
+    /**
+     * 更新系统异常日志，只访问 exception_time 所在的分区
+     *
+     * @param update 更新的字段
+     * @param id 编号
+     * @param exceptionTime 异常发生时间
+     * @return 更新数量
+     */
+    default int updateByIdAndExceptionTime(SystemExceptionLogDO update, Integer id, Date exceptionTime) {
+        return update(update, new QueryWrapper<SystemExceptionLogDO>().eq("id", id).eq("exception_time", exceptionTime));
+    }
+
     default IPage<SystemExceptionLogDO> selectPage(SystemExceptionLogPageBO pageBO) {
         return selectPage(new Page<>(pageBO.getPageNo(), pageBO.getPageSize()),
                 new QueryWrapperX<SystemExceptionLogDO>()
@@ -18,6 +47,7 @@ public interface SystemExceptionLogMapper extends BaseMapper<SystemExceptionLogD
                         .eqIfPresent("user_type", pageBO.getUserType())
                         .eqIfPresent("application_name", pageBO.getApplicationName())
                         .eqIfPresent("process_status", pageBO.getProcessStatus())
+                        .betweenIfPresent("exception_time", pageBO.getExceptionBeginTime(), pageBO.getExceptionEndTime())
                         .orderByDesc("exception_time"));
     }
 
@@ -0,0 +1,53 @@
+package cn.iocoder.mall.systemservice.dal.mysql.mapper.systemlog;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 系统日志分区 Mapper
+ *
+ * system_access_log、system_exception_log 按月 RANGE 分区，分区名为 p{yyyyMM}，另有 p_max 兜底分区。
+ * 表名、分区名由 SystemLogPartitionService 生成，不接收外部输入
+ */
+@Repository
+public interface SystemLogPartitionMapper {
+
+    /**
+     * 获得表的分区名数组，按分区顺序排列
+     *
+     * @param tableName 表名
+     * @return 分区名数组。表未分区时，返回空数组
+     */
+    List<String> selectPartitionNames(@Param("tableName") String tableName);
+
+    /**
+     * 从 p_max 分区拆分出新的分区
+     *
+     * @param tableName 表名
+     * @param partitions 新的分区，key 为分区名，value 为分区上界（不包含）
+     */
+    void addPartitions(@Param("tableName") String tableName, @Param("partitions") Map<String, String> partitions);
+
+    /**
+     * 删除分区，分区中的数据一并删除
+     *
+     * @param tableName 表名
+     * @param partitionName 分区名
+     */
+    void dropPartition(@Param("tableName") String tableName, @Param("partitionName") String partitionName);
+
+    /**
+     * 流式读取分区中的所有数据
+     *
+     * @param tableName 表名
+     * @param partitionName 分区名
+     * @param handler 每行数据的处理器
+     */
+    void selectListByPartition(@Param("tableName") String tableName, @Param("partitionName") String partitionName,
+                               ResultHandler<Map<String, Object>> handler);
+
+}
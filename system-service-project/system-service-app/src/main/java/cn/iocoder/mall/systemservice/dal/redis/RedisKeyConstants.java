@@ -5,7 +5,9 @@ import cn.iocoder.mall.systemservice.dal.mysql.dataobject.oauth.OAuth2AccessToke
 
 import java.time.Duration;
 
+import static cn.iocoder.mall.redis.core.RedisKeyDefine.KeyTypeEnum.PUBSUB;
 import static cn.iocoder.mall.redis.core.RedisKeyDefine.KeyTypeEnum.STRING;
+import static cn.iocoder.mall.redis.core.RedisKeyDefine.KeyTypeEnum.ZSET;
 
 /**
  * Redis Key 枚举类
@@ -21,4 +23,37 @@ public interface RedisKeyConstants {
      */
     RedisKeyDefine OAUTH2_ACCESS_TOKEN = new RedisKeyDefine("oauth2_access_token:%s", STRING, OAuth2AccessTokenDO.class, Duration.ofHours(2));
 
+    /**
+     * {@link OAuth2AccessTokenDO} 删除的通知 Channel，消息内容为被删除的访问令牌
+     *
+     * 由 mall-spring-boot-starter-security-core 订阅，用于移除 Web 应用中访问令牌的本地缓存
+     */
+    RedisKeyDefine OAUTH2_ACCESS_TOKEN_INVALIDATE = new RedisKeyDefine("oauth2_access_token_invalidate", PUBSUB, String.class,
+            RedisKeyDefine.TIMEOUT_FOREVER);
+
+    /**
+     * 已吊销的签名访问令牌
+     *
+     * member 为访问令牌，score 为其过期时间。已过期的访问令牌无需吊销，写入时顺带清理
+     * 由 mall-spring-boot-starter-security-core 在启动时及定期全量加载，作为本地吊销名单的数据，补偿丢失的失效通知
+     */
+    RedisKeyDefine OAUTH2_ACCESS_TOKEN_REVOKED = new RedisKeyDefine("oauth2_access_token_revoked", ZSET, String.class,
+            RedisKeyDefine.TIMEOUT_FOREVER);
+
+    /**
+     * 权限矩阵变更的通知 Channel，消息内容为变更后的版本号
+     *
+     * 由 system-service 各节点订阅，用于重建权限矩阵；由 mall-spring-boot-starter-security-admin 订阅，用于重新拉取权限矩阵
+     */
+    RedisKeyDefine PERMISSION_MATRIX_CHANGE = new RedisKeyDefine("permission_matrix_change", PUBSUB, String.class,
+            RedisKeyDefine.TIMEOUT_FOREVER);
+
+    /**
+     * 权限矩阵的版本号，通过 INCR 分配，保证 system-service 各节点之间不重复
+     *
+     * 节点收到 {@link #PERMISSION_MATRIX_CHANGE} 通知时，版本号和本地相同，说明是本节点发布的，无需重建
+     */
+    RedisKeyDefine PERMISSION_MATRIX_VERSION = new RedisKeyDefine("permission_matrix_version", STRING, Long.class,
+            RedisKeyDefine.TIMEOUT_FOREVER);
+
 }
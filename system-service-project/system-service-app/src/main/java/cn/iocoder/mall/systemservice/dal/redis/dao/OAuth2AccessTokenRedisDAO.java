@@ -6,7 +6,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
+
 import static cn.iocoder.mall.systemservice.dal.redis.RedisKeyConstants.OAUTH2_ACCESS_TOKEN;
+import static cn.iocoder.mall.systemservice.dal.redis.RedisKeyConstants.OAUTH2_ACCESS_TOKEN_INVALIDATE;
+import static cn.iocoder.mall.systemservice.dal.redis.RedisKeyConstants.OAUTH2_ACCESS_TOKEN_REVOKED;
 
 @Repository
 public class OAuth2AccessTokenRedisDAO {
@@ -29,6 +33,28 @@ public class OAuth2AccessTokenRedisDAO {
         redisTemplate.delete(redisKey);
     }
 
+    /**
+     * 发布访问令牌删除的通知
+     *
+     * @param accessToken 访问令牌
+     */
+    public void publishInvalidate(String accessToken) {
+        redisTemplate.convertAndSend(OAUTH2_ACCESS_TOKEN_INVALIDATE.getKeyTemplate(), accessToken);
+    }
+
+    /**
+     * 吊销签名访问令牌
+     *
+     * @param accessToken 访问令牌
+     * @param expiresTime 过期时间
+     */
+    public void addRevoked(String accessToken, Date expiresTime) {
+        String redisKey = OAUTH2_ACCESS_TOKEN_REVOKED.getKeyTemplate();
+        redisTemplate.opsForZSet().add(redisKey, accessToken, expiresTime.getTime());
+        // 清理已过期的访问令牌，保证吊销名单足够短
+        redisTemplate.opsForZSet().removeRangeByScore(redisKey, 0, System.currentTimeMillis());
+    }
+
     private static String formatKey(String accessToken) {
         return String.format(OAUTH2_ACCESS_TOKEN.getKeyTemplate(), accessToken);
     }
@@ -0,0 +1,34 @@
+package cn.iocoder.mall.systemservice.dal.redis.dao;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import static cn.iocoder.mall.systemservice.dal.redis.RedisKeyConstants.PERMISSION_MATRIX_CHANGE;
+import static cn.iocoder.mall.systemservice.dal.redis.RedisKeyConstants.PERMISSION_MATRIX_VERSION;
+
+@Repository
+public class PermissionMatrixRedisDAO {
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    /**
+     * 分配新的权限矩阵版本号
+     *
+     * @return 版本号，各节点之间单调递增、不重复
+     */
+    public long incrementVersion() {
+        return redisTemplate.opsForValue().increment(PERMISSION_MATRIX_VERSION.getKeyTemplate());
+    }
+
+    /**
+     * 发布权限矩阵变更的通知
+     *
+     * @param version 变更后的版本号
+     */
+    public void publishChange(long version) {
+        redisTemplate.convertAndSend(PERMISSION_MATRIX_CHANGE.getKeyTemplate(), String.valueOf(version));
+    }
+
+}
@@ -1,11 +1,12 @@
 package cn.iocoder.mall.systemservice.manager.permission;
 
-import cn.hutool.core.collection.CollectionUtil;
 import cn.iocoder.common.framework.exception.GlobalException;
 import cn.iocoder.common.framework.util.CollectionUtils;
 import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionAssignAdminRoleDTO;
 import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionAssignRoleResourceDTO;
 import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionCheckDTO;
+import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionMatrixRespDTO;
+import cn.iocoder.mall.systemservice.service.permission.PermissionMatrixService;
 import cn.iocoder.mall.systemservice.service.permission.PermissionService;
 import cn.iocoder.mall.systemservice.service.permission.ResourceService;
 import cn.iocoder.mall.systemservice.service.permission.RoleService;
@@ -32,6 +33,8 @@ public class PermissionManager {
     private RoleService roleService;
     @Autowired
     private ResourceService resourceService;
+    @Autowired
+    private PermissionMatrixService permissionMatrixService;
 
     /**
      * 获得角色拥有的资源编号
@@ -55,6 +58,8 @@ public class PermissionManager {
      */
     public void assignRoleResource(PermissionAssignRoleResourceDTO assignResourceDTO) {
         permissionService.assignRoleResource(assignResourceDTO.getRoleId(), assignResourceDTO.getResourceIds());
+        // 更新权限矩阵
+        permissionMatrixService.updateRoleResourceIds(assignResourceDTO.getRoleId(), assignResourceDTO.getResourceIds());
     }
 
     /**
@@ -85,6 +90,8 @@ public class PermissionManager {
      */
     public void assignAdminRole(PermissionAssignAdminRoleDTO assignAdminRoleDTO) {
         permissionService.assignAdminRole(assignAdminRoleDTO.getAdminId(), assignAdminRoleDTO.getRoleIds());
+        // 更新权限矩阵
+        permissionMatrixService.updateAdminRoleIds(assignAdminRoleDTO.getAdminId(), assignAdminRoleDTO.getRoleIds());
     }
 
     /**
@@ -95,17 +102,19 @@ public class PermissionManager {
      * @param checkDTO 校验权限 DTO
      */
     public void checkPermission(PermissionCheckDTO checkDTO) {
-        // 查询管理员拥有的角色关联数据
-        Set<Integer> roleIds = permissionService.listAdminRoleIds(checkDTO.getAdminId());
-        if (CollectionUtil.isEmpty(roleIds)) { // 如果没有角色，默认无法访问
+        // 基于内存中的权限矩阵校验，无需查询数据库
+        if (!permissionMatrixService.getPermissionMatrix().hasPermission(checkDTO.getAdminId(), checkDTO.getPermissions())) {
             throw new GlobalException(FORBIDDEN);
         }
-        // 判断是否为超管。若是超管，默认有所有权限
-        if (roleService.hasSuperAdmin(roleIds)) {
-            return;
-        }
-        // 校验权限
-        permissionService.checkPermission(roleIds, checkDTO.getPermissions());
+    }
+
+    /**
+     * 获得权限矩阵
+     *
+     * @return 权限矩阵
+     */
+    public PermissionMatrixRespDTO getPermissionMatrix() {
+        return permissionMatrixService.getPermissionMatrix().toRespDTO();
     }
 
 }
@@ -4,6 +4,7 @@ import cn.iocoder.mall.systemservice.convert.permission.ResourceConvert;
 import cn.iocoder.mall.systemservice.rpc.permission.dto.ResourceCreateDTO;
 import cn.iocoder.mall.systemservice.rpc.permission.dto.ResourceUpdateDTO;
 import cn.iocoder.mall.systemservice.rpc.permission.vo.ResourceVO;
+import cn.iocoder.mall.systemservice.service.permission.PermissionMatrixService;
 import cn.iocoder.mall.systemservice.service.permission.ResourceService;
 import cn.iocoder.mall.systemservice.service.permission.RoleService;
 import cn.iocoder.mall.systemservice.service.permission.bo.ResourceBO;
@@ -23,6 +24,8 @@ public class ResourceManager {
     private ResourceService resourceService;
     @Autowired
     private RoleService roleService;
+    @Autowired
+    private PermissionMatrixService permissionMatrixService;
 
     /**
     * 创建资源
@@ -32,6 +35,8 @@ public class ResourceManager {
     */
     public Integer createResource(ResourceCreateDTO createDTO) {
         ResourceBO resourceBO = resourceService.createResource(ResourceConvert.INSTANCE.convert(createDTO));
+        // 重建权限矩阵
+        permissionMatrixService.refreshPermissionMatrix();
         return resourceBO.getId();
     }
 
@@ -42,6 +47,8 @@ public class ResourceManager {
      */
     public void updateResource(ResourceUpdateDTO updateDTO) {
         resourceService.updateResource(ResourceConvert.INSTANCE.convert(updateDTO));
+        // 重建权限矩阵
+        permissionMatrixService.refreshPermissionMatrix();
     }
 
     /**
@@ -51,6 +58,8 @@ public class ResourceManager {
      */
     public void deleteResource(Integer resourceId) {
         resourceService.deleteResource(resourceId);
+        // 重建权限矩阵
+        permissionMatrixService.refreshPermissionMatrix();
     }
 
     /**
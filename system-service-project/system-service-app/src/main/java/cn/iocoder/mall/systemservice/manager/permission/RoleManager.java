@@ -6,6 +6,7 @@ import cn.iocoder.mall.systemservice.rpc.permission.dto.RolePageDTO;
 import cn.iocoder.mall.systemservice.rpc.permission.dto.RoleUpdateDTO;
 import cn.iocoder.mall.systemservice.rpc.permission.vo.RoleCreateDTO;
 import cn.iocoder.mall.systemservice.rpc.permission.vo.RoleVO;
+import cn.iocoder.mall.systemservice.service.permission.PermissionMatrixService;
 import cn.iocoder.mall.systemservice.service.permission.RoleService;
 import cn.iocoder.mall.systemservice.service.permission.bo.RoleBO;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +24,8 @@ public class RoleManager {
 
     @Autowired
     private RoleService roleService;
+    @Autowired
+    private PermissionMatrixService permissionMatrixService;
 
     /**
     * 创建角色
@@ -42,6 +45,8 @@ public class RoleManager {
     */
     public void updateRole(RoleUpdateDTO updateDTO) {
         roleService.updateRole(RoleConvert.INSTANCE.convert(updateDTO));
+        // 重建权限矩阵
+        permissionMatrixService.refreshPermissionMatrix();
     }
 
     /**
@@ -51,6 +56,8 @@ public class RoleManager {
     */
     public void deleteRole(Integer roleId) {
         roleService.deleteRole(roleId);
+        // 重建权限矩阵
+        permissionMatrixService.refreshPermissionMatrix();
     }
 
     /**
@@ -10,6 +10,8 @@ import cn.iocoder.mall.systemservice.service.systemlog.bo.SystemAccessLogBO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * 系统访问日志 Manager
  */
@@ -28,6 +30,15 @@ public class SystemAccessLogManager {
         systemAccessLogService.createSystemAccessLog(SystemAccessLogConvert.INSTANCE.convert(createDTO));
     }
 
+    /**
+     * 批量创建系统访问日志
+     *
+     * @param createDTOs 创建系统访问日志 DTO 数组
+     */
+    public void createSystemAccessLogs(List<SystemAccessLogCreateDTO> createDTOs) {
+        systemAccessLogService.createSystemAccessLogs(SystemAccessLogConvert.INSTANCE.convertList02(createDTOs));
+    }
+
     /**
      * 获得系统访问日志分页
      *
@@ -11,6 +11,8 @@ import cn.iocoder.mall.systemservice.service.systemlog.bo.SystemExceptionLogBO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
+
 /**
  * 系统异常日志 Manager
  */
@@ -33,10 +35,11 @@ public class SystemExceptionLogManager {
      * 获得系统异常日志
      *
      * @param systemExceptionLogId 系统异常日志编号
+     * @param exceptionTime 异常发生时间，用于定位分区
      * @return 系统异常日志
      */
-    public SystemExceptionLogVO getSystemExceptionLog(Integer systemExceptionLogId) {
-        SystemExceptionLogBO systemExceptionLogBO = systemExceptionLogService.getSystemExceptionLog(systemExceptionLogId);
+    public SystemExceptionLogVO getSystemExceptionLog(Integer systemExceptionLogId, Date exceptionTime) {
+        SystemExceptionLogBO systemExceptionLogBO = systemExceptionLogService.getSystemExceptionLog(systemExceptionLogId, exceptionTime);
         return SystemExceptionLogConvert.INSTANCE.convert(systemExceptionLogBO);
     }
 
@@ -57,7 +60,8 @@ public class SystemExceptionLogManager {
      * @param processDTO 处理 DTO
      */
     public void processSystemExceptionLog(SystemExceptionLogProcessDTO processDTO) {
-        systemExceptionLogService.processSystemExceptionLog(processDTO.getLogId(), processDTO.getProcessAdminId(),
+        systemExceptionLogService.processSystemExceptionLog(processDTO.getLogId(), processDTO.getExceptionTime(),
+                processDTO.getProcessAdminId(),
                 processDTO.getProcessStatus());
     }
 
@@ -5,6 +5,7 @@ import cn.iocoder.mall.systemservice.manager.permission.PermissionManager;
 import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionAssignAdminRoleDTO;
 import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionAssignRoleResourceDTO;
 import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionCheckDTO;
+import cn.iocoder.mall.systemservice.rpc.permission.dto.PermissionMatrixRespDTO;
 import org.apache.dubbo.config.annotation.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -56,4 +57,9 @@ public class PermissionRpcImpl implements PermissionRpc {
         return success(true);
     }
 
+    @Override
+    public CommonResult<PermissionMatrixRespDTO> getPermissionMatrix() {
+        return success(permissionManager.getPermissionMatrix());
+    }
+
 }
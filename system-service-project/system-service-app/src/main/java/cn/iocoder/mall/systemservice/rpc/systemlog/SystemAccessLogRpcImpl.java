@@ -9,6 +9,8 @@ import cn.iocoder.mall.systemservice.rpc.systemlog.vo.SystemAccessLogVO;
 import org.apache.dubbo.config.annotation.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.List;
+
 import static cn.iocoder.common.framework.vo.CommonResult.success;
 
 /**
@@ -26,6 +28,12 @@ public class SystemAccessLogRpcImpl implements SystemAccessLogRpc {
         return success(true);
     }
 
+    @Override
+    public CommonResult<Boolean> createSystemAccessLogs(List<SystemAccessLogCreateDTO> createDTOs) {
+        systemAccessLogManager.createSystemAccessLogs(createDTOs);
+        return success(true);
+    }
+
     @Override
     public CommonResult<PageResult<SystemAccessLogVO>> pageSystemAccessLog(SystemAccessLogPageDTO pageDTO) {
         return success(systemAccessLogManager.pageSystemAccessLog(pageDTO));
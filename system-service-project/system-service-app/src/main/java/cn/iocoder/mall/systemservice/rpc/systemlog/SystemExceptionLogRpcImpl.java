@@ -10,6 +10,8 @@ import cn.iocoder.mall.systemservice.rpc.systemlog.vo.SystemExceptionLogVO;
 import org.apache.dubbo.config.annotation.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Date;
+
 import static cn.iocoder.common.framework.vo.CommonResult.success;
 
 @Service(version = "${dubbo.provider.SystemExceptionLogRpc.version}")
@@ -25,8 +27,8 @@ public class SystemExceptionLogRpcImpl implements SystemExceptionLogRpc {
     }
 
     @Override
-    public CommonResult<SystemExceptionLogVO> getSystemExceptionLog(Integer systemExceptionLogId) {
-        return success(systemExceptionLogManager.getSystemExceptionLog(systemExceptionLogId));
+    public CommonResult<SystemExceptionLogVO> getSystemExceptionLog(Integer systemExceptionLogId, Date exceptionTime) {
+        return success(systemExceptionLogManager.getSystemExceptionLog(systemExceptionLogId, exceptionTime));
     }
 
     @Override
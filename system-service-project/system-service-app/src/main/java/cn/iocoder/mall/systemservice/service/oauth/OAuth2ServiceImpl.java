@@ -13,10 +13,15 @@ import cn.iocoder.mall.systemservice.rpc.oauth.dto.OAuth2AccessTokenRespDTO;
 import cn.iocoder.mall.systemservice.rpc.oauth.dto.OAuth2CreateAccessTokenReqDTO;
 import cn.iocoder.mall.systemservice.rpc.oauth.dto.OAuth2RefreshAccessTokenReqDTO;
 import cn.iocoder.mall.systemservice.rpc.oauth.dto.OAuth2RemoveTokenByUserReqDTO;
+import cn.iocoder.mall.systemservice.rpc.oauth.token.OAuth2SignedAccessTokenCodec;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
 
+import javax.annotation.PostConstruct;
 import java.util.Date;
 import java.util.List;
 
@@ -39,6 +44,20 @@ public class OAuth2ServiceImpl implements OAuth2Service {
     @Autowired
     private OAuth2AccessTokenRedisDAO oauth2AccessTokenRedisDAO;
 
+    /**
+     * 签名访问令牌的编解码器。未开启签名访问令牌时，为 null
+     */
+    private OAuth2SignedAccessTokenCodec signedAccessTokenCodec;
+
+    @PostConstruct
+    public void initSignedAccessTokenCodec() {
+        if (!systemBizProperties.isAccessTokenSignEnable()) {
+            return;
+        }
+        Assert.hasText(systemBizProperties.getAccessTokenSignSecret(), "开启签名访问令牌时，签名密钥不能为空");
+        signedAccessTokenCodec = new OAuth2SignedAccessTokenCodec(systemBizProperties.getAccessTokenSignSecret());
+    }
+
     @Override
     @Transactional
     public OAuth2AccessTokenRespDTO createAccessToken(OAuth2CreateAccessTokenReqDTO createAccessTokenDTO) {
@@ -51,7 +70,6 @@ public class OAuth2ServiceImpl implements OAuth2Service {
     }
 
     @Override
-    @Transactional
     public OAuth2AccessTokenRespDTO checkAccessToken(String accessToken) {
         OAuth2AccessTokenDO accessTokenDO = this.getOAuth2AccessToken(accessToken);
         if (accessTokenDO == null) { // 不存在
@@ -102,11 +120,12 @@ public class OAuth2ServiceImpl implements OAuth2Service {
     }
 
     private OAuth2AccessTokenDO createOAuth2AccessToken(OAuth2RefreshTokenDO refreshTokenDO, String createIp) {
+        Date expiresTime = new Date(System.currentTimeMillis() + systemBizProperties.getAccessTokenExpireTimeMillis());
         OAuth2AccessTokenDO accessToken = new OAuth2AccessTokenDO()
-                .setId(generateAccessToken())
+                .setId(generateAccessToken(refreshTokenDO.getUserId(), refreshTokenDO.getUserType(), expiresTime))
                 .setUserId(refreshTokenDO.getUserId()).setUserType(refreshTokenDO.getUserType())
                 .setRefreshToken(refreshTokenDO.getId())
-                .setExpiresTime(new Date(System.currentTimeMillis() + systemBizProperties.getAccessTokenExpireTimeMillis()))
+                .setExpiresTime(expiresTime)
                 .setCreateIp(createIp);
         oauth2AccessTokenMapper.insert(accessToken);
         return accessToken;
@@ -148,9 +167,31 @@ public class OAuth2ServiceImpl implements OAuth2Service {
         oauth2AccessTokenMapper.deleteById(accessToken);
         // 删除 Redis
         oauth2AccessTokenRedisDAO.delete(accessToken);
+        // 签名访问令牌由 Web 应用在本地校验，需要加入吊销名单
+        OAuth2AccessTokenRespDTO signedAccessToken = signedAccessTokenCodec != null && OAuth2SignedAccessTokenCodec.isSigned(accessToken)
+                ? signedAccessTokenCodec.decode(accessToken) : null;
+        if (signedAccessToken != null) {
+            oauth2AccessTokenRedisDAO.addRevoked(accessToken, signedAccessToken.getExpiresTime());
+        }
+        // 通知 Web 应用移除本地缓存。在事务提交后发布，避免 Web 应用在提交前回源，又读到 MySQL 中尚未删除的访问令牌
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            oauth2AccessTokenRedisDAO.publishInvalidate(accessToken);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                oauth2AccessTokenRedisDAO.publishInvalidate(accessToken);
+            }
+
+        });
     }
 
-    private static String generateAccessToken() {
+    private String generateAccessToken(Integer userId, Integer userType, Date expiresTime) {
+        if (signedAccessTokenCodec != null) {
+            return signedAccessTokenCodec.encode(userId, userType, expiresTime);
+        }
         return StringUtils.uuid(true);
     }
 
@@ -0,0 +1,147 @@
+package cn.iocoder.mall.systemservice.service.permission;
+
+import cn.iocoder.common.framework.util.CollectionUtils;
+import cn.iocoder.mall.systemservice.dal.mysql.dataobject.permission.AdminRoleDO;
+import cn.iocoder.mall.systemservice.dal.mysql.dataobject.permission.ResourceDO;
+import cn.iocoder.mall.systemservice.dal.mysql.dataobject.permission.RoleDO;
+import cn.iocoder.mall.systemservice.dal.mysql.dataobject.permission.RoleResourceDO;
+import cn.iocoder.mall.systemservice.dal.mysql.mapper.permission.AdminRoleMapper;
+import cn.iocoder.mall.systemservice.dal.mysql.mapper.permission.ResourceMapper;
+import cn.iocoder.mall.systemservice.dal.mysql.mapper.permission.RoleMapper;
+import cn.iocoder.mall.systemservice.dal.mysql.mapper.permission.RoleResourceMapper;
+import cn.iocoder.mall.systemservice.dal.redis.dao.PermissionMatrixRedisDAO;
+import cn.iocoder.mall.systemservice.enums.permission.RoleCodeEnum;
+import cn.iocoder.mall.systemservice.rpc.permission.matrix.PermissionMatrix;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 权限矩阵 Service
+ *
+ * 在内存中维护编译好的 {@link PermissionMatrix}，权限校验无需查询数据库。
+ * 角色、资源、分配关系变更后，需要调用本 Service 更新权限矩阵，并通过 Redis Pub/Sub 通知其它 system-service 节点与 Web 应用。
+ *
+ * 版本号通过 Redis INCR 分配，各节点之间不重复，所以收到的通知版本号和本地相同时，才是本节点发布的通知。
+ */
+@Service
+@Slf4j
+public class PermissionMatrixService {
+
+    /**
+     * 定时全量重建权限矩阵的周期，单位：毫秒。用于兜底 Redis Pub/Sub 的通知丢失
+     */
+    private static final long RELOAD_PERMISSION_MATRIX_PERIOD = 5 * 60 * 1000L;
+
+    @Autowired
+    private RoleMapper roleMapper;
+    @Autowired
+    private ResourceMapper resourceMapper;
+    @Autowired
+    private AdminRoleMapper adminRoleMapper;
+    @Autowired
+    private RoleResourceMapper roleResourceMapper;
+
+    @Autowired
+    private PermissionMatrixRedisDAO permissionMatrixRedisDAO;
+
+    /**
+     * 权限矩阵
+     */
+    private volatile PermissionMatrix permissionMatrix;
+
+    @PostConstruct
+    public void initPermissionMatrix() {
+        reloadPermissionMatrix();
+    }
+
+    /**
+     * 从数据库全量重建权限矩阵
+     */
+    @Scheduled(fixedDelay = RELOAD_PERMISSION_MATRIX_PERIOD, initialDelay = RELOAD_PERMISSION_MATRIX_PERIOD)
+    public synchronized void reloadPermissionMatrix() {
+        // 查询资源、角色、分配关系
+        List<ResourceDO> resourceDOs = resourceMapper.selectList(null);
+        List<RoleDO> roleDOs = roleMapper.selectList(null);
+        List<RoleResourceDO> roleResourceDOs = roleResourceMapper.selectList(null);
+        List<AdminRoleDO> adminRoleDOs = adminRoleMapper.selectList(null);
+        // 构建权限矩阵
+        Map<Integer, String> resourcePermissions = resourceDOs.stream().filter(resourceDO -> StringUtils.hasText(resourceDO.getPermission()))
+                .collect(Collectors.toMap(ResourceDO::getId, ResourceDO::getPermission));
+        Set<Integer> superAdminRoleIds = roleDOs.stream().filter(roleDO -> RoleCodeEnum.SUPER_ADMIN.getCode().equals(roleDO.getCode()))
+                .map(RoleDO::getId).collect(Collectors.toSet());
+        permissionMatrix = PermissionMatrix.build(permissionMatrixRedisDAO.incrementVersion(), resourcePermissions,
+                CollectionUtils.convertMultiMap2(roleResourceDOs, RoleResourceDO::getRoleId, RoleResourceDO::getResourceId),
+                superAdminRoleIds,
+                CollectionUtils.convertMultiMap2(adminRoleDOs, AdminRoleDO::getAdminId, AdminRoleDO::getRoleId));
+        log.info("[reloadPermissionMatrix][重建权限矩阵({}) 完成，资源 {} 个，角色资源 {} 个，管理员角色 {} 个]", permissionMatrix.getVersion(),
+                resourcePermissions.size(), roleResourceDOs.size(), adminRoleDOs.size());
+    }
+
+    /**
+     * 处理权限矩阵变更的通知
+     *
+     * @param version 变更后的版本号
+     */
+    public void onPermissionMatrixChange(long version) {
+        if (version == permissionMatrix.getVersion()) { // 本节点发布的通知，无需重建
+            return;
+        }
+        reloadPermissionMatrix();
+    }
+
+    /**
+     * 获得权限矩阵
+     *
+     * @return 权限矩阵
+     */
+    public PermissionMatrix getPermissionMatrix() {
+        return permissionMatrix;
+    }
+
+    /**
+     * 更新角色拥有的资源，需要在赋予角色资源的事务提交后调用
+     *
+     * @param roleId 角色编号
+     * @param resourceIds 资源编号列表
+     */
+    public void updateRoleResourceIds(Integer roleId, Collection<Integer> resourceIds) {
+        long version = permissionMatrixRedisDAO.incrementVersion();
+        synchronized (this) {
+            permissionMatrix = permissionMatrix.withRoleResourceIds(version, roleId, resourceIds);
+        }
+        permissionMatrixRedisDAO.publishChange(version);
+    }
+
+    /**
+     * 更新管理员拥有的角色，需要在赋予管理员角色的事务提交后调用
+     *
+     * @param adminId 管理员编号
+     * @param roleIds 角色编号列表
+     */
+    public void updateAdminRoleIds(Integer adminId, Collection<Integer> roleIds) {
+        long version = permissionMatrixRedisDAO.incrementVersion();
+        synchronized (this) {
+            permissionMatrix = permissionMatrix.withAdminRoleIds(version, adminId, roleIds);
+        }
+        permissionMatrixRedisDAO.publishChange(version);
+    }
+
+    /**
+     * 全量重建权限矩阵，用于角色、资源变更后。需要在变更的事务提交后调用
+     */
+    public void refreshPermissionMatrix() {
+        reloadPermissionMatrix();
+        permissionMatrixRedisDAO.publishChange(permissionMatrix.getVersion());
+    }
+
+}
@@ -1,12 +1,10 @@
 package cn.iocoder.mall.systemservice.service.permission;
 
 import cn.hutool.core.collection.CollectionUtil;
-import cn.iocoder.common.framework.exception.GlobalException;
 import cn.iocoder.common.framework.util.CollectionUtils;
 import cn.iocoder.common.framework.exception.util.ServiceExceptionUtil;
 import cn.iocoder.mall.systemservice.dal.mysql.dataobject.admin.AdminDO;
 import cn.iocoder.mall.systemservice.dal.mysql.dataobject.permission.AdminRoleDO;
-import cn.iocoder.mall.systemservice.dal.mysql.dataobject.permission.ResourceDO;
 import cn.iocoder.mall.systemservice.dal.mysql.dataobject.permission.RoleDO;
 import cn.iocoder.mall.systemservice.dal.mysql.dataobject.permission.RoleResourceDO;
 import cn.iocoder.mall.systemservice.dal.mysql.mapper.admin.AdminMapper;
@@ -22,7 +20,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
 import java.util.stream.Collectors;
 
-import static cn.iocoder.common.framework.exception.enums.GlobalErrorCodeConstants.FORBIDDEN;
 import static cn.iocoder.mall.systemservice.enums.SystemErrorCodeConstants.*;
 
 /**
@@ -141,26 +138,4 @@ public class PermissionService {
         return  CollectionUtils.convertMultiMap2(adminRoleDOs, AdminRoleDO::getAdminId, AdminRoleDO::getRoleId);
     }
 
-    public void checkPermission(Collection<Integer> roleIds, Collection<String> permissions) {
-        // 查询权限对应资源
-        List<ResourceDO> resourceBOs = resourceMapper.selectListByPermissions(permissions);
-        if (CollectionUtil.isEmpty(resourceBOs)) { // 无对应资源，则认为无需权限验证
-            log.warn("[checkPermission][permission({}) 未配置对应资源]", permissions);
-            return;
-        }
-        Set<Integer> permissionIds = CollectionUtils.convertSet(resourceBOs, ResourceDO::getId);
-        // 权限验证
-        List<RoleResourceDO> roleResourceDOs = roleResourceMapper.selectListByResourceIds(permissionIds);
-        if (CollectionUtil.isEmpty(roleResourceDOs)) { // 资源未授予任何角色，必然权限验证不通过
-            throw new GlobalException(FORBIDDEN);
-        }
-        Map<Integer, List<Integer>> resourceRoleMap = CollectionUtils.convertMultiMap(roleResourceDOs,
-                RoleResourceDO::getResourceId, RoleResourceDO::getRoleId);
-        for (Map.Entry<Integer, List<Integer>> entry : resourceRoleMap.entrySet()) {
-            if (!CollectionUtil.containsAny(roleIds, entry.getValue())) { // 所以有任一不满足，就验证失败，抛出异常
-                throw new GlobalException(FORBIDDEN);
-            }
-        }
-    }
-
 }
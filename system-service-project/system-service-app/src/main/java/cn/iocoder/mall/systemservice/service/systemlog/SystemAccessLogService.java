@@ -1,5 +1,6 @@
 package cn.iocoder.mall.systemservice.service.systemlog;
 
+import cn.iocoder.common.framework.util.DateUtil;
 import cn.iocoder.common.framework.vo.PageResult;
 import cn.iocoder.mall.systemservice.convert.systemlog.SystemAccessLogConvert;
 import cn.iocoder.mall.systemservice.dal.mysql.dataobject.systemlog.SystemAccessLogDO;
@@ -10,6 +11,11 @@ import cn.iocoder.mall.systemservice.service.systemlog.bo.SystemAccessLogPageBO;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
 
 /**
  * 系统访问日志 Service
@@ -30,6 +36,33 @@ public class SystemAccessLogService {
         systemAccessLogMapper.insert(logDO);
     }
 
+    /**
+     * 批量创建系统访问日志
+     *
+     * 基于 {@link SystemAccessLogMapper#insertByBatch} 一条 SQL 写入，供 Web 应用批量上报使用
+     *
+     * @param createBOs 创建系统访问日志 BO 数组
+     */
+    public void createSystemAccessLogs(List<SystemAccessLogCreateBO> createBOs) {
+        if (CollectionUtils.isEmpty(createBOs)) {
+            return;
+        }
+        List<SystemAccessLogDO> logDOs = SystemAccessLogConvert.INSTANCE.convertList(createBOs);
+        // 批量插入会写入所有字段，无法像 insert 一样跳过 null 字段而使用数据库默认值，所以需要手动补全
+        Date now = new Date();
+        logDOs.forEach(logDO -> {
+            logDO.setQueryString(defaultString(logDO.getQueryString()))
+                    .setUserAgent(defaultString(logDO.getUserAgent()))
+                    .setIp(defaultString(logDO.getIp()))
+                    .setCreateTime(now).setUpdateTime(now);
+        });
+        systemAccessLogMapper.insertByBatch(logDOs);
+    }
+
+    private static String defaultString(String str) {
+        return str != null ? str : "";
+    }
+
     /**
      * 获得系统访问日志分页
      *
@@ -37,6 +70,10 @@ public class SystemAccessLogService {
      * @return 系统访问日志分页结果
      */
     public PageResult<SystemAccessLogBO> pageSystemAccessLog(SystemAccessLogPageBO pageBO) {
+        // 未指定时间范围时，默认查询最近两个月，避免扫描所有分区
+        if (pageBO.getStartBeginTime() == null && pageBO.getStartEndTime() == null) {
+            pageBO.setStartBeginTime(DateUtil.getDayBegin(DateUtil.addDate(Calendar.MONTH, -2)));
+        }
         IPage<SystemAccessLogDO> systemAccessLogDOPage = systemAccessLogMapper.selectPage(pageBO);
         return SystemAccessLogConvert.INSTANCE.convertPage(systemAccessLogDOPage);
     }
@@ -1,6 +1,7 @@
 package cn.iocoder.mall.systemservice.service.systemlog;
 
 import cn.iocoder.common.framework.exception.util.ServiceExceptionUtil;
+import cn.iocoder.common.framework.util.DateUtil;
 import cn.iocoder.common.framework.vo.PageResult;
 import cn.iocoder.mall.systemservice.convert.systemlog.SystemExceptionLogConvert;
 import cn.iocoder.mall.systemservice.dal.mysql.dataobject.systemlog.SystemExceptionLogDO;
@@ -13,6 +14,9 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Calendar;
+import java.util.Date;
+
 import static cn.iocoder.mall.systemservice.enums.SystemErrorCodeConstants.SYSTEM_EXCEPTION_LOG_NOT_FOUND;
 import static cn.iocoder.mall.systemservice.enums.SystemErrorCodeConstants.SYSTEM_EXCEPTION_LOG_PROCESSED;
 
@@ -39,12 +43,15 @@ public class SystemExceptionLogService {
     /**
      * 处理系统异常日志
      *
+     * system_exception_log 按 exception_time 分区，读取、更新时都带上 exception_time ，只访问所在的分区
+     *
      * @param logId 日志编号
+     * @param exceptionTime 异常发生时间，用于定位分区。为空时，读取需要扫描所有分区
      * @param processAdminId 处理管理员编号
      * @param processStatus 处理状态
      */
-    public void processSystemExceptionLog(Integer logId, Integer processAdminId, Integer processStatus) {
-        SystemExceptionLogDO logDO = systemExceptionLogMapper.selectById(logId);
+    public void processSystemExceptionLog(Integer logId, Date exceptionTime, Integer processAdminId, Integer processStatus) {
+        SystemExceptionLogDO logDO = systemExceptionLogMapper.selectByIdAndExceptionTime(logId, exceptionTime);
         if (logDO == null) {
             throw ServiceExceptionUtil.exception(SYSTEM_EXCEPTION_LOG_NOT_FOUND);
         }
@@ -52,9 +59,9 @@ public class SystemExceptionLogService {
             throw ServiceExceptionUtil.exception(SYSTEM_EXCEPTION_LOG_PROCESSED);
         }
         // 标记处理
-        SystemExceptionLogDO updateObj = new SystemExceptionLogDO().setId(logId)
+        SystemExceptionLogDO updateObj = new SystemExceptionLogDO()
                 .setProcessAdminId(processAdminId).setProcessStatus(processStatus);
-        systemExceptionLogMapper.updateById(updateObj);
+        systemExceptionLogMapper.updateByIdAndExceptionTime(updateObj, logId, logDO.getExceptionTime());
     }
 
     /**
@@ -64,12 +71,23 @@ public class SystemExceptionLogService {
      * @return 系统异常日志分页结果
      */
     public PageResult<SystemExceptionLogBO> pageSystemExceptionLog(SystemExceptionLogPageBO pageBO) {
+        // 未指定时间范围时，默认查询最近两个月，避免扫描所有分区
+        if (pageBO.getExceptionBeginTime() == null && pageBO.getExceptionEndTime() == null) {
+            pageBO.setExceptionBeginTime(DateUtil.getDayBegin(DateUtil.addDate(Calendar.MONTH, -2)));
+        }
         IPage<SystemExceptionLogDO> systemExceptionLogDOPage = systemExceptionLogMapper.selectPage(pageBO);
         return SystemExceptionLogConvert.INSTANCE.convertPage(systemExceptionLogDOPage);
     }
 
-    public SystemExceptionLogBO getSystemExceptionLog(Integer logId) {
-        SystemExceptionLogDO logDO = systemExceptionLogMapper.selectById(logId);
+    /**
+     * 获得系统异常日志
+     *
+     * @param logId 日志编号
+     * @param exceptionTime 异常发生时间，用于定位分区。为空时，需要扫描所有分区
+     * @return 系统异常日志
+     */
+    public SystemExceptionLogBO getSystemExceptionLog(Integer logId, Date exceptionTime) {
+        SystemExceptionLogDO logDO = systemExceptionLogMapper.selectByIdAndExceptionTime(logId, exceptionTime);
         return SystemExceptionLogConvert.INSTANCE.convert(logDO);
     }
 }
@@ -0,0 +1,170 @@
+package cn.iocoder.mall.systemservice.service.systemlog;
+
+import cn.iocoder.mall.systemservice.config.SystemBizProperties;
+import cn.iocoder.mall.systemservice.dal.mysql.mapper.systemlog.SystemLogPartitionMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 系统日志分区 Service
+ *
+ * system_access_log、system_exception_log 按月 RANGE 分区，每天执行一次维护：
+ * 1. 滚动：从 p_max 分区中，提前拆分出未来 {@link SystemBizProperties#getSystemLogPartitionAheadMonths()} 个月的分区
+ * 2. 归档：超过 {@link SystemBizProperties#getSystemLogRetainMonths()} 个月的分区，导出到本地压缩文件后删除
+ *
+ * 维护的 DDL 是幂等的，多个实例同时执行时，失败的实例在下一次执行时会重新检查
+ */
+@Service
+@Slf4j
+public class SystemLogPartitionService {
+
+    /**
+     * 按月分区的表
+     */
+    private static final List<String> TABLE_NAMES = Arrays.asList("system_access_log", "system_exception_log");
+    /**
+     * 兜底分区名
+     */
+    private static final String MAX_PARTITION_NAME = "p_max";
+    private static final DateTimeFormatter PARTITION_NAME_FORMATTER = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    @Autowired
+    private SystemLogPartitionMapper systemLogPartitionMapper;
+    @Autowired
+    private SystemBizProperties systemBizProperties;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @PostConstruct
+    public void init() {
+        maintainPartitions();
+    }
+
+    /**
+     * 维护所有系统日志表的分区
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void maintainPartitions() {
+        YearMonth now = YearMonth.now();
+        for (String tableName : TABLE_NAMES) {
+            try {
+                createPartitions(tableName, now);
+                archivePartitions(tableName, now);
+            } catch (Throwable th) {
+                log.error("[maintainPartitions][表({}) 维护分区发生异常]", tableName, th);
+            }
+        }
+    }
+
+    /**
+     * 提前创建分区，保证写入的日志不会落到 p_max 分区
+     *
+     * @param tableName 表名
+     * @param now 当前月份
+     */
+    public void createPartitions(String tableName, YearMonth now) {
+        List<String> partitionNames = systemLogPartitionMapper.selectPartitionNames(tableName);
+        if (!partitionNames.contains(MAX_PARTITION_NAME)) {
+            log.warn("[createPartitions][表({}) 未按月分区，跳过]", tableName);
+            return;
+        }
+        // 只能从 p_max 向后拆分，所以从已有的最后一个月份分区之后开始创建
+        YearMonth from = now;
+        for (String partitionName : partitionNames) {
+            YearMonth month = parsePartitionMonth(partitionName);
+            if (month != null && !month.isBefore(from)) {
+                from = month.plusMonths(1);
+            }
+        }
+        Map<String, String> partitions = new LinkedHashMap<>();
+        YearMonth to = now.plusMonths(systemBizProperties.getSystemLogPartitionAheadMonths());
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            partitions.put(month.format(PARTITION_NAME_FORMATTER), month.plusMonths(1).atDay(1).toString());
+        }
+        if (partitions.isEmpty()) {
+            return;
+        }
+        systemLogPartitionMapper.addPartitions(tableName, partitions);
+        log.info("[createPartitions][表({}) 创建分区({})]", tableName, partitions.keySet());
+    }
+
+    /**
+     * 归档并删除过期的分区
+     *
+     * @param tableName 表名
+     * @param now 当前月份
+     */
+    public void archivePartitions(String tableName, YearMonth now) throws IOException {
+        YearMonth expireMonth = now.minusMonths(systemBizProperties.getSystemLogRetainMonths());
+        for (String partitionName : systemLogPartitionMapper.selectPartitionNames(tableName)) {
+            YearMonth month = parsePartitionMonth(partitionName);
+            if (month == null || !month.isBefore(expireMonth)) {
+                continue;
+            }
+            if (systemBizProperties.isSystemLogArchiveEnable()) {
+                Path file = archivePartition(tableName, partitionName);
+                log.info("[archivePartitions][表({}) 分区({}) 归档到({})]", tableName, partitionName, file);
+            }
+            systemLogPartitionMapper.dropPartition(tableName, partitionName);
+            log.info("[archivePartitions][表({}) 删除分区({})]", tableName, partitionName);
+        }
+    }
+
+    /**
+     * 将分区数据导出为 gzip 压缩的 JSON Lines 文件
+     *
+     * 先写入临时文件，完成后再重命名，避免中途失败留下不完整的归档
+     */
+    private Path archivePartition(String tableName, String partitionName) throws IOException {
+        Path file = Paths.get(systemBizProperties.getSystemLogArchiveDir(), tableName, partitionName + ".json.gz");
+        Files.createDirectories(file.getParent());
+        Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(tmpFile)), StandardCharsets.UTF_8))) {
+            systemLogPartitionMapper.selectListByPartition(tableName, partitionName, context -> {
+                try {
+                    writer.write(objectMapper.writeValueAsString(context.getResultObject()));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static YearMonth parsePartitionMonth(String partitionName) {
+        if (MAX_PARTITION_NAME.equals(partitionName)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partitionName, PARTITION_NAME_FORMATTER);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+}
@@ -5,6 +5,8 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.experimental.Accessors;
 
+import java.util.Date;
+
 /**
 * 系统异常日志分页 BO
 */
@@ -31,5 +33,15 @@ public class SystemExceptionLogPageBO extends PageParam {
     * 处理状态
     */
     private Integer processStatus;
+    /**
+    * 异常时间（开始）
+    *
+    * 日志表按异常时间分区，通过时间范围裁剪分区。和异常时间（结束）都不传时，默认查询最近两个月
+    */
+    private Date exceptionBeginTime;
+    /**
+    * 异常时间（结束）
+    */
+    private Date exceptionEndTime;
 
 }
@@ -42,7 +42,7 @@ CREATE TABLE `admin_department` (
 -- ----------------------------
 DROP TABLE IF EXISTS `oauth2_access_token`;
 CREATE TABLE `oauth2_access_token` (
-  `id` varchar(32) NOT NULL COMMENT '访问令牌',
+  `id` varchar(64) NOT NULL COMMENT '访问令牌',
   `user_id` int(11) NOT NULL COMMENT '用户编号',
   `user_type` tinyint(4) NOT NULL COMMENT '用户类型',
   `refresh_token` varchar(32) NOT NULL COMMENT '刷新令牌',
@@ -159,8 +159,11 @@ CREATE TABLE `system_access_log` (
   `error_message` varchar(512) DEFAULT NULL COMMENT '错误提示',
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '最后更新时间',
-  PRIMARY KEY (`id`) USING BTREE
-) ENGINE=InnoDB AUTO_INCREMENT=87141 DEFAULT CHARSET=utf8mb4 COMMENT='系统访问日志';
+  PRIMARY KEY (`id`, `start_time`) USING BTREE
+) ENGINE=InnoDB AUTO_INCREMENT=87141 DEFAULT CHARSET=utf8mb4 COMMENT='系统访问日志'
+PARTITION BY RANGE COLUMNS(`start_time`) (
+  PARTITION p_max VALUES LESS THAN (MAXVALUE) -- 按月的分区由 SystemLogPartitionService 自动从 p_max 拆分
+);
 
 -- ----------------------------
 -- Table structure for system_data_dict
@@ -221,7 +224,10 @@ CREATE TABLE `system_exception_log` (
   `exception_line_number` int(11) NOT NULL COMMENT '异常发生的方法所在行\n     *\n     * {@link StackTraceElement#getLineNumber()}',
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '最后更新时间',
-  PRIMARY KEY (`id`) USING BTREE
-) ENGINE=InnoDB AUTO_INCREMENT=1012 DEFAULT CHARSET=utf8mb4 COMMENT='系统异常日志';
+  PRIMARY KEY (`id`, `exception_time`) USING BTREE
+) ENGINE=InnoDB AUTO_INCREMENT=1012 DEFAULT CHARSET=utf8mb4 COMMENT='系统异常日志'
+PARTITION BY RANGE COLUMNS(`exception_time`) (
+  PARTITION p_max VALUES LESS THAN (MAXVALUE) -- 按月的分区由 SystemLogPartitionService 自动从 p_max 拆分
+);
 
 SET FOREIGN_KEY_CHECKS = 1;
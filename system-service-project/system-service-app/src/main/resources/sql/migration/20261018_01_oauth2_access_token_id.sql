@@ -0,0 +1,9 @@
+-- ----------------------------
+-- 签名访问令牌：oauth2_access_token.id 从 varchar(32) 加长为 varchar(64)
+--
+-- 需要在 system-service 开启 biz.access-token-sign-enable 之前执行。
+-- utf8mb4 下加长后超过 255 字节，长度前缀从 1 字节变为 2 字节，并且该列为主键，MySQL 会重建表。
+-- 数据量较大时，建议使用 pt-online-schema-change 或 gh-ost 执行
+-- ----------------------------
+ALTER TABLE `oauth2_access_token`
+    MODIFY COLUMN `id` varchar(64) NOT NULL COMMENT '访问令牌';
@@ -0,0 +1,23 @@
+-- ----------------------------
+-- 系统日志按月分区：system_access_log、system_exception_log 改为 RANGE COLUMNS 分区
+--
+-- 1. 分区列必须包含在主键中，所以主键从 (id) 改为 (id, start_time) / (id, exception_time)
+-- 2. 只创建 p_max 兜底分区，由 SystemLogPartitionService 维护时从 p_max 拆分出当月及之后的分区。
+--    已有的历史数据会落在拆分出的第一个分区（当月分区）中，超过保留月数后随该分区一起归档、删除
+--
+-- 部署 system-service 之前或之后执行均可：未分区的表，SystemLogPartitionService 会跳过维护，执行后在下一次维护（启动时、或每天 03:00）创建分区。
+-- 每条语句都会重建表，期间阻塞写入。数据量较大时，建议使用 pt-online-schema-change 或 gh-ost 执行
+-- ----------------------------
+ALTER TABLE `system_access_log`
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (`id`, `start_time`) USING BTREE
+    PARTITION BY RANGE COLUMNS(`start_time`) (
+        PARTITION p_max VALUES LESS THAN (MAXVALUE)
+    );
+
+ALTER TABLE `system_exception_log`
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (`id`, `exception_time`) USING BTREE
+    PARTITION BY RANGE COLUMNS(`exception_time`) (
+        PARTITION p_max VALUES LESS THAN (MAXVALUE)
+    );
@@ -0,0 +1,203 @@
+package cn.iocoder.mall.systemservice.service.systemlog;
+
+import cn.iocoder.mall.systemservice.config.SystemBizProperties;
+import cn.iocoder.mall.systemservice.dal.mysql.mapper.systemlog.SystemLogPartitionMapper;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * {@link SystemLogPartitionService} 的单元测试
+ *
+ * 使用内存实现的 {@link SystemLogPartitionMapper} ，校验分区名、分区上界、以及过期分区的计算
+ */
+public class SystemLogPartitionServiceTest {
+
+    private static final String TABLE_NAME = "system_exception_log";
+
+    private MemorySystemLogPartitionMapper partitionMapper;
+    private SystemBizProperties bizProperties;
+    private SystemLogPartitionService partitionService;
+    private Path archiveDir;
+
+    @Before
+    public void setUp() throws IOException {
+        partitionMapper = new MemorySystemLogPartitionMapper();
+        archiveDir = Files.createTempDirectory("system-log-archive");
+        bizProperties = new SystemBizProperties();
+        bizProperties.setSystemLogPartitionAheadMonths(2);
+        bizProperties.setSystemLogRetainMonths(6);
+        bizProperties.setSystemLogArchiveEnable(false);
+        bizProperties.setSystemLogArchiveDir(archiveDir.toString());
+        partitionService = new SystemLogPartitionService();
+        ReflectionTestUtils.setField(partitionService, "systemLogPartitionMapper", partitionMapper);
+        ReflectionTestUtils.setField(partitionService, "systemBizProperties", bizProperties);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        List<Path> paths = Files.walk(archiveDir).sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testCreatePartitionsFromMax() {
+        partitionMapper.partitionNames.add("p_max");
+        partitionService.createPartitions(TABLE_NAME, YearMonth.of(2026, 10));
+        // 创建当月，以及之后 2 个月的分区，上界为下个月的第一天
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("p202610", "2026-11-01");
+        expected.put("p202611", "2026-12-01");
+        expected.put("p202612", "2027-01-01");
+        Assert.assertEquals(Collections.singletonList(expected), partitionMapper.addedPartitions);
+    }
+
+    @Test
+    public void testCreatePartitionsAcrossYear() {
+        partitionMapper.partitionNames.add("p_max");
+        partitionService.createPartitions(TABLE_NAME, YearMonth.of(2026, 12));
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("p202612", "2027-01-01");
+        expected.put("p202701", "2027-02-01");
+        expected.put("p202702", "2027-03-01");
+        Assert.assertEquals(Collections.singletonList(expected), partitionMapper.addedPartitions);
+    }
+
+    @Test
+    public void testCreatePartitionsAfterExists() {
+        // 已有的分区，包括当月之前的，只从最后一个月份分区之后开始创建
+        partitionMapper.partitionNames.addAll(Arrays.asList("p202601", "p202610", "p202611", "p_max"));
+        partitionService.createPartitions(TABLE_NAME, YearMonth.of(2026, 10));
+        Assert.assertEquals(Collections.singletonList(Collections.singletonMap("p202612", "2027-01-01")),
+                partitionMapper.addedPartitions);
+    }
+
+    @Test
+    public void testCreatePartitionsOnlyPast() {
+        // 只有当月之前的分区时，从当月开始创建
+        partitionMapper.partitionNames.addAll(Arrays.asList("p202601", "p_max"));
+        partitionService.createPartitions(TABLE_NAME, YearMonth.of(2026, 10));
+        Assert.assertEquals(1, partitionMapper.addedPartitions.size());
+        Assert.assertEquals(Arrays.asList("p202610", "p202611", "p202612"),
+                new ArrayList<>(partitionMapper.addedPartitions.get(0).keySet()));
+    }
+
+    @Test
+    public void testCreatePartitionsAlreadyAhead() {
+        partitionMapper.partitionNames.addAll(Arrays.asList("p202610", "p202611", "p202612", "p202701", "p_max"));
+        partitionService.createPartitions(TABLE_NAME, YearMonth.of(2026, 10));
+        Assert.assertTrue(partitionMapper.addedPartitions.isEmpty());
+    }
+
+    @Test
+    public void testCreatePartitionsNotPartitioned() {
+        // 表未分区时，跳过
+        partitionService.createPartitions(TABLE_NAME, YearMonth.of(2026, 10));
+        Assert.assertTrue(partitionMapper.addedPartitions.isEmpty());
+    }
+
+    @Test
+    public void testArchivePartitions() throws IOException {
+        partitionMapper.partitionNames.addAll(Arrays.asList("p202602", "p202603", "p202604", "p202610", "p_history", "p_max"));
+        partitionService.archivePartitions(TABLE_NAME, YearMonth.of(2026, 10));
+        // 保留 6 个月，即删除 2026-04 之前的分区。无法解析的分区名不删除
+        Assert.assertEquals(Arrays.asList("p202602", "p202603"), partitionMapper.droppedPartitions);
+        Assert.assertEquals(Arrays.asList("p202604", "p202610", "p_history", "p_max"), partitionMapper.partitionNames);
+        Assert.assertFalse(Files.exists(archiveDir.resolve(TABLE_NAME)));
+    }
+
+    @Test
+    public void testArchivePartitionsToFile() throws IOException {
+        bizProperties.setSystemLogArchiveEnable(true);
+        partitionMapper.partitionNames.addAll(Arrays.asList("p202603", "p202604", "p_max"));
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 1);
+        row.put("exception_name", "java.lang.NullPointerException");
+        partitionMapper.rows.put("p202603", Arrays.asList(row, Collections.singletonMap("id", 2)));
+        partitionService.archivePartitions(TABLE_NAME, YearMonth.of(2026, 10));
+
+        Assert.assertEquals(Collections.singletonList("p202603"), partitionMapper.droppedPartitions);
+        // 归档为 gzip 压缩的 JSON Lines 文件，不残留临时文件
+        Path file = archiveDir.resolve(TABLE_NAME).resolve("p202603.json.gz");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            Assert.assertEquals(Arrays.asList("{\"id\":1,\"exception_name\":\"java.lang.NullPointerException\"}", "{\"id\":2}"),
+                    reader.lines().collect(Collectors.toList()));
+        }
+        Assert.assertEquals(1, Files.list(file.getParent()).count());
+    }
+
+    private static class MemorySystemLogPartitionMapper implements SystemLogPartitionMapper {
+
+        private final List<String> partitionNames = new ArrayList<>();
+        private final Map<String, List<Map<String, Object>>> rows = new HashMap<>();
+        private final List<Map<String, String>> addedPartitions = new ArrayList<>();
+        private final List<String> droppedPartitions = new ArrayList<>();
+
+        @Override
+        public List<String> selectPartitionNames(String tableName) {
+            return new ArrayList<>(partitionNames);
+        }
+
+        @Override
+        public void addPartitions(String tableName, Map<String, String> partitions) {
+            addedPartitions.add(new LinkedHashMap<>(partitions));
+        }
+
+        @Override
+        public void dropPartition(String tableName, String partitionName) {
+            droppedPartitions.add(partitionName);
+            partitionNames.remove(partitionName);
+        }
+
+        @Override
+        public void selectListByPartition(String tableName, String partitionName, ResultHandler<Map<String, Object>> handler) {
+            List<Map<String, Object>> partitionRows = rows.getOrDefault(partitionName, Collections.emptyList());
+            for (int i = 0; i < partitionRows.size(); i++) {
+                Map<String, Object> row = partitionRows.get(i);
+                int count = i + 1;
+                handler.handleResult(new ResultContext<Map<String, Object>>() {
+
+                    @Override
+                    public Map<String, Object> getResultObject() {
+                        return row;
+                    }
+
+                    @Override
+                    public int getResultCount() {
+                        return count;
+                    }
+
+                    @Override
+                    public boolean isStopped() {
+                        return false;
+                    }
+
+                    @Override
+                    public void stop() {
+                    }
+
+                });
+            }
+        }
+
+    }
+
+}
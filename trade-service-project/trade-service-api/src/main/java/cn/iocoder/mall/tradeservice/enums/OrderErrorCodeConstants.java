@@ -29,6 +29,7 @@ public interface OrderErrorCodeConstants {
     ErrorCode ORDER_CREATE_CART_IS_EMPTY = new ErrorCode(1008000013, "购物车无选中的商品，无法创建订单");
     ErrorCode ORDER_STATUS_NOT_WAITING_PAYMENT = new ErrorCode(1008000014, "订单不处于等待支付状态");
     ErrorCode ORDER_PAY_AMOUNT_ERROR = new ErrorCode(1008000015, "订单金额不正确");
+    ErrorCode ORDER_CREATE_TIMEOUT = new ErrorCode(1008000016, "创建订单超时，请稍后重试");
 
     // order item
     ErrorCode ORDER_ITEM_ONLY_ONE = new ErrorCode(1008000200, "订单Item只有一个!");
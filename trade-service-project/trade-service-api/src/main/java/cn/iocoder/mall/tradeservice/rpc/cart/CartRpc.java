@@ -58,4 +58,12 @@ public interface CartRpc {
      */
     CommonResult<List<CartItemRespDTO>> listCartItems(CartItemListReqDTO listReqDTO);
 
+    /**
+     * 查询用户的购物车明细，包括商品 SKU 信息、价格计算结果、促销活动信息
+     *
+     * @param userId 用户编号
+     * @return 购物车明细
+     */
+    CommonResult<CartDetailRespDTO> getCartDetail(Integer userId);
+
 }
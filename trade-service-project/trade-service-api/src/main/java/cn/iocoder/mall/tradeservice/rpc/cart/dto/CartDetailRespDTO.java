@@ -0,0 +1,79 @@
+package cn.iocoder.mall.tradeservice.rpc.cart.dto;
+
+import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuRespDTO;
+import cn.iocoder.mall.promotion.api.rpc.activity.dto.PromotionActivityRespDTO;
+import cn.iocoder.mall.promotion.api.rpc.price.dto.PriceProductCalcRespDTO;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 购物车明细 Response DTO
+ *
+ * 聚合了购物车的商品、商品 SKU 信息、价格计算结果、促销活动信息
+ */
+@Data
+@Accessors(chain = true)
+public class CartDetailRespDTO implements Serializable {
+
+    /**
+     * 商品分组数组
+     */
+    private List<ItemGroup> itemGroups;
+    /**
+     * 费用
+     */
+    private PriceProductCalcRespDTO.Fee fee;
+
+    /**
+     * 商品分组
+     *
+     * 多个商品，参加同一个活动，从而形成分组。
+     */
+    @Data
+    @Accessors(chain = true)
+    public static class ItemGroup implements Serializable {
+
+        /**
+         * 优惠活动
+         */
+        private PromotionActivityRespDTO activity;
+        /**
+         * 促销减少的金额
+         *
+         * 1. 若未参与促销活动，或不满足促销条件，返回 null
+         * 2. 该金额，已经分摊到每个 Item 的 discountTotal ，需要注意。
+         */
+        private Integer activityDiscountTotal;
+        /**
+         * 商品数组
+         */
+        private List<Item> items;
+
+    }
+
+    /**
+     * 商品
+     */
+    @Data
+    @Accessors(chain = true)
+    public static class Item implements Serializable {
+
+        /**
+         * 商品 SKU 信息，包含 SPU 和规格值
+         */
+        private ProductSkuRespDTO sku;
+        /**
+         * 价格计算结果，包含购买数量、是否选中
+         */
+        private PriceProductCalcRespDTO.Item price;
+        /**
+         * 优惠活动
+         */
+        private PromotionActivityRespDTO activity;
+
+    }
+
+}
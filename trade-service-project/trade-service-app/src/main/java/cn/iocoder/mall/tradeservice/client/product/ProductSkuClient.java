@@ -5,13 +5,11 @@ import cn.iocoder.common.framework.vo.CommonResult;
 import cn.iocoder.mall.productservice.rpc.sku.ProductSkuRpc;
 import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuListQueryReqDTO;
 import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuRespDTO;
+import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuStockReserveReqDTO;
 import org.apache.dubbo.config.annotation.DubboReference;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 @Service
 public class ProductSkuClient {
@@ -29,4 +27,39 @@ public class ProductSkuClient {
         return listProductSkusResult.getData();
     }
 
+    /**
+     * 预占商品 SKU 库存
+     *
+     * @param reservationId 预占编号
+     * @param items 预占的商品 SKU 数组
+     * @param expireTime 过期时间
+     */
+    public void reserveProductSkuStock(String reservationId, List<ProductSkuStockReserveReqDTO.Item> items, Date expireTime) {
+        CommonResult<Boolean> reserveProductSkuStockResult = productSkuRpc.reserveProductSkuStock(
+                new ProductSkuStockReserveReqDTO().setReservationId(reservationId).setItems(items).setExpireTime(expireTime));
+        reserveProductSkuStockResult.checkError();
+    }
+
+    /**
+     * 确认预占的商品 SKU 库存
+     *
+     * @param reservationId 预占编号
+     * @return 是否确认成功
+     */
+    public Boolean confirmProductSkuStock(String reservationId) {
+        CommonResult<Boolean> confirmProductSkuStockResult = productSkuRpc.confirmProductSkuStock(reservationId);
+        confirmProductSkuStockResult.checkError();
+        return confirmProductSkuStockResult.getData();
+    }
+
+    /**
+     * 释放预占的商品 SKU 库存
+     *
+     * @param reservationId 预占编号
+     */
+    public void releaseProductSkuStock(String reservationId) {
+        CommonResult<Boolean> releaseProductSkuStockResult = productSkuRpc.releaseProductSkuStock(reservationId);
+        releaseProductSkuStockResult.checkError();
+    }
+
 }
@@ -0,0 +1,31 @@
+package cn.iocoder.mall.tradeservice.client.promotion;
+
+import cn.iocoder.common.framework.util.CollectionUtils;
+import cn.iocoder.common.framework.vo.CommonResult;
+import cn.iocoder.mall.promotion.api.rpc.activity.PromotionActivityRpc;
+import cn.iocoder.mall.promotion.api.rpc.activity.dto.PromotionActivityListReqDTO;
+import cn.iocoder.mall.promotion.api.rpc.activity.dto.PromotionActivityRespDTO;
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+@Service
+public class PromotionActivityClient {
+
+    @DubboReference(version = "${dubbo.consumer.PromotionActivityRpc.version}")
+    private PromotionActivityRpc promotionActivityRpc;
+
+    public List<PromotionActivityRespDTO> listPromotionActivities(Collection<Integer> activityIds) {
+        if (CollectionUtils.isEmpty(activityIds)) {
+            return Collections.emptyList();
+        }
+        CommonResult<List<PromotionActivityRespDTO>> listPromotionActivitiesResult = promotionActivityRpc.listPromotionActivities(
+                new PromotionActivityListReqDTO().setActiveIds(activityIds));
+        listPromotionActivitiesResult.checkError();
+        return listPromotionActivitiesResult.getData();
+    }
+
+}
@@ -0,0 +1,33 @@
+package cn.iocoder.mall.tradeservice.common.async;
+
+import cn.iocoder.mall.dubbo.core.router.DubboRouterTagContextHolder;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * 透传 Dubbo 路由 Tag 的 {@link TaskDecorator}
+ *
+ * 保证异步线程中的 RPC 调用，依然能够路由到指定 Tag 的服务提供者。
+ * 执行完成后，恢复执行线程原有的 Tag，而不是直接清空：线程池使用 CallerRunsPolicy 时，任务会在调用方线程中执行，
+ * 清空会导致调用方后续的 RPC 调用丢失 Tag
+ */
+public class DubboRouterTagTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        String dubboTag = DubboRouterTagContextHolder.getTag();
+        return () -> {
+            String previousTag = DubboRouterTagContextHolder.getTag();
+            DubboRouterTagContextHolder.setTag(dubboTag);
+            try {
+                runnable.run();
+            } finally {
+                if (previousTag != null) {
+                    DubboRouterTagContextHolder.setTag(previousTag);
+                } else {
+                    DubboRouterTagContextHolder.clear();
+                }
+            }
+        };
+    }
+
+}
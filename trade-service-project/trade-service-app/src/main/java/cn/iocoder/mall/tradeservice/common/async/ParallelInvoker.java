@@ -0,0 +1,143 @@
+package cn.iocoder.mall.tradeservice.common.async;
+
+import cn.iocoder.common.framework.exception.ErrorCode;
+import cn.iocoder.common.framework.exception.util.ServiceExceptionUtil;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * 并行调用编排器
+ *
+ * 将多个互不依赖的调用（例如说，Dubbo RPC）提交到有界线程池并行执行，整体耗时取决于最慢的调用，而不是所有调用的耗时之和。
+ * 任一调用失败时，{@link #await(long, ErrorCode)} 立即抛出该异常（fail-fast），不再等待其它调用。
+ *
+ * 每个阶段的耗时，会记录到 {@link #getStageCostTimes()} 中，并上报到 Micrometer 的 {name}.stage Timer 指标。
+ *
+ * 注意，该类是一次性的：每次编排，都需要创建一个新的对象。
+ */
+@Slf4j
+public class ParallelInvoker {
+
+    /**
+     * 编排名，用作指标名的前缀
+     */
+    private final String name;
+    /**
+     * 执行调用的线程池
+     */
+    private final Executor executor;
+
+    private final List<CompletableFuture<?>> futures = new ArrayList<>();
+    /**
+     * 第一个失败的调用的异常。完成时，即代表编排失败
+     */
+    private final CompletableFuture<Void> failure = new CompletableFuture<>();
+    /**
+     * 每个阶段的耗时，单位：毫秒
+     */
+    private final Map<String, Long> stageCostTimes = new ConcurrentHashMap<>();
+
+    public ParallelInvoker(String name, Executor executor) {
+        this.name = name;
+        this.executor = executor;
+    }
+
+    /**
+     * 提交一个阶段的调用
+     *
+     * 如果已经有阶段失败，则不再执行，直接返回失败的结果
+     *
+     * @param stage 阶段名
+     * @param supplier 调用逻辑
+     * @return 调用结果的 Future
+     */
+    public <T> CompletableFuture<T> submit(String stage, Supplier<T> supplier) {
+        CompletableFuture<T> future;
+        if (failure.isDone()) {
+            future = new CompletableFuture<>();
+            future.cancel(false);
+        } else {
+            future = CompletableFuture.supplyAsync(() -> invoke(stage, supplier), executor);
+        }
+        futures.add(future);
+        return future;
+    }
+
+    private <T> T invoke(String stage, Supplier<T> supplier) {
+        if (failure.isDone()) { // 排队期间，已经有其它阶段失败，则无需执行
+            throw new CancellationException(String.format("[%s][阶段(%s) 已取消]", name, stage));
+        }
+        long startTime = System.nanoTime();
+        try {
+            return supplier.get();
+        } catch (RuntimeException | Error ex) {
+            failure.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            long costTime = System.nanoTime() - startTime;
+            stageCostTimes.put(stage, TimeUnit.NANOSECONDS.toMillis(costTime));
+            Metrics.timer(name + ".stage", "stage", stage).record(costTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 等待所有阶段执行完成
+     *
+     * @param timeout 超时时间，单位：毫秒
+     * @param timeoutErrorCode 超时时，抛出的 ServiceException 错误码
+     */
+    public void await(long timeout, ErrorCode timeoutErrorCode) {
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        try {
+            // 优先判断 failure，保证抛出的是第一个失败阶段的异常，而不是被取消阶段的 CancellationException
+            CompletableFuture.anyOf(failure, all).get(timeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            cancel();
+            throw unwrap(ex);
+        } catch (TimeoutException ex) {
+            cancel();
+            log.warn("[await][{} 等待超时({} ms)，各阶段耗时({})]", name, timeout, stageCostTimes);
+            throw ServiceExceptionUtil.exception(timeoutErrorCode);
+        } catch (InterruptedException ex) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("[%s][等待被中断]", name), ex);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("[await][{} 执行完成，等待耗时({} ms)，各阶段耗时({})]", name,
+                    System.currentTimeMillis() - startTime, stageCostTimes);
+        }
+    }
+
+    /**
+     * @return 每个阶段的耗时，单位：毫秒
+     */
+    public Map<String, Long> getStageCostTimes() {
+        return Collections.unmodifiableMap(stageCostTimes);
+    }
+
+    private void cancel() {
+        // 取消尚未开始的阶段。已经开始的 RPC 无法中断，会由 Dubbo 自身的超时结束
+        futures.forEach(future -> future.cancel(false));
+    }
+
+    private static RuntimeException unwrap(Throwable ex) {
+        while ((ex instanceof ExecutionException || ex instanceof CompletionException)
+                && ex.getCause() != null) {
+            ex = ex.getCause();
+        }
+        if (ex instanceof RuntimeException) {
+            return (RuntimeException) ex;
+        }
+        if (ex instanceof Error) {
+            throw (Error) ex;
+        }
+        return new IllegalStateException(ex);
+    }
+
+}
@@ -0,0 +1,37 @@
+package cn.iocoder.mall.tradeservice.config;
+
+import cn.iocoder.mall.tradeservice.common.async.DubboRouterTagTaskDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 异步线程池配置类
+ */
+@Configuration
+public class AsyncConfiguration {
+
+    /**
+     * 创建订单时，并行调用上游服务的线程池
+     */
+    public static final String TRADE_ORDER_CREATE_EXECUTOR = "tradeOrderCreateExecutor";
+
+    @Bean(TRADE_ORDER_CREATE_EXECUTOR)
+    public ThreadPoolTaskExecutor tradeOrderCreateExecutor(TradeBizProperties tradeBizProperties) {
+        TradeBizProperties.OrderCreate orderCreate = tradeBizProperties.getOrderCreate();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(orderCreate.getCorePoolSize());
+        executor.setMaxPoolSize(orderCreate.getMaxPoolSize());
+        executor.setQueueCapacity(orderCreate.getQueueCapacity()); // 有界队列，避免堆积
+        executor.setThreadNamePrefix("trade-order-create-");
+        // 线程池满时，由调用方线程执行，退化为串行调用，而不是直接拒绝下单
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // 透传 Dubbo 路由 Tag，保证异步线程中的 RPC 调用，依然能够路由到指定 Tag 的服务提供者
+        executor.setTaskDecorator(new DubboRouterTagTaskDecorator());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+}
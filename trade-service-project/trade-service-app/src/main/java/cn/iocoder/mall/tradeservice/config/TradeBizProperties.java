@@ -5,6 +5,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 
 /**
@@ -30,4 +31,44 @@ public class TradeBizProperties {
     @NotNull(message = "支付超时时间不能为空")
     private Integer payExpireTime;
 
+    /**
+     * 创建订单的配置
+     */
+    @Valid
+    @NotNull(message = "创建订单的配置不能为空")
+    private OrderCreate orderCreate = new OrderCreate();
+
+    @Data
+    public static class OrderCreate {
+
+        /**
+         * 是否并行调用上游服务（收件地址、商品、价格）
+         *
+         * 关闭时，退化为串行调用
+         */
+        @NotNull(message = "是否并行调用不能为空")
+        private Boolean parallelEnable = true;
+        /**
+         * 并行调用线程池的核心线程数
+         */
+        @NotNull(message = "核心线程数不能为空")
+        private Integer corePoolSize = 16;
+        /**
+         * 并行调用线程池的最大线程数
+         */
+        @NotNull(message = "最大线程数不能为空")
+        private Integer maxPoolSize = 64;
+        /**
+         * 并行调用线程池的队列大小
+         */
+        @NotNull(message = "队列大小不能为空")
+        private Integer queueCapacity = 256;
+        /**
+         * 等待上游服务调用完成的超时时间，单位：毫秒
+         */
+        @NotNull(message = "超时时间不能为空")
+        private Long timeout = 5000L;
+
+    }
+
 }
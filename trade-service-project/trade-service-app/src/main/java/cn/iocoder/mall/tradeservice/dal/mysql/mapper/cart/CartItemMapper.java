@@ -22,6 +22,10 @@ public interface CartItemMapper extends BaseMapper<CartItemDO> {
             .eq("sku_id", skuId));
     }
 
+    default List<CartItemDO> selectListByUserId(Integer userId) {
+        return selectList(new QueryWrapper<CartItemDO>().eq("user_id", userId));
+    }
+
     default List<CartItemDO> selectListByUserIdAndSkuIds(Integer userId, Collection<Integer> skuIds) {
         return selectList(new QueryWrapperX<CartItemDO>().eq("user_id", userId)
                 .inIfPresent("sku_id", skuIds));
@@ -0,0 +1,35 @@
+package cn.iocoder.mall.tradeservice.dal.redis;
+
+import cn.iocoder.mall.redis.core.RedisKeyDefine;
+import cn.iocoder.mall.tradeservice.dal.mysql.dataobject.cart.CartItemDO;
+
+import java.time.Duration;
+
+import static cn.iocoder.mall.redis.core.RedisKeyDefine.KeyTypeEnum.HASH;
+import static cn.iocoder.mall.redis.core.RedisKeyDefine.KeyTypeEnum.SET;
+
+/**
+ * Redis Key 枚举类
+ *
+ * 通过将项目中的 Key 枚举在该类中，方便统一管理。
+ */
+public interface RedisKeyConstants {
+
+    /**
+     * 用户的购物车。其中，field 为 {@link CartItemDO#getSkuId()}，value 为 spuId:quantity:selected:addTime；
+     * 另外，field 为 total 时，value 为购物车中商品的总数量
+     *
+     * key 的 format 的参数是 [{@link CartItemDO#getUserId()}]
+     * 过期后，会从 MySQL 重新加载
+     */
+    RedisKeyDefine CART_ITEM = new RedisKeyDefine("cart_item:%s", HASH, String.class,
+            Duration.ofDays(7));
+    /**
+     * 购物车发生变化，需要回写到 MySQL 的用户编号集合
+     *
+     * key 的 format 的参数是 [分片编号]，即 {@link CartItemDO#getUserId()} 对分片数量取余
+     */
+    RedisKeyDefine CART_ITEM_DIRTY = new RedisKeyDefine("cart_item_dirty:%s", SET, Integer.class,
+            RedisKeyDefine.TIMEOUT_FOREVER);
+
+}
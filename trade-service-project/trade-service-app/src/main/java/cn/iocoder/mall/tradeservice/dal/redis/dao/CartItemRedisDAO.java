@@ -0,0 +1,189 @@
+package cn.iocoder.mall.tradeservice.dal.redis.dao;
+
+import cn.iocoder.mall.tradeservice.dal.mysql.dataobject.cart.CartItemDO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static cn.iocoder.mall.tradeservice.dal.redis.RedisKeyConstants.CART_ITEM;
+import static cn.iocoder.mall.tradeservice.dal.redis.RedisKeyConstants.CART_ITEM_DIRTY;
+
+/**
+ * 购物车的 Redis DAO
+ *
+ * 每个用户的购物车是一个 Hash ，通过 Lua 脚本保证商品和总数量的修改是原子的。
+ * 每个 Lua 脚本只操作一个用户的 key ，所以可以使用 Redis Cluster ，按照用户分散到不同的节点
+ */
+@Repository
+public class CartItemRedisDAO {
+
+    /**
+     * 待回写的用户编号集合的分片数量，避免单个 Set 成为热点
+     */
+    public static final int DIRTY_SHARD_COUNT = 16;
+
+    /**
+     * 商品总数量的 field
+     */
+    private static final String FIELD_TOTAL = "total";
+
+    private static final DefaultRedisScript<Long> LOAD_SCRIPT = buildScript("lua/cart_item_load.lua");
+    private static final DefaultRedisScript<Long> ADD_SCRIPT = buildScript("lua/cart_item_add.lua");
+    private static final DefaultRedisScript<Long> UPDATE_QUANTITY_SCRIPT = buildScript("lua/cart_item_update_quantity.lua");
+    private static final DefaultRedisScript<Long> UPDATE_SELECTED_SCRIPT = buildScript("lua/cart_item_update_selected.lua");
+    private static final DefaultRedisScript<Long> DELETE_SCRIPT = buildScript("lua/cart_item_delete.lua");
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    /**
+     * 加载用户的购物车。已经加载过时，不做覆盖
+     *
+     * @param userId 用户编号
+     * @param items 购物车中的商品
+     * @return 是否加载成功
+     */
+    public boolean load(Integer userId, List<CartItemDO> items) {
+        List<String> args = new ArrayList<>(2 + items.size() * 2);
+        args.add(getTimeoutSeconds());
+        args.add(String.valueOf(items.stream().mapToInt(CartItemDO::getQuantity).sum()));
+        items.forEach(item -> {
+            args.add(String.valueOf(item.getSkuId()));
+            args.add(formatValue(item));
+        });
+        Long result = redisTemplate.execute(LOAD_SCRIPT, Collections.singletonList(formatKey(userId)), args.toArray());
+        return result != null && result > 0;
+    }
+
+    /**
+     * 添加商品到购物车
+     *
+     * @return 结果，说明见 cart_item_add.lua 脚本
+     */
+    public long add(Integer userId, Integer skuId, Integer spuId, Integer quantity, Integer skuQuantity) {
+        return redisTemplate.execute(ADD_SCRIPT, Collections.singletonList(formatKey(userId)), getTimeoutSeconds(),
+                String.valueOf(skuId), String.valueOf(spuId), String.valueOf(quantity), String.valueOf(skuQuantity),
+                String.valueOf(System.currentTimeMillis()));
+    }
+
+    /**
+     * 更新购物车商品数量
+     *
+     * @return 结果，说明见 cart_item_update_quantity.lua 脚本
+     */
+    public long updateQuantity(Integer userId, Integer skuId, Integer quantity) {
+        return redisTemplate.execute(UPDATE_QUANTITY_SCRIPT, Collections.singletonList(formatKey(userId)), getTimeoutSeconds(),
+                String.valueOf(skuId), String.valueOf(quantity));
+    }
+
+    /**
+     * 更新购物车商品是否选中
+     *
+     * @return 结果，说明见 cart_item_update_selected.lua 脚本
+     */
+    public long updateSelected(Integer userId, Collection<Integer> skuIds, Boolean selected) {
+        List<String> args = new ArrayList<>(2 + skuIds.size());
+        args.add(getTimeoutSeconds());
+        args.add(selected ? "1" : "0");
+        skuIds.forEach(skuId -> args.add(String.valueOf(skuId)));
+        return redisTemplate.execute(UPDATE_SELECTED_SCRIPT, Collections.singletonList(formatKey(userId)), args.toArray());
+    }
+
+    /**
+     * 购物车删除商品
+     *
+     * @return 结果，说明见 cart_item_delete.lua 脚本
+     */
+    public long delete(Integer userId, Collection<Integer> skuIds) {
+        List<String> args = new ArrayList<>(1 + skuIds.size());
+        args.add(getTimeoutSeconds());
+        skuIds.forEach(skuId -> args.add(String.valueOf(skuId)));
+        return redisTemplate.execute(DELETE_SCRIPT, Collections.singletonList(formatKey(userId)), args.toArray());
+    }
+
+    /**
+     * 获得购物车中商品的总数量
+     *
+     * @param userId 用户编号
+     * @return 总数量。购物车未加载到 Redis 时，返回 null
+     */
+    public Integer getTotal(Integer userId) {
+        Object total = redisTemplate.opsForHash().get(formatKey(userId), FIELD_TOTAL);
+        return total != null ? Integer.valueOf((String) total) : null;
+    }
+
+    /**
+     * 获得购物车中的商品列表，按照添加时间倒序
+     *
+     * 注意，返回的 {@link CartItemDO#getId()} 为空，{@link CartItemDO#getCreateTime()} 为添加时间
+     *
+     * @param userId 用户编号
+     * @return 商品列表。购物车未加载到 Redis 时，返回 null
+     */
+    public List<CartItemDO> list(Integer userId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(formatKey(userId));
+        if (entries.isEmpty()) {
+            return null;
+        }
+        List<CartItemDO> items = new ArrayList<>(entries.size() - 1);
+        entries.forEach((field, value) -> {
+            if (!FIELD_TOTAL.equals(field)) {
+                items.add(parseValue(userId, Integer.valueOf((String) field), (String) value));
+            }
+        });
+        items.sort(Comparator.comparing(CartItemDO::getCreateTime).reversed());
+        return items;
+    }
+
+    public void addDirtyUserId(Integer userId) {
+        redisTemplate.opsForSet().add(formatDirtyKey(userId % DIRTY_SHARD_COUNT), String.valueOf(userId));
+    }
+
+    public List<Integer> popDirtyUserIds(int shard, int count) {
+        List<String> userIds = redisTemplate.opsForSet().pop(formatDirtyKey(shard), count);
+        if (userIds == null) {
+            return Collections.emptyList();
+        }
+        return userIds.stream().map(Integer::valueOf).collect(Collectors.toList());
+    }
+
+    private static String formatKey(Integer userId) {
+        return String.format(CART_ITEM.getKeyTemplate(), userId);
+    }
+
+    private static String formatDirtyKey(int shard) {
+        return String.format(CART_ITEM_DIRTY.getKeyTemplate(), shard);
+    }
+
+    private static String getTimeoutSeconds() {
+        return String.valueOf(CART_ITEM.getTimeout().getSeconds());
+    }
+
+    private static String formatValue(CartItemDO item) {
+        long addTime = item.getCreateTime() != null ? item.getCreateTime().getTime() : System.currentTimeMillis();
+        return item.getSpuId() + ":" + item.getQuantity() + ":" + (Boolean.TRUE.equals(item.getSelected()) ? 1 : 0)
+                + ":" + addTime;
+    }
+
+    private static CartItemDO parseValue(Integer userId, Integer skuId, String value) {
+        String[] parts = value.split(":");
+        CartItemDO item = new CartItemDO().setUserId(userId).setSkuId(skuId).setSpuId(Integer.valueOf(parts[0]))
+                .setQuantity(Integer.valueOf(parts[1])).setSelected("1".equals(parts[2]));
+        item.setCreateTime(new Date(Long.parseLong(parts[3])));
+        return item;
+    }
+
+    private static DefaultRedisScript<Long> buildScript(String path) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+}
@@ -0,0 +1,50 @@
+package cn.iocoder.mall.tradeservice.job.cart;
+
+import cn.iocoder.mall.tradeservice.dal.redis.dao.CartItemRedisDAO;
+import cn.iocoder.mall.tradeservice.service.cart.CartService;
+import com.xxl.job.core.biz.model.ReturnT;
+import com.xxl.job.core.handler.IJobHandler;
+import com.xxl.job.core.handler.annotation.XxlJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 购物车回写 Job
+ *
+ * 将 Redis 中发生变化的购物车，回写到 MySQL 的 cart_item 表。
+ * 建议每隔几秒执行一次，回写的间隔，即 MySQL 中购物车的延迟
+ */
+@Component
+@Slf4j
+public class CartItemWriteBackJob extends IJobHandler {
+
+    /**
+     * 每批回写的用户数量
+     */
+    private static final int BATCH_SIZE = 200;
+    /**
+     * 每个分片每次执行的最大批次，避免单次执行时间过长
+     */
+    private static final int MAX_BATCH = 5;
+
+    @Autowired
+    private CartService cartService;
+
+    @Override
+    @XxlJob("cartItemWriteBackJob")
+    public ReturnT<String> execute(String param) {
+        int count = 0;
+        for (int shard = 0; shard < CartItemRedisDAO.DIRTY_SHARD_COUNT; shard++) {
+            for (int i = 0; i < MAX_BATCH; i++) {
+                int batchCount = cartService.writeBackCartItems(shard, BATCH_SIZE);
+                count += batchCount;
+                if (batchCount < BATCH_SIZE) {
+                    break;
+                }
+            }
+        }
+        return new ReturnT<>("回写用户数：" + count);
+    }
+
+}
@@ -0,0 +1 @@
+package cn.iocoder.mall.tradeservice.job;
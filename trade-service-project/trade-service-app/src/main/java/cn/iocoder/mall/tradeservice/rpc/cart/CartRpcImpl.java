@@ -53,4 +53,9 @@ public class CartRpcImpl implements CartRpc {
         return success(cartManager.listCartItems(listReqDTO));
     }
 
+    @Override
+    public CommonResult<CartDetailRespDTO> getCartDetail(Integer userId) {
+        return success(cartManager.getCartDetail(userId));
+    }
+
 }
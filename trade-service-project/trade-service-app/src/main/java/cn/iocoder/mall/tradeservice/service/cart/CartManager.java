@@ -2,18 +2,28 @@ package cn.iocoder.mall.tradeservice.service.cart;
 
 import cn.iocoder.common.framework.enums.CommonStatusEnum;
 import cn.iocoder.common.framework.exception.util.ServiceExceptionUtil;
+import cn.iocoder.common.framework.util.CollectionUtils;
 import cn.iocoder.common.framework.vo.CommonResult;
+import cn.iocoder.mall.productservice.enums.sku.ProductSkuDetailFieldEnum;
+import cn.iocoder.mall.promotion.api.rpc.activity.dto.PromotionActivityRespDTO;
+import cn.iocoder.mall.promotion.api.rpc.price.dto.PriceProductCalcReqDTO;
+import cn.iocoder.mall.promotion.api.rpc.price.dto.PriceProductCalcRespDTO;
+import cn.iocoder.mall.tradeservice.client.product.ProductSkuClient;
+import cn.iocoder.mall.tradeservice.client.promotion.PriceClient;
+import cn.iocoder.mall.tradeservice.client.promotion.PromotionActivityClient;
 import cn.iocoder.mall.tradeservice.convert.cart.CartConvert;
 import cn.iocoder.mall.tradeservice.rpc.cart.dto.*;
 import cn.iocoder.mall.tradeservice.service.cart.CartService;
 import cn.iocoder.mall.tradeservice.service.cart.bo.CartItemBO;
+import cn.iocoder.mall.tradeservice.service.cart.bo.CartItemListQueryBO;
 import cn.iocoder.mall.productservice.rpc.sku.ProductSkuRpc;
 import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuRespDTO;
 import org.apache.dubbo.config.annotation.DubboReference;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.*;
+import java.util.stream.Collectors;
 
 import static cn.iocoder.mall.tradeservice.enums.OrderErrorCodeConstants.CARD_ITEM_SKU_NOT_FOUND;
 
@@ -29,6 +39,13 @@ public class CartManager {
     @Autowired
     private CartService cartService;
 
+    @Autowired
+    private ProductSkuClient productSkuClient;
+    @Autowired
+    private PriceClient priceClient;
+    @Autowired
+    private PromotionActivityClient promotionActivityClient;
+
     /**
      * 添加商品到购物车
      *
@@ -95,6 +112,70 @@ public class CartManager {
         return CartConvert.INSTANCE.convertList02(cartItemBOs);
     }
 
+    /**
+     * 查询用户的购物车明细
+     *
+     * 合并商品 SKU、价格计算、促销活动的查询，调用方只需要一次 RPC 调用。
+     * 价格计算使用的商品价格，由 promotion-service 自行从商品服务查询，不信任调用方传入的价格
+     *
+     * @param userId 用户编号
+     * @return 购物车明细
+     */
+    public CartDetailRespDTO getCartDetail(Integer userId) {
+        // 获得购物车的商品
+        List<CartItemBO> cartItemBOs = cartService.listCartItems(new CartItemListQueryBO().setUserId(userId));
+        // 购物车为空时，构造空的 CartDetailRespDTO 返回
+        if (CollectionUtils.isEmpty(cartItemBOs)) {
+            return new CartDetailRespDTO().setItemGroups(Collections.emptyList())
+                    .setFee(new PriceProductCalcRespDTO.Fee(0, 0, 0, 0));
+        }
+        // 获得商品 SKU 信息
+        Map<Integer, ProductSkuRespDTO> productSkuMap = CollectionUtils.convertMap(productSkuClient.listProductSkus(
+                CollectionUtils.convertSet(cartItemBOs, CartItemBO::getSkuId),
+                ProductSkuDetailFieldEnum.SPU.getField(), ProductSkuDetailFieldEnum.ATTR.getField()), ProductSkuRespDTO::getId);
+        // 计算商品价格
+        PriceProductCalcRespDTO calcRespDTO = priceClient.calcProductPrice(userId, cartItemBOs.stream()
+                .map(cartItem -> new PriceProductCalcReqDTO.Item(cartItem.getSkuId(), cartItem.getQuantity(), cartItem.getSelected()))
+                .collect(Collectors.toList()), null);
+        // 获得促销活动信息
+        Map<Integer, PromotionActivityRespDTO> promotionActivityMap = this.getPromotionActivityMap(calcRespDTO);
+        // 拼接结果
+        CartDetailRespDTO cartDetail = new CartDetailRespDTO().setFee(calcRespDTO.getFee())
+                .setItemGroups(new ArrayList<>(calcRespDTO.getItemGroups().size()));
+        for (PriceProductCalcRespDTO.ItemGroup itemGroupDTO : calcRespDTO.getItemGroups()) {
+            CartDetailRespDTO.ItemGroup itemGroup = new CartDetailRespDTO.ItemGroup()
+                    .setItems(new ArrayList<>(itemGroupDTO.getItems().size()));
+            cartDetail.getItemGroups().add(itemGroup);
+            // 活动信息
+            if (itemGroupDTO.getActivityId() != null) {
+                itemGroup.setActivity(promotionActivityMap.get(itemGroupDTO.getActivityId()))
+                        .setActivityDiscountTotal(itemGroupDTO.getActivityDiscountTotal());
+            }
+            // 商品 SKU 信息
+            itemGroupDTO.getItems().forEach(item -> itemGroup.getItems().add(new CartDetailRespDTO.Item().setPrice(item)
+                    .setSku(productSkuMap.get(item.getSkuId())).setActivity(promotionActivityMap.get(item.getActivityId()))));
+        }
+        return cartDetail;
+    }
+
+    private Map<Integer, PromotionActivityRespDTO> getPromotionActivityMap(PriceProductCalcRespDTO calcRespDTO) {
+        // 获得所有促销活动编号
+        Set<Integer> activityIds = new HashSet<>();
+        calcRespDTO.getItemGroups().forEach(itemGroup -> {
+            if (itemGroup.getActivityId() != null) {
+                activityIds.add(itemGroup.getActivityId());
+            }
+            itemGroup.getItems().forEach(item -> {
+                if (item.getActivityId() != null) {
+                    activityIds.add(item.getActivityId());
+                }
+            });
+        });
+        // 查询促销活动列表
+        return CollectionUtils.convertMap(promotionActivityClient.listPromotionActivities(activityIds),
+                PromotionActivityRespDTO::getId);
+    }
+
     /**
      * 校验商品 SKU 是否合法
      * 1. 是否存在
@@ -5,29 +5,50 @@ import cn.iocoder.common.framework.util.CollectionUtils;
 import cn.iocoder.mall.tradeservice.convert.cart.CartConvert;
 import cn.iocoder.mall.tradeservice.dal.mysql.dataobject.cart.CartItemDO;
 import cn.iocoder.mall.tradeservice.dal.mysql.mapper.cart.CartItemMapper;
+import cn.iocoder.mall.tradeservice.dal.redis.dao.CartItemRedisDAO;
 import cn.iocoder.mall.tradeservice.service.cart.bo.CartItemAddBO;
 import cn.iocoder.mall.tradeservice.service.cart.bo.CartItemBO;
 import cn.iocoder.mall.tradeservice.service.cart.bo.CartItemListQueryBO;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
 import javax.validation.Valid;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
 
 import static cn.iocoder.mall.tradeservice.enums.OrderErrorCodeConstants.CARD_ITEM_NOT_FOUND;
 import static cn.iocoder.mall.tradeservice.enums.OrderErrorCodeConstants.CARD_ITEM_SKU_QUANTITY_NOT_ENOUGH;
 
 /**
  * 购物车 Service
+ *
+ * 购物车的读写都在 Redis 中完成，每个用户一个 Hash ，并维护商品总数量，从而让高频的购物车角标查询不再访问 MySQL。
+ * Redis 中的购物车不存在（首次访问、或者过期）时，从 MySQL 加载。
+ *
+ * 发生变化的用户编号记录到待回写集合中，由 {@link #writeBackCartItems(int, int)} 异步回写到 cart_item 表，
+ * 所以 cart_item 表的数据存在秒级的延迟，仅作为持久化使用
  */
 @Service
 @Validated
+@Slf4j
 public class CartService {
 
+    /**
+     * 购物车结果 - 购物车未加载到 Redis
+     */
+    private static final long RESULT_NOT_LOADED = -1;
+    /**
+     * 购物车结果 - 库存不足，或者商品不在购物车中
+     */
+    private static final long RESULT_FAILURE = 0;
+
     @Autowired
     private CartItemMapper cartItemMapper;
+    @Autowired
+    private CartItemRedisDAO cartItemRedisDAO;
 
     /**
      * 添加商品到购物车
@@ -36,24 +57,12 @@ public class CartService {
      * @param skuQuantity 商品 SKU 的库存，主要用于库存校验
      */
     public void addCartItem(@Valid CartItemAddBO addBO, Integer skuQuantity) {
-        // 查询 CartItemDO
-        CartItemDO itemDO = cartItemMapper.selectByUserIdAndSkuId(addBO.getUserId(), addBO.getSkuId());
-        // 存在，则进行数量更新
-        if (itemDO != null) {
-            if (addBO.getQuantity() + itemDO.getQuantity() > skuQuantity) {
-                // 校验库存
-                throw ServiceExceptionUtil.exception(CARD_ITEM_SKU_QUANTITY_NOT_ENOUGH);
-            }
-            cartItemMapper.updateById(new CartItemDO().setId(itemDO.getId()).setSelected(true)
-                    .setQuantity(addBO.getQuantity() + itemDO.getQuantity()));
-            return;
-        }
-        // 不存在，则进行插入
-        if (addBO.getQuantity() > skuQuantity) {
-            // 校验库存
+        // 不存在，则进行插入；存在，则进行数量更新。在 Lua 脚本中，同时进行库存的校验
+        long result = execute(addBO.getUserId(), () -> cartItemRedisDAO.add(addBO.getUserId(), addBO.getSkuId(),
+                addBO.getSpuId(), addBO.getQuantity(), skuQuantity));
+        if (result == RESULT_FAILURE) {
             throw ServiceExceptionUtil.exception(CARD_ITEM_SKU_QUANTITY_NOT_ENOUGH);
         }
-        cartItemMapper.insert(CartConvert.INSTANCE.convert(addBO).setSelected(true));
     }
 
     /**
@@ -69,13 +78,11 @@ public class CartService {
             // 校验库存
             throw ServiceExceptionUtil.exception(CARD_ITEM_SKU_QUANTITY_NOT_ENOUGH);
         }
-        // 查询 CartItemDO
-        CartItemDO itemDO = cartItemMapper.selectByUserIdAndSkuId(userId, skuId);
-        if (itemDO == null) {
+        // 更新数量
+        long result = execute(userId, () -> cartItemRedisDAO.updateQuantity(userId, skuId, quantity));
+        if (result == RESULT_FAILURE) {
             throw ServiceExceptionUtil.exception(CARD_ITEM_NOT_FOUND);
         }
-        // 更新数量
-        cartItemMapper.updateById(new CartItemDO().setId(itemDO.getId()).setQuantity(quantity));
     }
 
     /**
@@ -86,14 +93,10 @@ public class CartService {
      * @param selected 是否选中
      */
     public void updateCartItemSelected(Integer userId, Collection<Integer> skuIds, Boolean selected) {
-        // 查询 CartItemDO 列表
-        List<CartItemDO> itemDOs = cartItemMapper.selectListByUserIdAndSkuIds(userId, skuIds);
-        if (skuIds.size() != itemDOs.size()) {
+        long result = execute(userId, () -> cartItemRedisDAO.updateSelected(userId, skuIds, selected));
+        if (result == RESULT_FAILURE) {
             throw ServiceExceptionUtil.exception(CARD_ITEM_NOT_FOUND);
         }
-        // 更新选中
-        cartItemMapper.updateByIds(CollectionUtils.convertSet(itemDOs, CartItemDO::getId),
-                new CartItemDO().setSelected(selected));
     }
 
     /**
@@ -103,13 +106,10 @@ public class CartService {
      * @param skuIds 商品 SKU 编号的数组
      */
     public void deleteCartItems(Integer userId, List<Integer> skuIds) {
-        // 查询 CartItemDO 列表
-        List<CartItemDO> itemDOs = cartItemMapper.selectListByUserIdAndSkuIds(userId, skuIds);
-        if (CollectionUtils.isEmpty(itemDOs)) {
+        if (CollectionUtils.isEmpty(skuIds)) {
             return;
         }
-        // 批量标记删除
-        cartItemMapper.deleteBatchIds(CollectionUtils.convertSet(itemDOs, CartItemDO::getId));
+        execute(userId, () -> cartItemRedisDAO.delete(userId, skuIds));
     }
 
     /**
@@ -119,7 +119,12 @@ public class CartService {
      * @return 商品数量
      */
     public Integer sumCartItemQuantity(Integer userId) {
-        return cartItemMapper.selectSumQuantityByUserId(userId);
+        Integer total = cartItemRedisDAO.getTotal(userId);
+        if (total == null) {
+            loadCartItems(userId);
+            total = cartItemRedisDAO.getTotal(userId);
+        }
+        return total != null ? total : 0;
     }
 
     /**
@@ -129,8 +134,95 @@ public class CartService {
      * @return 购物车中商品列表信息
      */
     public List<CartItemBO> listCartItems(CartItemListQueryBO queryBO) {
-        List<CartItemDO> cartItemDOs = cartItemMapper.selectList(queryBO);
+        List<CartItemDO> cartItemDOs = cartItemRedisDAO.list(queryBO.getUserId());
+        if (cartItemDOs == null) {
+            loadCartItems(queryBO.getUserId());
+            cartItemDOs = cartItemRedisDAO.list(queryBO.getUserId());
+        }
+        if (cartItemDOs == null) {
+            return Collections.emptyList();
+        }
+        if (queryBO.getSelected() != null) {
+            cartItemDOs = cartItemDOs.stream().filter(itemDO -> queryBO.getSelected().equals(itemDO.getSelected()))
+                    .collect(Collectors.toList());
+        }
         return CartConvert.INSTANCE.convertList(cartItemDOs);
     }
 
+    /**
+     * 将 Redis 中发生变化的购物车，回写到 MySQL 中
+     *
+     * @param shard 待回写集合的分片编号
+     * @param limit 最大用户数量
+     * @return 回写的用户数量
+     */
+    public int writeBackCartItems(int shard, int limit) {
+        List<Integer> userIds = cartItemRedisDAO.popDirtyUserIds(shard, limit);
+        for (Integer userId : userIds) {
+            try {
+                writeBackCartItems(userId);
+            } catch (Throwable th) {
+                // 回写失败，重新标记，等待下次回写。回写是按照 Redis 的最新数据比对，所以重复回写是幂等的
+                log.error("[writeBackCartItems][用户({}) 回写购物车发生异常]", userId, th);
+                cartItemRedisDAO.addDirtyUserId(userId);
+            }
+        }
+        return userIds.size();
+    }
+
+    private void writeBackCartItems(Integer userId) {
+        List<CartItemDO> redisItems = cartItemRedisDAO.list(userId);
+        if (redisItems == null) {
+            log.warn("[writeBackCartItems][用户({}) 的购物车已经过期，无法回写]", userId);
+            return;
+        }
+        Map<Integer, CartItemDO> redisItemMap = CollectionUtils.convertMap(redisItems, CartItemDO::getSkuId);
+        // 比对 MySQL 中的数据，更新变化的、删除不存在的。相同商品 SKU 存在多条记录时，只保留一条
+        List<Integer> deleteIds = new ArrayList<>();
+        for (CartItemDO dbItem : cartItemMapper.selectListByUserId(userId)) {
+            CartItemDO redisItem = redisItemMap.remove(dbItem.getSkuId());
+            if (redisItem == null) {
+                deleteIds.add(dbItem.getId());
+            } else if (!Objects.equals(redisItem.getQuantity(), dbItem.getQuantity())
+                    || !Objects.equals(redisItem.getSelected(), dbItem.getSelected())) {
+                cartItemMapper.updateById(new CartItemDO().setId(dbItem.getId()).setQuantity(redisItem.getQuantity())
+                        .setSelected(redisItem.getSelected()));
+            }
+        }
+        // 插入新增的
+        redisItemMap.values().forEach(cartItemMapper::insert);
+        if (!deleteIds.isEmpty()) {
+            cartItemMapper.deleteBatchIds(deleteIds);
+        }
+    }
+
+    /**
+     * 执行购物车的修改。如果购物车未加载到 Redis ，则从 MySQL 加载后重试；修改成功后，标记待回写
+     *
+     * @param userId 用户编号
+     * @param action 修改操作
+     * @return 结果
+     */
+    private long execute(Integer userId, LongSupplier action) {
+        long result = action.getAsLong();
+        if (result == RESULT_NOT_LOADED) {
+            loadCartItems(userId);
+            result = action.getAsLong();
+        }
+        if (result == RESULT_NOT_LOADED) {
+            throw new IllegalStateException(String.format("用户(%d) 的购物车加载到 Redis 失败", userId));
+        }
+        if (result != RESULT_FAILURE) {
+            cartItemRedisDAO.addDirtyUserId(userId);
+        }
+        return result;
+    }
+
+    private void loadCartItems(Integer userId) {
+        // 相同商品 SKU 存在多条记录时，只保留第一条，多余的由回写删除
+        Map<Integer, CartItemDO> itemMap = new LinkedHashMap<>();
+        cartItemMapper.selectListByUserId(userId).forEach(itemDO -> itemMap.putIfAbsent(itemDO.getSkuId(), itemDO));
+        cartItemRedisDAO.load(userId, new ArrayList<>(itemMap.values()));
+    }
+
 }
@@ -3,11 +3,12 @@ package cn.iocoder.mall.tradeservice.service.order.impl;
 import cn.iocoder.common.framework.exception.util.ServiceExceptionUtil;
 import cn.iocoder.common.framework.util.CollectionUtils;
 import cn.iocoder.common.framework.util.DateUtil;
-import cn.iocoder.common.framework.util.MathUtil;
 import cn.iocoder.common.framework.vo.PageResult;
+import cn.iocoder.mall.id.core.SnowflakeIdGenerator;
 import cn.iocoder.mall.payservice.rpc.transaction.dto.PayTransactionCreateReqDTO;
 import cn.iocoder.mall.productservice.enums.sku.ProductSkuDetailFieldEnum;
 import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuRespDTO;
+import cn.iocoder.mall.productservice.rpc.sku.dto.ProductSkuStockReserveReqDTO;
 import cn.iocoder.mall.promotion.api.rpc.price.dto.PriceProductCalcReqDTO;
 import cn.iocoder.mall.promotion.api.rpc.price.dto.PriceProductCalcRespDTO;
 import cn.iocoder.mall.tradeservice.client.pay.PayTransactionClient;
@@ -15,6 +16,8 @@ import cn.iocoder.mall.tradeservice.client.product.ProductSkuClient;
 import cn.iocoder.mall.tradeservice.client.promotion.CouponCardClient;
 import cn.iocoder.mall.tradeservice.client.promotion.PriceClient;
 import cn.iocoder.mall.tradeservice.client.user.UserAddressClient;
+import cn.iocoder.mall.tradeservice.common.async.ParallelInvoker;
+import cn.iocoder.mall.tradeservice.config.AsyncConfiguration;
 import cn.iocoder.mall.tradeservice.config.TradeBizProperties;
 import cn.iocoder.mall.tradeservice.convert.order.TradeOrderConvert;
 import cn.iocoder.mall.tradeservice.dal.mysql.dataobject.order.TradeOrderDO;
@@ -31,11 +34,15 @@ import cn.iocoder.mall.tradeservice.rpc.order.dto.TradeOrderRespDTO;
 import cn.iocoder.mall.tradeservice.service.order.TradeOrderService;
 import cn.iocoder.mall.userservice.rpc.address.dto.UserAddressRespDTO;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import static cn.iocoder.common.framework.util.CollectionUtils.convertSet;
@@ -46,8 +53,16 @@ import static cn.iocoder.mall.userservice.enums.UserErrorCodeConstants.USER_ADDR
  * 交易订单 Service 实现
  */
 @Service
+@Slf4j
 public class TradeOrderServiceImpl implements TradeOrderService {
 
+    /**
+     * 库存预占的额外过期时间，单位：分钟
+     *
+     * 在支付超时时间的基础上额外延长，避免支付回调晚于预占过期
+     */
+    private static final int STOCK_RESERVE_EXTRA_EXPIRE_TIME = 10;
+
     @Autowired
     private TradeOrderMapper tradeOrderMapper;
     @Autowired
@@ -70,37 +85,70 @@ public class TradeOrderServiceImpl implements TradeOrderService {
     @Autowired
     private TradeBizProperties tradeBizProperties;
 
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+
+    @Autowired
+    @Qualifier(AsyncConfiguration.TRADE_ORDER_CREATE_EXECUTOR)
+    private Executor tradeOrderCreateExecutor;
+
     @Override
 //    @GlobalTransactional TODO 芋艿，使用 seata 实现分布式事务
     public Integer createTradeOrder(TradeOrderCreateReqDTO createReqDTO) {
+        // 并行调用上游服务：收件地址、商品信息、价格计算互不依赖，整体耗时取决于最慢的调用
+        ParallelInvoker invoker = new ParallelInvoker("trade.order.create",
+                tradeBizProperties.getOrderCreate().getParallelEnable() ? tradeOrderCreateExecutor : Runnable::run);
         // 获得收件地址
-        UserAddressRespDTO userAddressRespDTO = userAddressClient.getUserAddress(createReqDTO.getUserAddressId(),
-                createReqDTO.getUserId());
-        if (userAddressRespDTO == null) {
-            throw ServiceExceptionUtil.exception(USER_ADDRESS_NOT_FOUND);
-        }
+        CompletableFuture<UserAddressRespDTO> userAddressFuture = invoker.submit("getUserAddress", () -> {
+            UserAddressRespDTO userAddressRespDTO = userAddressClient.getUserAddress(createReqDTO.getUserAddressId(),
+                    createReqDTO.getUserId());
+            if (userAddressRespDTO == null) {
+                throw ServiceExceptionUtil.exception(USER_ADDRESS_NOT_FOUND);
+            }
+            return userAddressRespDTO;
+        });
         // 获得商品信息
-        List<ProductSkuRespDTO> listProductSkus = productSkuClient.listProductSkus(
-                convertSet(createReqDTO.getOrderItems(), TradeOrderCreateReqDTO.OrderItem::getSkuId),
-                ProductSkuDetailFieldEnum.SPU.getField());
-        if (listProductSkus.size() != createReqDTO.getOrderItems().size()) { // 校验获得的数量，是否匹配
-            throw ServiceExceptionUtil.exception(ORDER_GET_GOODS_INFO_INCORRECT);
-        }
+        CompletableFuture<List<ProductSkuRespDTO>> listProductSkusFuture = invoker.submit("listProductSkus", () -> {
+            List<ProductSkuRespDTO> listProductSkus = productSkuClient.listProductSkus(
+                    convertSet(createReqDTO.getOrderItems(), TradeOrderCreateReqDTO.OrderItem::getSkuId),
+                    ProductSkuDetailFieldEnum.SPU.getField());
+            if (listProductSkus.size() != createReqDTO.getOrderItems().size()) { // 校验获得的数量，是否匹配
+                throw ServiceExceptionUtil.exception(ORDER_GET_GOODS_INFO_INCORRECT);
+            }
+            return listProductSkus;
+        });
         // 价格计算
-        PriceProductCalcRespDTO priceProductCalcRespDTO = priceClient.calcProductPrice(createReqDTO.getUserId(),
-                createReqDTO.getOrderItems().stream().map(orderItem -> new PriceProductCalcReqDTO.Item().setSkuId(orderItem.getSkuId())
-                        .setQuantity(orderItem.getQuantity()).setSelected(true)).collect(Collectors.toList()),
-                createReqDTO.getCouponCardId());
+        CompletableFuture<PriceProductCalcRespDTO> priceProductCalcFuture = invoker.submit("calcProductPrice",
+                () -> priceClient.calcProductPrice(createReqDTO.getUserId(),
+                        createReqDTO.getOrderItems().stream().map(orderItem -> new PriceProductCalcReqDTO.Item().setSkuId(orderItem.getSkuId())
+                                .setQuantity(orderItem.getQuantity()).setSelected(true)).collect(Collectors.toList()),
+                        createReqDTO.getCouponCardId()));
+        // 等待全部完成。任一调用失败，则立即抛出异常
+        invoker.await(tradeBizProperties.getOrderCreate().getTimeout(), ORDER_CREATE_TIMEOUT);
+        UserAddressRespDTO userAddressRespDTO = userAddressFuture.join();
+        List<ProductSkuRespDTO> listProductSkus = listProductSkusFuture.join();
+        PriceProductCalcRespDTO priceProductCalcRespDTO = priceProductCalcFuture.join();
 
-        // TODO 芋艿，扣除库存
+        // 预占库存。使用交易订单号作为预占编号，在支付成功时确认
+        String orderNo = generateTradeOrderNo();
+        productSkuClient.reserveProductSkuStock(orderNo, createReqDTO.getOrderItems().stream().map(orderItem -> new ProductSkuStockReserveReqDTO.Item()
+                        .setSkuId(orderItem.getSkuId()).setQuantity(orderItem.getQuantity())).collect(Collectors.toList()),
+                DateUtil.addDate(Calendar.MINUTE, tradeBizProperties.getPayExpireTime() + STOCK_RESERVE_EXTRA_EXPIRE_TIME));
 
-        // 标记优惠劵已使用
-        if (createReqDTO.getCouponCardId() != null) {
-            couponCardClient.useCouponCard(createReqDTO.getUserId(), createReqDTO.getCouponCardId());
-        }
+        TradeOrderDO tradeOrderDO;
+        try {
+            // 标记优惠劵已使用
+            if (createReqDTO.getCouponCardId() != null) {
+                couponCardClient.useCouponCard(createReqDTO.getUserId(), createReqDTO.getCouponCardId());
+            }
 
-        // 创建交易订单（本地事务）
-        TradeOrderDO tradeOrderDO = self.createTradeOrder0(createReqDTO, listProductSkus, priceProductCalcRespDTO, userAddressRespDTO);
+            // 创建交易订单（本地事务）
+            tradeOrderDO = self.createTradeOrder0(createReqDTO, orderNo, listProductSkus, priceProductCalcRespDTO, userAddressRespDTO);
+        } catch (RuntimeException ex) {
+            // 创建失败，释放预占的库存
+            releaseProductSkuStock(orderNo);
+            throw ex;
+        }
 
         // 创建支付订单，对接支付服务
         createPayTransaction(tradeOrderDO, createReqDTO, listProductSkus);
@@ -108,12 +156,12 @@ public class TradeOrderServiceImpl implements TradeOrderService {
     }
 
     @Transactional
-    public TradeOrderDO createTradeOrder0(TradeOrderCreateReqDTO createReqDTO, List<ProductSkuRespDTO> listProductSkus,
+    public TradeOrderDO createTradeOrder0(TradeOrderCreateReqDTO createReqDTO, String orderNo, List<ProductSkuRespDTO> listProductSkus,
                                      PriceProductCalcRespDTO priceProductCalcRespDTO, UserAddressRespDTO userAddressRespDTO) {
         // 构建 TradeOrderDO 对象，并进行保存
         TradeOrderDO tradeOrderDO = new TradeOrderDO();
         // 1. 基本信息
-        tradeOrderDO.setUserId(createReqDTO.getUserId()).setOrderNo(generateTradeOrderNo())
+        tradeOrderDO.setUserId(createReqDTO.getUserId()).setOrderNo(orderNo)
                 .setOrderStatus(TradeOrderStatusEnum.WAITING_PAYMENT.getValue()).setRemark(createReqDTO.getRemark());
         // 2. 价格 + 支付基本信息
         tradeOrderDO.setBuyPrice(priceProductCalcRespDTO.getFee().getBuyTotal())
@@ -165,6 +213,15 @@ public class TradeOrderServiceImpl implements TradeOrderService {
         return tradeOrderDO;
     }
 
+    private void releaseProductSkuStock(String orderNo) {
+        try {
+            productSkuClient.releaseProductSkuStock(orderNo);
+        } catch (Throwable throwable) {
+            // 释放失败时，预占过期后会被自动释放，所以此处只打印日志
+            log.error("[releaseProductSkuStock][订单号({}) 释放预占库存失败]", orderNo, throwable);
+        }
+    }
+
     private void createPayTransaction(TradeOrderDO tradeOrderDO, TradeOrderCreateReqDTO createReqDTO,
                                       List<ProductSkuRespDTO> listProductSkus) {
         // 创建支付单
@@ -184,21 +241,8 @@ public class TradeOrderServiceImpl implements TradeOrderService {
     }
 
     private String generateTradeOrderNo() {
-//    wx
-//    2014
-//    10
-//    27
-//    20
-//    09
-//    39
-//    5522657
-//    a690389285100
-        // 目前的算法
-        // 时间序列，年月日时分秒 14 位
-        // 纯随机，6 位 TODO 此处估计是会有问题的，后续在调整
-        return DateUtil.format(new Date(), "yyyyMMddHHmmss") + // 时间序列
-                MathUtil.random(100000, 999999) // 随机。为什么是这个范围，因为偷懒
-                ;
+        // 基于 Snowflake 算法生成，单调递增、按时间有序，且多节点之间不重复
+        return snowflakeIdGenerator.nextIdStr();
     }
 
     @Override
@@ -274,6 +318,13 @@ public class TradeOrderServiceImpl implements TradeOrderService {
                 .setStatus(TradeOrderStatusEnum.WAIT_SHIPMENT.getValue());
         tradeOrderItemMapper.updateListByOrderId(updateOrderItemObj, tradeOrderId,
                 TradeOrderStatusEnum.WAITING_PAYMENT.getValue());
+
+        // 确认预占的库存。预占已经超时释放时，product-service 会重新扣减库存
+        // 调用失败时抛出异常，回滚事务，由支付通知重试，保证确认不会丢失
+        if (!productSkuClient.confirmProductSkuStock(tradeOrderDO.getOrderNo())) {
+            // 预占已经被确认（例如说重复通知），或者已释放记录也已经过期，后者需要人工介入
+            log.error("[updateTradeOrderPaySuccess][订单({}) 确认预占库存失败，预占已经不存在]", tradeOrderDO.getOrderNo());
+        }
     }
 
 }
@@ -0,0 +1,28 @@
+-- 添加商品到购物车。已经存在时，累加数量，并选中
+--
+-- KEYS[1] 用户的购物车
+-- ARGV[1] 过期秒数；ARGV[2] 商品 SKU 编号；ARGV[3] 商品 SPU 编号；ARGV[4] 数量；ARGV[5] 商品 SKU 的库存；ARGV[6] 添加时间
+--
+-- 返回 1 添加成功；0 库存不足；-1 购物车未加载到 Redis
+
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+
+local quantity = tonumber(ARGV[4])
+local addTime = ARGV[6]
+local value = redis.call('HGET', KEYS[1], ARGV[2])
+local newQuantity = quantity
+if value then
+    local _, oldQuantity, _, oldAddTime = string.match(value, '^(%d+):(%d+):(%d):(%d+)$')
+    newQuantity = tonumber(oldQuantity) + quantity
+    addTime = oldAddTime
+end
+if newQuantity > tonumber(ARGV[5]) then
+    return 0
+end
+
+redis.call('HSET', KEYS[1], ARGV[2], ARGV[3] .. ':' .. newQuantity .. ':1:' .. addTime)
+redis.call('HINCRBY', KEYS[1], 'total', quantity)
+redis.call('EXPIRE', KEYS[1], ARGV[1])
+return 1
@@ -0,0 +1,23 @@
+-- 购物车删除商品
+--
+-- KEYS[1] 用户的购物车
+-- ARGV[1] 过期秒数；ARGV[2...] 商品 SKU 编号
+--
+-- 返回删除的商品 SKU 数量；-1 购物车未加载到 Redis
+
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+
+local count = 0
+for i = 2, #ARGV do
+    local value = redis.call('HGET', KEYS[1], ARGV[i])
+    if value then
+        local _, quantity = string.match(value, '^(%d+):(%d+):(%d):(%d+)$')
+        redis.call('HDEL', KEYS[1], ARGV[i])
+        redis.call('HINCRBY', KEYS[1], 'total', -tonumber(quantity))
+        count = count + 1
+    end
+end
+redis.call('EXPIRE', KEYS[1], ARGV[1])
+return count
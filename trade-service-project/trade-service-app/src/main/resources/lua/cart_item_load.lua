@@ -0,0 +1,18 @@
+-- 加载用户的购物车
+--
+-- KEYS[1] 用户的购物车
+-- ARGV[1] 过期秒数；ARGV[2] 商品总数量；ARGV[3...] 每个商品 SKU 的编号、值
+--
+-- 返回 1 加载成功；0 已经加载过
+
+-- 已经加载过，不能覆盖，避免覆盖尚未回写的修改
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+
+redis.call('HSET', KEYS[1], 'total', ARGV[2])
+for i = 3, #ARGV, 2 do
+    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+end
+redis.call('EXPIRE', KEYS[1], ARGV[1])
+return 1
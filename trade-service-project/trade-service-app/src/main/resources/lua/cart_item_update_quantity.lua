@@ -0,0 +1,22 @@
+-- 更新购物车商品数量
+--
+-- KEYS[1] 用户的购物车
+-- ARGV[1] 过期秒数；ARGV[2] 商品 SKU 编号；ARGV[3] 数量
+--
+-- 返回 1 更新成功；0 商品不在购物车中；-1 购物车未加载到 Redis
+
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+
+local value = redis.call('HGET', KEYS[1], ARGV[2])
+if not value then
+    return 0
+end
+
+local spuId, oldQuantity, selected, addTime = string.match(value, '^(%d+):(%d+):(%d):(%d+)$')
+local quantity = tonumber(ARGV[3])
+redis.call('HSET', KEYS[1], ARGV[2], spuId .. ':' .. quantity .. ':' .. selected .. ':' .. addTime)
+redis.call('HINCRBY', KEYS[1], 'total', quantity - tonumber(oldQuantity))
+redis.call('EXPIRE', KEYS[1], ARGV[1])
+return 1
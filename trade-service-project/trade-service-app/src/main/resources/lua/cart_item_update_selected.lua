@@ -0,0 +1,27 @@
+-- 更新购物车商品是否选中
+--
+-- KEYS[1] 用户的购物车
+-- ARGV[1] 过期秒数；ARGV[2] 是否选中（1 选中；0 未选中）；ARGV[3...] 商品 SKU 编号
+--
+-- 返回 1 更新成功；0 存在商品不在购物车中；-1 购物车未加载到 Redis
+
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+
+-- 先全部校验，再全部更新，保证多个商品 SKU 的原子性
+local values = {}
+for i = 3, #ARGV do
+    local value = redis.call('HGET', KEYS[1], ARGV[i])
+    if not value then
+        return 0
+    end
+    values[i] = value
+end
+
+for i = 3, #ARGV do
+    local spuId, quantity, _, addTime = string.match(values[i], '^(%d+):(%d+):(%d):(%d+)$')
+    redis.call('HSET', KEYS[1], ARGV[i], spuId .. ':' .. quantity .. ':' .. ARGV[2] .. ':' .. addTime)
+end
+redis.call('EXPIRE', KEYS[1], ARGV[1])
+return 1
@@ -0,0 +1,149 @@
+package cn.iocoder.mall.tradeservice.common.async;
+
+import cn.iocoder.common.framework.exception.ErrorCode;
+import cn.iocoder.mall.dubbo.core.router.DubboRouterTagContextHolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link ParallelInvoker} 与 {@link DubboRouterTagTaskDecorator} 的单元测试
+ *
+ * 线程池的配置和 AsyncConfiguration 一致：1 个线程、无队列、CallerRunsPolicy，从而可以构造出由调用方线程执行的场景
+ */
+public class ParallelInvokerTest {
+
+    private static final ErrorCode TIMEOUT = new ErrorCode(1, "等待超时");
+
+    private ThreadPoolTaskExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(new DubboRouterTagTaskDecorator());
+        executor.initialize();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+        DubboRouterTagContextHolder.clear();
+    }
+
+    @Test
+    public void testSubmitPropagatesTag() {
+        DubboRouterTagContextHolder.setTag("gray");
+        AtomicReference<String> stageTag = new AtomicReference<>();
+        AtomicReference<Thread> stageThread = new AtomicReference<>();
+        ParallelInvoker invoker = new ParallelInvoker("test", executor);
+        invoker.submit("stage", () -> {
+            stageTag.set(DubboRouterTagContextHolder.getTag());
+            stageThread.set(Thread.currentThread());
+            return null;
+        });
+        invoker.await(1000, TIMEOUT);
+
+        Assert.assertNotSame(Thread.currentThread(), stageThread.get());
+        Assert.assertEquals("gray", stageTag.get());
+        Assert.assertEquals("gray", DubboRouterTagContextHolder.getTag());
+    }
+
+    @Test
+    public void testSubmitClearsTagOfPoolThread() {
+        DubboRouterTagContextHolder.setTag("gray");
+        ParallelInvoker invoker = new ParallelInvoker("test", executor);
+        invoker.submit("stage", () -> null);
+        invoker.await(1000, TIMEOUT);
+
+        // 线程池的线程执行完成后，不能残留上一个任务的 Tag
+        DubboRouterTagContextHolder.clear();
+        AtomicReference<String> stageTag = new AtomicReference<>("not executed");
+        invoker = new ParallelInvoker("test", executor);
+        invoker.submit("stage", () -> {
+            stageTag.set(DubboRouterTagContextHolder.getTag());
+            return null;
+        });
+        invoker.await(1000, TIMEOUT);
+        Assert.assertNull(stageTag.get());
+    }
+
+    @Test
+    public void testCallerRunsKeepsCallerTag() throws InterruptedException {
+        // 占满线程池唯一的线程
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        started.await();
+
+        DubboRouterTagContextHolder.setTag("gray");
+        AtomicReference<String> stageTag = new AtomicReference<>();
+        AtomicReference<Thread> stageThread = new AtomicReference<>();
+        ParallelInvoker invoker = new ParallelInvoker("test", executor);
+        try {
+            invoker.submit("stage", () -> {
+                stageTag.set(DubboRouterTagContextHolder.getTag());
+                stageThread.set(Thread.currentThread());
+                return null;
+            });
+            invoker.await(1000, TIMEOUT);
+        } finally {
+            release.countDown();
+        }
+
+        // 被拒绝后由调用方线程执行，执行后调用方线程的 Tag 仍然存在
+        Assert.assertSame(Thread.currentThread(), stageThread.get());
+        Assert.assertEquals("gray", stageTag.get());
+        Assert.assertEquals("gray", DubboRouterTagContextHolder.getTag());
+    }
+
+    @Test
+    public void testDecoratorRestoresPreviousTag() {
+        DubboRouterTagContextHolder.setTag("gray");
+        AtomicReference<String> taskTag = new AtomicReference<>();
+        Runnable task = new DubboRouterTagTaskDecorator().decorate(() -> taskTag.set(DubboRouterTagContextHolder.getTag()));
+
+        // 在另一个 Tag 的线程中执行，执行时使用提交时的 Tag，执行后恢复原有的 Tag
+        DubboRouterTagContextHolder.setTag("blue");
+        task.run();
+        Assert.assertEquals("gray", taskTag.get());
+        Assert.assertEquals("blue", DubboRouterTagContextHolder.getTag());
+
+        // 原来没有 Tag 时，执行后清空
+        DubboRouterTagContextHolder.clear();
+        task.run();
+        Assert.assertEquals("gray", taskTag.get());
+        Assert.assertNull(DubboRouterTagContextHolder.getTag());
+    }
+
+    @Test
+    public void testAwaitFailFast() {
+        ParallelInvoker invoker = new ParallelInvoker("test", executor);
+        IllegalStateException failure = new IllegalStateException("失败");
+        invoker.submit("failure", () -> {
+            throw failure;
+        });
+        try {
+            invoker.await(1000, TIMEOUT);
+            Assert.fail("未抛出异常");
+        } catch (IllegalStateException ex) {
+            Assert.assertSame(failure, ex);
+        }
+    }
+
+}